@@ -10,7 +10,10 @@ import androidx.work.WorkManager;
 
 import com.caleb.scheduledplayer.data.database.AppDatabase;
 import com.caleb.scheduledplayer.data.repository.TaskLogRepository;
+import com.caleb.scheduledplayer.service.fleet.FleetRuntime;
+import com.caleb.scheduledplayer.service.scheduler.OversubscriptionAnalyzer;
 import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
+import com.caleb.scheduledplayer.service.scheduler.TimeChangeTracker;
 import com.caleb.scheduledplayer.service.worker.TaskCheckWorker;
 import com.caleb.scheduledplayer.util.AppLogger;
 import com.caleb.scheduledplayer.util.HuaweiDeviceHelper;
@@ -44,6 +47,12 @@ public class ScheduledPlayerApp extends Application implements Configuration.Pro
         // 启动定期任务检查（华为设备备份方案）
         initTaskCheckWorker();
         
+        // 记录墙上时钟基准和时区，系统时间/时区改变时据此算出变化量
+        new TimeChangeTracker(this).recordIfMissing();
+        
+        // 按设置启动多设备协同（控制端/跟随端），需在调度管理器创建之前
+        FleetRuntime.getInstance(this).start();
+        
         // 重新调度所有任务（确保应用启动后任务正常）
         // 注意：这里只在应用进程启动时执行一次，不会因为 Activity 重建而重复执行
         rescheduleAllTasks();
@@ -71,6 +80,8 @@ public class ScheduledPlayerApp extends Application implements Configuration.Pro
      */
     private void initDatabase() {
         database = AppDatabase.getInstance(this);
+        // 任务表有写入时只重新索引时段变化的任务
+        OversubscriptionAnalyzer.getInstance().attachTo(database);
     }
 
     /**
@@ -115,14 +126,14 @@ public class ScheduledPlayerApp extends Application implements Configuration.Pro
     }
 
     /**
-     * 重新调度所有启用的任务
-     * 应用启动时执行一次，确保闹钟正确设置
+     * 重新调度受影响的任务（处于时间窗口内或触发时间已过）
+     * 应用启动时执行一次，确保闹钟正确设置；其他任务的闹钟事件已从数据库恢复
      */
     private void rescheduleAllTasks() {
         new Thread(() -> {
             try {
                 android.util.Log.d("ScheduledPlayerApp", "Rescheduling all tasks on app start");
-                TaskScheduleManager.getInstance(this).rescheduleAllTasks();
+                TaskScheduleManager.getInstance(this).rescheduleAffectedTasks();
             } catch (Exception e) {
                 android.util.Log.e("ScheduledPlayerApp", "Error rescheduling tasks", e);
             }
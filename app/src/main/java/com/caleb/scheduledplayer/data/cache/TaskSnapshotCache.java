@@ -0,0 +1,266 @@
+package com.caleb.scheduledplayer.data.cache;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.caleb.scheduledplayer.data.dao.TaskDao;
+import com.caleb.scheduledplayer.data.database.AppDatabase;
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.util.AppLogger;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任务快照缓存
+ * 进程内按任务 ID 缓存任务快照，闹钟处理时直接读取，常见情况下不访问数据库
+ *
+ * 一致性：
+ * - 快照的更新时间与数据库一致时视为最新。tasks 表有写入时，Room 的 InvalidationTracker 通知缓存在后台
+ *   只读取各任务的更新时间（见 {@link #refreshChanged}），移除不一致或已删除的快照，这些任务下次读取时再单独加载
+ * - 调度器自身的状态写入通过 {@link #put} / {@link #evict} 立即更新缓存，写入数据库后由
+ *   {@link #onStateWritten} 同步快照的更新时间，因此这些写入引起的失效通知不会移除快照
+ * - 每次更新都会递增版本号，加载期间版本变化则丢弃加载结果，避免旧数据覆盖新数据
+ *
+ * 缓存中的快照不会被修改，读取时返回副本
+ */
+public class TaskSnapshotCache {
+
+    private static final String TAG = "TaskSnapshotCache";
+
+    private static final String TABLE_TASKS = "tasks";
+
+    private static volatile TaskSnapshotCache instance;
+
+    private final TaskDao taskDao;
+
+    // 从数据库读取之前执行，提交延迟写入的更新（见 setLoadBarrier）
+    private volatile Runnable loadBarrier;
+
+    private final Map<Long, TaskEntity> snapshots = new HashMap<>();
+    private long version = 0;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong staleCount = new AtomicLong();
+
+    /**
+     * 获取单例实例，首次创建时注册 tasks 表的失效监听并在后台预加载
+     */
+    public static TaskSnapshotCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (TaskSnapshotCache.class) {
+                if (instance == null) {
+                    AppDatabase database = AppDatabase.getInstance(context);
+                    TaskSnapshotCache cache = new TaskSnapshotCache(database.taskDao());
+                    database.getInvalidationTracker().addObserver(
+                            new InvalidationTracker.Observer(TABLE_TASKS) {
+                                @Override
+                                public void onInvalidated(@NonNull Set<String> tables) {
+                                    // 通知之前开始的加载可能读到了修改前的数据，一律丢弃
+                                    cache.discardPendingLoads();
+                                    database.getQueryExecutor().execute(cache::refreshChanged);
+                                }
+                            });
+                    database.getQueryExecutor().execute(cache::reload);
+                    instance = cache;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 创建不监听数据库失效的缓存
+     * 供模拟器等只通过调度器写入任务的场景使用
+     */
+    public TaskSnapshotCache(TaskDao taskDao) {
+        this.taskDao = taskDao;
+    }
+
+    /**
+     * 设置从数据库读取之前执行的操作
+     * 写入方延迟写入数据库时设置，保证未命中和重新加载时读到已提交的更新
+     */
+    public void setLoadBarrier(Runnable barrier) {
+        this.loadBarrier = barrier;
+    }
+
+    /**
+     * 获取任务快照的副本，未命中时从数据库读取
+     * 未命中时必须在后台线程调用
+     *
+     * @return 任务副本，任务不存在时返回 null
+     */
+    public TaskEntity get(long taskId) {
+        long loadVersion;
+        synchronized (this) {
+            TaskEntity snapshot = snapshots.get(taskId);
+            if (snapshot != null) {
+                hitCount.incrementAndGet();
+                return snapshot.copy();
+            }
+            loadVersion = version;
+        }
+
+        missCount.incrementAndGet();
+        runLoadBarrier();
+        TaskEntity task = taskDao.getTaskByIdSync(taskId);
+        if (task != null) {
+            synchronized (this) {
+                if (version == loadVersion) {
+                    snapshots.put(taskId, task.copy());
+                }
+            }
+        }
+        return task;
+    }
+
+    /**
+     * 写入任务的最新状态（调用方已将相同内容写入或即将写入数据库）
+     * 更新时间不早于原快照：状态写入可能在调用方更新缓存之前已经提交并同步了原快照的更新时间
+     */
+    public synchronized void put(TaskEntity task) {
+        version++;
+        TaskEntity snapshot = task.copy();
+        TaskEntity existing = snapshots.get(task.getId());
+        if (existing != null && existing.getUpdatedAt() > snapshot.getUpdatedAt()) {
+            snapshot.setUpdatedAt(existing.getUpdatedAt());
+        }
+        snapshots.put(task.getId(), snapshot);
+    }
+
+    /**
+     * 调度器的状态写入提交后调用
+     * 写入前数据库中的更新时间与快照一致时，把快照的更新时间改为写入值，之后的失效通知不会移除该快照；
+     * 不一致说明写入前有其他写入者修改过该任务，移除快照
+     *
+     * @param previousUpdatedAt 写入事务中读取的写入前更新时间
+     * @param writtenUpdatedAt 写入的更新时间，0 表示未修改
+     */
+    public synchronized void onStateWritten(long taskId, long previousUpdatedAt, long writtenUpdatedAt) {
+        TaskEntity snapshot = snapshots.get(taskId);
+        if (snapshot == null) {
+            return;
+        }
+        if (snapshot.getUpdatedAt() != previousUpdatedAt) {
+            version++;
+            snapshots.remove(taskId);
+            staleCount.incrementAndGet();
+            return;
+        }
+        if (writtenUpdatedAt > 0 && writtenUpdatedAt != previousUpdatedAt) {
+            TaskEntity stamped = snapshot.copy();
+            stamped.setUpdatedAt(writtenUpdatedAt);
+            snapshots.put(taskId, stamped);
+        }
+    }
+
+    /**
+     * 移除任务快照，下次读取时从数据库加载
+     */
+    public synchronized void evict(long taskId) {
+        version++;
+        snapshots.remove(taskId);
+    }
+
+    /**
+     * 清空所有快照
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        snapshots.clear();
+    }
+
+    /**
+     * 丢弃正在进行的加载结果（不修改快照）
+     */
+    public synchronized void discardPendingLoads() {
+        version++;
+    }
+
+    /**
+     * 处理 tasks 表的失效通知：只读取各任务的更新时间，移除与数据库不一致或已删除的快照
+     * 必须在后台线程调用；先提交延迟写入，使调度器自身的写入在比较前已同步到快照
+     */
+    public void refreshChanged() {
+        runLoadBarrier();
+        List<TaskDao.TaskStamp> stamps = taskDao.getTaskStampsSync();
+        Map<Long, Long> updatedAtById = new HashMap<>(stamps.size() * 2);
+        for (TaskDao.TaskStamp stamp : stamps) {
+            updatedAtById.put(stamp.id, stamp.updatedAt);
+        }
+
+        int removed = 0;
+        synchronized (this) {
+            Iterator<Map.Entry<Long, TaskEntity>> iterator = snapshots.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, TaskEntity> entry = iterator.next();
+                Long updatedAt = updatedAtById.get(entry.getKey());
+                if (updatedAt == null || updatedAt != entry.getValue().getUpdatedAt()) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                version++;
+            }
+        }
+        if (removed > 0) {
+            staleCount.addAndGet(removed);
+            AppLogger.getInstance().d(TAG, "Removed " + removed + " changed task snapshots");
+        }
+    }
+
+    /**
+     * 从数据库重新加载所有任务
+     * 必须在后台线程调用；加载期间缓存有更新时放弃本次结果
+     */
+    public void reload() {
+        long loadVersion;
+        synchronized (this) {
+            loadVersion = version;
+        }
+
+        runLoadBarrier();
+        List<TaskEntity> tasks = taskDao.getAllTasksSync();
+        synchronized (this) {
+            if (version != loadVersion) {
+                AppLogger.getInstance().d(TAG, "Tasks changed during reload, result discarded");
+                return;
+            }
+            snapshots.clear();
+            for (TaskEntity task : tasks) {
+                snapshots.put(task.getId(), task);
+            }
+        }
+    }
+
+    private void runLoadBarrier() {
+        Runnable barrier = loadBarrier;
+        if (barrier != null) {
+            barrier.run();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * 命中统计摘要，用于日志
+     */
+    public String getStatsSummary() {
+        return "hit=" + hitCount.get() + ", miss=" + missCount.get() + ", stale=" + staleCount.get();
+    }
+}
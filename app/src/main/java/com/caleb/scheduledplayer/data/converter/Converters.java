@@ -48,17 +48,9 @@ public class Converters {
 
     /**
      * 解析音频路径 JSON 字符串
-     * 工具方法，供其他类使用
+     * 播放列表已改存 task_audio 表，仅用于迁移旧版本的 audio_paths 列
      */
     public static List<String> parseAudioPaths(String audioPaths) {
         return toStringList(audioPaths);
     }
-
-    /**
-     * 将音频路径列表转换为 JSON 字符串
-     * 工具方法，供其他类使用
-     */
-    public static String toAudioPathsJson(List<String> paths) {
-        return fromStringList(paths);
-    }
 }
@@ -0,0 +1,41 @@
+package com.caleb.scheduledplayer.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.caleb.scheduledplayer.data.entity.ArmedAlarmEntity;
+
+import java.util.List;
+
+/**
+ * 已登记闹钟事件数据访问对象
+ */
+@Dao
+public interface ArmedAlarmDao {
+
+    /**
+     * 获取所有已登记的事件
+     */
+    @Query("SELECT * FROM armed_alarms")
+    List<ArmedAlarmEntity> getAll();
+
+    /**
+     * 登记或替换事件
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(List<ArmedAlarmEntity> alarms);
+
+    /**
+     * 删除某任务某类型的事件
+     */
+    @Query("DELETE FROM armed_alarms WHERE task_id = :taskId AND kind = :kind")
+    void delete(long taskId, int kind);
+
+    /**
+     * 删除所有事件
+     */
+    @Query("DELETE FROM armed_alarms")
+    void deleteAll();
+}
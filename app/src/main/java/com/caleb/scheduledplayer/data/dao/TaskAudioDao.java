@@ -0,0 +1,97 @@
+package com.caleb.scheduledplayer.data.dao;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.caleb.scheduledplayer.data.entity.AudioPathEntity;
+import com.caleb.scheduledplayer.data.entity.TaskAudioEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任务播放列表数据访问对象
+ */
+@Dao
+public interface TaskAudioDao {
+
+    /**
+     * 获取任务的播放列表（按位置排序）
+     */
+    @Query("SELECT p.path FROM task_audio a INNER JOIN audio_path p ON p.id = a.path_id " +
+            "WHERE a.task_id = :taskId ORDER BY a.position")
+    List<String> getAudioPaths(long taskId);
+
+    /**
+     * 批量获取多个任务的播放列表（按任务和位置排序）
+     */
+    @Query("SELECT a.task_id, p.path FROM task_audio a INNER JOIN audio_path p ON p.id = a.path_id " +
+            "WHERE a.task_id IN (:taskIds) ORDER BY a.task_id, a.position")
+    List<TaskAudioPath> getAudioPathsOfTasks(List<Long> taskIds);
+
+    /**
+     * 登记音频路径，已存在时忽略并返回 -1
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertPath(AudioPathEntity path);
+
+    /**
+     * 获取音频路径的ID
+     */
+    @Query("SELECT id FROM audio_path WHERE path = :path")
+    long getPathId(String path);
+
+    /**
+     * 插入播放列表项
+     */
+    @Insert
+    void insertEntries(List<TaskAudioEntity> entries);
+
+    /**
+     * 删除任务的播放列表
+     */
+    @Query("DELETE FROM task_audio WHERE task_id = :taskId")
+    void deleteEntries(long taskId);
+
+    /**
+     * 删除没有任务引用的音频路径（包括已删除任务遗留的路径）
+     */
+    @Query("DELETE FROM audio_path WHERE id NOT IN (SELECT path_id FROM task_audio)")
+    void deleteUnusedPaths();
+
+    /**
+     * 替换任务的播放列表
+     * 路径在字典中只保存一份，替换后清理不再被引用的路径
+     */
+    @Transaction
+    default void replaceAudioPaths(long taskId, List<String> paths) {
+        deleteEntries(taskId);
+        List<TaskAudioEntity> entries = new ArrayList<>(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            String path = paths.get(i);
+            long pathId = insertPath(new AudioPathEntity(path));
+            if (pathId < 0) {
+                pathId = getPathId(path);
+            }
+            entries.add(new TaskAudioEntity(taskId, i, pathId));
+        }
+        insertEntries(entries);
+        deleteUnusedPaths();
+    }
+
+    /**
+     * 播放列表查询结果行
+     */
+    class TaskAudioPath {
+
+        @ColumnInfo(name = "task_id")
+        public long taskId;
+
+        @ColumnInfo(name = "path")
+        public String path;
+    }
+}
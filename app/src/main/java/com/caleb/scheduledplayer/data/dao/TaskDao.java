@@ -1,6 +1,7 @@
 package com.caleb.scheduledplayer.data.dao;
 
 import androidx.lifecycle.LiveData;
+import androidx.room.ColumnInfo;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -66,6 +67,26 @@ public interface TaskDao {
     @Query("SELECT * FROM tasks WHERE id = :taskId")
     TaskEntity getTaskByIdSync(long taskId);
 
+    /**
+     * 根据 ID 批量获取任务 (同步)
+     * ID 数量受 SQLite 参数个数限制（999），调用方需要分批
+     */
+    @Query("SELECT * FROM tasks WHERE id IN (:taskIds)")
+    List<TaskEntity> getTasksByIdsSync(List<Long> taskIds);
+
+    /**
+     * 获取所有任务的更新时间（快照缓存据此判断哪些任务被外部修改）
+     */
+    @Query("SELECT id, updated_at FROM tasks")
+    List<TaskStamp> getTaskStampsSync();
+
+    /**
+     * 根据 ID 批量获取任务的更新时间
+     * ID 数量受 SQLite 参数个数限制（999），调用方需要分批
+     */
+    @Query("SELECT id, updated_at FROM tasks WHERE id IN (:taskIds)")
+    List<TaskStamp> getTaskStampsByIdsSync(List<Long> taskIds);
+
     /**
      * 获取所有启用的任务
      */
@@ -176,6 +197,26 @@ public interface TaskDao {
     @Query("UPDATE tasks SET current_execution_end = :executionEnd, updated_at = :updatedAt WHERE id = :taskId")
     void updateExecutionEndTime(long taskId, long executionEnd, long updatedAt);
 
+    /**
+     * 一条语句写入合并后的执行状态更新（供 ExecutionStateWriter 使用）
+     * has* 为 false 的列保持原值；disable 为 true 时同时禁用任务；updatedAt 为 0 时不修改更新时间
+     */
+    @Query("UPDATE tasks SET " +
+            "enabled = CASE WHEN :disable THEN 0 ELSE enabled END, " +
+            "execution_state = CASE WHEN :hasState THEN :executionState ELSE execution_state END, " +
+            "current_execution_start = CASE WHEN :hasStart THEN :executionStart ELSE current_execution_start END, " +
+            "current_execution_end = CASE WHEN :hasEnd THEN :executionEnd ELSE current_execution_end END, " +
+            "next_fire_at = CASE WHEN :hasFireTimes THEN :nextFireAt ELSE next_fire_at END, " +
+            "current_window_end = CASE WHEN :hasFireTimes THEN :currentWindowEnd ELSE current_window_end END, " +
+            "updated_at = CASE WHEN :updatedAt > 0 THEN :updatedAt ELSE updated_at END " +
+            "WHERE id = :taskId")
+    void applyExecutionUpdate(long taskId, boolean disable,
+            boolean hasState, int executionState,
+            boolean hasStart, long executionStart,
+            boolean hasEnd, long executionEnd,
+            boolean hasFireTimes, long nextFireAt, long currentWindowEnd,
+            long updatedAt);
+
     // ==================== 并发控制相关方法 ====================
 
     /**
@@ -197,4 +238,53 @@ public interface TaskDao {
      */
     @Query("SELECT * FROM tasks WHERE execution_state = 7 ORDER BY current_execution_start ASC")
     List<TaskEntity> getWaitingSlotTasks();
+
+    // ==================== 恢复检查相关方法 ====================
+
+    /**
+     * 更新调度维护的触发时间（不修改 updated_at）
+     * @param taskId 任务ID
+     * @param nextFireAt 下一次触发时间戳，0 表示没有登记的事件
+     * @param currentWindowEnd 当前时间窗口的结束时间戳，0 表示不在窗口内
+     */
+    @Query("UPDATE tasks SET next_fire_at = :nextFireAt, current_window_end = :currentWindowEnd WHERE id = :taskId")
+    void updateFireTimes(long taskId, long nextFireAt, long currentWindowEnd);
+
+    /**
+     * 获取需要恢复检查的启用任务（设备重启、进程重启和定期检查时使用）
+     * 当前时间窗口包含 now，或下一次触发时间已过（包括从未计算过的任务），
+     * 或者 armed_alarms 中没有该任务的事件（事件写入失败，或进程在事件与触发时间写入之间被杀，
+     * 下一次触发时间仍在未来却没有事件会触发它）；
+     * 最后一个条件按主键逐个检查 armed_alarms，每个启用任务一次索引查找
+     * @param now 当前时间戳
+     */
+    @Query("SELECT * FROM tasks WHERE enabled = 1 AND (next_fire_at <= :now OR current_window_end > :now "
+            + "OR NOT EXISTS (SELECT 1 FROM armed_alarms WHERE armed_alarms.task_id = tasks.id))")
+    List<TaskEntity> getTasksNeedingRecovery(long now);
+
+    /**
+     * 获取当前处于时间窗口内的启用任务（系统时间被调回时使用）
+     */
+    @Query("SELECT * FROM tasks WHERE enabled = 1 AND current_window_end > 0")
+    List<TaskEntity> getTasksInWindow();
+
+    /**
+     * 获取下一次触发时间或当前窗口结束时间落在 [from, to) 内的启用任务（时区改变时使用）
+     * 两个条件分别使用 next_fire_at / current_window_end 索引
+     */
+    @Query("SELECT * FROM tasks WHERE enabled = 1 AND ((next_fire_at >= :from AND next_fire_at < :to) "
+            + "OR (current_window_end >= :from AND current_window_end < :to))")
+    List<TaskEntity> getTasksWithFireTimesIn(long from, long to);
+
+    /**
+     * 任务更新时间查询结果行
+     */
+    class TaskStamp {
+
+        @ColumnInfo(name = "id")
+        public long id;
+
+        @ColumnInfo(name = "updated_at")
+        public long updatedAt;
+    }
 }
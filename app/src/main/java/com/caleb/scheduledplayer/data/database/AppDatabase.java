@@ -1,6 +1,7 @@
 package com.caleb.scheduledplayer.data.database;
 
 import android.content.Context;
+import android.database.Cursor;
 
 import androidx.room.Database;
 import androidx.room.Room;
@@ -8,17 +9,26 @@ import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.caleb.scheduledplayer.data.converter.Converters;
+import com.caleb.scheduledplayer.data.dao.ArmedAlarmDao;
+import com.caleb.scheduledplayer.data.dao.TaskAudioDao;
 import com.caleb.scheduledplayer.data.dao.TaskDao;
 import com.caleb.scheduledplayer.data.dao.TaskLogDao;
+import com.caleb.scheduledplayer.data.entity.ArmedAlarmEntity;
+import com.caleb.scheduledplayer.data.entity.AudioPathEntity;
+import com.caleb.scheduledplayer.data.entity.TaskAudioEntity;
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
 import com.caleb.scheduledplayer.data.entity.TaskLogEntity;
 
+import java.util.List;
+
 /**
  * Room 数据库
  */
 @Database(
-        entities = {TaskEntity.class, TaskLogEntity.class},
-        version = 8,
+        entities = {TaskEntity.class, TaskLogEntity.class, ArmedAlarmEntity.class,
+                AudioPathEntity.class, TaskAudioEntity.class},
+        version = 14,
         exportSchema = false
 )
 public abstract class AppDatabase extends RoomDatabase {
@@ -36,6 +46,16 @@ public abstract class AppDatabase extends RoomDatabase {
      */
     public abstract TaskLogDao taskLogDao();
 
+    /**
+     * 获取已登记闹钟事件 DAO
+     */
+    public abstract ArmedAlarmDao armedAlarmDao();
+
+    /**
+     * 获取任务播放列表 DAO
+     */
+    public abstract TaskAudioDao taskAudioDao();
+
     /**
      * 数据库迁移：版本 1 -> 2（添加 task_logs 表）
      */
@@ -188,6 +208,169 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    /**
+     * 数据库迁移：版本 8 -> 9（添加开始/结束分钟数和任务类型派生列）
+     * 派生列在迁移中直接回填；格式不规范的时间保留 -1，由 TaskClassifier 在运行时解析
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `start_minutes` INTEGER NOT NULL DEFAULT -1");
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `end_minutes` INTEGER NOT NULL DEFAULT -1");
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `task_type` INTEGER NOT NULL DEFAULT -1");
+            // 回填分钟数（仅处理 HH:mm 格式且取值合法的时间）
+            database.execSQL(
+                    "UPDATE `tasks` SET `start_minutes` = " +
+                    "CAST(substr(`start_time`, 1, 2) AS INTEGER) * 60 + CAST(substr(`start_time`, 4, 2) AS INTEGER) " +
+                    "WHERE `start_time` GLOB '[0-2][0-9]:[0-5][0-9]' AND CAST(substr(`start_time`, 1, 2) AS INTEGER) < 24"
+            );
+            database.execSQL(
+                    "UPDATE `tasks` SET `end_minutes` = " +
+                    "CAST(substr(`end_time`, 1, 2) AS INTEGER) * 60 + CAST(substr(`end_time`, 4, 2) AS INTEGER) " +
+                    "WHERE `end_time` GLOB '[0-2][0-9]:[0-5][0-9]' AND CAST(substr(`end_time`, 1, 2) AS INTEGER) < 24"
+            );
+            // 回填任务类型，取值与 TaskType#getValue() 一致
+            database.execSQL(
+                    "UPDATE `tasks` SET `task_type` = CASE " +
+                    "WHEN `all_day_play` != 0 THEN (CASE WHEN `repeat_days` = 0 THEN 2 ELSE 5 END) " +
+                    "WHEN `repeat_days` = 0 THEN (CASE WHEN `end_minutes` < `start_minutes` THEN 1 ELSE 0 END) " +
+                    "WHEN `repeat_days` = 127 THEN (CASE WHEN `end_minutes` < `start_minutes` THEN 7 ELSE 6 END) " +
+                    "ELSE (CASE WHEN `end_minutes` < `start_minutes` THEN 4 ELSE 3 END) END " +
+                    "WHERE `all_day_play` != 0 OR (`start_minutes` >= 0 AND `end_minutes` >= 0)"
+            );
+        }
+    };
+
+    /**
+     * 数据库迁移：版本 9 -> 10（添加并发优先级列）
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `priority` INTEGER NOT NULL DEFAULT 1");
+        }
+    };
+
+    /**
+     * 数据库迁移：版本 10 -> 11（添加已登记闹钟事件表）
+     */
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `armed_alarms` (" +
+                    "`task_id` INTEGER NOT NULL, " +
+                    "`kind` INTEGER NOT NULL, " +
+                    "`trigger_time` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`task_id`, `kind`))"
+            );
+        }
+    };
+
+    /**
+     * 数据库迁移：版本 11 -> 12（添加调度触发时间列及索引）
+     * 默认值 0 表示尚未计算，升级后第一次恢复检查会处理所有启用的任务并写入实际值
+     */
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `next_fire_at` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `current_window_end` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_next_fire_at` ON `tasks` (`next_fire_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_current_window_end` ON `tasks` (`current_window_end`)");
+        }
+    };
+
+    /**
+     * 数据库迁移：版本 12 -> 13（添加扩展重复规则列）
+     * 已有任务没有扩展规则，任务类型不变
+     */
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `recurrence_rule` TEXT");
+        }
+    };
+
+    /**
+     * 数据库迁移：版本 13 -> 14（播放列表从 audio_paths JSON 列迁移到 task_audio 表和 audio_path 字典）
+     */
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `audio_path` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`path` TEXT NOT NULL)"
+            );
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_audio_path_path` ON `audio_path` (`path`)");
+            database.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `task_audio` (" +
+                    "`task_id` INTEGER NOT NULL, " +
+                    "`position` INTEGER NOT NULL, " +
+                    "`path_id` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`task_id`, `position`), " +
+                    "FOREIGN KEY(`task_id`) REFERENCES `tasks`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE, " +
+                    "FOREIGN KEY(`path_id`) REFERENCES `audio_path`(`id`) ON UPDATE NO ACTION ON DELETE NO ACTION)"
+            );
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_audio_path_id` ON `task_audio` (`path_id`)");
+
+            // 逐个任务解析 JSON 并写入新表（设备上的 SQLite 不一定带 JSON 扩展）
+            try (Cursor cursor = database.query("SELECT `id`, `audio_paths` FROM `tasks`")) {
+                while (cursor.moveToNext()) {
+                    long taskId = cursor.getLong(0);
+                    List<String> paths = Converters.parseAudioPaths(cursor.isNull(1) ? null : cursor.getString(1));
+                    for (int i = 0; i < paths.size(); i++) {
+                        String path = paths.get(i);
+                        database.execSQL("INSERT OR IGNORE INTO `audio_path` (`path`) VALUES (?)", new Object[]{path});
+                        database.execSQL(
+                                "INSERT INTO `task_audio` (`task_id`, `position`, `path_id`) " +
+                                "SELECT ?, ?, `id` FROM `audio_path` WHERE `path` = ?",
+                                new Object[]{taskId, i, path}
+                        );
+                    }
+                }
+            }
+
+            // 删除 audio_paths 列（SQLite 不支持直接删除列，需要重建表）
+            database.execSQL(
+                    "CREATE TABLE `tasks_new` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`name` TEXT NOT NULL, " +
+                    "`enabled` INTEGER NOT NULL, " +
+                    "`start_time` TEXT NOT NULL, " +
+                    "`end_time` TEXT NOT NULL, " +
+                    "`play_mode` INTEGER NOT NULL, " +
+                    "`volume` INTEGER NOT NULL, " +
+                    "`repeat_days` INTEGER NOT NULL, " +
+                    "`created_at` INTEGER NOT NULL, " +
+                    "`updated_at` INTEGER NOT NULL, " +
+                    "`output_device` INTEGER NOT NULL DEFAULT 0, " +
+                    "`all_day_play` INTEGER NOT NULL DEFAULT 0, " +
+                    "`recurrence_rule` TEXT, " +
+                    "`execution_state` INTEGER NOT NULL DEFAULT 0, " +
+                    "`current_execution_start` INTEGER NOT NULL DEFAULT 0, " +
+                    "`current_execution_end` INTEGER NOT NULL DEFAULT 0, " +
+                    "`priority` INTEGER NOT NULL DEFAULT 1, " +
+                    "`start_minutes` INTEGER NOT NULL DEFAULT -1, " +
+                    "`end_minutes` INTEGER NOT NULL DEFAULT -1, " +
+                    "`task_type` INTEGER NOT NULL DEFAULT -1, " +
+                    "`next_fire_at` INTEGER NOT NULL DEFAULT 0, " +
+                    "`current_window_end` INTEGER NOT NULL DEFAULT 0)"
+            );
+            String columns = "`id`, `name`, `enabled`, `start_time`, `end_time`, `play_mode`, `volume`, " +
+                    "`repeat_days`, `created_at`, `updated_at`, `output_device`, `all_day_play`, `recurrence_rule`, " +
+                    "`execution_state`, `current_execution_start`, `current_execution_end`, `priority`, " +
+                    "`start_minutes`, `end_minutes`, `task_type`, `next_fire_at`, `current_window_end`";
+            database.execSQL("INSERT INTO `tasks_new` (" + columns + ") SELECT " + columns + " FROM `tasks`");
+            database.execSQL("DROP TABLE `tasks`");
+            database.execSQL("ALTER TABLE `tasks_new` RENAME TO `tasks`");
+            // 重建表后索引需要重新创建
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_next_fire_at` ON `tasks` (`next_fire_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_current_window_end` ON `tasks` (`current_window_end`)");
+        }
+    };
+
     /**
      * 获取数据库单例
      */
@@ -200,7 +383,7 @@ public abstract class AppDatabase extends RoomDatabase {
                             AppDatabase.class,
                             DATABASE_NAME
                     )
-                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8)
+                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14)
                     .fallbackToDestructiveMigration()
                     .build();
                 }
@@ -0,0 +1,65 @@
+package com.caleb.scheduledplayer.data.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+
+/**
+ * 已登记的闹钟事件
+ * 定时堆中每个 (任务, 类型) 的有效事件一行，进程重启或设备重启后用于恢复和对账
+ */
+@Entity(tableName = "armed_alarms", primaryKeys = {"task_id", "kind"})
+public class ArmedAlarmEntity {
+
+    /**
+     * 任务ID
+     */
+    @ColumnInfo(name = "task_id")
+    private long taskId;
+
+    /**
+     * 事件类型，取值为 AlarmTimerHeap.Kind 的序号
+     */
+    @ColumnInfo(name = "kind")
+    private int kind;
+
+    /**
+     * 触发时间（时间戳）
+     */
+    @ColumnInfo(name = "trigger_time")
+    private long triggerTime;
+
+    public ArmedAlarmEntity() {
+    }
+
+    @Ignore
+    public ArmedAlarmEntity(long taskId, int kind, long triggerTime) {
+        this.taskId = taskId;
+        this.kind = kind;
+        this.triggerTime = triggerTime;
+    }
+
+    public long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(long taskId) {
+        this.taskId = taskId;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    public void setKind(int kind) {
+        this.kind = kind;
+    }
+
+    public long getTriggerTime() {
+        return triggerTime;
+    }
+
+    public void setTriggerTime(long triggerTime) {
+        this.triggerTime = triggerTime;
+    }
+}
@@ -0,0 +1,55 @@
+package com.caleb.scheduledplayer.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * 音频路径字典
+ * 每个不同的音频路径（文件路径或 content URI）只保存一行，多个任务的播放列表通过 task_audio 引用
+ */
+@Entity(tableName = "audio_path",
+        indices = {
+                @Index(value = "path", unique = true)
+        })
+public class AudioPathEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    /**
+     * 音频路径
+     */
+    @NonNull
+    @ColumnInfo(name = "path")
+    private String path;
+
+    public AudioPathEntity() {
+        this.path = "";
+    }
+
+    @Ignore
+    public AudioPathEntity(@NonNull String path) {
+        this.path = path;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(@NonNull String path) {
+        this.path = path;
+    }
+}
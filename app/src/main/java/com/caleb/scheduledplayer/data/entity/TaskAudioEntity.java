@@ -0,0 +1,84 @@
+package com.caleb.scheduledplayer.data.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+
+/**
+ * 任务播放列表项
+ * 任务的第 position 首曲目引用 audio_path 字典中的一行；任务删除时级联删除
+ */
+@Entity(tableName = "task_audio",
+        primaryKeys = {"task_id", "position"},
+        foreignKeys = {
+                @ForeignKey(
+                        entity = TaskEntity.class,
+                        parentColumns = "id",
+                        childColumns = "task_id",
+                        onDelete = ForeignKey.CASCADE
+                ),
+                @ForeignKey(
+                        entity = AudioPathEntity.class,
+                        parentColumns = "id",
+                        childColumns = "path_id"
+                )
+        },
+        indices = {
+                @Index(value = "path_id")
+        })
+public class TaskAudioEntity {
+
+    /**
+     * 任务ID
+     */
+    @ColumnInfo(name = "task_id")
+    private long taskId;
+
+    /**
+     * 在播放列表中的位置（从 0 开始）
+     */
+    @ColumnInfo(name = "position")
+    private int position;
+
+    /**
+     * 音频路径ID
+     */
+    @ColumnInfo(name = "path_id")
+    private long pathId;
+
+    public TaskAudioEntity() {
+    }
+
+    @Ignore
+    public TaskAudioEntity(long taskId, int position, long pathId) {
+        this.taskId = taskId;
+        this.position = position;
+        this.pathId = pathId;
+    }
+
+    public long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(long taskId) {
+        this.taskId = taskId;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public long getPathId() {
+        return pathId;
+    }
+
+    public void setPathId(long pathId) {
+        this.pathId = pathId;
+    }
+}
@@ -7,6 +7,8 @@ import androidx.lifecycle.LiveData;
 import com.caleb.scheduledplayer.data.dao.TaskDao;
 import com.caleb.scheduledplayer.data.database.AppDatabase;
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.service.scheduler.OversubscriptionAnalyzer;
+import com.caleb.scheduledplayer.service.scheduler.TaskClassifier;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -73,7 +75,10 @@ public class TaskRepository {
         executorService.execute(() -> {
             task.setCreatedAt(System.currentTimeMillis());
             task.setUpdatedAt(System.currentTimeMillis());
+            TaskClassifier.refreshDerivedFields(task);
             long id = taskDao.insert(task);
+            task.setId(id);
+            OversubscriptionAnalyzer.getInstance().onTaskSaved(task);
             if (callback != null) {
                 callback.onTaskInserted(id);
             }
@@ -86,7 +91,11 @@ public class TaskRepository {
     public long insertSync(TaskEntity task) {
         task.setCreatedAt(System.currentTimeMillis());
         task.setUpdatedAt(System.currentTimeMillis());
-        return taskDao.insert(task);
+        TaskClassifier.refreshDerivedFields(task);
+        long id = taskDao.insert(task);
+        task.setId(id);
+        OversubscriptionAnalyzer.getInstance().onTaskSaved(task);
+        return id;
     }
 
     /**
@@ -95,7 +104,9 @@ public class TaskRepository {
     public void update(TaskEntity task) {
         executorService.execute(() -> {
             task.setUpdatedAt(System.currentTimeMillis());
+            TaskClassifier.refreshDerivedFields(task);
             taskDao.update(task);
+            OversubscriptionAnalyzer.getInstance().onTaskSaved(task);
         });
     }
 
@@ -104,30 +115,36 @@ public class TaskRepository {
      */
     public void updateSync(TaskEntity task) {
         task.setUpdatedAt(System.currentTimeMillis());
+        TaskClassifier.refreshDerivedFields(task);
         taskDao.update(task);
+        OversubscriptionAnalyzer.getInstance().onTaskSaved(task);
     }
 
     /**
      * 删除任务
      */
     public void delete(TaskEntity task) {
-        executorService.execute(() -> taskDao.delete(task));
+        executorService.execute(() -> {
+            taskDao.delete(task);
+            OversubscriptionAnalyzer.getInstance().onTaskDeleted(task.getId());
+        });
     }
 
     /**
      * 根据 ID 删除任务
      */
     public void deleteById(long taskId) {
-        executorService.execute(() -> taskDao.deleteById(taskId));
+        executorService.execute(() -> {
+            taskDao.deleteById(taskId);
+            OversubscriptionAnalyzer.getInstance().onTaskDeleted(taskId);
+        });
     }
 
     /**
      * 更新任务启用状态
      */
     public void updateEnabled(long taskId, boolean enabled) {
-        executorService.execute(() -> 
-            taskDao.updateEnabled(taskId, enabled, System.currentTimeMillis())
-        );
+        executorService.execute(() -> updateEnabledSync(taskId, enabled));
     }
 
     /**
@@ -135,6 +152,7 @@ public class TaskRepository {
      */
     public void updateEnabledSync(long taskId, boolean enabled) {
         taskDao.updateEnabled(taskId, enabled, System.currentTimeMillis());
+        OversubscriptionAnalyzer.getInstance().onTaskSaved(taskDao.getTaskByIdSync(taskId));
     }
 
     /**
@@ -8,12 +8,19 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
+import android.text.InputType;
+import android.widget.EditText;
+import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.caleb.scheduledplayer.R;
 import com.caleb.scheduledplayer.databinding.ActivitySettingsBinding;
+import com.caleb.scheduledplayer.service.fleet.FleetRole;
 import com.caleb.scheduledplayer.service.player.AudioPlaybackService;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerDispatcher;
+import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
 import com.caleb.scheduledplayer.util.AppSettings;
 
 /**
@@ -21,6 +28,12 @@ import com.caleb.scheduledplayer.util.AppSettings;
  */
 public class SettingsActivity extends AppCompatActivity {
 
+    /** 最大并发数可选范围上限 */
+    private static final int MAX_CONCURRENT_CHOICES = 20;
+
+    /** 协同端口可选范围上限 */
+    private static final int MAX_FLEET_PORT = 65535;
+
     private ActivitySettingsBinding binding;
     private AppSettings appSettings;
     
@@ -64,6 +77,8 @@ public class SettingsActivity extends AppCompatActivity {
         
         setupToolbar();
         setupSwitches();
+        setupConcurrency();
+        setupFleet();
         bindPlaybackService();
     }
     
@@ -107,6 +122,135 @@ public class SettingsActivity extends AppCompatActivity {
         });
     }
     
+    private void setupConcurrency() {
+        binding.textMaxConcurrent.setText(String.valueOf(appSettings.getMaxConcurrentPlayback()));
+        binding.switchPriorityPreemption.setChecked(appSettings.isPriorityPreemptionEnabled());
+
+        // 最大并发数：调整后立即放行等待队列，涉及数据库，放到调度线程执行
+        binding.layoutMaxConcurrent.setOnClickListener(v -> showMaxConcurrentDialog());
+
+        // 优先级抢占开关
+        binding.switchPriorityPreemption.setOnCheckedChangeListener((buttonView, isChecked) ->
+                SchedulerDispatcher.getInstance().submit(SchedulerDispatcher.Lane.MAINTENANCE, () ->
+                        TaskScheduleManager.getInstance(getApplicationContext())
+                                .setPriorityPreemptionEnabled(isChecked)));
+    }
+
+    private void showMaxConcurrentDialog() {
+        String[] items = new String[MAX_CONCURRENT_CHOICES];
+        for (int i = 0; i < MAX_CONCURRENT_CHOICES; i++) {
+            items[i] = String.valueOf(i + 1);
+        }
+        int current = appSettings.getMaxConcurrentPlayback();
+        int checked = current <= MAX_CONCURRENT_CHOICES ? current - 1 : -1;
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.settings_max_concurrent)
+                .setSingleChoiceItems(items, checked, (dialog, which) -> {
+                    int max = which + 1;
+                    binding.textMaxConcurrent.setText(String.valueOf(max));
+                    SchedulerDispatcher.getInstance().submit(SchedulerDispatcher.Lane.MAINTENANCE, () ->
+                            TaskScheduleManager.getInstance(getApplicationContext())
+                                    .setMaxConcurrentPlayback(max));
+                    dialog.dismiss();
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void setupFleet() {
+        updateFleetSummary();
+
+        // 协同设置在进程启动时读取，修改后提示重启应用
+        binding.layoutFleetRole.setOnClickListener(v -> showFleetRoleDialog());
+        binding.layoutFleetControllerHost.setOnClickListener(v -> showFleetControllerHostDialog());
+        binding.layoutFleetPort.setOnClickListener(v -> showFleetPortDialog());
+    }
+
+    private void updateFleetSummary() {
+        String[] roleNames = getResources().getStringArray(R.array.settings_fleet_role_names);
+        binding.textFleetRole.setText(roleNames[appSettings.getFleetRole().ordinal()]);
+        String host = appSettings.getFleetControllerHost();
+        binding.textFleetControllerHost.setText(host.isEmpty() ? getString(R.string.settings_fleet_not_set) : host);
+        binding.textFleetPort.setText(String.valueOf(appSettings.getFleetPort()));
+    }
+
+    private void showFleetRoleDialog() {
+        FleetRole current = appSettings.getFleetRole();
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.settings_fleet_role)
+                .setSingleChoiceItems(R.array.settings_fleet_role_names, current.ordinal(), (dialog, which) -> {
+                    FleetRole role = FleetRole.values()[which];
+                    if (role != current) {
+                        appSettings.setFleetRole(role);
+                        onFleetSettingChanged();
+                    }
+                    dialog.dismiss();
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void showFleetControllerHostDialog() {
+        String current = appSettings.getFleetControllerHost();
+        EditText input = new EditText(this);
+        input.setSingleLine();
+        input.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_URI);
+        input.setText(current);
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.settings_fleet_controller_host)
+                .setView(input)
+                .setPositiveButton("确定", (dialog, which) -> {
+                    String host = input.getText().toString().trim();
+                    if (!host.equals(current)) {
+                        appSettings.setFleetControllerHost(host);
+                        onFleetSettingChanged();
+                    }
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void showFleetPortDialog() {
+        int current = appSettings.getFleetPort();
+        EditText input = new EditText(this);
+        input.setSingleLine();
+        input.setInputType(InputType.TYPE_CLASS_NUMBER);
+        input.setText(String.valueOf(current));
+
+        AlertDialog dialog = new AlertDialog.Builder(this)
+                .setTitle(R.string.settings_fleet_port)
+                .setView(input)
+                .setPositiveButton("确定", null)
+                .setNegativeButton("取消", null)
+                .create();
+        // 端口无效时不关闭对话框
+        dialog.setOnShowListener(d -> dialog.getButton(AlertDialog.BUTTON_POSITIVE).setOnClickListener(v -> {
+            int port;
+            try {
+                port = Integer.parseInt(input.getText().toString().trim());
+            } catch (NumberFormatException e) {
+                port = 0;
+            }
+            if (port < 1 || port > MAX_FLEET_PORT) {
+                input.setError(getString(R.string.settings_fleet_invalid_port));
+                return;
+            }
+            if (port != current) {
+                appSettings.setFleetPort(port);
+                onFleetSettingChanged();
+            }
+            dialog.dismiss();
+        }));
+        dialog.show();
+    }
+
+    private void onFleetSettingChanged() {
+        updateFleetSummary();
+        Toast.makeText(this, R.string.settings_fleet_restart_hint, Toast.LENGTH_SHORT).show();
+    }
+
     private void updateStatusIndicators() {
         if (!serviceBound || playbackService == null) {
             // 服务未绑定，显示未知状态
@@ -14,6 +14,7 @@ import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 import androidx.lifecycle.ViewModelProvider;
@@ -21,19 +22,23 @@ import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.caleb.scheduledplayer.R;
-import com.caleb.scheduledplayer.data.converter.Converters;
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
 import com.caleb.scheduledplayer.databinding.ActivityTaskEditBinding;
+import com.caleb.scheduledplayer.databinding.DialogRecurrenceRuleBinding;
 import com.caleb.scheduledplayer.presentation.ui.log.TaskLogActivity;
 import com.caleb.scheduledplayer.presentation.ui.widget.PlaylistPickerDialog;
 import com.caleb.scheduledplayer.presentation.ui.widget.RepeatDaysBottomSheet;
 import com.caleb.scheduledplayer.presentation.ui.widget.WheelTimePickerDialog;
 import com.caleb.scheduledplayer.presentation.viewmodel.TaskEditViewModel;
+import com.caleb.scheduledplayer.service.scheduler.OversubscriptionReport;
+import com.caleb.scheduledplayer.service.scheduler.RecurrenceRule;
 import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
 import com.caleb.scheduledplayer.presentation.adapter.AudioFileAdapter;
 import com.caleb.scheduledplayer.util.AudioFileValidator;
 import com.caleb.scheduledplayer.util.BluetoothHelper;
+import com.google.android.material.textfield.TextInputLayout;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -64,6 +69,12 @@ public class TaskEditActivity extends AppCompatActivity {
     
     // 重复日期
     private int currentRepeatDays = 0;
+
+    // 扩展重复规则（隔周、起止日期、排除日期），null 表示未设置
+    private String currentRecurrenceRule;
+
+    // 优先级 (0: 低, 1: 普通, 2: 高, 3: 紧急)
+    private int currentPriority = TaskEntity.PRIORITY_NORMAL;
     
     // 原始任务的创建时间和启用状态
     private long originalCreatedAt = 0;
@@ -186,18 +197,43 @@ public class TaskEditActivity extends AppCompatActivity {
         }
         
         // 保存任务
-        viewModel.saveTask(task, savedId -> {
+        viewModel.saveTask(task, new ArrayList<>(audioPaths), (savedId, report) -> {
             taskId = savedId;
             task.setId(savedId);
             
             // 使用新的 TaskScheduleManager 调度任务（会自动重置执行状态）
             TaskScheduleManager.getInstance(this).scheduleTask(task);
             
+            if (report.isOversubscribed()) {
+                showOversubscriptionWarning(report);
+                return;
+            }
             Toast.makeText(this, "保存成功", Toast.LENGTH_SHORT).show();
             finish();
         });
     }
     
+    /**
+     * 提示任务时段超过最大并发数（任务已保存，仅提示）
+     */
+    private void showOversubscriptionWarning(OversubscriptionReport report) {
+        StringBuilder message = new StringBuilder();
+        message.append(report.getPeakTimeDescription())
+                .append(" 将有 ").append(report.getPeakConcurrency())
+                .append(" 个任务同时播放，超过最大并发数 ").append(report.getMaxConcurrent())
+                .append("，超出的任务会被跳过。\n\n同时段的任务：");
+        for (OversubscriptionReport.Conflict conflict : report.getConflicts()) {
+            message.append("\n• ").append(conflict.taskName);
+        }
+        
+        new AlertDialog.Builder(this)
+                .setTitle("已保存，但时段冲突")
+                .setMessage(message)
+                .setPositiveButton("知道了", null)
+                .setOnDismissListener(dialog -> finish())
+                .show();
+    }
+    
     /**
      * 构建任务对象
      */
@@ -216,8 +252,9 @@ public class TaskEditActivity extends AppCompatActivity {
         task.setPlayMode(currentPlayMode);
         task.setRepeatDays(currentRepeatDays);
         task.setEnabled(originalEnabled);
+        task.setPriority(currentPriority);
+        task.setRecurrenceRule(currentRecurrenceRule);
         task.setVolume((int) binding.sliderVolume.getValue());
-        task.setAudioPaths(Converters.toAudioPathsJson(audioPaths));
         task.setOutputDevice(currentOutputDevice);
         task.setAllDayPlay(allDayPlay);
         task.setCreatedAt(originalCreatedAt > 0 ? originalCreatedAt : System.currentTimeMillis());
@@ -233,6 +270,7 @@ public class TaskEditActivity extends AppCompatActivity {
         if (taskId > 0) {
             viewModel.loadTask(taskId);
             viewModel.getTask().observe(this, this::populateTaskData);
+            viewModel.getAudioPaths().observe(this, this::populateAudioPaths);
         } else {
             // 新建任务
             originalCreatedAt = System.currentTimeMillis();
@@ -282,6 +320,12 @@ public class TaskEditActivity extends AppCompatActivity {
         
         // 重复日期点击选择
         binding.layoutRepeatDays.setOnClickListener(v -> showRepeatDaysPicker());
+
+        // 扩展重复规则
+        binding.layoutRecurrenceRule.setOnClickListener(v -> showRecurrenceRuleDialog());
+
+        // 优先级选择
+        binding.layoutPriority.setOnClickListener(v -> showPriorityPicker());
         
         // 音量滑块监听
         binding.sliderVolume.addOnChangeListener((slider, value, fromUser) -> {
@@ -343,6 +387,7 @@ public class TaskEditActivity extends AppCompatActivity {
                 .setOnDaysSelectedListener(days -> {
                     currentRepeatDays = days;
                     updateRepeatDaysDisplay();
+                    updateRecurrenceRuleDisplay();
                 })
                 .show();
     }
@@ -351,10 +396,168 @@ public class TaskEditActivity extends AppCompatActivity {
         binding.textRepeatDays.setText(RepeatDaysBottomSheet.formatRepeatDays(currentRepeatDays));
     }
 
+    /**
+     * 编辑扩展重复规则，每一项和组合后的规则都用 {@link RecurrenceRule#of(String, int)} 校验
+     */
+    private void showRecurrenceRuleDialog() {
+        DialogRecurrenceRuleBinding dialogBinding = DialogRecurrenceRuleBinding.inflate(getLayoutInflater());
+        RecurrenceRule rule = parseRecurrenceRule(currentRecurrenceRule);
+        if (rule != null) {
+            dialogBinding.editInterval.setText(String.valueOf(rule.getWeekInterval()));
+            if (rule.getFromDay() != RecurrenceRule.NONE) {
+                dialogBinding.editFrom.setText(LocalDate.ofEpochDay(rule.getFromDay()).toString());
+            }
+            if (rule.getUntilDay() != RecurrenceRule.NONE) {
+                dialogBinding.editUntil.setText(LocalDate.ofEpochDay(rule.getUntilDay()).toString());
+            }
+            List<String> exceptions = new ArrayList<>();
+            for (int day : rule.getExceptionDays()) {
+                exceptions.add(LocalDate.ofEpochDay(day).toString());
+            }
+            dialogBinding.editExdate.setText(String.join(", ", exceptions));
+        }
+
+        AlertDialog dialog = new AlertDialog.Builder(this)
+                .setTitle(R.string.recurrence_rule)
+                .setView(dialogBinding.getRoot())
+                .setPositiveButton("确定", null)
+                .setNegativeButton("取消", null)
+                .setNeutralButton("清除", (d, which) -> {
+                    currentRecurrenceRule = null;
+                    updateRecurrenceRuleDisplay();
+                })
+                .create();
+        // 校验失败时不关闭对话框
+        dialog.setOnShowListener(d -> dialog.getButton(AlertDialog.BUTTON_POSITIVE).setOnClickListener(v -> {
+            String text = buildRecurrenceRuleText(dialogBinding);
+            if (text == null) {
+                return;
+            }
+            currentRecurrenceRule = text.isEmpty() ? null : text;
+            updateRecurrenceRuleDisplay();
+            dialog.dismiss();
+        }));
+        dialog.show();
+    }
+
+    /**
+     * 由对话框输入组合规则文本
+     * @return 规则文本，所有项为空时返回空串，输入有误时在对应输入框显示错误并返回 null
+     */
+    private String buildRecurrenceRuleText(DialogRecurrenceRuleBinding dialogBinding) {
+        String interval = textOf(dialogBinding.editInterval.getText());
+        String from = textOf(dialogBinding.editFrom.getText());
+        String until = textOf(dialogBinding.editUntil.getText());
+        String exdate = String.join(",", textOf(dialogBinding.editExdate.getText()).split("[,，\\s]+")).trim();
+
+        boolean valid = checkRulePart(dialogBinding.layoutInterval, "INTERVAL", interval,
+                R.string.recurrence_interval_invalid);
+        valid &= checkRulePart(dialogBinding.layoutFrom, "FROM", from, R.string.recurrence_date_invalid);
+        valid &= checkRulePart(dialogBinding.layoutUntil, "UNTIL", until, R.string.recurrence_date_invalid);
+        valid &= checkRulePart(dialogBinding.layoutExdate, "EXDATE", exdate, R.string.recurrence_date_invalid);
+        if (!valid) {
+            return null;
+        }
+
+        List<String> parts = new ArrayList<>();
+        if (!interval.isEmpty() && Integer.parseInt(interval) > 1) {
+            parts.add("INTERVAL=" + Integer.parseInt(interval));
+        }
+        if (!from.isEmpty()) {
+            parts.add("FROM=" + from);
+        }
+        if (!until.isEmpty()) {
+            parts.add("UNTIL=" + until);
+        }
+        if (!exdate.isEmpty()) {
+            parts.add("EXDATE=" + exdate);
+        }
+        if (parts.isEmpty()) {
+            return "";
+        }
+
+        String text = String.join(";", parts);
+        RecurrenceRule rule = RecurrenceRule.of(text, currentRepeatDays);
+        if (rule == null) {
+            Toast.makeText(this, R.string.recurrence_rule_invalid, Toast.LENGTH_SHORT).show();
+            return null;
+        }
+        if (rule.getFromDay() != RecurrenceRule.NONE && rule.getUntilDay() != RecurrenceRule.NONE
+                && rule.getUntilDay() < rule.getFromDay()) {
+            dialogBinding.layoutUntil.setError(getString(R.string.recurrence_until_before_from));
+            return null;
+        }
+        return text;
+    }
+
+    private boolean checkRulePart(TextInputLayout layout,
+            String key, String value, int errorRes) {
+        boolean valid = value.isEmpty() || RecurrenceRule.of(key + "=" + value, 0) != null;
+        layout.setError(valid ? null : getString(errorRes));
+        return valid;
+    }
+
+    private static String textOf(CharSequence text) {
+        return text == null ? "" : text.toString().trim();
+    }
+
+    private RecurrenceRule parseRecurrenceRule(String text) {
+        return text == null || text.trim().isEmpty() ? null : RecurrenceRule.of(text, currentRepeatDays);
+    }
+
+    private void updateRecurrenceRuleDisplay() {
+        if (currentRecurrenceRule == null || currentRecurrenceRule.trim().isEmpty()) {
+            binding.textRecurrenceRule.setText(R.string.recurrence_rule_none);
+            return;
+        }
+        RecurrenceRule rule = parseRecurrenceRule(currentRecurrenceRule);
+        if (rule == null) {
+            binding.textRecurrenceRule.setText(R.string.recurrence_rule_invalid);
+            return;
+        }
+
+        List<String> parts = new ArrayList<>();
+        parts.add(rule.getWeekInterval() > 1 ? "每 " + rule.getWeekInterval() + " 周" : "每周");
+        if (rule.getFromDay() != RecurrenceRule.NONE) {
+            parts.add(LocalDate.ofEpochDay(rule.getFromDay()) + " 起");
+        }
+        if (rule.getUntilDay() != RecurrenceRule.NONE) {
+            parts.add("至 " + LocalDate.ofEpochDay(rule.getUntilDay()));
+        }
+        int exceptionCount = rule.getExceptionDays().length;
+        if (exceptionCount > 0) {
+            parts.add("排除 " + exceptionCount + " 天");
+        }
+        String summary = String.join(" · ", parts);
+        if (currentRepeatDays == 0) {
+            summary += "（" + getString(R.string.recurrence_rule_one_time) + "）";
+        }
+        binding.textRecurrenceRule.setText(summary);
+    }
+
+    private void showPriorityPicker() {
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.task_priority)
+                .setSingleChoiceItems(R.array.task_priority_names, currentPriority, (dialog, which) -> {
+                    currentPriority = which;
+                    updatePriorityDisplay();
+                    dialog.dismiss();
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void updatePriorityDisplay() {
+        String[] names = getResources().getStringArray(R.array.task_priority_names);
+        binding.textPriority.setText(names[currentPriority]);
+    }
+
     private void setupDefaultValues() {
         // 默认时间
         updateStartTimeDisplay();
         updateEndTimeDisplay();
+        updatePriorityDisplay();
+        updateRecurrenceRuleDisplay();
     }
 
     private void setupBluetoothUI() {
@@ -615,12 +818,14 @@ public class TaskEditActivity extends AppCompatActivity {
         currentRepeatDays = task.getRepeatDays();
         updateRepeatDaysDisplay();
 
-        // 音频文件
-        List<String> paths = Converters.parseAudioPaths(task.getAudioPaths());
-        audioPaths.clear();
-        audioPaths.addAll(paths);
-        audioAdapter.notifyDataSetChanged();
-        updateMusicListVisibility();
+        // 扩展重复规则
+        currentRecurrenceRule = task.getRecurrenceRule();
+        updateRecurrenceRuleDisplay();
+
+        // 优先级（超出范围的旧值按最近的档位显示）
+        currentPriority = Math.max(TaskEntity.PRIORITY_LOW,
+                Math.min(TaskEntity.PRIORITY_CRITICAL, task.getPriority()));
+        updatePriorityDisplay();
 
         // 播放设备
         currentOutputDevice = task.getOutputDevice();
@@ -637,6 +842,15 @@ public class TaskEditActivity extends AppCompatActivity {
         binding.textVolumeValue.setText(task.getVolume() + "%");
     }
 
+    private void populateAudioPaths(List<String> paths) {
+        if (paths == null) return;
+
+        audioPaths.clear();
+        audioPaths.addAll(paths);
+        audioAdapter.notifyDataSetChanged();
+        updateMusicListVisibility();
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
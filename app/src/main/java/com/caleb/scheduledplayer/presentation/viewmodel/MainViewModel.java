@@ -10,6 +10,7 @@ import com.caleb.scheduledplayer.ScheduledPlayerApp;
 import com.caleb.scheduledplayer.data.dao.TaskDao;
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
 import com.caleb.scheduledplayer.service.player.AudioPlaybackService;
+import com.caleb.scheduledplayer.service.scheduler.OversubscriptionAnalyzer;
 import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
 
 import java.util.List;
@@ -52,6 +53,7 @@ public class MainViewModel extends AndroidViewModel {
             // 更新闹钟调度
             TaskEntity task = taskDao.getTaskByIdSync(taskId);
             if (task != null) {
+                OversubscriptionAnalyzer.getInstance().onTaskSaved(task);
                 if (enabled) {
                     scheduleManager.scheduleTask(task);
                 } else {
@@ -74,6 +76,7 @@ public class MainViewModel extends AndroidViewModel {
             AudioPlaybackService.stopTaskPlayback(getApplication(), task.getId());
             // 再删除任务
             taskDao.delete(task);
+            OversubscriptionAnalyzer.getInstance().onTaskDeleted(task.getId());
         });
     }
 
@@ -88,6 +91,7 @@ public class MainViewModel extends AndroidViewModel {
             AudioPlaybackService.stopTaskPlayback(getApplication(), taskId);
             // 再删除任务
             taskDao.deleteById(taskId);
+            OversubscriptionAnalyzer.getInstance().onTaskDeleted(taskId);
         });
     }
 
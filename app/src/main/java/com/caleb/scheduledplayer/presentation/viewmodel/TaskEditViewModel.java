@@ -10,9 +10,16 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.caleb.scheduledplayer.ScheduledPlayerApp;
+import com.caleb.scheduledplayer.data.dao.TaskAudioDao;
 import com.caleb.scheduledplayer.data.dao.TaskDao;
+import com.caleb.scheduledplayer.data.database.AppDatabase;
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.service.scheduler.OversubscriptionAnalyzer;
+import com.caleb.scheduledplayer.service.scheduler.OversubscriptionReport;
+import com.caleb.scheduledplayer.service.scheduler.TaskClassifier;
+import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -21,16 +28,21 @@ import java.util.concurrent.Executors;
  */
 public class TaskEditViewModel extends AndroidViewModel {
 
+    private final AppDatabase database;
     private final TaskDao taskDao;
+    private final TaskAudioDao taskAudioDao;
     private final ExecutorService executor;
     private final Handler mainHandler;
 
     private final MutableLiveData<TaskEntity> task = new MutableLiveData<>();
+    private final MutableLiveData<List<String>> audioPaths = new MutableLiveData<>();
     private final MutableLiveData<Boolean> saveResult = new MutableLiveData<>();
 
     public TaskEditViewModel(@NonNull Application application) {
         super(application);
-        taskDao = ((ScheduledPlayerApp) application).getDatabase().taskDao();
+        database = ((ScheduledPlayerApp) application).getDatabase();
+        taskDao = database.taskDao();
+        taskAudioDao = database.taskAudioDao();
         executor = Executors.newSingleThreadExecutor();
         mainHandler = new Handler(Looper.getMainLooper());
     }
@@ -42,6 +54,13 @@ public class TaskEditViewModel extends AndroidViewModel {
         return task;
     }
 
+    /**
+     * 获取任务的播放列表
+     */
+    public LiveData<List<String>> getAudioPaths() {
+        return audioPaths;
+    }
+
     /**
      * 获取保存结果
      */
@@ -56,34 +75,31 @@ public class TaskEditViewModel extends AndroidViewModel {
         executor.execute(() -> {
             TaskEntity entity = taskDao.getTaskByIdSync(taskId);
             task.postValue(entity);
+            if (entity != null) {
+                audioPaths.postValue(taskAudioDao.getAudioPaths(taskId));
+            }
         });
     }
 
     /**
      * 保存任务
      */
-    public void saveTask(TaskEntity taskEntity) {
-        saveTask(taskEntity, null);
+    public void saveTask(TaskEntity taskEntity, List<String> paths) {
+        saveTask(taskEntity, paths, null);
     }
 
     /**
      * 保存任务（带回调）
      */
-    public void saveTask(TaskEntity taskEntity, OnTaskSavedCallback callback) {
+    public void saveTask(TaskEntity taskEntity, List<String> paths, OnTaskSavedCallback callback) {
         executor.execute(() -> {
             try {
-                long taskId;
-                if (taskEntity.getId() > 0) {
-                    taskDao.update(taskEntity);
-                    taskId = taskEntity.getId();
-                } else {
-                    taskId = taskDao.insert(taskEntity);
-                }
+                long taskId = persist(taskEntity, paths);
+                OversubscriptionReport report = analyzeAndIndex(taskEntity);
                 
                 // 在主线程回调
                 if (callback != null) {
-                    final long savedId = taskId;
-                    mainHandler.post(() -> callback.onTaskSaved(savedId));
+                    mainHandler.post(() -> callback.onTaskSaved(taskId, report));
                 }
                 
                 saveResult.postValue(true);
@@ -97,21 +113,15 @@ public class TaskEditViewModel extends AndroidViewModel {
     /**
      * 静默保存任务（不触发 saveResult LiveData，用于自动保存）
      */
-    public void saveTaskSilently(TaskEntity taskEntity, OnTaskSavedCallback callback) {
+    public void saveTaskSilently(TaskEntity taskEntity, List<String> paths, OnTaskSavedCallback callback) {
         executor.execute(() -> {
             try {
-                long taskId;
-                if (taskEntity.getId() > 0) {
-                    taskDao.update(taskEntity);
-                    taskId = taskEntity.getId();
-                } else {
-                    taskId = taskDao.insert(taskEntity);
-                }
+                long taskId = persist(taskEntity, paths);
+                OversubscriptionReport report = analyzeAndIndex(taskEntity);
                 
                 // 在主线程回调
                 if (callback != null) {
-                    final long savedId = taskId;
-                    mainHandler.post(() -> callback.onTaskSaved(savedId));
+                    mainHandler.post(() -> callback.onTaskSaved(taskId, report));
                 }
             } catch (Exception e) {
                 e.printStackTrace();
@@ -123,7 +133,38 @@ public class TaskEditViewModel extends AndroidViewModel {
      * 删除任务
      */
     public void deleteTask(long taskId) {
-        executor.execute(() -> taskDao.deleteById(taskId));
+        executor.execute(() -> {
+            taskDao.deleteById(taskId);
+            OversubscriptionAnalyzer.getInstance().onTaskDeleted(taskId);
+        });
+    }
+
+    /**
+     * 在同一事务中写入任务和播放列表，返回任务 ID
+     */
+    private long persist(TaskEntity taskEntity, List<String> paths) {
+        TaskClassifier.refreshDerivedFields(taskEntity);
+        database.runInTransaction(() -> {
+            if (taskEntity.getId() > 0) {
+                taskDao.update(taskEntity);
+            } else {
+                taskEntity.setId(taskDao.insert(taskEntity));
+            }
+            taskAudioDao.replaceAudioPaths(taskEntity.getId(), paths);
+        });
+        return taskEntity.getId();
+    }
+
+    /**
+     * 分析任务时段的并发峰值，并将任务写入超额分析索引
+     */
+    private OversubscriptionReport analyzeAndIndex(TaskEntity taskEntity) {
+        OversubscriptionAnalyzer analyzer = OversubscriptionAnalyzer.getInstance();
+        int maxConcurrent = TaskScheduleManager.getInstance(getApplication())
+                .getConcurrencyManager().getMaxConcurrentPlayback();
+        OversubscriptionReport report = analyzer.analyze(taskDao, taskEntity, maxConcurrent);
+        analyzer.onTaskSaved(taskEntity);
+        return report;
     }
 
     @Override
@@ -134,8 +175,9 @@ public class TaskEditViewModel extends AndroidViewModel {
 
     /**
      * 任务保存回调接口
+     * report 为任务时段内的并发峰值分析，超过最大并发数时应提示用户
      */
     public interface OnTaskSavedCallback {
-        void onTaskSaved(long taskId);
+        void onTaskSaved(long taskId, OversubscriptionReport report);
     }
 }
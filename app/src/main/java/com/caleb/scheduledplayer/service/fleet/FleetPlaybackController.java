@@ -0,0 +1,60 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import com.caleb.scheduledplayer.service.scheduler.PlaybackController;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 控制端的播放控制
+ * 调度发出的播放指令交给 {@link FleetController} 按批次推送给跟随端，
+ * 本机在同一执行时间通过控制端的本地播放端播放；播放状态查询仍读取本机
+ */
+public class FleetPlaybackController implements PlaybackController {
+
+    private final FleetController controller;
+    private final PlaybackController local;
+
+    /**
+     * @param local 本机播放控制，只用于查询播放状态
+     */
+    public FleetPlaybackController(FleetController controller, PlaybackController local) {
+        this.controller = controller;
+        this.local = local;
+    }
+
+    @Override
+    public void start(long taskId) {
+        controller.start(Collections.singletonList(taskId));
+    }
+
+    @Override
+    public void start(List<Long> taskIds) {
+        controller.start(taskIds);
+    }
+
+    @Override
+    public void prewarm(long taskId, long scheduledStartTime) {
+        controller.prewarm(taskId, scheduledStartTime);
+    }
+
+    @Override
+    public void stop(long taskId) {
+        controller.stop(Collections.singletonList(taskId));
+    }
+
+    @Override
+    public void stop(List<Long> taskIds) {
+        controller.stop(taskIds);
+    }
+
+    @Override
+    public void preempt(long taskId) {
+        controller.pause(taskId);
+    }
+
+    @Override
+    public boolean isPlaying(long taskId) {
+        return local.isPlaying(taskId);
+    }
+}
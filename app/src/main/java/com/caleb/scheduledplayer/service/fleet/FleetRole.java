@@ -0,0 +1,21 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+/**
+ * 多设备协同角色
+ */
+public enum FleetRole {
+    /**
+     * 单机运行（默认）：按本机的任务调度并播放
+     */
+    STANDALONE,
+
+    /**
+     * 控制端：运行调度，本机播放的同时把播放指令推送给跟随端
+     */
+    CONTROLLER,
+
+    /**
+     * 跟随端：本机调度不再出声，只执行控制端推送的播放指令
+     */
+    FOLLOWER
+}
@@ -0,0 +1,115 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import android.content.Context;
+
+import com.caleb.scheduledplayer.service.scheduler.PlaybackController;
+import com.caleb.scheduledplayer.service.scheduler.ServicePlaybackController;
+import com.caleb.scheduledplayer.util.AppLogger;
+import com.caleb.scheduledplayer.util.AppSettings;
+
+import java.net.SocketException;
+
+/**
+ * 多设备协同运行时
+ * 进程启动时按设置中的角色创建控制端或跟随端节点，并为调度管理器提供对应的播放控制；
+ * 角色修改后重启应用生效。协同启动失败（端口被占用、未设置控制端地址）时按单机运行
+ *
+ * 跟随端按任务 ID 在本机数据库中查找任务，各设备需要有相同的任务副本
+ */
+public final class FleetRuntime {
+
+    private static final String TAG = "FleetRuntime";
+
+    private static volatile FleetRuntime instance;
+
+    private final Context context;
+    private final FleetRole role;
+    private final String controllerHost;
+    private final int port;
+
+    private boolean started;
+    private FleetController controller;
+    private FleetNode node;
+
+    private FleetRuntime(Context context) {
+        this.context = context.getApplicationContext();
+        AppSettings settings = new AppSettings(this.context);
+        this.role = settings.getFleetRole();
+        this.controllerHost = settings.getFleetControllerHost();
+        this.port = settings.getFleetPort();
+    }
+
+    /**
+     * 获取单例实例
+     */
+    public static FleetRuntime getInstance(Context context) {
+        if (instance == null) {
+            synchronized (FleetRuntime.class) {
+                if (instance == null) {
+                    instance = new FleetRuntime(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 按角色启动控制端或跟随端，重复调用无效果
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        try {
+            switch (role) {
+                case CONTROLLER:
+                    controller = new FleetController(new UdpFleetTransport(port), System::currentTimeMillis,
+                            FleetController.DEFAULT_LEAD_MILLIS,
+                            new LocalFleetPlayer(new ServicePlaybackController(context)));
+                    controller.start();
+                    AppLogger.i(TAG, "Fleet controller listening on port " + port);
+                    break;
+                case FOLLOWER:
+                    if (controllerHost.isEmpty()) {
+                        AppLogger.w(TAG, "Follower mode without controller host, running standalone");
+                        break;
+                    }
+                    node = new FleetNode(new UdpFleetTransport(0), controllerHost + ":" + port,
+                            System::currentTimeMillis, new LocalFleetPlayer(new ServicePlaybackController(context)));
+                    node.start();
+                    AppLogger.i(TAG, "Fleet follower of " + controllerHost + ":" + port);
+                    break;
+                default:
+                    break;
+            }
+        } catch (SocketException e) {
+            AppLogger.e(TAG, "Failed to start fleet " + role + ", running standalone", e);
+        }
+    }
+
+    /**
+     * 按角色包装本机的播放控制
+     * 控制端：推送给跟随端并在同一时间本机播放；跟随端：忽略本机调度的播放指令；否则原样返回
+     */
+    public PlaybackController wrapPlayback(PlaybackController local) {
+        start();
+        synchronized (this) {
+            if (controller != null) {
+                return new FleetPlaybackController(controller, local);
+            }
+            if (node != null) {
+                return new FollowerPlaybackController(local);
+            }
+        }
+        return local;
+    }
+
+    /**
+     * 设置中的协同角色
+     */
+    public FleetRole getRole() {
+        return role;
+    }
+}
@@ -0,0 +1,57 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import com.caleb.scheduledplayer.service.scheduler.PlaybackController;
+import com.caleb.scheduledplayer.util.AppLogger;
+
+import java.util.List;
+
+/**
+ * 跟随端的播放控制
+ * 跟随端的播放只由控制端推送的指令驱动（见 {@link FleetNode}），本机调度发出的播放指令被忽略；
+ * 播放状态查询仍读取本机
+ */
+public class FollowerPlaybackController implements PlaybackController {
+
+    private static final String TAG = "FollowerPlayback";
+
+    private final PlaybackController local;
+
+    public FollowerPlaybackController(PlaybackController local) {
+        this.local = local;
+    }
+
+    @Override
+    public void start(long taskId) {
+        AppLogger.d(TAG, "Follower mode, ignoring local start of task " + taskId);
+    }
+
+    @Override
+    public void start(List<Long> taskIds) {
+        AppLogger.d(TAG, "Follower mode, ignoring local start of tasks " + taskIds);
+    }
+
+    @Override
+    public void prewarm(long taskId, long scheduledStartTime) {
+        // 跟随端按控制端的指令预热
+    }
+
+    @Override
+    public void stop(long taskId) {
+        AppLogger.d(TAG, "Follower mode, ignoring local stop of task " + taskId);
+    }
+
+    @Override
+    public void stop(List<Long> taskIds) {
+        AppLogger.d(TAG, "Follower mode, ignoring local stop of tasks " + taskIds);
+    }
+
+    @Override
+    public void preempt(long taskId) {
+        AppLogger.d(TAG, "Follower mode, ignoring local preempt of task " + taskId);
+    }
+
+    @Override
+    public boolean isPlaying(long taskId) {
+        return local.isPlaying(taskId);
+    }
+}
@@ -0,0 +1,37 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import com.caleb.scheduledplayer.service.scheduler.PlaybackController;
+
+import java.util.List;
+
+/**
+ * 把协同指令交给本机的播放控制（播放服务）执行
+ */
+public class LocalFleetPlayer implements FleetPlayer {
+
+    private final PlaybackController playback;
+
+    public LocalFleetPlayer(PlaybackController playback) {
+        this.playback = playback;
+    }
+
+    @Override
+    public void start(List<Long> taskIds) {
+        playback.start(taskIds);
+    }
+
+    @Override
+    public void stop(List<Long> taskIds) {
+        playback.stop(taskIds);
+    }
+
+    @Override
+    public void pause(long taskId) {
+        playback.preempt(taskId);
+    }
+
+    @Override
+    public void prewarm(long taskId, long scheduledStartTime) {
+        playback.prewarm(taskId, scheduledStartTime);
+    }
+}
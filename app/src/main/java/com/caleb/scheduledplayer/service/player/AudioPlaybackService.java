@@ -26,7 +26,7 @@ import androidx.core.app.NotificationCompat;
 
 import com.caleb.scheduledplayer.ScheduledPlayerApp;
 import com.caleb.scheduledplayer.R;
-import com.caleb.scheduledplayer.data.converter.Converters;
+import com.caleb.scheduledplayer.data.dao.TaskAudioDao;
 import com.caleb.scheduledplayer.data.database.AppDatabase;
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
 import com.caleb.scheduledplayer.data.repository.TaskLogRepository;
@@ -38,8 +38,6 @@ import com.caleb.scheduledplayer.util.BluetoothReconnectManager;
 import com.caleb.scheduledplayer.util.AppSettings;
 import com.caleb.scheduledplayer.util.LogErrorType;
 
-import android.content.SharedPreferences;
-
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.security.Permission;
@@ -49,10 +47,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 音频播放前台服务
@@ -76,13 +76,27 @@ public class AudioPlaybackService extends Service {
     public static final String ACTION_START_TASK = "com.caleb.scheduledplayer.START_TASK";
     public static final String ACTION_STOP_TASK = "com.caleb.scheduledplayer.STOP_TASK";
     public static final String ACTION_STOP_ALL = "com.caleb.scheduledplayer.STOP_ALL";
+    public static final String ACTION_PREEMPT_TASK = "com.caleb.scheduledplayer.PREEMPT_TASK";
+    public static final String ACTION_PREWARM_TASK = "com.caleb.scheduledplayer.PREWARM_TASK";
+    public static final String ACTION_START_TASKS = "com.caleb.scheduledplayer.START_TASKS";
+    public static final String ACTION_STOP_TASKS = "com.caleb.scheduledplayer.STOP_TASKS";
     public static final String EXTRA_TASK_ID = "task_id";
+    public static final String EXTRA_TASK_IDS = "task_ids";
+    public static final String EXTRA_SCHEDULED_TIME = "scheduled_time";
+
+    // 批量读取任务时每次查询的 ID 数，低于 SQLite 的参数个数上限（999）
+    private static final int TASK_QUERY_CHUNK_SIZE = 500;
+
+    // 预热的播放器在计划开始时间之后最多保留 1 分钟（等待槽位的任务可能稍后开始），之后释放
+    private static final long PREWARM_EXPIRY_GRACE_MS = 60 * 1000L;
 
     private final IBinder binder = new LocalBinder();
     private final Map<Long, TaskPlayer> taskPlayers = new ConcurrentHashMap<>();
     private final Map<Long, Long> taskLogIds = new ConcurrentHashMap<>();  // 任务ID -> 日志ID映射
     private final Map<Long, Integer> taskOutputDevices = new ConcurrentHashMap<>();  // 任务ID -> 输出设备映射
     private final List<Long> bluetoothPausedTasks = new ArrayList<>();  // 因蓝牙断开而暂停的任务
+    private final Set<Long> preemptedTaskIds = ConcurrentHashMap.newKeySet();  // 被高优先级任务抢占而暂停的任务
+    private final Map<Long, TaskPlayer> prewarmedPlayers = new HashMap<>();  // 已预热等待开始的播放器（只在主线程访问）
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private ExecutorService executorService;
     private PowerManager.WakeLock wakeLock;
@@ -100,12 +114,8 @@ public class AudioPlaybackService extends Service {
     private BluetoothReconnectManager reconnectManager;
     
     // 播放状态持久化相关
-    private static final String PREFS_NAME = "playback_state";
-    private static final String KEY_PLAYING_TASK_IDS = "playing_task_ids";
-    private static final String KEY_TASK_CURRENT_INDEX = "task_%d_current_index";
-    private static final String KEY_TASK_CURRENT_POSITION = "task_%d_current_position";
-    private static final String KEY_TASK_PLAYLIST = "task_%d_playlist";
-    private SharedPreferences playbackPrefs;
+    private static final String LEGACY_PREFS_NAME = "playback_state";  // 旧版本保存播放状态的 SharedPreferences
+    private PlaybackCheckpointJournal checkpointJournal;
 
     private PlaybackCallback playbackCallback;
 
@@ -177,7 +187,8 @@ public class AudioPlaybackService extends Service {
         audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
         logRepository = new TaskLogRepository(getApplication());
         bluetoothHelper = new BluetoothHelper(this);
-        playbackPrefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        checkpointJournal = new PlaybackCheckpointJournal(getFilesDir());
+        deleteSharedPreferences(LEGACY_PREFS_NAME);
         acquireWakeLock();
         
         // 初始化设置和蓝牙保持组件
@@ -243,6 +254,31 @@ public class AudioPlaybackService extends Service {
                     case ACTION_STOP_ALL:
                         stopAllTasks();
                         break;
+                    case ACTION_PREEMPT_TASK:
+                        long preemptTaskId = intent.getLongExtra(EXTRA_TASK_ID, -1);
+                        if (preemptTaskId != -1) {
+                            preemptTask(preemptTaskId);
+                        }
+                        break;
+                    case ACTION_START_TASKS:
+                        long[] startTaskIds = intent.getLongArrayExtra(EXTRA_TASK_IDS);
+                        if (startTaskIds != null && startTaskIds.length > 0) {
+                            startTasks(startTaskIds);
+                        }
+                        break;
+                    case ACTION_STOP_TASKS:
+                        long[] stopTaskIds = intent.getLongArrayExtra(EXTRA_TASK_IDS);
+                        if (stopTaskIds != null && stopTaskIds.length > 0) {
+                            stopTasks(stopTaskIds);
+                        }
+                        break;
+                    case ACTION_PREWARM_TASK:
+                        long prewarmTaskId = intent.getLongExtra(EXTRA_TASK_ID, -1);
+                        long scheduledTime = intent.getLongExtra(EXTRA_SCHEDULED_TIME, 0);
+                        if (prewarmTaskId != -1) {
+                            prewarmTask(prewarmTaskId, scheduledTime);
+                        }
+                        break;
                 }
             }
         }
@@ -263,6 +299,9 @@ public class AudioPlaybackService extends Service {
         playingTaskIds.clear();    // 清空正在播放的任务集合
         AppLogger.getInstance().d(TAG, "onDestroy called, taskPlayers count: " + taskPlayers.size() + ", isServiceRunning=false");
         stopAllTasks();
+        if (checkpointJournal != null) {
+            checkpointJournal.close();
+        }
         releaseWakeLock();
         abandonAudioFocus();
         if (bluetoothHelper != null) {
@@ -307,17 +346,181 @@ public class AudioPlaybackService extends Service {
      */
     public void startTask(long taskId) {
         executorService.execute(() -> {
-            TaskEntity task = AppDatabase.getInstance(this).taskDao().getTaskByIdSync(taskId);
+            AppDatabase database = AppDatabase.getInstance(this);
+            TaskEntity task = database.taskDao().getTaskByIdSync(taskId);
             if (task != null) {
-                mainHandler.post(() -> startTaskPlayback(task));
+                List<String> audioPaths = database.taskAudioDao().getAudioPaths(taskId);
+                mainHandler.post(() -> startTaskPlayback(task, audioPaths, true));
             }
         });
     }
 
+    /**
+     * 批量启动任务播放
+     * 一次查询读取所有任务及其播放列表，在主线程依次启动，最后只更新一次通知
+     */
+    public void startTasks(long[] taskIds) {
+        executorService.execute(() -> {
+            AppDatabase database = AppDatabase.getInstance(this);
+            List<TaskEntity> loaded = new ArrayList<>(taskIds.length);
+            Map<Long, List<String>> audioPathsByTask = new HashMap<>();
+            for (int from = 0; from < taskIds.length; from += TASK_QUERY_CHUNK_SIZE) {
+                int to = Math.min(taskIds.length, from + TASK_QUERY_CHUNK_SIZE);
+                List<Long> chunk = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    chunk.add(taskIds[i]);
+                }
+                loaded.addAll(database.taskDao().getTasksByIdsSync(chunk));
+                for (TaskAudioDao.TaskAudioPath row : database.taskAudioDao().getAudioPathsOfTasks(chunk)) {
+                    List<String> paths = audioPathsByTask.get(row.taskId);
+                    if (paths == null) {
+                        paths = new ArrayList<>();
+                        audioPathsByTask.put(row.taskId, paths);
+                    }
+                    paths.add(row.path);
+                }
+            }
+
+            // 按请求顺序启动（查询结果不保证顺序）
+            Map<Long, TaskEntity> tasksById = new HashMap<>();
+            for (TaskEntity task : loaded) {
+                tasksById.put(task.getId(), task);
+            }
+            List<TaskEntity> tasks = new ArrayList<>(tasksById.size());
+            for (long taskId : taskIds) {
+                TaskEntity task = tasksById.remove(taskId);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            }
+            AppLogger.getInstance().d(TAG, "Starting " + tasks.size() + " of " + taskIds.length + " requested tasks");
+
+            mainHandler.post(() -> {
+                for (TaskEntity task : tasks) {
+                    List<String> audioPaths = audioPathsByTask.get(task.getId());
+                    startTaskPlayback(task, audioPaths != null ? audioPaths : new ArrayList<>(), false);
+                }
+                startForeground(NOTIFICATION_ID, createNotification());
+            });
+        });
+    }
+
+    /**
+     * 预热任务播放
+     * 在开始闹钟之前解析并校验播放列表，准备好第一首可播放的曲目并保持暂停，
+     * 开始闹钟到达时直接出声，不必再等待数据库读取和 MediaPlayer 准备
+     *
+     * @param scheduledTime 计划开始时间戳
+     */
+    public void prewarmTask(long taskId, long scheduledTime) {
+        executorService.execute(() -> {
+            AppDatabase database = AppDatabase.getInstance(this);
+            TaskEntity task = database.taskDao().getTaskByIdSync(taskId);
+            if (task == null) {
+                mainHandler.post(this::updateNotificationOrStop);
+                return;
+            }
+            List<String> audioPaths = database.taskAudioDao().getAudioPaths(taskId);
+            AudioFileValidator.ValidationResult validation = AudioFileValidator.validate(this, audioPaths);
+            if (!validation.hasValidFiles()) {
+                // 开始时按正常流程记录失败
+                AppLogger.getInstance().w(TAG, "Task " + taskId + " has no playable audio, skipping prewarm");
+                mainHandler.post(this::updateNotificationOrStop);
+                return;
+            }
+            Set<String> playablePaths = new HashSet<>(validation.getValidFiles());
+            mainHandler.post(() -> prewarmTaskPlayback(task, audioPaths, playablePaths, scheduledTime));
+        });
+    }
+
+    private void prewarmTaskPlayback(TaskEntity task, List<String> audioPaths, Set<String> playablePaths, long scheduledTime) {
+        long taskId = task.getId();
+        if (taskPlayers.containsKey(taskId) || playingTaskIds.contains(taskId)) {
+            AppLogger.getInstance().d(TAG, "Task " + taskId + " is already playing, skipping prewarm");
+            return;
+        }
+        if (task.getOutputDevice() == TaskEntity.OUTPUT_DEVICE_BLUETOOTH && !bluetoothHelper.isBluetoothAudioConnected()) {
+            AppLogger.getInstance().d(TAG, "Task " + taskId + " requires bluetooth but not connected, skipping prewarm");
+            updateNotificationOrStop();
+            return;
+        }
+
+        TaskPlayer previous = prewarmedPlayers.remove(taskId);
+        if (previous != null) {
+            previous.discardPrewarm();
+        }
+
+        TaskPlayer player = new TaskPlayer(task, audioPaths);
+        prewarmedPlayers.put(taskId, player);
+        player.prewarm(scheduledTime, playablePaths);
+        AppLogger.getInstance().d(TAG, "Prewarming task " + taskId + " (" + playablePaths.size() + "/"
+                + audioPaths.size() + " playable), scheduled start in "
+                + (scheduledTime - System.currentTimeMillis()) + "ms");
+
+        long expireDelay = Math.max(0, scheduledTime - System.currentTimeMillis()) + PREWARM_EXPIRY_GRACE_MS;
+        mainHandler.postDelayed(() -> expirePrewarmedPlayer(taskId, player), expireDelay);
+    }
+
+    /**
+     * 取出可用于本次开始的预热播放器，播放列表或音量已改变的预热结果直接丢弃
+     */
+    private TaskPlayer takePrewarmedPlayer(TaskEntity task, List<String> audioPaths) {
+        TaskPlayer player = prewarmedPlayers.remove(task.getId());
+        if (player == null) {
+            return null;
+        }
+        if (!player.isSamePlaylist(audioPaths) || player.task.getVolume() != task.getVolume()) {
+            AppLogger.getInstance().d(TAG, "Task " + task.getId() + " changed since prewarm, discarding prewarmed player");
+            player.discardPrewarm();
+            return null;
+        }
+        return player;
+    }
+
+    private void expirePrewarmedPlayer(long taskId, TaskPlayer player) {
+        if (prewarmedPlayers.get(taskId) != player) {
+            return;
+        }
+        prewarmedPlayers.remove(taskId);
+        player.discardPrewarm();
+        AppLogger.getInstance().d(TAG, "Prewarmed player of task " + taskId + " expired without start");
+        updateNotificationOrStop();
+    }
+
+    private void releasePrewarmedPlayers() {
+        for (TaskPlayer player : prewarmedPlayers.values()) {
+            player.discardPrewarm();
+        }
+        prewarmedPlayers.clear();
+    }
+
     /**
      * 停止任务播放
      */
     public void stopTask(long taskId) {
+        stopTaskInternal(taskId);
+        updateNotificationOrStop();
+    }
+
+    /**
+     * 批量停止任务播放，最后只更新一次通知
+     */
+    public void stopTasks(long[] taskIds) {
+        for (long taskId : taskIds) {
+            stopTaskInternal(taskId);
+        }
+        updateNotificationOrStop();
+    }
+
+    /**
+     * 停止任务播放，不更新通知
+     */
+    private void stopTaskInternal(long taskId) {
+        preemptedTaskIds.remove(taskId);
+        TaskPlayer prewarmed = prewarmedPlayers.remove(taskId);
+        if (prewarmed != null) {
+            prewarmed.discardPrewarm();
+        }
         TaskPlayer player = taskPlayers.remove(taskId);
         taskOutputDevices.remove(taskId);
         playingTaskIds.remove(taskId);  // 从正在播放的任务集合移除
@@ -331,7 +534,6 @@ public class AudioPlaybackService extends Service {
             }
             player.stop();
         }
-        updateNotificationOrStop();
     }
 
     /**
@@ -353,12 +555,34 @@ public class AudioPlaybackService extends Service {
             player.stop();
         }
         taskPlayers.clear();
+        releasePrewarmedPlayers();
         taskOutputDevices.clear();
+        preemptedTaskIds.clear();
         playingTaskIds.clear();  // 清空正在播放的任务集合
         stopForeground(true);
         stopSelf();
     }
 
+    /**
+     * 因并发抢占暂停任务
+     * 播放器保留在原位置，重新获得槽位后从暂停处继续；尚未开始出声（准备中）的任务直接停止
+     */
+    public void preemptTask(long taskId) {
+        TaskPlayer player = taskPlayers.get(taskId);
+        if (player == null) {
+            return;
+        }
+        player.pause();
+        if (!player.isPaused) {
+            AppLogger.getInstance().d(TAG, "Task " + taskId + " preempted before playback started, stopping");
+            stopTask(taskId);
+            return;
+        }
+        preemptedTaskIds.add(taskId);
+        AppLogger.getInstance().d(TAG, "Task " + taskId + " preempted, playback paused");
+        notifyPlaybackStateChanged();
+    }
+
     /**
      * 检查任务是否正在播放
      */
@@ -380,7 +604,11 @@ public class AudioPlaybackService extends Service {
         this.playbackCallback = callback;
     }
 
-    private void startTaskPlayback(TaskEntity task) {
+    /**
+     * @param audioPaths 任务的播放列表，由调用方在后台线程读取
+     * @param updateNotification 启动后是否更新前台通知；批量启动时由调用方在最后统一更新
+     */
+    private void startTaskPlayback(TaskEntity task, List<String> audioPaths, boolean updateNotification) {
         AppLogger.getInstance().d(TAG, "startTaskPlayback called for task " + task.getId() + " [" + task.getName() + "]");
         
         // 检查蓝牙播放模式
@@ -396,16 +624,26 @@ public class AudioPlaybackService extends Service {
             }
         }
         
+        // 被抢占暂停的任务重新获得槽位：从暂停处继续
+        if (preemptedTaskIds.remove(task.getId())) {
+            TaskPlayer preemptedPlayer = taskPlayers.get(task.getId());
+            if (preemptedPlayer != null) {
+                AppLogger.getInstance().d(TAG, "Resuming preempted task " + task.getId());
+                preemptedPlayer.resume();
+                notifyPlaybackStateChanged();
+                return;
+            }
+        }
+        
         // 检查是否已经在播放（防止进程重启后重复启动）
         // 注意：playingTaskIds 在进程重启后会清空，所以也要检查 taskPlayers
         if (playingTaskIds.contains(task.getId())) {
             // 已经标记为正在播放，检查是否真的在播放
             if (taskPlayers.containsKey(task.getId())) {
                 TaskPlayer existingPlayer = taskPlayers.get(task.getId());
-                List<String> newAudioPaths = Converters.parseAudioPaths(task.getAudioPaths());
                 
                 // 如果音频列表没变，继续播放，不重启
-                if (existingPlayer != null && existingPlayer.isSamePlaylist(newAudioPaths)) {
+                if (existingPlayer != null && existingPlayer.isSamePlaylist(audioPaths)) {
                     AppLogger.getInstance().d(TAG, "Task " + task.getId() + " is already playing with same playlist, skipping restart");
                     return;
                 }
@@ -425,9 +663,8 @@ public class AudioPlaybackService extends Service {
         } else if (taskPlayers.containsKey(task.getId())) {
             // taskPlayers 中有但 playingTaskIds 中没有（理论上不应该发生，但为了安全处理）
             TaskPlayer existingPlayer = taskPlayers.get(task.getId());
-            List<String> newAudioPaths = Converters.parseAudioPaths(task.getAudioPaths());
             
-            if (existingPlayer != null && existingPlayer.isSamePlaylist(newAudioPaths)) {
+            if (existingPlayer != null && existingPlayer.isSamePlaylist(audioPaths)) {
                 AppLogger.getInstance().d(TAG, "Task " + task.getId() + " is already playing (taskPlayers), adding to playingTaskIds and skipping restart");
                 playingTaskIds.add(task.getId());
                 return;
@@ -449,8 +686,6 @@ public class AudioPlaybackService extends Service {
             requestAudioFocus();
         }
 
-        // 解析音频路径
-        List<String> audioPaths = Converters.parseAudioPaths(task.getAudioPaths());
         if (audioPaths.isEmpty()) {
             AppLogger.getInstance().w(TAG, "Task " + task.getId() + " has no audio files, will retry in 5 minutes");
             // 移除标记，因为任务启动失败
@@ -477,37 +712,32 @@ public class AudioPlaybackService extends Service {
         // 记录任务的输出设备设置
         taskOutputDevices.put(task.getId(), task.getOutputDevice());
 
-        // 检查是否有保存的播放状态（崩溃恢复场景）
-        int[] savedState = null;
-        List<String> savedPlaylist = null;
-        if (hasSavedPlaybackState(task.getId())) {
-            savedState = getSavedPlaybackState(task.getId());
-            savedPlaylist = getSavedPlaylist(task.getId());
-            // 验证保存的播放列表是否与当前一致
-            if (savedPlaylist != null && !savedPlaylist.isEmpty()) {
-                // 检查播放列表是否相同（忽略顺序）
-                boolean samePlaylist = savedPlaylist.size() == audioPaths.size() 
-                        && savedPlaylist.containsAll(audioPaths) 
-                        && audioPaths.containsAll(savedPlaylist);
-                if (samePlaylist) {
-                    AppLogger.getInstance().d(TAG, "Recovering from crash for task " + task.getId() + 
-                          ": index=" + savedState[0] + ", position=" + savedState[1]);
-                } else {
-                    AppLogger.getInstance().d(TAG, "Playlist changed for task " + task.getId() + ", starting from beginning");
-                    savedState = null;
-                    savedPlaylist = null;
-                    clearTaskPlaybackState(task.getId());
-                }
+        // 检查是否有保存的播放断点（崩溃恢复场景）
+        PlaybackCheckpointJournal.Checkpoint checkpoint = checkpointJournal.get(task.getId());
+        if (checkpoint != null) {
+            // 验证断点的播放列表是否与当前一致
+            if (checkpoint.playlistHash == PlaybackCheckpointJournal.playlistHash(audioPaths)) {
+                AppLogger.getInstance().d(TAG, "Recovering from crash for task " + task.getId() + 
+                      ": index=" + checkpoint.index + ", position=" + checkpoint.position);
             } else {
-                savedState = null;
+                AppLogger.getInstance().d(TAG, "Playlist changed for task " + task.getId() + ", starting from beginning");
+                checkpoint = null;
+                clearTaskPlaybackState(task.getId());
             }
         }
 
         // 创建任务播放器
         TaskPlayer player;
-        if (savedState != null && savedPlaylist != null) {
-            // 崩溃恢复：使用保存的播放列表和位置
-            player = new TaskPlayer(task, savedPlaylist, savedState[0], savedState[1]);
+        TaskPlayer prewarmed = takePrewarmedPlayer(task, audioPaths);
+        if (checkpoint != null) {
+            // 崩溃恢复：按断点的随机种子还原播放顺序，从保存的位置继续
+            if (prewarmed != null) {
+                prewarmed.discardPrewarm();
+            }
+            player = new TaskPlayer(task, audioPaths, checkpoint.shuffleSeed, checkpoint.index, checkpoint.position);
+        } else if (prewarmed != null) {
+            // 已预热：第一首曲目已准备好，直接开始
+            player = prewarmed;
         } else {
             // 正常启动：从头开始
             player = new TaskPlayer(task, audioPaths);
@@ -520,7 +750,9 @@ public class AudioPlaybackService extends Service {
         onTaskPlaybackStarted();
 
         // 启动前台服务
-        startForeground(NOTIFICATION_ID, createNotification());
+        if (updateNotification) {
+            startForeground(NOTIFICATION_ID, createNotification());
+        }
 
         if (playbackCallback != null) {
             playbackCallback.onTaskStarted(task.getId());
@@ -743,7 +975,7 @@ public class AudioPlaybackService extends Service {
     }
 
     private void updateNotificationOrStop() {
-        if (taskPlayers.isEmpty()) {
+        if (taskPlayers.isEmpty() && prewarmedPlayers.isEmpty()) {
             // 所有任务播放结束，恢复静音音频
             onAllTasksPlaybackStopped();
             stopForeground(true);
@@ -874,7 +1106,10 @@ public class AudioPlaybackService extends Service {
         private static final int STATE_SAVE_INTERVAL = 5000;  // 保存状态间隔（毫秒）
         
         private final TaskEntity task;
-        private final List<String> playlist;
+        private final List<String> sourcePlaylist;  // 任务中的原始顺序
+        private final long playlistHash;  // 原始播放列表的哈希，用于校验断点
+        private final List<String> playlist;  // 实际播放顺序（随机模式下为打乱后的顺序）
+        private long shuffleSeed;  // 当前播放顺序的随机种子，记录在断点中用于还原顺序
         private final List<String> playedFiles = new ArrayList<>();  // 已播放的文件列表
         private MediaPlayer mediaPlayer;
         private int currentIndex = 0;
@@ -883,23 +1118,33 @@ public class AudioPlaybackService extends Service {
         private boolean isPaused = false;
         private int consecutiveErrors = 0;  // 连续错误计数器
         private final Runnable stateSaveRunnable = this::saveCurrentState;
+        private boolean prewarming = false;  // 预热中：准备曲目但不出声
+        private boolean prewarmReady = false;  // 预热的曲目已准备完成
+        private long scheduledStartTime = 0;  // 计划开始时间（预热时记录），0 表示未知
+        private long startRequestedAt = 0;  // 收到开始请求的时间
+        private boolean startSkewLogged = false;
 
         TaskPlayer(TaskEntity task, List<String> audioPaths) {
-            this(task, audioPaths, 0, 0);
+            this(task, audioPaths, ThreadLocalRandom.current().nextLong(), 0, 0);
         }
         
         /**
          * 构造函数（支持从指定位置恢复）
+         *
+         * @param shuffleSeed 随机模式下打乱播放列表的种子，相同的种子得到相同的播放顺序
          */
-        TaskPlayer(TaskEntity task, List<String> audioPaths, int startIndex, int startPosition) {
+        TaskPlayer(TaskEntity task, List<String> audioPaths, long shuffleSeed, int startIndex, int startPosition) {
             this.task = task;
+            this.sourcePlaylist = new ArrayList<>(audioPaths);
+            this.playlistHash = PlaybackCheckpointJournal.playlistHash(audioPaths);
             this.playlist = new ArrayList<>(audioPaths);
+            this.shuffleSeed = shuffleSeed;
             this.currentIndex = startIndex;
             this.resumePosition = startPosition;
 
-            // 如果是随机模式且没有保存的状态，打乱播放列表
-            if (task.getPlayMode() == TaskEntity.PLAY_MODE_RANDOM && startIndex == 0 && startPosition == 0) {
-                Collections.shuffle(this.playlist);
+            // 如果是随机模式，按种子打乱播放列表
+            if (task.getPlayMode() == TaskEntity.PLAY_MODE_RANDOM) {
+                shuffle(shuffleSeed);
             }
             
             // 验证起始索引
@@ -912,11 +1157,32 @@ public class AudioPlaybackService extends Service {
         void start() {
             isPlaying = true;
             isPaused = false;
-            playCurrentTrack();
+            startRequestedAt = System.currentTimeMillis();
+            if (prewarming) {
+                prewarming = false;
+                if (prewarmReady && mediaPlayer != null) {
+                    startPreparedTrack(mediaPlayer, playlist.get(currentIndex), 0);
+                }
+                // 尚未准备完成时，准备完成后按正常流程开始
+            } else {
+                playCurrentTrack();
+            }
             // 启动定期保存状态
             scheduleStateSave();
         }
 
+        /**
+         * 预热：从第一首可播放的曲目开始准备，准备完成后保持暂停，等待 {@link #start()}
+         */
+        void prewarm(long scheduledStartTime, Set<String> playablePaths) {
+            this.scheduledStartTime = scheduledStartTime;
+            while (currentIndex < playlist.size() - 1 && !playablePaths.contains(playlist.get(currentIndex))) {
+                currentIndex++;
+            }
+            prewarming = true;
+            playCurrentTrack();
+        }
+
         void stop() {
             isPlaying = false;
             isPaused = false;
@@ -988,6 +1254,15 @@ public class AudioPlaybackService extends Service {
             releaseMediaPlayer();
         }
         
+        /**
+         * 放弃预热（未开始播放，不涉及保存的播放状态）
+         */
+        void discardPrewarm() {
+            prewarming = false;
+            prewarmReady = false;
+            releaseMediaPlayer();
+        }
+
         /**
          * 定期保存播放状态
          */
@@ -998,13 +1273,23 @@ public class AudioPlaybackService extends Service {
             }
         }
         
+        /**
+         * 从原始顺序按种子打乱播放列表
+         */
+        private void shuffle(long seed) {
+            shuffleSeed = seed;
+            playlist.clear();
+            playlist.addAll(sourcePlaylist);
+            Collections.shuffle(playlist, new Random(seed));
+        }
+
         /**
          * 保存当前播放状态
          */
         private void saveCurrentState() {
             if (isPlaying && !playlist.isEmpty()) {
                 int position = getCurrentPosition();
-                saveTaskPlaybackState(task.getId(), currentIndex, position, playlist);
+                saveTaskPlaybackState(task.getId(), playlistHash, shuffleSeed, currentIndex, position);
                 // 继续定期保存
                 scheduleStateSave();
             }
@@ -1039,7 +1324,7 @@ public class AudioPlaybackService extends Service {
 
         private void playCurrentTrack() {
             AppLogger.getInstance().d(TAG, "playCurrentTrack: isPlaying=" + isPlaying + ", playlistSize=" + playlist.size() + ", currentIndex=" + currentIndex + ", resumePosition=" + resumePosition);
-            if (!isPlaying || playlist.isEmpty()) {
+            if ((!isPlaying && !prewarming) || playlist.isEmpty()) {
                 AppLogger.getInstance().w(TAG, "playCurrentTrack: skipping because isPlaying=" + isPlaying + " or playlist is empty");
                 return;
             }
@@ -1060,7 +1345,7 @@ public class AudioPlaybackService extends Service {
                 resumePosition = 0;  // 重置恢复位置
                 // 随机模式下，重新洗牌
                 if (task.getPlayMode() == TaskEntity.PLAY_MODE_RANDOM) {
-                    Collections.shuffle(playlist);
+                    shuffle(ThreadLocalRandom.current().nextLong());
                 }
             }
 
@@ -1092,32 +1377,12 @@ public class AudioPlaybackService extends Service {
                 });
                 mediaPlayer.prepareAsync();
                 mediaPlayer.setOnPreparedListener(mp -> {
-                    AppLogger.getInstance().d(TAG, "MediaPlayer prepared, isPlaying=" + isPlaying);
-                    if (isPlaying) {
-                        try {
-                            // 如果有恢复位置，先 seek 到指定位置
-                            if (seekPosition > 0) {
-                                mp.seekTo(seekPosition);
-                                AppLogger.getInstance().d(TAG, "MediaPlayer seeking to position: " + seekPosition);
-                            }
-                            mp.start();
-                            AppLogger.getInstance().d(TAG, "MediaPlayer started playing: " + audioPath + 
-                                  ", duration=" + mp.getDuration() + "ms, isActuallyPlaying=" + mp.isPlaying() +
-                                  (seekPosition > 0 ? ", resumed from " + seekPosition + "ms" : ""));
-                            // 播放成功，重置连续错误计数
-                            consecutiveErrors = 0;
-                            // 记录已播放的文件
-                            playedFiles.add(audioPath);
-                            // 立即保存状态
-                            saveCurrentState();
-                            // 通知播放状态变化
-                            notifyPlaybackStateChanged();
-                        } catch (IllegalStateException e) {
-                            AppLogger.getInstance().e(TAG, "Failed to start MediaPlayer", e);
-                            consecutiveErrors++;
-                            currentIndex++;
-                            playCurrentTrack();
-                        }
+                    AppLogger.getInstance().d(TAG, "MediaPlayer prepared, isPlaying=" + isPlaying + ", prewarming=" + prewarming);
+                    if (prewarming) {
+                        prewarmReady = true;
+                        AppLogger.getInstance().d(TAG, "Task " + task.getId() + " prewarmed, holding " + audioPath);
+                    } else if (isPlaying) {
+                        startPreparedTrack(mp, audioPath, seekPosition);
                     }
                 });
 
@@ -1142,6 +1407,55 @@ public class AudioPlaybackService extends Service {
             }
         }
 
+        /**
+         * 开始播放已准备好的曲目
+         */
+        private void startPreparedTrack(MediaPlayer mp, String audioPath, int seekPosition) {
+            try {
+                // 如果有恢复位置，先 seek 到指定位置
+                if (seekPosition > 0) {
+                    mp.seekTo(seekPosition);
+                    AppLogger.getInstance().d(TAG, "MediaPlayer seeking to position: " + seekPosition);
+                }
+                mp.start();
+                AppLogger.getInstance().d(TAG, "MediaPlayer started playing: " + audioPath + 
+                      ", duration=" + mp.getDuration() + "ms, isActuallyPlaying=" + mp.isPlaying() +
+                      (seekPosition > 0 ? ", resumed from " + seekPosition + "ms" : ""));
+                logStartSkew();
+                // 播放成功，重置连续错误计数
+                consecutiveErrors = 0;
+                // 记录已播放的文件
+                playedFiles.add(audioPath);
+                // 立即保存状态
+                saveCurrentState();
+                // 通知播放状态变化
+                notifyPlaybackStateChanged();
+            } catch (IllegalStateException e) {
+                AppLogger.getInstance().e(TAG, "Failed to start MediaPlayer", e);
+                consecutiveErrors++;
+                currentIndex++;
+                playCurrentTrack();
+            }
+        }
+
+        /**
+         * 记录本次执行第一次出声相对计划开始时间的偏差（每次执行只记录一次）
+         */
+        private void logStartSkew() {
+            if (startSkewLogged) {
+                return;
+            }
+            startSkewLogged = true;
+            long now = System.currentTimeMillis();
+            if (scheduledStartTime > 0) {
+                AppLogger.i(TAG, "Task " + task.getId() + " start skew: " + (now - scheduledStartTime)
+                        + "ms after scheduled time (prewarmed)");
+            } else {
+                AppLogger.i(TAG, "Task " + task.getId() + " start latency: " + (now - startRequestedAt)
+                        + "ms after start request (not prewarmed)");
+            }
+        }
+
         private void releaseMediaPlayer() {
             if (mediaPlayer != null) {
                 try {
@@ -1201,72 +1515,19 @@ public class AudioPlaybackService extends Service {
     // ==================== 播放状态持久化 ====================
     
     /**
-     * 保存任务的播放状态（用于崩溃恢复）
-     */
-    private void saveTaskPlaybackState(long taskId, int currentIndex, int currentPosition, List<String> playlist) {
-        SharedPreferences.Editor editor = playbackPrefs.edit();
-        editor.putInt(String.format(KEY_TASK_CURRENT_INDEX, taskId), currentIndex);
-        editor.putInt(String.format(KEY_TASK_CURRENT_POSITION, taskId), currentPosition);
-        // 保存播放列表（用逗号分隔）
-        editor.putString(String.format(KEY_TASK_PLAYLIST, taskId), String.join("|||", playlist));
-        // 更新正在播放的任务ID列表
-        Set<String> taskIds = new HashSet<>(playbackPrefs.getStringSet(KEY_PLAYING_TASK_IDS, new HashSet<>()));
-        taskIds.add(String.valueOf(taskId));
-        editor.putStringSet(KEY_PLAYING_TASK_IDS, taskIds);
-        editor.apply();
-        AppLogger.getInstance().d(TAG, "Saved playback state for task " + taskId + ": index=" + currentIndex + ", position=" + currentPosition);
-    }
-    
-    /**
-     * 获取保存的播放状态
+     * 保存任务的播放断点（用于崩溃恢复）
      */
-    private int[] getSavedPlaybackState(long taskId) {
-        int currentIndex = playbackPrefs.getInt(String.format(KEY_TASK_CURRENT_INDEX, taskId), 0);
-        int currentPosition = playbackPrefs.getInt(String.format(KEY_TASK_CURRENT_POSITION, taskId), 0);
-        return new int[]{currentIndex, currentPosition};
+    private void saveTaskPlaybackState(long taskId, long playlistHash, long shuffleSeed, int currentIndex, int currentPosition) {
+        checkpointJournal.save(taskId, playlistHash, shuffleSeed, currentIndex, currentPosition);
     }
     
     /**
-     * 获取保存的播放列表
-     */
-    private List<String> getSavedPlaylist(long taskId) {
-        String playlistStr = playbackPrefs.getString(String.format(KEY_TASK_PLAYLIST, taskId), "");
-        if (playlistStr.isEmpty()) {
-            return new ArrayList<>();
-        }
-        String[] parts = playlistStr.split("\\|\\|\\|");
-        List<String> playlist = new ArrayList<>();
-        for (String part : parts) {
-            if (!part.isEmpty()) {
-                playlist.add(part);
-            }
-        }
-        return playlist;
-    }
-    
-    /**
-     * 清除任务的播放状态
+     * 清除任务的播放断点
      */
     private void clearTaskPlaybackState(long taskId) {
-        SharedPreferences.Editor editor = playbackPrefs.edit();
-        editor.remove(String.format(KEY_TASK_CURRENT_INDEX, taskId));
-        editor.remove(String.format(KEY_TASK_CURRENT_POSITION, taskId));
-        editor.remove(String.format(KEY_TASK_PLAYLIST, taskId));
-        // 从正在播放的任务ID列表中移除
-        Set<String> taskIds = new HashSet<>(playbackPrefs.getStringSet(KEY_PLAYING_TASK_IDS, new HashSet<>()));
-        taskIds.remove(String.valueOf(taskId));
-        editor.putStringSet(KEY_PLAYING_TASK_IDS, taskIds);
-        editor.apply();
+        checkpointJournal.clear(taskId);
         AppLogger.getInstance().d(TAG, "Cleared playback state for task " + taskId);
     }
-    
-    /**
-     * 检查是否有保存的播放状态（用于判断是否是崩溃恢复）
-     */
-    private boolean hasSavedPlaybackState(long taskId) {
-        Set<String> taskIds = playbackPrefs.getStringSet(KEY_PLAYING_TASK_IDS, new HashSet<>());
-        return taskIds.contains(String.valueOf(taskId));
-    }
 
     /**
      * 播放回调接口
@@ -1443,6 +1704,35 @@ public class AudioPlaybackService extends Service {
         }
     }
 
+    /**
+     * 静态方法：批量启动任务播放（同一时刻开始的多个任务只发送一个 Intent）
+     */
+    public static void startTasksPlayback(Context context, List<Long> taskIds) {
+        Intent intent = new Intent(context, AudioPlaybackService.class);
+        intent.setAction(ACTION_START_TASKS);
+        intent.putExtra(EXTRA_TASK_IDS, toLongArray(taskIds));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(intent);
+        } else {
+            context.startService(intent);
+        }
+    }
+
+    /**
+     * 静态方法：预热任务播放（在开始时间前调用）
+     */
+    public static void prewarmTaskPlayback(Context context, long taskId, long scheduledTime) {
+        Intent intent = new Intent(context, AudioPlaybackService.class);
+        intent.setAction(ACTION_PREWARM_TASK);
+        intent.putExtra(EXTRA_TASK_ID, taskId);
+        intent.putExtra(EXTRA_SCHEDULED_TIME, scheduledTime);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(intent);
+        } else {
+            context.startService(intent);
+        }
+    }
+
     /**
      * 静态方法：停止任务播放
      */
@@ -1453,6 +1743,34 @@ public class AudioPlaybackService extends Service {
         context.startService(intent);
     }
 
+    /**
+     * 静态方法：批量停止任务播放
+     */
+    public static void stopTasksPlayback(Context context, List<Long> taskIds) {
+        Intent intent = new Intent(context, AudioPlaybackService.class);
+        intent.setAction(ACTION_STOP_TASKS);
+        intent.putExtra(EXTRA_TASK_IDS, toLongArray(taskIds));
+        context.startService(intent);
+    }
+
+    private static long[] toLongArray(List<Long> values) {
+        long[] array = new long[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * 静态方法：因并发抢占暂停任务播放
+     */
+    public static void preemptTaskPlayback(Context context, long taskId) {
+        Intent intent = new Intent(context, AudioPlaybackService.class);
+        intent.setAction(ACTION_PREEMPT_TASK);
+        intent.putExtra(EXTRA_TASK_ID, taskId);
+        context.startService(intent);
+    }
+
     /**
      * 静态方法：停止所有播放
      */
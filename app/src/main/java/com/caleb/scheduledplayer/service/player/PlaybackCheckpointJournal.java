@@ -0,0 +1,248 @@
+package com.caleb.scheduledplayer.service.player;
+
+import com.caleb.scheduledplayer.util.AppLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 播放断点日志（用于崩溃恢复）
+ * 只追加固定长度的二进制记录：任务ID、播放列表哈希、随机种子、曲目索引、播放位置和校验和，
+ * 每个断点只写入 {@link #RECORD_SIZE} 字节；内存中保存每个任务最新的断点，
+ * 记录数远多于存活的断点时把存活断点写入新文件替换旧文件
+ *
+ * 写入后不调用 fsync：只需要在进程崩溃后恢复，已写入页缓存的数据不会丢失；
+ * 加载时遇到不完整或校验失败的记录，丢弃该记录及之后的内容
+ */
+class PlaybackCheckpointJournal {
+
+    private static final String TAG = "PlaybackCheckpoint";
+
+    private static final String FILE_NAME = "playback_checkpoints.bin";
+    private static final String COMPACT_FILE_NAME = "playback_checkpoints.bin.tmp";
+
+    /**
+     * 记录长度：taskId(8) + playlistHash(8) + shuffleSeed(8) + index(4) + position(4) + crc(4)
+     */
+    static final int RECORD_SIZE = 36;
+    private static final int CHECKSUM_OFFSET = RECORD_SIZE - 4;
+
+    /**
+     * 曲目索引取该值表示断点已清除
+     */
+    private static final int CLEARED_INDEX = -1;
+
+    /**
+     * 触发整理的最少记录数，以及记录数相对存活断点数的倍数
+     */
+    private static final int COMPACT_MIN_RECORDS = 256;
+    private static final int COMPACT_LIVE_FACTOR = 4;
+
+    private final File file;
+    private final File compactFile;
+    private final Map<Long, Checkpoint> checkpoints = new HashMap<>();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private int recordCount = 0;
+
+    PlaybackCheckpointJournal(File dir) {
+        this.file = new File(dir, FILE_NAME);
+        this.compactFile = new File(dir, COMPACT_FILE_NAME);
+        load();
+    }
+
+    /**
+     * 断点
+     */
+    static final class Checkpoint {
+        final long playlistHash;
+        final long shuffleSeed;
+        final int index;
+        final int position;
+
+        Checkpoint(long playlistHash, long shuffleSeed, int index, int position) {
+            this.playlistHash = playlistHash;
+            this.shuffleSeed = shuffleSeed;
+            this.index = index;
+            this.position = position;
+        }
+
+        boolean sameAs(long playlistHash, long shuffleSeed, int index, int position) {
+            return this.playlistHash == playlistHash && this.shuffleSeed == shuffleSeed
+                    && this.index == index && this.position == position;
+        }
+    }
+
+    /**
+     * 获取任务最新的断点，没有时返回 null
+     */
+    synchronized Checkpoint get(long taskId) {
+        return checkpoints.get(taskId);
+    }
+
+    /**
+     * 记录断点，与上一个断点相同时（例如暂停中）不写入
+     */
+    synchronized void save(long taskId, long playlistHash, long shuffleSeed, int index, int position) {
+        Checkpoint previous = checkpoints.get(taskId);
+        if (previous != null && previous.sameAs(playlistHash, shuffleSeed, index, position)) {
+            return;
+        }
+        checkpoints.put(taskId, new Checkpoint(playlistHash, shuffleSeed, index, position));
+        append(taskId, playlistHash, shuffleSeed, index, position);
+    }
+
+    /**
+     * 清除任务的断点
+     */
+    synchronized void clear(long taskId) {
+        if (checkpoints.remove(taskId) != null) {
+            append(taskId, 0, 0, CLEARED_INDEX, 0);
+        }
+    }
+
+    /**
+     * 关闭文件，之后的写入只更新内存
+     */
+    synchronized void close() {
+        closeChannel();
+    }
+
+    /**
+     * 计算播放列表哈希（64 位 FNV-1a，与顺序有关）
+     */
+    static long playlistHash(List<String> paths) {
+        long hash = 0xcbf29ce484222325L;
+        for (String path : paths) {
+            for (int i = 0; i < path.length(); i++) {
+                hash ^= path.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            // 分隔符，避免 ["ab", "c"] 与 ["a", "bc"] 相同
+            hash ^= 0xffff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void load() {
+        try {
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            long validLength = 0;
+            record.clear();
+            while (channel.read(record, validLength) == RECORD_SIZE) {
+                if (!checksumMatches()) {
+                    break;
+                }
+                record.rewind();
+                long taskId = record.getLong();
+                long playlistHash = record.getLong();
+                long shuffleSeed = record.getLong();
+                int index = record.getInt();
+                int position = record.getInt();
+                if (index == CLEARED_INDEX) {
+                    checkpoints.remove(taskId);
+                } else {
+                    checkpoints.put(taskId, new Checkpoint(playlistHash, shuffleSeed, index, position));
+                }
+                validLength += RECORD_SIZE;
+                recordCount++;
+                record.clear();
+            }
+            if (validLength < channel.size()) {
+                AppLogger.getInstance().w(TAG, "Discarding " + (channel.size() - validLength) + " trailing bytes of checkpoint journal");
+                channel.truncate(validLength);
+            }
+            channel.position(validLength);
+            AppLogger.getInstance().d(TAG, "Loaded " + checkpoints.size() + " checkpoints from " + recordCount + " records");
+        } catch (IOException e) {
+            AppLogger.getInstance().e(TAG, "Failed to open checkpoint journal, crash recovery disabled", e);
+            checkpoints.clear();
+            closeChannel();
+        }
+    }
+
+    private boolean checksumMatches() {
+        crc.reset();
+        crc.update(record.array(), 0, CHECKSUM_OFFSET);
+        return record.getInt(CHECKSUM_OFFSET) == (int) crc.getValue();
+    }
+
+    private void fillRecord(long taskId, long playlistHash, long shuffleSeed, int index, int position) {
+        record.clear();
+        record.putLong(taskId);
+        record.putLong(playlistHash);
+        record.putLong(shuffleSeed);
+        record.putInt(index);
+        record.putInt(position);
+        crc.reset();
+        crc.update(record.array(), 0, CHECKSUM_OFFSET);
+        record.putInt((int) crc.getValue());
+        record.flip();
+    }
+
+    private void append(long taskId, long playlistHash, long shuffleSeed, int index, int position) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            fillRecord(taskId, playlistHash, shuffleSeed, index, position);
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            recordCount++;
+            if (recordCount >= Math.max(COMPACT_MIN_RECORDS, checkpoints.size() * COMPACT_LIVE_FACTOR)) {
+                compact();
+            }
+        } catch (IOException e) {
+            AppLogger.getInstance().e(TAG, "Failed to write checkpoint journal, crash recovery disabled", e);
+            closeChannel();
+        }
+    }
+
+    /**
+     * 整理：把存活的断点写入临时文件，再替换日志文件
+     */
+    private void compact() throws IOException {
+        try (FileChannel out = new RandomAccessFile(compactFile, "rw").getChannel()) {
+            out.truncate(0);
+            for (Map.Entry<Long, Checkpoint> entry : checkpoints.entrySet()) {
+                Checkpoint checkpoint = entry.getValue();
+                fillRecord(entry.getKey(), checkpoint.playlistHash, checkpoint.shuffleSeed,
+                        checkpoint.index, checkpoint.position);
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+        }
+        closeChannel();
+        if (!compactFile.renameTo(file)) {
+            throw new IOException("Failed to replace " + file);
+        }
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        channel.position(channel.size());
+        AppLogger.getInstance().d(TAG, "Compacted checkpoint journal from " + recordCount + " to " + checkpoints.size() + " records");
+        recordCount = checkpoints.size();
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+}
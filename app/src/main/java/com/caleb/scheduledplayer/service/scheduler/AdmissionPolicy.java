@@ -0,0 +1,33 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import java.util.Map;
+
+/**
+ * 并发播放准入策略
+ * 并发数已满时决定新任务是等待还是抢占正在播放的任务
+ *
+ * 实现只能基于传入的内存数据做判断，不能访问数据库或执行耗时操作：
+ * 调用方持有 ConcurrencyManager 的锁
+ */
+public interface AdmissionPolicy {
+
+    /**
+     * 表示不抢占任何任务，新任务进入等待
+     */
+    long NO_VICTIM = -1;
+
+    /**
+     * 并发数已满时选择被抢占的任务
+     *
+     * @param taskId 申请槽位的任务ID
+     * @param priority 申请槽位的任务优先级
+     * @param holders 当前持有槽位的任务（任务ID -> 优先级），只读
+     * @return 被抢占的任务ID，{@link #NO_VICTIM} 表示新任务等待
+     */
+    long selectVictim(long taskId, int priority, Map<Long, Integer> holders);
+
+    /**
+     * 先到先得：从不抢占
+     */
+    AdmissionPolicy FIRST_COME = (taskId, priority, holders) -> NO_VICTIM;
+}
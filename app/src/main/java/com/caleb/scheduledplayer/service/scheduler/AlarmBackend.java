@@ -0,0 +1,59 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import java.util.List;
+
+/**
+ * 闹钟后端
+ * AlarmScheduler 通过它注册唯一的系统闹钟并持久化定时堆，模拟器可替换为内存实现
+ */
+public interface AlarmBackend {
+
+    /**
+     * 定时事件读取结果的回调
+     */
+    interface LoadCallback {
+        void onLoaded(List<AlarmTimerHeap.TimerEvent> events);
+
+        void onLoadFailed(Exception e);
+    }
+
+    /**
+     * 从持久化存储读取定时事件
+     * 实现不得阻塞调用方（调度器可能在主线程上创建），读取完成后回调；回调可以在任意线程上执行
+     */
+    void loadTimerEvents(LoadCallback callback);
+
+    /**
+     * 持久化定时堆
+     * 实现可以只写入 {@link AlarmTimerHeap#drainChanges()} 返回的增量
+     */
+    void saveTimerHeap(AlarmTimerHeap heap);
+
+    /**
+     * 等待之前保存的增量写入持久化存储
+     */
+    void awaitSaved();
+
+    /**
+     * 注册唯一的系统闹钟（替换之前的注册）
+     *
+     * @param triggerTime 触发时间戳
+     * @param useAlarmClock 是否以闹钟方式注册（Doze 模式下也能准时触发）
+     */
+    void arm(long triggerTime, boolean useAlarmClock);
+
+    /**
+     * 取消系统闹钟
+     */
+    void disarm();
+
+    /**
+     * 检查是否有精确闹钟权限
+     */
+    boolean canScheduleExactAlarms();
+
+    /**
+     * 清理旧版本按任务注册的闹钟（只执行一次）
+     */
+    void clearLegacyAlarmsOnce(List<Long> taskIds);
+}
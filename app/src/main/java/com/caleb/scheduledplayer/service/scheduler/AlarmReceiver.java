@@ -4,9 +4,16 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.PowerManager;
+import android.os.SystemClock;
 
 import com.caleb.scheduledplayer.util.AppLogger;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 闹钟广播接收器
  * 接收 AlarmManager 的定时广播，触发任务开始/结束
@@ -15,9 +22,15 @@ public class AlarmReceiver extends BroadcastReceiver {
 
     private static final String TAG = "AlarmReceiver";
 
+    /**
+     * 每个分发任务处理的定时事件数，限制单个任务占用分发线程的时间
+     */
+    private static final int TIMER_EVENT_SLICE_SIZE = 64;
+
     public static final String ACTION_TASK_START = "com.caleb.scheduledplayer.TASK_START";
     public static final String ACTION_TASK_STOP = "com.caleb.scheduledplayer.TASK_STOP";
     public static final String ACTION_TASK_RETRY = "com.caleb.scheduledplayer.TASK_RETRY";
+    public static final String ACTION_TIMER_WAKEUP = "com.caleb.scheduledplayer.TIMER_WAKEUP";
     public static final String EXTRA_TASK_ID = "task_id";
 
     @Override
@@ -31,6 +44,14 @@ public class AlarmReceiver extends BroadcastReceiver {
         }
 
         String action = intent.getAction();
+
+        if (ACTION_TIMER_WAKEUP.equals(action)) {
+            AppLogger.getInstance().d(TAG, "Received timer wakeup, time=" + new java.util.Date(receiveTime));
+            handleTimerWakeup(context, acquireWakeLock(context), goAsync());
+            return;
+        }
+
+        // 以下为旧版按任务注册的闹钟，升级后清理前仍可能触发
         long taskId = intent.getLongExtra(EXTRA_TASK_ID, -1);
 
         if (taskId == -1) {
@@ -40,14 +61,7 @@ public class AlarmReceiver extends BroadcastReceiver {
 
         AppLogger.getInstance().d(TAG, "Received alarm: action=" + action + ", taskId=" + taskId + ", time=" + new java.util.Date(receiveTime));
 
-        // 获取 WakeLock 确保 CPU 不休眠
-        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-        PowerManager.WakeLock wakeLock = powerManager.newWakeLock(
-                PowerManager.PARTIAL_WAKE_LOCK,
-                "ScheduledPlayer:AlarmReceiverWakeLock"
-        );
-        wakeLock.acquire(60 * 1000L); // 最多持有 60 秒
-        AppLogger.getInstance().d(TAG, "WakeLock acquired");
+        PowerManager.WakeLock wakeLock = acquireWakeLock(context);
 
         // 使用 goAsync() 延长 BroadcastReceiver 生命周期
         PendingResult pendingResult = goAsync();
@@ -69,60 +83,114 @@ public class AlarmReceiver extends BroadcastReceiver {
         }
     }
 
+    /**
+     * 获取 WakeLock 确保 CPU 不休眠
+     */
+    private PowerManager.WakeLock acquireWakeLock(Context context) {
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        PowerManager.WakeLock wakeLock = powerManager.newWakeLock(
+                PowerManager.PARTIAL_WAKE_LOCK,
+                "ScheduledPlayer:AlarmReceiverWakeLock"
+        );
+        wakeLock.acquire(60 * 1000L); // 最多持有 60 秒
+        AppLogger.getInstance().d(TAG, "WakeLock acquired");
+        return wakeLock;
+    }
+
+    /**
+     * 处理定时堆的唯一系统闹钟：取出所有到期事件，按类型投递到调度分发器的各通道
+     * 每个通道的事件按 {@link #TIMER_EVENT_SLICE_SIZE} 分片投递，分片之间可以插入更高优先级的任务；
+     * 在截止时间前未开始的分片放回定时堆，由下一次系统闹钟继续处理
+     */
+    private void handleTimerWakeup(Context context, PowerManager.WakeLock wakeLock, PendingResult pendingResult) {
+        SchedulerDispatcher dispatcher = SchedulerDispatcher.getInstance();
+        long deadline = SystemClock.elapsedRealtime() + SchedulerDispatcher.RECEIVER_BUDGET_MS;
+        CompletableFuture<Void> finished = new CompletableFuture<>();
+
+        // 取出到期事件很快，放在最高优先级通道，不设截止时间（否则已触发的系统闹钟不会重新注册）
+        dispatcher.submit(SchedulerDispatcher.Lane.STOP, () -> {
+            TaskScheduleManager manager = TaskScheduleManager.getInstance(context);
+            Map<SchedulerDispatcher.Lane, List<AlarmTimerHeap.TimerEvent>> eventsByLane =
+                    new EnumMap<>(SchedulerDispatcher.Lane.class);
+            for (AlarmTimerHeap.TimerEvent event : manager.pollDueAlarms()) {
+                eventsByLane.computeIfAbsent(laneOf(event.kind), lane -> new ArrayList<>()).add(event);
+            }
+
+            List<CompletableFuture<Void>> laneJobs = new ArrayList<>();
+            for (Map.Entry<SchedulerDispatcher.Lane, List<AlarmTimerHeap.TimerEvent>> entry : eventsByLane.entrySet()) {
+                List<AlarmTimerHeap.TimerEvent> events = entry.getValue();
+                AppLogger.getInstance().d(TAG, "Dispatching " + events.size() + " events to " + entry.getKey() + " lane");
+                for (int from = 0; from < events.size(); from += TIMER_EVENT_SLICE_SIZE) {
+                    List<AlarmTimerHeap.TimerEvent> slice = new ArrayList<>(
+                            events.subList(from, Math.min(events.size(), from + TIMER_EVENT_SLICE_SIZE)));
+                    laneJobs.add(dispatcher.submit(entry.getKey(), deadline,
+                            () -> manager.handleTimerEvents(slice),
+                            () -> manager.requeueTimerEvents(slice)));
+                }
+            }
+            CompletableFuture.allOf(laneJobs.toArray(new CompletableFuture[0]))
+                    .whenComplete((result, error) -> finished.complete(null));
+        }).whenComplete((result, error) -> {
+            // 取出事件失败（分发器已记录日志）时也要释放 WakeLock
+            if (error != null) {
+                finished.complete(null);
+            }
+        });
+
+        finished.whenComplete((result, error) -> {
+            AppLogger.getInstance().d(TAG, "Dispatcher lanes: " + dispatcher.getStatsSummary());
+            releaseWakeLockAndFinish(wakeLock, pendingResult);
+        });
+    }
+
+    private static SchedulerDispatcher.Lane laneOf(AlarmTimerHeap.Kind kind) {
+        switch (kind) {
+            case STOP:
+                return SchedulerDispatcher.Lane.STOP;
+            case RETRY:
+                return SchedulerDispatcher.Lane.RETRY;
+            default:
+                return SchedulerDispatcher.Lane.START;
+        }
+    }
+
     private void handleTaskStart(Context context, long taskId, PowerManager.WakeLock wakeLock, PendingResult pendingResult) {
         AppLogger.getInstance().d(TAG, "handleTaskStart() for taskId=" + taskId);
-        // 使用 TaskSchedulerService 的单例线程池，避免内存泄漏
-        TaskSchedulerService.getInstance(context).executeAsync(() -> {
-            try {
-                AppLogger.getInstance().d(TAG, "Executor started for task " + taskId);
-                
-                // 委托给新的 TaskScheduleManager 处理
-                TaskScheduleManager.getInstance(context).handleStartAlarm(taskId);
-                
-            } catch (Exception e) {
-                AppLogger.getInstance().e(TAG, "Error handling task start for taskId=" + taskId, e);
-            } finally {
-                AppLogger.getInstance().d(TAG, "handleTaskStart() completed for taskId=" + taskId);
-                releaseWakeLockAndFinish(wakeLock, pendingResult);
-            }
+        dispatchLegacyAlarm(SchedulerDispatcher.Lane.START, wakeLock, pendingResult, () -> {
+            AppLogger.getInstance().d(TAG, "Executor started for task " + taskId);
+            // 委托给新的 TaskScheduleManager 处理
+            TaskScheduleManager.getInstance(context).handleStartAlarm(taskId);
         });
     }
 
     private void handleTaskStop(Context context, long taskId, PowerManager.WakeLock wakeLock, PendingResult pendingResult) {
-        // 使用异步执行，确保数据库操作不阻塞主线程
-        TaskSchedulerService.getInstance(context).executeAsync(() -> {
-            try {
-                AppLogger.getInstance().d(TAG, ">>> Stopping playback for task " + taskId + " <<<");
-                
-                // 委托给新的 TaskScheduleManager 处理
-                TaskScheduleManager.getInstance(context).handleStopAlarm(taskId);
-                
-            } catch (Exception e) {
-                AppLogger.getInstance().e(TAG, "Error handling task stop for taskId=" + taskId, e);
-            } finally {
-                releaseWakeLockAndFinish(wakeLock, pendingResult);
-            }
+        dispatchLegacyAlarm(SchedulerDispatcher.Lane.STOP, wakeLock, pendingResult, () -> {
+            AppLogger.getInstance().d(TAG, ">>> Stopping playback for task " + taskId + " <<<");
+            // 委托给新的 TaskScheduleManager 处理
+            TaskScheduleManager.getInstance(context).handleStopAlarm(taskId);
         });
     }
 
     private void handleTaskRetry(Context context, long taskId, PowerManager.WakeLock wakeLock, PendingResult pendingResult) {
         AppLogger.getInstance().d(TAG, "handleTaskRetry() for taskId=" + taskId);
-        TaskSchedulerService.getInstance(context).executeAsync(() -> {
-            try {
-                AppLogger.getInstance().d(TAG, "Executor started for retry task " + taskId);
-                
-                // 委托给 TaskScheduleManager 处理重试
-                TaskScheduleManager.getInstance(context).handleRetryAlarm(taskId);
-                
-            } catch (Exception e) {
-                AppLogger.getInstance().e(TAG, "Error handling task retry for taskId=" + taskId, e);
-            } finally {
-                AppLogger.getInstance().d(TAG, "handleTaskRetry() completed for taskId=" + taskId);
-                releaseWakeLockAndFinish(wakeLock, pendingResult);
-            }
+        dispatchLegacyAlarm(SchedulerDispatcher.Lane.RETRY, wakeLock, pendingResult, () -> {
+            AppLogger.getInstance().d(TAG, "Executor started for retry task " + taskId);
+            // 委托给 TaskScheduleManager 处理重试
+            TaskScheduleManager.getInstance(context).handleRetryAlarm(taskId);
         });
     }
 
+    /**
+     * 旧版按任务注册的闹钟：投递到对应通道，完成后释放 WakeLock
+     * 没有可放回的定时事件，超过截止时间仍照常执行
+     */
+    private void dispatchLegacyAlarm(SchedulerDispatcher.Lane lane, PowerManager.WakeLock wakeLock,
+            PendingResult pendingResult, Runnable work) {
+        long deadline = SystemClock.elapsedRealtime() + SchedulerDispatcher.RECEIVER_BUDGET_MS;
+        SchedulerDispatcher.getInstance().submit(lane, deadline, work, null)
+                .whenComplete((result, error) -> releaseWakeLockAndFinish(wakeLock, pendingResult));
+    }
+
     private void releaseWakeLockAndFinish(PowerManager.WakeLock wakeLock, PendingResult pendingResult) {
         if (wakeLock != null && wakeLock.isHeld()) {
             wakeLock.release();
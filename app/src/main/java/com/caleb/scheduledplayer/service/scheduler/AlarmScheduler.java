@@ -1,17 +1,23 @@
 package com.caleb.scheduledplayer.service.scheduler;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
-import android.os.Build;
+
 import com.caleb.scheduledplayer.util.AppLogger;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 闹钟调度器
- * 封装 AlarmManager 的闹钟设置和取消逻辑
+ * 所有任务的开始/结束/重试事件保存在进程内的 {@link AlarmTimerHeap} 中，
+ * AlarmManager 中始终只注册一个系统闹钟（堆顶事件的触发时间）。
+ * 闹钟触发后由 AlarmReceiver 取出所有到期事件逐个处理，并为下一个事件重新注册。
+ *
+ * 定时堆以增量方式持久化到 armed_alarms 表，进程被杀后重新拉起时可恢复。
+ * 以相同触发时间重复登记的事件直接跳过，不修改定时堆、不持久化，也不会触发系统闹钟注册。
+ * 系统闹钟的注册和持久化由 {@link AlarmBackend} 完成（见 {@link SystemAlarmBackend}）
  */
 public class AlarmScheduler {
 
@@ -22,35 +28,139 @@ public class AlarmScheduler {
      */
     public static final long RETRY_INTERVAL_MS = 5 * 60 * 1000L;
 
-    private final Context context;
-    private final AlarmManager alarmManager;
+    /**
+     * 预热提前量：开始前 10 秒启动前台服务并准备好第一首曲目，开始时直接出声
+     */
+    public static final long PREWARM_LEAD_MS = 10 * 1000L;
+
+    /**
+     * 计入下一次触发时间的事件类型（预热只是优化，错过不需要恢复）
+     */
+    private static final AlarmTimerHeap.Kind[] FIRE_KINDS = {
+            AlarmTimerHeap.Kind.START, AlarmTimerHeap.Kind.STOP, AlarmTimerHeap.Kind.RETRY
+    };
+
+    private final AlarmBackend backend;
+    private final AlarmTimerHeap timerHeap = new AlarmTimerHeap();
+
+    /**
+     * 当前已注册到 AlarmManager 的触发时间，-1 表示未注册
+     * 仅在持有 timerHeap 锁时访问
+     */
+    private long armedTriggerTime = -1;
+    private boolean armedAsAlarmClock = false;
+
+    /**
+     * 批量模式嵌套层数，大于 0 时推迟持久化和系统闹钟注册，结束批量时统一处理一次
+     * 仅在持有 timerHeap 锁时访问
+     */
+    private int batchDepth = 0;
+    private boolean batchDirty = false;
+
+    /**
+     * 持久化事件的恢复是否失败，以及失败时的处理（见 {@link #setRestoreFailureListener(Runnable)}）
+     * 仅在持有 timerHeap 锁时访问
+     */
+    private boolean restoreFailed = false;
+    private Runnable restoreFailureListener;
+
+    /**
+     * 调用计数：登记/取消生效的次数、因重复而跳过的次数、系统闹钟注册/取消次数
+     */
+    private final AtomicLong setCount = new AtomicLong();
+    private final AtomicLong cancelCount = new AtomicLong();
+    private final AtomicLong skipCount = new AtomicLong();
+    private final AtomicLong armCount = new AtomicLong();
+    private final AtomicLong disarmCount = new AtomicLong();
 
     public AlarmScheduler(Context context) {
-        this.context = context.getApplicationContext();
-        this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        this(new SystemAlarmBackend(context));
     }
 
     /**
-     * 设置开始闹钟
-     * 使用 AlarmClockInfo 确保在 Doze 模式下也能触发（最高优先级）
+     * 创建后立即在后台恢复持久化的事件，不等待读取完成
+     * 恢复期间登记或取消的事件以内存中的状态为准；读取完成后为堆顶事件注册系统闹钟
+     */
+    public AlarmScheduler(AlarmBackend backend) {
+        this.backend = backend;
+        timerHeap.beginRestore();
+        backend.loadTimerEvents(new AlarmBackend.LoadCallback() {
+            @Override
+            public void onLoaded(List<AlarmTimerHeap.TimerEvent> events) {
+                onTimerEventsLoaded(events);
+            }
+
+            @Override
+            public void onLoadFailed(Exception e) {
+                onTimerEventsLoadFailed();
+            }
+        });
+    }
+
+    /**
+     * 设置恢复持久化事件失败时的处理（通常是重新调度所有任务）
+     * 设置时已经失败则立即在调用线程上执行
+     */
+    public void setRestoreFailureListener(Runnable listener) {
+        synchronized (timerHeap) {
+            if (!restoreFailed) {
+                restoreFailureListener = listener;
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    private void onTimerEventsLoaded(List<AlarmTimerHeap.TimerEvent> events) {
+        int merged;
+        synchronized (timerHeap) {
+            merged = timerHeap.completeRestore(events);
+            onTimerHeapChanged();
+        }
+        AppLogger.d(TAG, "Restored " + merged + " of " + events.size() + " timer events");
+    }
+
+    private void onTimerEventsLoadFailed() {
+        Runnable listener;
+        synchronized (timerHeap) {
+            timerHeap.abortRestore();
+            restoreFailed = true;
+            listener = restoreFailureListener;
+            onTimerHeapChanged();
+        }
+        AppLogger.w(TAG, "Timer events not restored, " + timerHeap.size() + " events scheduled since start");
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 设置开始闹钟，同时在开始前 {@link #PREWARM_LEAD_MS} 登记预热事件
+     * 堆顶为开始或预热事件时使用 AlarmClockInfo 注册，确保在 Doze 模式下也能触发（最高优先级）
      * 
      * @param taskId 任务ID
      * @param triggerTime 触发时间戳
      */
     public void setStartAlarm(long taskId, long triggerTime) {
-        if (triggerTime <= System.currentTimeMillis()) {
+        if (triggerTime <= SchedulerClock.now()) {
             AppLogger.w(TAG, "Start alarm time has passed for task " + taskId + ", skipping");
             return;
         }
 
-        PendingIntent pi = createPendingIntent(taskId, true);
+        // 开始事件未变时也要重新登记预热事件，对账时才会被确认；距开始不足提前量时不预热
+        long prewarmTime = triggerTime - PREWARM_LEAD_MS;
+        if (prewarmTime > SchedulerClock.now()) {
+            scheduleEvent(taskId, AlarmTimerHeap.Kind.PREWARM, prewarmTime);
+        } else {
+            cancelEvent(taskId, AlarmTimerHeap.Kind.PREWARM);
+        }
 
-        // 使用 AlarmClockInfo 确保 Doze 模式下也能触发
-        AlarmManager.AlarmClockInfo alarmClockInfo = new AlarmManager.AlarmClockInfo(triggerTime, pi);
-        alarmManager.setAlarmClock(alarmClockInfo, pi);
+        if (!scheduleEvent(taskId, AlarmTimerHeap.Kind.START, triggerTime)) {
+            return;
+        }
 
         AppLogger.d(TAG, "Set start alarm for task " + taskId + " at " + new Date(triggerTime)
-                + " (in " + ((triggerTime - System.currentTimeMillis()) / 1000) + " seconds)");
+                + " (in " + ((triggerTime - SchedulerClock.now()) / 1000) + " seconds)");
     }
 
     /**
@@ -61,32 +171,17 @@ public class AlarmScheduler {
      * @param triggerTime 触发时间戳
      */
     public void setEndAlarm(long taskId, long triggerTime) {
-        if (triggerTime <= System.currentTimeMillis()) {
+        if (triggerTime <= SchedulerClock.now()) {
             AppLogger.w(TAG, "End alarm time has passed for task " + taskId + ", skipping");
             return;
         }
 
-        PendingIntent pi = createPendingIntent(taskId, false);
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            // Android 12+ 需要检查精确闹钟权限
-            if (alarmManager.canScheduleExactAlarms()) {
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pi);
-            } else {
-                // 没有精确闹钟权限，使用非精确闹钟
-                AppLogger.w(TAG, "Cannot schedule exact alarms, using inexact alarm for task " + taskId);
-                alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pi);
-            }
-        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            // Android 6.0+ 使用 setExactAndAllowWhileIdle
-            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pi);
-        } else {
-            // 低版本使用 setExact
-            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerTime, pi);
+        if (!scheduleEvent(taskId, AlarmTimerHeap.Kind.STOP, triggerTime)) {
+            return;
         }
 
         AppLogger.d(TAG, "Set end alarm for task " + taskId + " at " + new Date(triggerTime)
-                + " (in " + ((triggerTime - System.currentTimeMillis()) / 1000) + " seconds)");
+                + " (in " + ((triggerTime - SchedulerClock.now()) / 1000) + " seconds)");
     }
 
     /**
@@ -101,25 +196,31 @@ public class AlarmScheduler {
     }
 
     /**
-     * 取消任务的所有闹钟（开始、结束和重试）
+     * 取消任务的所有闹钟（开始、结束、重试和预热）
      * 
      * @param taskId 任务ID
      */
     public void cancelAlarms(long taskId) {
-        cancelStartAlarm(taskId);
-        cancelEndAlarm(taskId);
-        cancelRetryAlarm(taskId);
+        synchronized (timerHeap) {
+            boolean changed = countCancel(timerHeap.cancel(taskId, AlarmTimerHeap.Kind.START));
+            changed |= countCancel(timerHeap.cancel(taskId, AlarmTimerHeap.Kind.STOP));
+            changed |= countCancel(timerHeap.cancel(taskId, AlarmTimerHeap.Kind.RETRY));
+            changed |= countCancel(timerHeap.cancel(taskId, AlarmTimerHeap.Kind.PREWARM));
+            if (changed) {
+                onTimerHeapChanged();
+            }
+        }
         AppLogger.d(TAG, "Cancelled all alarms for task " + taskId);
     }
 
     /**
-     * 只取消开始闹钟
+     * 只取消开始闹钟（及其预热事件）
      * 
      * @param taskId 任务ID
      */
     public void cancelStartAlarm(long taskId) {
-        PendingIntent pi = createPendingIntent(taskId, true);
-        alarmManager.cancel(pi);
+        cancelEvent(taskId, AlarmTimerHeap.Kind.START);
+        cancelEvent(taskId, AlarmTimerHeap.Kind.PREWARM);
         AppLogger.d(TAG, "Cancelled start alarm for task " + taskId);
     }
 
@@ -129,51 +230,76 @@ public class AlarmScheduler {
      * @param taskId 任务ID
      */
     public void cancelEndAlarm(long taskId) {
-        PendingIntent pi = createPendingIntent(taskId, false);
-        alarmManager.cancel(pi);
+        cancelEvent(taskId, AlarmTimerHeap.Kind.STOP);
         AppLogger.d(TAG, "Cancelled end alarm for task " + taskId);
     }
 
     /**
-     * 创建闹钟的 PendingIntent
-     * 
-     * @param taskId 任务ID
-     * @param isStart 是否为开始闹钟
-     * @return PendingIntent
+     * 获取任务待触发的开始时间
+     *
+     * @return 开始事件的触发时间戳，没有待触发的开始事件时返回 -1
      */
-    private PendingIntent createPendingIntent(long taskId, boolean isStart) {
-        Intent intent = new Intent(context, AlarmReceiver.class);
-        intent.setAction(isStart ? AlarmReceiver.ACTION_TASK_START : AlarmReceiver.ACTION_TASK_STOP);
-        intent.putExtra(AlarmReceiver.EXTRA_TASK_ID, taskId);
+    public long getPendingStartTime(long taskId) {
+        AlarmTimerHeap.TimerEvent event = timerHeap.get(taskId, AlarmTimerHeap.Kind.START);
+        return event != null ? event.triggerTime : -1;
+    }
 
-        int requestCode = calculateRequestCode(taskId, isStart);
+    /**
+     * 获取任务的下一次触发时间：开始/结束/重试事件中最早的触发时间（不含预热）
+     *
+     * @return 触发时间戳，任务没有登记的事件时返回 0
+     */
+    public long getNextFireTime(long taskId) {
+        synchronized (timerHeap) {
+            long next = 0;
+            for (AlarmTimerHeap.Kind kind : FIRE_KINDS) {
+                AlarmTimerHeap.TimerEvent event = timerHeap.get(taskId, kind);
+                if (event != null && (next == 0 || event.triggerTime < next)) {
+                    next = event.triggerTime;
+                }
+            }
+            return next;
+        }
+    }
 
-        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            flags |= PendingIntent.FLAG_IMMUTABLE;
+    /**
+     * 获取任务当前时间窗口的结束时间
+     * 已登记结束事件、且没有更早的开始事件时，说明结束事件属于已经开始的窗口
+     *
+     * @return 结束事件的触发时间戳，窗口尚未开始或没有结束事件时返回 0
+     */
+    public long getCurrentWindowEnd(long taskId) {
+        synchronized (timerHeap) {
+            AlarmTimerHeap.TimerEvent stop = timerHeap.get(taskId, AlarmTimerHeap.Kind.STOP);
+            if (stop == null) {
+                return 0;
+            }
+            AlarmTimerHeap.TimerEvent start = timerHeap.get(taskId, AlarmTimerHeap.Kind.START);
+            return start == null || start.triggerTime >= stop.triggerTime ? stop.triggerTime : 0;
         }
+    }
 
-        return PendingIntent.getBroadcast(context, requestCode, intent, flags);
+    /**
+     * 确保为堆顶事件注册了系统闹钟
+     * 进程启动后恢复的事件没有变化时不会触发注册，而系统闹钟可能已随强制停止等原因丢失
+     */
+    public void ensureArmed() {
+        synchronized (timerHeap) {
+            if (batchDepth == 0) {
+                onTimerHeapChanged();
+            }
+        }
     }
 
     /**
-     * 计算 Request Code
-     * 直接使用 taskId 作为 suffix，避免哈希冲突
-     * 
-     * Room 自增 ID 从 1 开始，正常不会超过 Integer.MAX_VALUE
-     * 开始闹钟: taskId * 3 (mod 3 = 0)
-     * 结束闹钟: taskId * 3 + 1 (mod 3 = 1)
-     * 重试闹钟: taskId * 3 + 2 (mod 3 = 2)
-     * 
-     * @param taskId 任务ID
-     * @param isStart 是否为开始闹钟
-     * @return Request Code
+     * 立即持久化定时堆的变更（批量期间同样写入，系统闹钟仍推迟到结束批量时注册）并等待写入完成
+     * 任务表中的触发时间写入之前调用，保证进程在两次写入之间被杀时，触发时间指向的事件已经持久化
      */
-    private int calculateRequestCode(long taskId, boolean isStart) {
-        // 取模 700000000 确保乘以 3 后不会溢出
-        // Integer.MAX_VALUE = 2147483647，除以 3 约为 7 亿
-        int baseCode = (int) (taskId % 700000000) * 3;
-        return isStart ? baseCode : (baseCode + 1);
+    public void awaitPersisted() {
+        synchronized (timerHeap) {
+            backend.saveTimerHeap(timerHeap);
+        }
+        backend.awaitSaved();
     }
 
     /**
@@ -181,10 +307,7 @@ public class AlarmScheduler {
      * @return 是否有权限
      */
     public boolean canScheduleExactAlarms() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            return alarmManager.canScheduleExactAlarms();
-        }
-        return true;
+        return backend.canScheduleExactAlarms();
     }
 
     // ==================== 重试闹钟（用于并发限制等待） ====================
@@ -196,21 +319,9 @@ public class AlarmScheduler {
      * @param taskId 任务ID
      */
     public void setRetryAlarm(long taskId) {
-        long triggerTime = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+        long triggerTime = SchedulerClock.now() + RETRY_INTERVAL_MS;
 
-        PendingIntent pi = createRetryPendingIntent(taskId);
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            if (alarmManager.canScheduleExactAlarms()) {
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pi);
-            } else {
-                alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pi);
-            }
-        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pi);
-        } else {
-            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerTime, pi);
-        }
+        scheduleEvent(taskId, AlarmTimerHeap.Kind.RETRY, triggerTime);
 
         AppLogger.d(TAG, "Set retry alarm for task " + taskId + " at " + new Date(triggerTime)
                 + " (in " + (RETRY_INTERVAL_MS / 1000) + " seconds)");
@@ -222,44 +333,261 @@ public class AlarmScheduler {
      * @param taskId 任务ID
      */
     public void cancelRetryAlarm(long taskId) {
-        PendingIntent pi = createRetryPendingIntent(taskId);
-        alarmManager.cancel(pi);
+        cancelEvent(taskId, AlarmTimerHeap.Kind.RETRY);
         AppLogger.d(TAG, "Cancelled retry alarm for task " + taskId);
     }
 
+    // ==================== 定时堆调度 ====================
+
     /**
-     * 创建重试闹钟的 PendingIntent
+     * 取出所有已到期的事件，并为下一个事件重新注册系统闹钟
+     * 由 AlarmReceiver 在唯一系统闹钟触发时调用
      * 
-     * @param taskId 任务ID
-     * @return PendingIntent
+     * @return 按触发时间排序的到期事件
      */
-    private PendingIntent createRetryPendingIntent(long taskId) {
-        Intent intent = new Intent(context, AlarmReceiver.class);
-        intent.setAction(AlarmReceiver.ACTION_TASK_RETRY);
-        intent.putExtra(AlarmReceiver.EXTRA_TASK_ID, taskId);
+    public List<AlarmTimerHeap.TimerEvent> pollDueEvents() {
+        List<AlarmTimerHeap.TimerEvent> dueEvents;
+        synchronized (timerHeap) {
+            // 系统闹钟已触发，视为未注册
+            armedTriggerTime = -1;
+            dueEvents = timerHeap.pollDue(SchedulerClock.now());
+            onTimerHeapChanged();
+        }
+        AppLogger.d(TAG, "Polled " + dueEvents.size() + " due events, " + timerHeap.size() + " pending");
+        return dueEvents;
+    }
 
-        int requestCode = calculateRetryRequestCode(taskId);
+    /**
+     * 把未能及时处理的到期事件放回定时堆，触发时间已过的事件会让系统闹钟立即再次触发
+     * 期间已重新登记或取消的同类事件以新状态为准（已取消的事件仍会放回，处理时按任务状态忽略）
+     *
+     * @return 放回的事件数
+     */
+    public int requeueEvents(List<AlarmTimerHeap.TimerEvent> events) {
+        int requeued = 0;
+        synchronized (timerHeap) {
+            for (AlarmTimerHeap.TimerEvent event : events) {
+                if (timerHeap.scheduleIfAbsent(event.taskId, event.kind, event.triggerTime)) {
+                    requeued++;
+                }
+            }
+            if (requeued > 0) {
+                setCount.addAndGet(requeued);
+                onTimerHeapChanged();
+            }
+        }
+        AppLogger.d(TAG, "Requeued " + requeued + "/" + events.size() + " expired events");
+        return requeued;
+    }
 
-        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            flags |= PendingIntent.FLAG_IMMUTABLE;
+    /**
+     * 清空定时堆并取消系统闹钟
+     * 用于设备重启后：此时 AlarmManager 已清空，持久化的事件均已失效，需要重新计算
+     */
+    public void clearAllEvents() {
+        synchronized (timerHeap) {
+            timerHeap.clear();
+            backend.disarm();
+            disarmCount.incrementAndGet();
+            armedTriggerTime = -1;
+            onTimerHeapChanged();
+        }
+        AppLogger.d(TAG, "Cleared all timer events");
+    }
+
+    /**
+     * 开始批量修改定时堆
+     * 批量期间的设置/取消只修改内存中的堆，直到 {@link #endBatch()} 才持久化并注册系统闹钟
+     */
+    public void beginBatch() {
+        synchronized (timerHeap) {
+            batchDepth++;
+        }
+    }
+
+    /**
+     * 结束批量修改，一次性持久化定时堆并为堆顶事件注册系统闹钟
+     */
+    public void endBatch() {
+        synchronized (timerHeap) {
+            if (batchDepth == 0 || --batchDepth > 0) {
+                return;
+            }
+            if (batchDirty) {
+                batchDirty = false;
+                onTimerHeapChanged();
+            }
+        }
+    }
+
+    /**
+     * 开始对账（设备重启后使用，替代 {@link #clearAllEvents()}）
+     * 重启后 AlarmManager 已清空，但持久化的事件大多仍然有效：
+     * 之后重新登记的相同事件直接跳过，{@link #endReconcile()} 时取消没有被重新登记的事件，
+     * 并重新注册系统闹钟
+     */
+    public void beginReconcile() {
+        synchronized (timerHeap) {
+            timerHeap.markAllUnconfirmed();
+            // 系统闹钟已随重启丢失
+            armedTriggerTime = -1;
+        }
+    }
+
+    /**
+     * 只对部分任务开始对账（设备重启后只重新计算受影响的任务时使用）
+     * 其他任务的持久化事件保持不变，{@link #endReconcile()} 时一并重新注册系统闹钟
+     */
+    public void beginReconcile(Collection<Long> taskIds) {
+        synchronized (timerHeap) {
+            timerHeap.markUnconfirmed(taskIds);
+            armedTriggerTime = -1;
+        }
+    }
+
+    /**
+     * 结束对账，取消未被重新登记的事件
+     *
+     * @return 取消的事件数
+     */
+    public int endReconcile() {
+        int cancelled;
+        synchronized (timerHeap) {
+            cancelled = timerHeap.cancelUnconfirmed();
+            cancelCount.addAndGet(cancelled);
+            onTimerHeapChanged();
+        }
+        AppLogger.d(TAG, "Reconciled timer events, cancelled " + cancelled + " stale events, "
+                + timerHeap.size() + " pending");
+        return cancelled;
+    }
+
+    /**
+     * 获取待触发事件数量
+     */
+    public int getPendingEventCount() {
+        return timerHeap.size();
+    }
+
+    /**
+     * 登记生效的次数（新增或修改了触发时间）
+     */
+    public long getSetCount() {
+        return setCount.get();
+    }
+
+    /**
+     * 取消生效的次数
+     */
+    public long getCancelCount() {
+        return cancelCount.get();
+    }
+
+    /**
+     * 因重复登记或取消不存在的事件而跳过的次数
+     */
+    public long getSkipCount() {
+        return skipCount.get();
+    }
+
+    /**
+     * 系统闹钟注册次数
+     */
+    public long getArmCount() {
+        return armCount.get();
+    }
+
+    /**
+     * 系统闹钟取消次数
+     */
+    public long getDisarmCount() {
+        return disarmCount.get();
+    }
+
+    /**
+     * 调用计数摘要，用于日志
+     */
+    public String getStatsSummary() {
+        return "set=" + setCount.get() + ", cancel=" + cancelCount.get() + ", skip=" + skipCount.get()
+                + ", arm=" + armCount.get() + ", disarm=" + disarmCount.get();
+    }
+
+    /**
+     * 登记事件
+     *
+     * @return 是否有变化（相同触发时间的重复登记返回 false）
+     */
+    private boolean scheduleEvent(long taskId, AlarmTimerHeap.Kind kind, long triggerTime) {
+        synchronized (timerHeap) {
+            if (!timerHeap.schedule(taskId, kind, triggerTime)) {
+                skipCount.incrementAndGet();
+                return false;
+            }
+            setCount.incrementAndGet();
+            onTimerHeapChanged();
+            return true;
+        }
+    }
+
+    private void cancelEvent(long taskId, AlarmTimerHeap.Kind kind) {
+        synchronized (timerHeap) {
+            if (countCancel(timerHeap.cancel(taskId, kind))) {
+                onTimerHeapChanged();
+            }
         }
+    }
 
-        return PendingIntent.getBroadcast(context, requestCode, intent, flags);
+    private boolean countCancel(boolean cancelled) {
+        (cancelled ? cancelCount : skipCount).incrementAndGet();
+        return cancelled;
     }
 
     /**
-     * 计算重试闹钟的 Request Code
-     * 使用不同的基数避免与开始/结束闹钟冲突
-     * 开始闹钟: taskId * 3 (mod 3 = 0)
-     * 结束闹钟: taskId * 3 + 1 (mod 3 = 1)
-     * 重试闹钟: taskId * 3 + 2 (mod 3 = 2)
+     * 定时堆变化后持久化，并在堆顶变化时重新注册系统闹钟（批量期间推迟到 endBatch）
+     * 调用方必须持有 timerHeap 锁
+     */
+    private void onTimerHeapChanged() {
+        if (batchDepth > 0) {
+            batchDirty = true;
+            return;
+        }
+
+        backend.saveTimerHeap(timerHeap);
+
+        AlarmTimerHeap.TimerEvent head = timerHeap.peek();
+        if (head == null) {
+            if (armedTriggerTime != -1) {
+                backend.disarm();
+                disarmCount.incrementAndGet();
+                armedTriggerTime = -1;
+                AppLogger.d(TAG, "Timer heap empty, cancelled system alarm");
+            }
+            return;
+        }
+
+        boolean useAlarmClock = head.kind == AlarmTimerHeap.Kind.START
+                || head.kind == AlarmTimerHeap.Kind.PREWARM;
+        if (head.triggerTime == armedTriggerTime && useAlarmClock == armedAsAlarmClock) {
+            // 堆顶触发时间未变，无需重新注册
+            return;
+        }
+
+        backend.arm(head.triggerTime, useAlarmClock);
+        armCount.incrementAndGet();
+        armedTriggerTime = head.triggerTime;
+        armedAsAlarmClock = useAlarmClock;
+        AppLogger.d(TAG, "Armed system alarm for " + head + " at " + new Date(head.triggerTime));
+    }
+
+    // ==================== 旧版按任务注册的闹钟 ====================
+
+    /**
+     * 清理旧版本按任务注册的闹钟（只执行一次）
+     * 升级后旧闹钟仍留在 AlarmManager 中，会与定时堆中的事件重复触发
      * 
-     * @param taskId 任务ID
-     * @return Request Code
+     * @param taskIds 需要清理的任务ID
      */
-    private int calculateRetryRequestCode(long taskId) {
-        // 取模 700000000 确保乘以 3 后不会溢出
-        return (int) (taskId % 700000000) * 3 + 2;
+    public void clearLegacyAlarmsOnce(List<Long> taskIds) {
+        backend.clearLegacyAlarmsOnce(taskIds);
     }
 }
@@ -0,0 +1,407 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 闹钟定时堆
+ * 以触发时间为键的最小堆，保存所有任务的开始/结束/重试/预热事件
+ * AlarmScheduler 只需为堆顶事件向 AlarmManager 注册一个系统闹钟
+ *
+ * 同一任务同一类型的事件只保留最新的一个：
+ * 替换或取消时旧节点不会立即从堆中删除，而是在出堆时作为过期节点丢弃（惰性删除）；
+ * 以相同触发时间重复登记是空操作
+ *
+ * 有效事件的增删会记入变更日志（每个 (任务, 类型) 只保留最终状态），
+ * 持久化时只需写入 {@link #drainChanges()} 返回的增量
+ *
+ * 线程安全：所有公开方法都是同步的
+ */
+public class AlarmTimerHeap {
+
+    /**
+     * 事件类型
+     * 顺序即同一时刻触发时的处理顺序：先结束、再重试、然后开始，保证先释放播放槽位；预热不涉及槽位，排在最后
+     * 序号会被持久化并编码进 2 位的键中：新类型只能追加在末尾，最多 4 种
+     */
+    public enum Kind {
+        STOP,
+        RETRY,
+        START,
+        PREWARM
+    }
+
+    /**
+     * 定时事件（不可变）
+     */
+    public static final class TimerEvent {
+        public final long taskId;
+        public final Kind kind;
+        public final long triggerTime;
+
+        TimerEvent(long taskId, Kind kind, long triggerTime) {
+            this.taskId = taskId;
+            this.kind = kind;
+            this.triggerTime = triggerTime;
+        }
+
+        @Override
+        public String toString() {
+            return kind + "(task=" + taskId + ", at=" + triggerTime + ")";
+        }
+    }
+
+    /**
+     * 过期节点超过有效节点的倍数时重建堆，避免惰性删除导致堆无限增长
+     */
+    private static final int COMPACT_FACTOR = 2;
+    private static final int COMPACT_MIN_SIZE = 64;
+
+    private final PriorityQueue<TimerEvent> heap = new PriorityQueue<>(16, (a, b) -> {
+        int byTime = Long.compare(a.triggerTime, b.triggerTime);
+        if (byTime != 0) {
+            return byTime;
+        }
+        int byKind = a.kind.compareTo(b.kind);
+        return byKind != 0 ? byKind : Long.compare(a.taskId, b.taskId);
+    });
+
+    /**
+     * 每个 (任务, 类型) 当前有效的事件
+     */
+    private final Map<Long, TimerEvent> liveEvents = new HashMap<>();
+
+    /**
+     * 自上次 drainChanges 以来的变更：键为 (任务, 类型)，值为最新事件，null 表示已删除
+     */
+    private final Map<Long, TimerEvent> pendingChanges = new HashMap<>();
+    private boolean pendingClear = false;
+
+    /**
+     * 对账中尚未被重新登记确认的事件
+     */
+    private final Set<Long> unconfirmed = new HashSet<>();
+
+    /**
+     * 异步恢复期间被登记、取消或对账过的 (任务, 类型)，恢复时以内存中的状态为准；null 表示没有进行中的恢复
+     */
+    private Set<Long> touchedBeforeRestore = null;
+    private boolean allTouchedBeforeRestore = false;
+
+    /**
+     * 持久化增量（不可变）
+     */
+    public static final class Changes {
+        /** 是否需要先清空持久化数据 */
+        public final boolean cleared;
+        /** 新增或替换的事件 */
+        public final List<TimerEvent> upserted;
+        /** 删除的事件（triggerTime 无意义） */
+        public final List<TimerEvent> removed;
+
+        Changes(boolean cleared, List<TimerEvent> upserted, List<TimerEvent> removed) {
+            this.cleared = cleared;
+            this.upserted = upserted;
+            this.removed = removed;
+        }
+
+        public boolean isEmpty() {
+            return !cleared && upserted.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    /**
+     * 添加或替换事件
+     *
+     * @param taskId 任务ID
+     * @param kind 事件类型
+     * @param triggerTime 触发时间戳
+     * @return 是否有变化（已存在相同触发时间的事件时返回 false）
+     */
+    public synchronized boolean schedule(long taskId, Kind kind, long triggerTime) {
+        long key = key(taskId, kind);
+        unconfirmed.remove(key);
+        touch(key);
+        TimerEvent existing = liveEvents.get(key);
+        if (existing != null && existing.triggerTime == triggerTime) {
+            return false;
+        }
+        TimerEvent event = new TimerEvent(taskId, kind, triggerTime);
+        liveEvents.put(key, event);
+        pendingChanges.put(key, event);
+        heap.offer(event);
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * 仅在同一任务同一类型没有有效事件时添加
+     * 用于把未能及时处理的到期事件放回堆中，不覆盖期间重新登记的事件
+     *
+     * @return 是否添加
+     */
+    public synchronized boolean scheduleIfAbsent(long taskId, Kind kind, long triggerTime) {
+        if (liveEvents.containsKey(key(taskId, kind))) {
+            return false;
+        }
+        return schedule(taskId, kind, triggerTime);
+    }
+
+    /**
+     * 取消事件
+     *
+     * @return 是否存在被取消的事件
+     */
+    public synchronized boolean cancel(long taskId, Kind kind) {
+        long key = key(taskId, kind);
+        unconfirmed.remove(key);
+        touch(key);
+        if (liveEvents.remove(key) == null) {
+            return false;
+        }
+        pendingChanges.put(key, null);
+        return true;
+    }
+
+    /**
+     * 获取某任务某类型当前有效的事件
+     *
+     * @return 事件，不存在时返回 null
+     */
+    public synchronized TimerEvent get(long taskId, Kind kind) {
+        return liveEvents.get(key(taskId, kind));
+    }
+
+    /**
+     * 查看最早的有效事件（不出堆）
+     *
+     * @return 最早的事件，堆为空时返回 null
+     */
+    public synchronized TimerEvent peek() {
+        discardStaleHead();
+        return heap.peek();
+    }
+
+    /**
+     * 取出所有已到期的事件
+     *
+     * @param now 当前时间戳
+     * @return 按触发时间排序的到期事件
+     */
+    public synchronized List<TimerEvent> pollDue(long now) {
+        List<TimerEvent> due = new ArrayList<>();
+        discardStaleHead();
+        while (!heap.isEmpty() && heap.peek().triggerTime <= now) {
+            TimerEvent event = heap.poll();
+            long key = key(event.taskId, event.kind);
+            liveEvents.remove(key);
+            unconfirmed.remove(key);
+            pendingChanges.put(key, null);
+            due.add(event);
+            discardStaleHead();
+        }
+        return due;
+    }
+
+    /**
+     * 有效事件数量
+     */
+    public synchronized int size() {
+        return liveEvents.size();
+    }
+
+    /**
+     * 所有有效事件的快照（无序）
+     */
+    public synchronized List<TimerEvent> snapshot() {
+        return new ArrayList<>(liveEvents.values());
+    }
+
+    /**
+     * 清空所有事件
+     */
+    public synchronized void clear() {
+        heap.clear();
+        liveEvents.clear();
+        unconfirmed.clear();
+        pendingChanges.clear();
+        pendingClear = true;
+        allTouchedBeforeRestore = touchedBeforeRestore != null;
+    }
+
+    /**
+     * 取出自上次调用以来的持久化增量
+     */
+    public synchronized Changes drainChanges() {
+        List<TimerEvent> upserted = new ArrayList<>();
+        List<TimerEvent> removed = new ArrayList<>();
+        Kind[] kinds = Kind.values();
+        for (Map.Entry<Long, TimerEvent> entry : pendingChanges.entrySet()) {
+            if (entry.getValue() != null) {
+                upserted.add(entry.getValue());
+            } else {
+                long key = entry.getKey();
+                removed.add(new TimerEvent(key >> 2, kinds[(int) (key & 3)], -1));
+            }
+        }
+        Changes changes = new Changes(pendingClear, upserted, removed);
+        pendingChanges.clear();
+        pendingClear = false;
+        return changes;
+    }
+
+    // ==================== 对账（设备重启后） ====================
+
+    /**
+     * 开始对账：把所有有效事件标记为待确认
+     * 之后以相同或新的触发时间重新登记、或取消的事件视为已确认
+     */
+    public synchronized void markAllUnconfirmed() {
+        unconfirmed.clear();
+        unconfirmed.addAll(liveEvents.keySet());
+        allTouchedBeforeRestore = touchedBeforeRestore != null;
+    }
+
+    /**
+     * 开始对账（只针对部分任务）：把这些任务的有效事件标记为待确认，其他任务的事件保持不变
+     */
+    public synchronized void markUnconfirmed(Collection<Long> taskIds) {
+        unconfirmed.clear();
+        for (long taskId : taskIds) {
+            for (Kind kind : Kind.values()) {
+                long key = key(taskId, kind);
+                touch(key);
+                if (liveEvents.containsKey(key)) {
+                    unconfirmed.add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * 结束对账：取消所有未被重新登记的事件
+     *
+     * @return 取消的事件数
+     */
+    public synchronized int cancelUnconfirmed() {
+        int cancelled = 0;
+        for (long key : unconfirmed) {
+            if (liveEvents.remove(key) != null) {
+                pendingChanges.put(key, null);
+                cancelled++;
+            }
+        }
+        unconfirmed.clear();
+        return cancelled;
+    }
+
+    // ==================== 恢复（用于进程重启后） ====================
+
+    /**
+     * 从旧版 SharedPreferences 中的序列化字符串恢复（格式：taskId:kind:triggerTime;...），格式错误的条目会被忽略
+     * 恢复的事件记入变更日志，下次持久化时写入数据库
+     */
+    public synchronized void restore(String data) {
+        clear();
+        if (data == null || data.isEmpty()) {
+            return;
+        }
+        Kind[] kinds = Kind.values();
+        for (String entry : data.split(";")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 3) {
+                continue;
+            }
+            try {
+                long taskId = Long.parseLong(parts[0]);
+                int kindIndex = Integer.parseInt(parts[1]);
+                long triggerTime = Long.parseLong(parts[2]);
+                if (kindIndex >= 0 && kindIndex < kinds.length) {
+                    schedule(taskId, kinds[kindIndex], triggerTime);
+                }
+            } catch (NumberFormatException ignored) {
+                // 忽略损坏的条目
+            }
+        }
+    }
+
+    /**
+     * 开始异步恢复
+     * 之后到 {@link #completeRestore(List)} 之间被登记、取消或对账的事件以内存中的状态为准，不会被读取到的旧值覆盖
+     */
+    public synchronized void beginRestore() {
+        touchedBeforeRestore = new HashSet<>();
+        allTouchedBeforeRestore = false;
+    }
+
+    /**
+     * 合并从持久化存储读取的事件（合并本身不记入变更日志）
+     * 恢复期间已被改动的 (任务, 类型) 保留内存中的状态；其中已不存在的事件记为删除，下次持久化时清除旧行
+     *
+     * @return 合并进堆的事件数
+     */
+    public synchronized int completeRestore(List<TimerEvent> events) {
+        int merged = 0;
+        for (TimerEvent event : events) {
+            long key = key(event.taskId, event.kind);
+            if (allTouchedBeforeRestore || (touchedBeforeRestore != null && touchedBeforeRestore.contains(key))) {
+                if (!liveEvents.containsKey(key)) {
+                    pendingChanges.put(key, null);
+                }
+                continue;
+            }
+            liveEvents.put(key, event);
+            heap.offer(event);
+            merged++;
+        }
+        endRestore();
+        return merged;
+    }
+
+    /**
+     * 放弃进行中的恢复（读取失败时），堆中只保留恢复期间登记的事件
+     */
+    public synchronized void abortRestore() {
+        endRestore();
+    }
+
+    // ==================== 内部方法 ====================
+
+    private static long key(long taskId, Kind kind) {
+        return (taskId << 2) | kind.ordinal();
+    }
+
+    private void touch(long key) {
+        if (touchedBeforeRestore != null) {
+            touchedBeforeRestore.add(key);
+        }
+    }
+
+    private void endRestore() {
+        touchedBeforeRestore = null;
+        allTouchedBeforeRestore = false;
+    }
+
+    private boolean isLive(TimerEvent event) {
+        return liveEvents.get(key(event.taskId, event.kind)) == event;
+    }
+
+    private void discardStaleHead() {
+        while (!heap.isEmpty() && !isLive(heap.peek())) {
+            heap.poll();
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (heap.size() > COMPACT_MIN_SIZE && heap.size() > liveEvents.size() * COMPACT_FACTOR) {
+            heap.clear();
+            heap.addAll(liveEvents.values());
+        }
+    }
+}
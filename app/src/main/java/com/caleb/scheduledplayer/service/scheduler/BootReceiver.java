@@ -5,9 +5,6 @@ import android.content.Context;
 import android.content.Intent;
 import com.caleb.scheduledplayer.util.AppLogger;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 /**
  * 开机广播接收器
  * 设备启动后重新调度所有任务
@@ -15,9 +12,6 @@ import java.util.concurrent.Executors;
 public class BootReceiver extends BroadcastReceiver {
 
     private static final String TAG = "BootReceiver";
-    
-    // 使用单独的线程执行数据库操作，避免ANR
-    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
 
     @Override
     public void onReceive(Context context, Intent intent) {
@@ -39,10 +33,13 @@ public class BootReceiver extends BroadcastReceiver {
             final PendingResult pendingResult = goAsync();
             final Context appContext = context.getApplicationContext();
             
-            // 在后台线程执行数据库操作，避免ANR
-            executor.execute(() -> {
+            // 在调度分发器的维护通道执行数据库操作，避免ANR；排在已到达的闹钟处理之后
+            SchedulerDispatcher.getInstance().submit(SchedulerDispatcher.Lane.MAINTENANCE, () -> {
                 try {
-                    TaskScheduleManager.getInstance(appContext).rescheduleAllTasks();
+                    TaskScheduleManager manager = TaskScheduleManager.getInstance(appContext);
+                    // 重启后 AlarmManager 已清空：只重新计算处于时间窗口内或触发时间已过的任务，
+                    // 与这些任务的持久化定时事件对账后重新注册系统闹钟
+                    manager.rescheduleAffectedTasksAfterBoot();
                     AppLogger.d(TAG, "Tasks rescheduled successfully after boot");
                 } catch (Exception e) {
                     AppLogger.e(TAG, "Error rescheduling tasks after boot", e);
@@ -0,0 +1,406 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 并发预测
+ * 用 {@link TaskTimeCalculator} 展开所有启用任务在未来 7 天内的执行时段（全天任务按执行日整天展开），
+ * 按时间扫描回放槽位分配（与 ConcurrencyManager 相同的准入策略和等待队列顺序），得到：
+ * - 分钟粒度的并发需求时间线（想要播放的任务数，不受最大并发数限制）
+ * - 每个任务将处于 WAITING_SLOT 或 SKIPPED 的精确时间段
+ *
+ * 结果是一次性快照，不会随任务变化更新；计算不访问数据库，可在任意后台线程调用
+ */
+public final class ConcurrencyForecast {
+
+    public static final int HORIZON_DAYS = 7;
+    public static final int HORIZON_MINUTES = HORIZON_DAYS * WeeklySchedule.MINUTES_PER_DAY;
+
+    private static final long MINUTE_MS = 60 * 1000L;
+
+    /**
+     * 预测结果类型
+     */
+    public enum Outcome {
+        /** 等待槽位，之后获得槽位开始播放 */
+        WAITING_SLOT,
+        /** 等到执行时段结束仍未获得槽位，被跳过 */
+        SKIPPED
+    }
+
+    /**
+     * 任务的等待/跳过时间段（不可变）
+     */
+    public static final class Range {
+        public final long taskId;
+        public final String taskName;
+        public final Outcome outcome;
+        public final long startTime;
+        public final long endTime;
+
+        Range(long taskId, String taskName, Outcome outcome, long startTime, long endTime) {
+            this.taskId = taskId;
+            this.taskName = taskName;
+            this.outcome = outcome;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        @Override
+        public String toString() {
+            return outcome + "(task=" + taskId + ", " + startTime + " ~ " + endTime + ")";
+        }
+    }
+
+    /**
+     * 一次执行（回放过程中的可变状态）
+     */
+    private static final class Execution {
+        final TaskEntity task;
+        final long start;
+        long end;
+        long waitSince;
+        long waitSequence;
+
+        Execution(TaskEntity task, long start, long end) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private final long originTime;
+    private final int maxConcurrent;
+    private final int[] demand;
+    private final int peakDemand;
+    private final List<Range> ranges;
+
+    private ConcurrencyForecast(long originTime, int maxConcurrent, int[] demand, List<Range> ranges) {
+        this.originTime = originTime;
+        this.maxConcurrent = maxConcurrent;
+        this.demand = demand;
+        this.ranges = Collections.unmodifiableList(ranges);
+        int peak = 0;
+        for (int value : demand) {
+            peak = Math.max(peak, value);
+        }
+        this.peakDemand = peak;
+    }
+
+    /**
+     * 计算未来 7 天的并发预测
+     * @param tasks 任务列表（未启用的任务被忽略）
+     * @param maxConcurrent 最大并发数
+     * @param policy 准入策略
+     * @param now 预测起点
+     */
+    public static ConcurrencyForecast compute(List<TaskEntity> tasks, int maxConcurrent,
+            AdmissionPolicy policy, long now) {
+        long originTime = now - Math.floorMod(now, MINUTE_MS);
+        long horizonEnd = originTime + HORIZON_MINUTES * MINUTE_MS;
+        int capacity = Math.max(1, maxConcurrent);
+
+        List<Execution> executions = new ArrayList<>();
+        for (TaskEntity task : tasks) {
+            if (task.isEnabled()) {
+                expand(task, now, horizonEnd, executions);
+            }
+        }
+        // 同一时刻按优先级从高到低开始，再按任务ID，保证结果确定
+        executions.sort((a, b) -> {
+            int byTime = Long.compare(a.start, b.start);
+            if (byTime != 0) {
+                return byTime;
+            }
+            int byPriority = Integer.compare(b.task.getPriority(), a.task.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(a.task.getId(), b.task.getId());
+        });
+
+        int[] demand = buildDemand(executions, originTime);
+        List<Range> ranges = replay(executions, capacity, policy);
+        return new ConcurrencyForecast(originTime, capacity, demand, ranges);
+    }
+
+    /**
+     * 展开任务在 [now, horizonEnd) 内开始的执行，包括当前正在进行的一次；
+     * 首尾相接或重叠的执行（如连续多天的全天任务）合并为一次
+     */
+    private static void expand(TaskEntity task, long now, long horizonEnd, List<Execution> out) {
+        Execution last = null;
+
+        TimeCheckResult current = TaskTimeCalculator.shouldBeActiveAt(task, now);
+        if (current.isActive() && current.getEffectiveEndTime() > now) {
+            last = new Execution(task, now, current.getEffectiveEndTime());
+            out.add(last);
+        }
+
+        TaskType type = TaskClassifier.classify(task);
+        if (type.isAllDay()) {
+            // 全天任务由午夜检查在每个执行日 0 点开始，一次性全天任务只播放当天
+            if (!type.isOneTime()) {
+                expandAllDay(task, now, horizonEnd, last, out);
+            }
+            return;
+        }
+
+        long start = TaskTimeCalculator.calculateNextStartTime(task, now);
+        while (start > 0 && start < horizonEnd) {
+            last = append(task, start, TaskTimeCalculator.calculateEndTimeForStart(task, start), last, out);
+            start = TaskTimeCalculator.calculateNextStartTime(task, start);
+        }
+    }
+
+    /**
+     * 按本地日期逐天展开重复全天任务
+     */
+    private static void expandAllDay(TaskEntity task, long now, long horizonEnd, Execution last,
+            List<Execution> out) {
+        Calendar day = Calendar.getInstance();
+        day.setTimeInMillis(now);
+        day.set(Calendar.HOUR_OF_DAY, 0);
+        day.set(Calendar.MINUTE, 0);
+        day.set(Calendar.SECOND, 0);
+        day.set(Calendar.MILLISECOND, 0);
+        day.add(Calendar.DAY_OF_MONTH, 1);
+
+        while (day.getTimeInMillis() < horizonEnd) {
+            long dayStart = day.getTimeInMillis();
+            TimeCheckResult result = TaskTimeCalculator.shouldBeActiveAt(task, dayStart);
+            if (result.isActive()) {
+                last = append(task, dayStart, result.getEffectiveEndTime(), last, out);
+            }
+            day.add(Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+
+    /**
+     * 追加一次执行，与上一次首尾相接或重叠时合并
+     * @return 当前最后一次执行
+     */
+    private static Execution append(TaskEntity task, long start, long end, Execution last, List<Execution> out) {
+        if (end <= start) {
+            return last;
+        }
+        if (last != null && start <= last.end) {
+            last.end = Math.max(last.end, end);
+            return last;
+        }
+        Execution execution = new Execution(task, start, end);
+        out.add(execution);
+        return execution;
+    }
+
+    /**
+     * 差分数组统计每分钟的并发需求
+     */
+    private static int[] buildDemand(List<Execution> executions, long originTime) {
+        int[] diff = new int[HORIZON_MINUTES + 1];
+        for (Execution execution : executions) {
+            int from = toMinuteIndex(execution.start, originTime, false);
+            int to = toMinuteIndex(execution.end, originTime, true);
+            if (from < to) {
+                diff[from]++;
+                diff[to]--;
+            }
+        }
+        int[] demand = new int[HORIZON_MINUTES];
+        int running = 0;
+        for (int i = 0; i < HORIZON_MINUTES; i++) {
+            running += diff[i];
+            demand[i] = running;
+        }
+        return demand;
+    }
+
+    private static int toMinuteIndex(long time, long originTime, boolean roundUp) {
+        long offset = time - originTime;
+        long index = roundUp ? (offset + MINUTE_MS - 1) / MINUTE_MS : offset / MINUTE_MS;
+        return (int) Math.max(0, Math.min(HORIZON_MINUTES, index));
+    }
+
+    /**
+     * 按时间回放槽位分配
+     * 结束先于同时刻的开始处理（与闹钟堆的 STOP 先于 START 一致），释放的槽位直接交给等待队列队首
+     */
+    private static List<Range> replay(List<Execution> executions, int capacity, AdmissionPolicy policy) {
+        List<Range> ranges = new ArrayList<>();
+        PriorityQueue<Execution> running = new PriorityQueue<>(capacity,
+                (a, b) -> Long.compare(a.end, b.end));
+        // 与 SlotWaitQueue 一致：优先级高者在前，同优先级按入队顺序；被抢占的放回同优先级最前
+        PriorityQueue<Execution> waiting = new PriorityQueue<>(16, (a, b) -> {
+            int byPriority = Integer.compare(b.task.getPriority(), a.task.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(a.waitSequence, b.waitSequence);
+        });
+        Map<Long, Integer> holders = new HashMap<>();
+        Map<Long, Execution> runningByTask = new HashMap<>();
+        long tailSequence = 0;
+        long headSequence = 0;
+
+        int next = 0;
+        while (next < executions.size() || !running.isEmpty()) {
+            long nextStart = next < executions.size() ? executions.get(next).start : Long.MAX_VALUE;
+            Execution ending = running.peek();
+
+            if (ending != null && ending.end <= nextStart) {
+                running.poll();
+                holders.remove(ending.task.getId());
+                runningByTask.remove(ending.task.getId());
+                handOver(ending.end, waiting, running, holders, runningByTask, ranges);
+                continue;
+            }
+
+            Execution arriving = executions.get(next++);
+            long taskId = arriving.task.getId();
+            if (running.size() < capacity) {
+                grant(arriving, running, holders, runningByTask);
+                continue;
+            }
+
+            long victimId = policy.selectVictim(taskId, arriving.task.getPriority(),
+                    Collections.unmodifiableMap(holders));
+            Execution victim = victimId != AdmissionPolicy.NO_VICTIM ? runningByTask.get(victimId) : null;
+            if (victim != null) {
+                running.remove(victim);
+                holders.remove(victimId);
+                runningByTask.remove(victimId);
+                victim.waitSince = arriving.start;
+                victim.waitSequence = --headSequence;
+                waiting.add(victim);
+                grant(arriving, running, holders, runningByTask);
+            } else {
+                arriving.waitSince = arriving.start;
+                arriving.waitSequence = ++tailSequence;
+                waiting.add(arriving);
+            }
+        }
+
+        // 没有槽位再释放，剩余等待者都会在执行时段结束时被跳过
+        for (Execution execution : waiting) {
+            ranges.add(new Range(execution.task.getId(), execution.task.getName(), Outcome.SKIPPED,
+                    execution.waitSince, execution.end));
+        }
+        ranges.sort((a, b) -> Long.compare(a.startTime, b.startTime));
+        return ranges;
+    }
+
+    /**
+     * 将 time 时刻释放的槽位交给等待队列中第一个仍在执行时段内的任务
+     */
+    private static void handOver(long time, PriorityQueue<Execution> waiting, PriorityQueue<Execution> running,
+            Map<Long, Integer> holders, Map<Long, Execution> runningByTask, List<Range> ranges) {
+        Execution candidate;
+        while ((candidate = waiting.poll()) != null) {
+            if (candidate.end <= time) {
+                ranges.add(new Range(candidate.task.getId(), candidate.task.getName(), Outcome.SKIPPED,
+                        candidate.waitSince, candidate.end));
+                continue;
+            }
+            ranges.add(new Range(candidate.task.getId(), candidate.task.getName(), Outcome.WAITING_SLOT,
+                    candidate.waitSince, time));
+            grant(candidate, running, holders, runningByTask);
+            return;
+        }
+    }
+
+    private static void grant(Execution execution, PriorityQueue<Execution> running,
+            Map<Long, Integer> holders, Map<Long, Execution> runningByTask) {
+        running.add(execution);
+        holders.put(execution.task.getId(), execution.task.getPriority());
+        runningByTask.put(execution.task.getId(), execution);
+    }
+
+    /**
+     * 预测起点（整分钟）
+     */
+    public long getOriginTime() {
+        return originTime;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * 指定分钟的并发需求
+     * @param minuteIndex 距起点的分钟数，0 ~ HORIZON_MINUTES-1
+     */
+    public int getDemandAt(int minuteIndex) {
+        return demand[minuteIndex];
+    }
+
+    /**
+     * 7 天内的最大并发需求
+     */
+    public int getPeakDemand() {
+        return peakDemand;
+    }
+
+    /**
+     * 按桶聚合的并发需求峰值，用于绘制容量条
+     * @param bucketMinutes 每个桶的分钟数
+     * @return 每个桶内的最大并发需求
+     */
+    public int[] getPeakDemandPerBucket(int bucketMinutes) {
+        int size = Math.max(1, bucketMinutes);
+        int[] buckets = new int[(HORIZON_MINUTES + size - 1) / size];
+        for (int i = 0; i < HORIZON_MINUTES; i++) {
+            int bucket = i / size;
+            buckets[bucket] = Math.max(buckets[bucket], demand[i]);
+        }
+        return buckets;
+    }
+
+    /**
+     * 并发需求超过最大并发数的时间段（合并相邻分钟）
+     * @return 每项为 {开始时间戳, 结束时间戳}
+     */
+    public List<long[]> getOverloadedWindows() {
+        List<long[]> windows = new ArrayList<>();
+        int from = -1;
+        for (int i = 0; i <= HORIZON_MINUTES; i++) {
+            boolean overloaded = i < HORIZON_MINUTES && demand[i] > maxConcurrent;
+            if (overloaded && from < 0) {
+                from = i;
+            } else if (!overloaded && from >= 0) {
+                windows.add(new long[]{originTime + from * MINUTE_MS, originTime + i * MINUTE_MS});
+                from = -1;
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * 所有等待/跳过时间段，按开始时间排序
+     */
+    public List<Range> getRanges() {
+        return ranges;
+    }
+
+    /**
+     * 指定结果类型的时间段
+     */
+    public List<Range> getRanges(Outcome outcome) {
+        List<Range> result = new ArrayList<>();
+        for (Range range : ranges) {
+            if (range.outcome == outcome) {
+                result.add(range);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyForecast{peak=" + peakDemand + "/" + maxConcurrent
+                + ", waiting=" + getRanges(Outcome.WAITING_SLOT).size()
+                + ", skipped=" + getRanges(Outcome.SKIPPED).size() + "}";
+    }
+}
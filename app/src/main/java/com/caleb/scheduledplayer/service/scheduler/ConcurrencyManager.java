@@ -3,42 +3,218 @@ package com.caleb.scheduledplayer.service.scheduler;
 import com.caleb.scheduledplayer.util.AppLogger;
 
 import com.caleb.scheduledplayer.data.dao.TaskDao;
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.util.AppSettings;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 并发播放控制管理器
  * 用于限制同时播放的任务数量
+ *
+ * 播放槽位在内存中计数（无锁 CAS），首次使用时从数据库的 EXECUTING 任务重建一次，
+ * 之后随 EXECUTING 状态的进入/离开同步获取/归还；数据库计数仅用于定期校准
+ *
+ * 并发数已满时由 {@link AdmissionPolicy} 决定新任务等待还是抢占低优先级任务，
+ * 并发上限可在运行时调整（见 AppSettings）
  */
 public class ConcurrencyManager {
 
     private static final String TAG = "ConcurrencyManager";
 
     /**
-     * 最大并发播放任务数
+     * 默认最大并发播放任务数
+     */
+    public static final int MAX_CONCURRENT_PLAYBACK = AppSettings.DEFAULT_MAX_CONCURRENT_PLAYBACK;
+
+    /**
+     * 准入结果
      */
-    public static final int MAX_CONCURRENT_PLAYBACK = 10;
+    public static final class Admission {
+        static final Admission GRANTED = new Admission(true, AdmissionPolicy.NO_VICTIM);
+        static final Admission DENIED = new Admission(false, AdmissionPolicy.NO_VICTIM);
+
+        /**
+         * 是否获得槽位
+         */
+        public final boolean granted;
+
+        /**
+         * 被抢占的任务ID，未抢占时为 {@link AdmissionPolicy#NO_VICTIM}
+         */
+        public final long preemptedTaskId;
+
+        Admission(boolean granted, long preemptedTaskId) {
+            this.granted = granted;
+            this.preemptedTaskId = preemptedTaskId;
+        }
+
+        public boolean hasPreempted() {
+            return preemptedTaskId != AdmissionPolicy.NO_VICTIM;
+        }
+    }
 
     private final TaskDao taskDao;
 
+    /**
+     * 当前持有槽位的任务（任务ID -> 优先级）
+     */
+    private final ConcurrentHashMap<Long, Integer> slotHolders = new ConcurrentHashMap<>();
+
+    /**
+     * 已占用槽位数，与 slotHolders 同步增减
+     * 先计数再登记、先注销再归还：slotHolders 中的任务一定已计入占用数，抢占时选出的任务一定真正持有槽位
+     */
+    private final AtomicInteger usedSlots = new AtomicInteger();
+
+    private final AtomicLong preemptionCount = new AtomicLong();
+
+    private volatile int maxConcurrentPlayback;
+    private volatile AdmissionPolicy admissionPolicy;
+    private volatile boolean initialized = false;
+
+    /**
+     * 上一次校准发现的不一致任务，连续两次不一致才修正，避免与进行中的状态写入竞争
+     */
+    private Set<Long> suspectedDrift = new HashSet<>();
+
     public ConcurrencyManager(TaskDao taskDao) {
+        this(taskDao, MAX_CONCURRENT_PLAYBACK, new PriorityAdmissionPolicy());
+    }
+
+    public ConcurrencyManager(TaskDao taskDao, int maxConcurrentPlayback, AdmissionPolicy admissionPolicy) {
         this.taskDao = taskDao;
+        this.maxConcurrentPlayback = Math.max(1, maxConcurrentPlayback);
+        this.admissionPolicy = admissionPolicy;
     }
 
     /**
      * 检查是否可以启动新的播放任务
-     * @return true 如果当前执行中任务数 < MAX_CONCURRENT_PLAYBACK
+     * @return true 如果当前执行中任务数 < 并发上限
      */
     public boolean canStartPlayback() {
         int currentCount = getCurrentPlaybackCount();
-        boolean canStart = currentCount < MAX_CONCURRENT_PLAYBACK;
-        AppLogger.d(TAG, "canStartPlayback: currentCount=" + currentCount + 
-                ", max=" + MAX_CONCURRENT_PLAYBACK + ", canStart=" + canStart);
+        int max = maxConcurrentPlayback;
+        boolean canStart = currentCount < max;
+        AppLogger.d(TAG, "canStartPlayback: currentCount=" + currentCount +
+                ", max=" + max + ", canStart=" + canStart);
         return canStart;
     }
 
     /**
-     * 获取当前执行中任务数（基于数据库 execution_state = EXECUTING）
+     * 申请播放槽位
+     * 有空闲槽位时无锁获取；并发数已满时由准入策略决定是否抢占低优先级任务，
+     * 抢占时被抢占任务的槽位直接转交给申请者
+     *
+     * @param taskId 任务ID
+     * @param priority 任务优先级
+     * @return 准入结果
+     */
+    public Admission admit(long taskId, int priority) {
+        if (tryAcquire(taskId, priority)) {
+            return Admission.GRANTED;
+        }
+        if (admissionPolicy == AdmissionPolicy.FIRST_COME) {
+            return Admission.DENIED;
+        }
+        return admitByPreemption(taskId, priority);
+    }
+
+    /**
+     * 尝试为任务获取空闲播放槽位（无锁，不抢占）
+     * 任务已持有槽位时直接返回 true
+     *
+     * @param taskId 任务ID
+     * @param priority 任务优先级
+     * @return true 获取成功，false 已达并发上限
+     */
+    public boolean tryAcquire(long taskId, int priority) {
+        ensureInitialized();
+        if (slotHolders.containsKey(taskId)) {
+            return true;
+        }
+        while (true) {
+            int current = usedSlots.get();
+            int max = maxConcurrentPlayback;
+            if (current >= max) {
+                AppLogger.d(TAG, "tryAcquire: no slot for task " + taskId + " (" + current + "/" + max + ")");
+                return false;
+            }
+            if (usedSlots.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        // 槽位已计数，再登记持有者
+        if (slotHolders.putIfAbsent(taskId, priority) != null) {
+            // 同一任务并发申请，已由另一次申请登记
+            usedSlots.decrementAndGet();
+            return true;
+        }
+        AppLogger.d(TAG, "tryAcquire: task " + taskId + " got slot (" + usedSlots.get() + "/" + maxConcurrentPlayback + ")");
+        return true;
+    }
+
+    /**
+     * 归还任务的播放槽位
+     * 任务未持有槽位时不做任何事
+     *
+     * @param taskId 任务ID
+     * @return 是否实际归还了槽位
+     */
+    public boolean release(long taskId) {
+        ensureInitialized();
+        if (slotHolders.remove(taskId) != null) {
+            int remaining = usedSlots.decrementAndGet();
+            AppLogger.d(TAG, "release: task " + taskId + " released slot (" + remaining + "/" + maxConcurrentPlayback + ")");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 任务执行状态变化时同步槽位
+     * 进入 EXECUTING 占用槽位（不受上限约束，状态已经写入），离开 EXECUTING 归还槽位
+     *
+     * @param taskId 任务ID
+     * @param state 新状态
+     * @param priority 任务优先级
+     */
+    public void onStateChanged(long taskId, TaskExecutionState state, int priority) {
+        if (state == TaskExecutionState.EXECUTING) {
+            forceAcquire(taskId, priority);
+        } else {
+            release(taskId);
+        }
+    }
+
+    /**
+     * 任务是否持有播放槽位
+     */
+    public boolean isHoldingSlot(long taskId) {
+        ensureInitialized();
+        return slotHolders.containsKey(taskId);
+    }
+
+    /**
+     * 获取当前执行中任务数（内存计数）
      */
     public int getCurrentPlaybackCount() {
+        ensureInitialized();
+        return usedSlots.get();
+    }
+
+    /**
+     * 获取数据库中的执行中任务数（execution_state = EXECUTING），用于校准和诊断
+     */
+    public int getDatabasePlaybackCount() {
         return taskDao.getExecutingTaskCount();
     }
 
@@ -46,13 +222,153 @@ public class ConcurrencyManager {
      * 获取剩余可用播放槽位数
      */
     public int getAvailableSlots() {
-        return Math.max(0, MAX_CONCURRENT_PLAYBACK - getCurrentPlaybackCount());
+        return Math.max(0, maxConcurrentPlayback - getCurrentPlaybackCount());
     }
 
     /**
      * 检查是否已达到并发上限
      */
     public boolean isAtCapacity() {
-        return getCurrentPlaybackCount() >= MAX_CONCURRENT_PLAYBACK;
+        return getCurrentPlaybackCount() >= maxConcurrentPlayback;
+    }
+
+    public int getMaxConcurrentPlayback() {
+        return maxConcurrentPlayback;
+    }
+
+    /**
+     * 调整并发上限
+     * 调低时不会中断已在播放的任务，只是在降到上限以下之前不再准入新任务
+     */
+    public void setMaxConcurrentPlayback(int maxConcurrentPlayback) {
+        this.maxConcurrentPlayback = Math.max(1, maxConcurrentPlayback);
+        AppLogger.d(TAG, "Max concurrent playback set to " + this.maxConcurrentPlayback);
+    }
+
+    public AdmissionPolicy getAdmissionPolicy() {
+        return admissionPolicy;
+    }
+
+    public void setAdmissionPolicy(AdmissionPolicy admissionPolicy) {
+        this.admissionPolicy = admissionPolicy != null ? admissionPolicy : AdmissionPolicy.FIRST_COME;
+    }
+
+    /**
+     * 累计抢占次数
+     */
+    public long getPreemptionCount() {
+        return preemptionCount.get();
+    }
+
+    /**
+     * 与数据库校准（由定期检查调用）
+     * 同一任务连续两次校准都不一致才修正，忽略恰好处于状态写入过程中的任务
+     *
+     * @return 本次修正的任务数
+     */
+    public synchronized int reconcile() {
+        ensureInitialized();
+        Map<Long, Integer> dbHolders = loadExecutingTasks();
+
+        Set<Long> drift = new HashSet<>();
+        for (Long taskId : slotHolders.keySet()) {
+            if (!dbHolders.containsKey(taskId)) {
+                drift.add(taskId);
+            }
+        }
+        for (Long taskId : dbHolders.keySet()) {
+            if (!slotHolders.containsKey(taskId)) {
+                drift.add(taskId);
+            }
+        }
+
+        int corrected = 0;
+        for (Long taskId : drift) {
+            if (!suspectedDrift.contains(taskId)) {
+                continue;
+            }
+            Integer priority = dbHolders.get(taskId);
+            if (priority != null) {
+                forceAcquire(taskId, priority);
+            } else {
+                release(taskId);
+            }
+            corrected++;
+        }
+        drift.removeAll(suspectedDrift);
+        suspectedDrift = drift;
+
+        if (corrected > 0 || !drift.isEmpty()) {
+            AppLogger.w(TAG, "reconcile: corrected=" + corrected + ", pending=" + drift.size()
+                    + ", memory=" + usedSlots.get() + ", database=" + dbHolders.size());
+        }
+        return corrected;
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 并发数已满时按准入策略抢占
+     * 只在满载时进入，加锁保证同一时刻只有一个抢占决策
+     */
+    private synchronized Admission admitByPreemption(long taskId, int priority) {
+        // 等锁期间可能已有槽位释放
+        if (tryAcquire(taskId, priority)) {
+            return Admission.GRANTED;
+        }
+        long victim = admissionPolicy.selectVictim(taskId, priority,
+                Collections.unmodifiableMap(slotHolders));
+        if (victim == AdmissionPolicy.NO_VICTIM || victim == taskId) {
+            return Admission.DENIED;
+        }
+        if (slotHolders.remove(victim) == null) {
+            // 被选中的任务恰好已归还槽位，直接重试获取
+            return tryAcquire(taskId, priority) ? Admission.GRANTED : Admission.DENIED;
+        }
+        // 槽位直接转交，占用数不变
+        slotHolders.put(taskId, priority);
+        preemptionCount.incrementAndGet();
+        AppLogger.d(TAG, "Task " + taskId + " (priority " + priority + ") preempted task " + victim);
+        return new Admission(true, victim);
+    }
+
+    /**
+     * 占用槽位（不检查上限）
+     */
+    private void forceAcquire(long taskId, int priority) {
+        ensureInitialized();
+        usedSlots.incrementAndGet();
+        if (slotHolders.put(taskId, priority) != null) {
+            usedSlots.decrementAndGet();
+        }
+    }
+
+    /**
+     * 首次使用时从数据库重建槽位
+     * 需在后台线程调用（Room 不允许主线程查询）
+     */
+    private void ensureInitialized() {
+        if (initialized) {
+            return;
+        }
+        synchronized (this) {
+            if (initialized) {
+                return;
+            }
+            slotHolders.clear();
+            slotHolders.putAll(loadExecutingTasks());
+            usedSlots.set(slotHolders.size());
+            initialized = true;
+            AppLogger.d(TAG, "Rebuilt slots from database: " + usedSlots.get() + "/" + maxConcurrentPlayback);
+        }
+    }
+
+    private Map<Long, Integer> loadExecutingTasks() {
+        List<TaskEntity> executing = taskDao.getTasksByExecutionState(TaskExecutionState.EXECUTING.getValue());
+        Map<Long, Integer> result = new HashMap<>(executing.size() * 2);
+        for (TaskEntity task : executing) {
+            result.put(task.getId(), task.getPriority());
+        }
+        return result;
     }
 }
@@ -0,0 +1,390 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import com.caleb.scheduledplayer.data.cache.TaskSnapshotCache;
+import com.caleb.scheduledplayer.data.dao.TaskDao;
+import com.caleb.scheduledplayer.util.AppLogger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行状态延迟写入队列
+ * 调度器对任务执行状态、执行时间和触发时间的更新先在内存中按任务合并，
+ * 在 {@link #DEFAULT_FLUSH_DELAY_MS} 内由写入线程在一个事务中提交，每个任务只写一条 UPDATE；
+ * 一次状态变化中先后进行的几次更新（状态、执行时间、触发时间）合并为一次写入
+ *
+ * 一致性：
+ * - 调度器读取的任务快照在提交更新时已经同步更新，不依赖数据库
+ * - 写入前在同一事务中读取各行的更新时间，写入后交给快照缓存核对（见 {@link TaskSnapshotCache#onStateWritten}），
+ *   这样缓存收到 tasks 表的失效通知时能区分调度器自身的写入和其他写入者的修改
+ * - 从数据库读取任务（快照缓存未命中、恢复检查的查询等）之前调用 {@link #flush()}，保证读到已提交的状态
+ * - 与用户操作可能冲突的写入（禁用任务）或需要整行写入之前，同样先调用 {@link #flush()}
+ * - 每次写入之前执行写入屏障（见 {@link #setWriteBarrier}），触发时间不会先于它指向的闹钟事件写入数据库
+ *
+ * 所有数据库写入都在持有提交锁时进行，同一时刻只有一个写入者
+ */
+public class ExecutionStateWriter {
+
+    private static final String TAG = "ExecutionStateWriter";
+
+    /**
+     * 更新从提交到写入数据库的最长延迟（毫秒）
+     */
+    public static final long DEFAULT_FLUSH_DELAY_MS = 100;
+
+    // 批量读取更新时间时每次查询的 ID 数，低于 SQLite 的参数个数上限（999）
+    private static final int STAMP_QUERY_CHUNK_SIZE = 500;
+
+    private final TaskDao taskDao;
+    private final TaskScheduleManager.TransactionRunner transactionRunner;
+    private final TaskSnapshotCache taskCache;
+    // 为 null 时每次提交立即写入（模拟器）
+    private final ScheduledExecutorService flushExecutor;
+    private final long flushDelayMs;
+
+    // 每次写入之前执行（见 setWriteBarrier）
+    private volatile Runnable writeBarrier;
+
+    // 写入数据库时持有，保证只有一个写入者，并且 flush() 返回时之前的更新都已写入
+    private final Object flushLock = new Object();
+
+    // 以下字段由 this 保护
+    private final Map<Long, PendingUpdate> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    private int batchDepth = 0;
+    private long submittedCount = 0;
+    private long flushCount = 0;
+    private long writtenRowCount = 0;
+    private int maxBatchSize = 0;
+
+    /**
+     * 创建使用独立写入线程的写入队列
+     */
+    public static ExecutionStateWriter withWriterThread(TaskDao taskDao,
+            TaskScheduleManager.TransactionRunner transactionRunner, TaskSnapshotCache taskCache) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ExecutionStateWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new ExecutionStateWriter(taskDao, transactionRunner, taskCache, executor, DEFAULT_FLUSH_DELAY_MS);
+    }
+
+    /**
+     * 创建每次提交立即写入的写入队列（模拟器等单线程场景）
+     */
+    public static ExecutionStateWriter writeThrough(TaskDao taskDao,
+            TaskScheduleManager.TransactionRunner transactionRunner, TaskSnapshotCache taskCache) {
+        return new ExecutionStateWriter(taskDao, transactionRunner, taskCache, null, 0);
+    }
+
+    ExecutionStateWriter(TaskDao taskDao, TaskScheduleManager.TransactionRunner transactionRunner,
+            TaskSnapshotCache taskCache, ScheduledExecutorService flushExecutor, long flushDelayMs) {
+        this.taskDao = taskDao;
+        this.transactionRunner = transactionRunner;
+        this.taskCache = taskCache;
+        this.flushExecutor = flushExecutor;
+        this.flushDelayMs = flushDelayMs;
+    }
+
+    /**
+     * 设置每次写入数据库之前执行的操作
+     * 调度器用它先提交定时堆的变更：armed_alarms 与任务表的触发时间由不同线程写入，
+     * 保证前者不晚于后者，进程在两次写入之间被杀时不会留下没有对应事件的触发时间
+     */
+    public void setWriteBarrier(Runnable barrier) {
+        this.writeBarrier = barrier;
+    }
+
+    /**
+     * 合并后的待写入更新，未设置的列保持数据库中的值
+     */
+    private static final class PendingUpdate {
+        final long taskId;
+        boolean disable;
+        boolean hasState;
+        int executionState;
+        boolean hasStart;
+        long executionStart;
+        boolean hasEnd;
+        long executionEnd;
+        boolean hasFireTimes;
+        long nextFireAt;
+        long currentWindowEnd;
+        long updatedAt;
+
+        PendingUpdate(long taskId) {
+            this.taskId = taskId;
+        }
+
+        void setState(int state) {
+            hasState = true;
+            executionState = state;
+        }
+
+        void setStart(long start) {
+            hasStart = true;
+            executionStart = start;
+        }
+
+        void setEnd(long end) {
+            hasEnd = true;
+            executionEnd = end;
+        }
+
+        void touch(long time) {
+            updatedAt = Math.max(updatedAt, time);
+        }
+
+        void writeTo(TaskDao taskDao) {
+            taskDao.applyExecutionUpdate(taskId, disable,
+                    hasState, executionState,
+                    hasStart, executionStart,
+                    hasEnd, executionEnd,
+                    hasFireTimes, nextFireAt, currentWindowEnd,
+                    updatedAt);
+        }
+    }
+
+    private interface Merge {
+        void into(PendingUpdate update);
+    }
+
+    // ==================== 提交更新 ====================
+
+    /**
+     * 更新执行状态
+     */
+    public void updateState(long taskId, int executionState, long updatedAt) {
+        submit(taskId, update -> {
+            update.setState(executionState);
+            update.touch(updatedAt);
+        });
+    }
+
+    /**
+     * 更新执行状态和执行时间
+     */
+    public void updateExecutionInfo(long taskId, int executionState, long executionStart,
+            long executionEnd, long updatedAt) {
+        submit(taskId, update -> {
+            update.setState(executionState);
+            update.setStart(executionStart);
+            update.setEnd(executionEnd);
+            update.touch(updatedAt);
+        });
+    }
+
+    /**
+     * 只更新执行结束时间
+     */
+    public void updateExecutionEnd(long taskId, long executionEnd, long updatedAt) {
+        submit(taskId, update -> {
+            update.setEnd(executionEnd);
+            update.touch(updatedAt);
+        });
+    }
+
+    /**
+     * 重置执行状态（空闲，清零执行时间）
+     */
+    public void resetExecutionState(long taskId, long updatedAt) {
+        submit(taskId, update -> {
+            update.setState(TaskExecutionState.IDLE.getValue());
+            update.setStart(0);
+            update.setEnd(0);
+            update.touch(updatedAt);
+        });
+    }
+
+    /**
+     * 禁用任务并设置为禁用状态（清零执行时间）
+     * 调用方应随后调用 {@link #flush()}，避免覆盖用户在写入前重新启用任务
+     */
+    public void disable(long taskId, long updatedAt) {
+        submit(taskId, update -> {
+            update.disable = true;
+            update.setState(TaskExecutionState.DISABLED.getValue());
+            update.setStart(0);
+            update.setEnd(0);
+            update.touch(updatedAt);
+        });
+    }
+
+    /**
+     * 更新调度触发时间（不修改更新时间）
+     */
+    public void updateFireTimes(long taskId, long nextFireAt, long currentWindowEnd) {
+        submit(taskId, update -> {
+            update.hasFireTimes = true;
+            update.nextFireAt = nextFireAt;
+            update.currentWindowEnd = currentWindowEnd;
+        });
+    }
+
+    private void submit(long taskId, Merge merge) {
+        boolean schedule = false;
+        synchronized (this) {
+            PendingUpdate update = pending.get(taskId);
+            if (update == null) {
+                update = new PendingUpdate(taskId);
+                pending.put(taskId, update);
+            }
+            merge.into(update);
+            submittedCount++;
+            if (batchDepth > 0) {
+                return;
+            }
+            if (flushExecutor != null && !flushScheduled) {
+                flushScheduled = true;
+                schedule = true;
+            }
+        }
+
+        if (flushExecutor == null) {
+            flush();
+        } else if (schedule) {
+            flushExecutor.schedule(this::flush, flushDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 开始批量提交（可嵌套）
+     * 批量期间的更新不自动写入，直到 {@link #endBatch()} 在一个事务中一起写入；显式调用 {@link #flush()} 仍立即写入
+     */
+    public void beginBatch() {
+        synchronized (this) {
+            batchDepth++;
+        }
+    }
+
+    /**
+     * 结束批量提交，最外层结束时立即写入所有待写入的更新
+     */
+    public void endBatch() {
+        synchronized (this) {
+            if (batchDepth == 0 || --batchDepth > 0) {
+                return;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * 立即在当前线程写入所有待写入的更新，返回时之前提交的更新都已写入数据库
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<PendingUpdate> batch;
+            synchronized (this) {
+                flushScheduled = false;
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+
+            Runnable barrier = writeBarrier;
+            if (barrier != null) {
+                barrier.run();
+            }
+
+            Map<Long, Long> previousUpdatedAt = new HashMap<>();
+            try {
+                transactionRunner.runInTransaction(() -> {
+                    readUpdatedAt(batch, previousUpdatedAt);
+                    for (PendingUpdate update : batch) {
+                        update.writeTo(taskDao);
+                    }
+                });
+                for (PendingUpdate update : batch) {
+                    Long previous = previousUpdatedAt.get(update.taskId);
+                    if (previous != null) {
+                        taskCache.onStateWritten(update.taskId, previous, update.updatedAt);
+                    }
+                }
+            } catch (RuntimeException e) {
+                AppLogger.getInstance().e(TAG, "Flush of " + batch.size() + " task updates failed, retrying one by one", e);
+                for (PendingUpdate update : batch) {
+                    try {
+                        update.writeTo(taskDao);
+                    } catch (RuntimeException writeError) {
+                        AppLogger.getInstance().e(TAG, "Task " + update.taskId + " state write failed", writeError);
+                    }
+                }
+                // 缓存中已是写入后的状态，部分写入失败时以数据库为准
+                taskCache.invalidateAll();
+            }
+
+            synchronized (this) {
+                flushCount++;
+                writtenRowCount += batch.size();
+                maxBatchSize = Math.max(maxBatchSize, batch.size());
+            }
+        }
+    }
+
+    /**
+     * 读取批量中各任务写入前的更新时间（在写入事务中调用）
+     */
+    private void readUpdatedAt(List<PendingUpdate> batch, Map<Long, Long> result) {
+        List<Long> taskIds = new ArrayList<>(batch.size());
+        for (PendingUpdate update : batch) {
+            taskIds.add(update.taskId);
+        }
+        for (int from = 0; from < taskIds.size(); from += STAMP_QUERY_CHUNK_SIZE) {
+            int to = Math.min(taskIds.size(), from + STAMP_QUERY_CHUNK_SIZE);
+            for (TaskDao.TaskStamp stamp : taskDao.getTaskStampsByIdsSync(taskIds.subList(from, to))) {
+                result.put(stamp.id, stamp.updatedAt);
+            }
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    /**
+     * 提交的更新次数（合并前）
+     */
+    public synchronized long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    /**
+     * 写入数据库的次数（每次一个事务）
+     */
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * 写入的行数（合并后）
+     */
+    public synchronized long getWrittenRowCount() {
+        return writtenRowCount;
+    }
+
+    /**
+     * 单次写入的最大行数
+     */
+    public synchronized int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * 写入统计摘要，用于日志
+     */
+    public synchronized String getStatsSummary() {
+        return "updates=" + submittedCount + ", flushes=" + flushCount + ", rows=" + writtenRowCount
+                + ", avgBatch=" + (flushCount > 0 ? String.format("%.1f", (double) writtenRowCount / flushCount) : "0")
+                + ", maxBatch=" + maxBatchSize;
+    }
+}
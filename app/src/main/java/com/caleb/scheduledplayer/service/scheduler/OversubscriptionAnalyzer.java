@@ -0,0 +1,381 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.caleb.scheduledplayer.data.dao.TaskDao;
+import com.caleb.scheduledplayer.data.database.AppDatabase;
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.util.AppLogger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 并发超额分析器
+ * 将所有启用任务的周时段编入区间树（跨天、全天时段拆分为普通区间），
+ * 保存任务时查询其时段内的并发峰值，提前发现会超过最大并发数、导致任务被跳过的时段
+ *
+ * 索引在首次分析时从数据库加载，之后由任务的增删改增量维护；
+ * 加载前的变更通知直接忽略（加载时读取的已是变更后的数据）。
+ * 绑定数据库后（见 {@link #attachTo}），tasks 表有写入时与 {@link com.caleb.scheduledplayer.data.cache.TaskSnapshotCache}
+ * 一样只读取各任务的更新时间，与索引记录的不一致时才读取该任务，时段或名称变化才重新索引；
+ * 调度器频繁的状态写入只更新记录的更新时间，未经过增量通知的修改（其他写入路径）也能生效
+ *
+ * 一次性任务与 {@link WeeklySchedule} 一致视为每天有效，分析结果偏保守
+ */
+public class OversubscriptionAnalyzer {
+
+    private static final String TAG = "OversubscriptionAnalyzer";
+
+    private static final String TABLE_TASKS = "tasks";
+
+    /**
+     * 按 ID 批量读取任务时每批的 ID 数，低于 SQLite 的参数上限
+     */
+    private static final int QUERY_CHUNK_SIZE = 500;
+
+    private static volatile OversubscriptionAnalyzer instance;
+
+    private final WeeklyIntervalTree tree = new WeeklyIntervalTree();
+
+    /**
+     * 已索引任务的区间和名称，用于删除和生成冲突列表
+     */
+    private final Map<Long, List<WeeklyIntervalTree.Interval>> intervalsByTask = new HashMap<>();
+    private final Map<Long, String> namesByTask = new HashMap<>();
+
+    /**
+     * 所有任务（含未启用的）最近一次同步到索引时的更新时间和时段键，用于找出外部修改的任务
+     */
+    private final Map<Long, Long> stampsByTask = new HashMap<>();
+    private final Map<Long, String> keysByTask = new HashMap<>();
+
+    private boolean loaded;
+
+    public static OversubscriptionAnalyzer getInstance() {
+        if (instance == null) {
+            synchronized (OversubscriptionAnalyzer.class) {
+                if (instance == null) {
+                    instance = new OversubscriptionAnalyzer();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 监听 tasks 表的失效通知，在数据库查询线程上同步变化的任务（见 {@link #refreshChanged}）
+     */
+    public void attachTo(AppDatabase database) {
+        TaskDao taskDao = database.taskDao();
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer(TABLE_TASKS) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                database.getQueryExecutor().execute(() -> refreshChanged(taskDao));
+            }
+        });
+    }
+
+    /**
+     * 分析任务时段内的并发峰值
+     * 必须在后台线程调用（首次调用会读取数据库）
+     * @param task 待保存的任务，已索引的同 ID 任务不计入
+     * @param maxConcurrent 最大并发数
+     */
+    public synchronized OversubscriptionReport analyze(TaskDao taskDao, TaskEntity task, int maxConcurrent) {
+        ensureLoaded(taskDao);
+        if (!task.isEnabled()) {
+            return OversubscriptionReport.none(maxConcurrent);
+        }
+
+        int peakExisting = -1;
+        int peakMinute = -1;
+        List<WeeklyIntervalTree.Interval> overlapping = new ArrayList<>();
+        List<WeeklyIntervalTree.Interval> peakOverlapping = new ArrayList<>();
+
+        for (WeeklyIntervalTree.Interval window : toIntervals(task)) {
+            overlapping.clear();
+            tree.collectOverlapping(window.start, window.end, overlapping);
+            removeTask(overlapping, task.getId());
+
+            int[] peak = sweepPeak(overlapping, window.start, window.end);
+            if (peak[0] > peakExisting) {
+                peakExisting = peak[0];
+                peakMinute = peak[1];
+                peakOverlapping.clear();
+                peakOverlapping.addAll(overlapping);
+            }
+        }
+
+        if (peakMinute < 0) {
+            return OversubscriptionReport.none(maxConcurrent);
+        }
+
+        // 峰值时刻同时活跃的任务（去重，一个任务在同一分钟只有一个区间）
+        Map<Long, OversubscriptionReport.Conflict> conflicts = new LinkedHashMap<>();
+        for (WeeklyIntervalTree.Interval interval : peakOverlapping) {
+            if (interval.start <= peakMinute && peakMinute < interval.end) {
+                conflicts.put(interval.taskId, new OversubscriptionReport.Conflict(
+                        interval.taskId, namesByTask.get(interval.taskId)));
+            }
+        }
+        return new OversubscriptionReport(peakExisting + 1, maxConcurrent, peakMinute,
+                new ArrayList<>(conflicts.values()));
+    }
+
+    /**
+     * 任务新增或修改后调用（启用状态变化也走这里）
+     */
+    public synchronized void onTaskSaved(TaskEntity task) {
+        if (!loaded || task == null) {
+            return;
+        }
+        apply(task);
+    }
+
+    /**
+     * 任务删除后调用
+     */
+    public synchronized void onTaskDeleted(long taskId) {
+        if (!loaded) {
+            return;
+        }
+        forget(taskId);
+    }
+
+    /**
+     * 处理 tasks 表的失效通知：只读取各任务的更新时间，与记录不一致、新增或已删除的任务才单独处理
+     * 必须在后台线程调用。读取数据库时不持有锁，期间经过增量通知更新过的任务以通知为准
+     * @return 重新索引（加入、移除或更新区间）的任务数
+     */
+    public int refreshChanged(TaskDao taskDao) {
+        // 任务 ID -> 发现变化时记录的更新时间（新增任务为 null）
+        Map<Long, Long> expected = new HashMap<>();
+        List<TaskDao.TaskStamp> stamps = taskDao.getTaskStampsSync();
+        synchronized (this) {
+            if (!loaded) {
+                return 0;
+            }
+            Map<Long, Long> recorded = new HashMap<>(stampsByTask);
+            for (TaskDao.TaskStamp stamp : stamps) {
+                Long previous = recorded.remove(stamp.id);
+                if (previous == null || previous != stamp.updatedAt) {
+                    expected.put(stamp.id, previous);
+                }
+            }
+            // 剩下的是已删除的任务
+            expected.putAll(recorded);
+        }
+        if (expected.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(expected.keySet());
+        Map<Long, TaskEntity> rows = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += QUERY_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + QUERY_CHUNK_SIZE, ids.size()));
+            for (TaskEntity task : taskDao.getTasksByIdsSync(chunk)) {
+                rows.put(task.getId(), task);
+            }
+        }
+
+        int reindexed = 0;
+        synchronized (this) {
+            if (!loaded) {
+                return 0;
+            }
+            for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+                long taskId = entry.getKey();
+                if (!Objects.equals(stampsByTask.get(taskId), entry.getValue())) {
+                    continue;
+                }
+                TaskEntity task = rows.get(taskId);
+                if (task == null) {
+                    reindexed += forget(taskId) ? 1 : 0;
+                } else {
+                    reindexed += apply(task) ? 1 : 0;
+                }
+            }
+        }
+        if (reindexed > 0) {
+            AppLogger.d(TAG, "Re-indexed " + reindexed + " of " + expected.size() + " changed tasks");
+        }
+        return reindexed;
+    }
+
+    private void ensureLoaded(TaskDao taskDao) {
+        if (loaded) {
+            return;
+        }
+        // 先读更新时间，之间有修改时任务行的更新时间更新，下次失效通知会重新读取
+        for (TaskDao.TaskStamp stamp : taskDao.getTaskStampsSync()) {
+            stampsByTask.put(stamp.id, stamp.updatedAt);
+        }
+        for (TaskEntity task : taskDao.getEnabledTasksSync()) {
+            stampsByTask.put(task.getId(), task.getUpdatedAt());
+            keysByTask.put(task.getId(), scheduleKey(task));
+            index(task);
+        }
+        loaded = true;
+        AppLogger.d(TAG, "Loaded " + intervalsByTask.size() + " tasks, " + tree.size() + " intervals");
+    }
+
+    /**
+     * 记录任务的更新时间，时段键变化时重新索引
+     * @return 是否重新索引
+     */
+    private boolean apply(TaskEntity task) {
+        long taskId = task.getId();
+        stampsByTask.put(taskId, task.getUpdatedAt());
+        String key = scheduleKey(task);
+        if (Objects.equals(keysByTask.get(taskId), key)) {
+            return false;
+        }
+        unindex(taskId);
+        if (key != null) {
+            keysByTask.put(taskId, key);
+            index(task);
+        } else {
+            keysByTask.remove(taskId);
+        }
+        return true;
+    }
+
+    /**
+     * 移除已删除的任务
+     * @return 任务是否在索引中
+     */
+    private boolean forget(long taskId) {
+        stampsByTask.remove(taskId);
+        keysByTask.remove(taskId);
+        boolean indexed = intervalsByTask.containsKey(taskId);
+        unindex(taskId);
+        return indexed;
+    }
+
+    /**
+     * 影响索引的字段：未启用的任务不索引，返回 null；否则为时段和名称
+     */
+    private static String scheduleKey(TaskEntity task) {
+        if (!task.isEnabled()) {
+            return null;
+        }
+        return task.getRepeatDays() + "|" + task.isAllDayPlay() + "|" + task.getStartTime()
+                + "|" + task.getEndTime() + "|" + task.getName();
+    }
+
+    private void index(TaskEntity task) {
+        List<WeeklyIntervalTree.Interval> intervals = toIntervals(task);
+        for (WeeklyIntervalTree.Interval interval : intervals) {
+            tree.insert(interval);
+        }
+        intervalsByTask.put(task.getId(), intervals);
+        namesByTask.put(task.getId(), task.getName());
+    }
+
+    private void unindex(long taskId) {
+        List<WeeklyIntervalTree.Interval> intervals = intervalsByTask.remove(taskId);
+        namesByTask.remove(taskId);
+        if (intervals != null) {
+            for (WeeklyIntervalTree.Interval interval : intervals) {
+                tree.remove(interval);
+            }
+        }
+    }
+
+    private static void removeTask(List<WeeklyIntervalTree.Interval> intervals, long taskId) {
+        for (int i = intervals.size() - 1; i >= 0; i--) {
+            if (intervals.get(i).taskId == taskId) {
+                intervals.remove(i);
+            }
+        }
+    }
+
+    /**
+     * 扫描线计算 [windowStart, windowEnd) 内的最大重叠数
+     * @return {峰值, 峰值首次出现的分钟}
+     */
+    private static int[] sweepPeak(List<WeeklyIntervalTree.Interval> intervals, int windowStart, int windowEnd) {
+        int n = intervals.size();
+        // 编码为 位置*2 + (开始 1 / 结束 0)，同一位置先结束后开始（半开区间）
+        long[] events = new long[n * 2];
+        for (int i = 0; i < n; i++) {
+            WeeklyIntervalTree.Interval interval = intervals.get(i);
+            events[2 * i] = (long) Math.max(interval.start, windowStart) * 2 + 1;
+            events[2 * i + 1] = (long) Math.min(interval.end, windowEnd) * 2;
+        }
+        Arrays.sort(events);
+
+        int current = 0;
+        int peak = 0;
+        int peakMinute = windowStart;
+        for (long event : events) {
+            if ((event & 1) == 1) {
+                current++;
+                if (current > peak) {
+                    peak = current;
+                    peakMinute = (int) (event >> 1);
+                }
+            } else {
+                current--;
+            }
+        }
+        return new int[]{peak, peakMinute};
+    }
+
+    /**
+     * 将任务的周时段拆分为普通区间
+     * 全天、跨天时段按天切分后合并首尾相接的部分；周日延续到周一凌晨的部分单独成段
+     */
+    static List<WeeklyIntervalTree.Interval> toIntervals(TaskEntity task) {
+        WeeklySchedule schedule = WeeklySchedule.of(task);
+        int startMinutes = schedule.getStartMinutes();
+        int endMinutes = schedule.getEndMinutes();
+        long taskId = task.getId();
+
+        List<int[]> ranges = new ArrayList<>();
+        for (int day = 0; day < WeeklySchedule.DAYS_PER_WEEK; day++) {
+            if (!schedule.runsOnDay(day)) {
+                continue;
+            }
+            int dayBase = day * WeeklySchedule.MINUTES_PER_DAY;
+            if (schedule.isAllDay()) {
+                ranges.add(new int[]{dayBase, dayBase + WeeklySchedule.MINUTES_PER_DAY});
+            } else if (schedule.isCrossDay()) {
+                ranges.add(new int[]{dayBase + startMinutes, dayBase + WeeklySchedule.MINUTES_PER_DAY});
+                int nextDayBase = ((day + 1) % WeeklySchedule.DAYS_PER_WEEK) * WeeklySchedule.MINUTES_PER_DAY;
+                ranges.add(new int[]{nextDayBase, nextDayBase + endMinutes});
+            } else if (startMinutes < endMinutes) {
+                ranges.add(new int[]{dayBase + startMinutes, dayBase + endMinutes});
+            }
+        }
+        ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+        List<WeeklyIntervalTree.Interval> intervals = new ArrayList<>();
+        int[] pending = null;
+        for (int[] range : ranges) {
+            if (range[0] >= range[1]) {
+                continue;
+            }
+            if (pending != null && range[0] <= pending[1]) {
+                pending[1] = Math.max(pending[1], range[1]);
+            } else {
+                if (pending != null) {
+                    intervals.add(new WeeklyIntervalTree.Interval(pending[0], pending[1], taskId));
+                }
+                pending = range;
+            }
+        }
+        if (pending != null) {
+            intervals.add(new WeeklyIntervalTree.Interval(pending[0], pending[1], taskId));
+        }
+        return intervals;
+    }
+}
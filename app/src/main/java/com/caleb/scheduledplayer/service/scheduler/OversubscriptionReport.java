@@ -0,0 +1,96 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 并发超额分析结果
+ * 描述任务时段内的并发峰值（含任务自身）以及峰值时刻同时活跃的其他任务
+ */
+public final class OversubscriptionReport {
+
+    private static final String[] DAY_NAMES = {"周一", "周二", "周三", "周四", "周五", "周六", "周日"};
+
+    /**
+     * 峰值时刻同时活跃的任务
+     */
+    public static final class Conflict {
+        public final long taskId;
+        public final String taskName;
+
+        Conflict(long taskId, String taskName) {
+            this.taskId = taskId;
+            this.taskName = taskName;
+        }
+    }
+
+    private final int peakConcurrency;
+    private final int maxConcurrent;
+    private final int peakMinuteOfWeek;
+    private final List<Conflict> conflicts;
+
+    OversubscriptionReport(int peakConcurrency, int maxConcurrent, int peakMinuteOfWeek,
+            List<Conflict> conflicts) {
+        this.peakConcurrency = peakConcurrency;
+        this.maxConcurrent = maxConcurrent;
+        this.peakMinuteOfWeek = peakMinuteOfWeek;
+        this.conflicts = Collections.unmodifiableList(conflicts);
+    }
+
+    /**
+     * 无时段（禁用或时间无效）任务的结果
+     */
+    static OversubscriptionReport none(int maxConcurrent) {
+        return new OversubscriptionReport(0, maxConcurrent, -1, Collections.emptyList());
+    }
+
+    /**
+     * 峰值是否超过最大并发数
+     */
+    public boolean isOversubscribed() {
+        return peakConcurrency > maxConcurrent;
+    }
+
+    /**
+     * 并发峰值（含任务自身）
+     */
+    public int getPeakConcurrency() {
+        return peakConcurrency;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * 峰值首次出现的周内分钟序号，-1 表示无
+     */
+    public int getPeakMinuteOfWeek() {
+        return peakMinuteOfWeek;
+    }
+
+    /**
+     * 峰值时刻同时活跃的其他任务
+     */
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * 峰值时刻的可读描述，如 "周三 08:30"
+     */
+    public String getPeakTimeDescription() {
+        if (peakMinuteOfWeek < 0) {
+            return "";
+        }
+        int day = peakMinuteOfWeek / WeeklySchedule.MINUTES_PER_DAY;
+        int minutes = peakMinuteOfWeek % WeeklySchedule.MINUTES_PER_DAY;
+        return DAY_NAMES[day] + " " + TaskClassifier.minutesToTimeString(minutes);
+    }
+
+    @Override
+    public String toString() {
+        return "OversubscriptionReport{peak=" + peakConcurrency + "/" + maxConcurrent
+                + ", at=" + getPeakTimeDescription() + ", conflicts=" + conflicts.size() + "}";
+    }
+}
@@ -0,0 +1,49 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import java.util.List;
+
+/**
+ * 播放控制接口
+ * TaskScheduleManager 和调度策略通过它启动/停止播放，模拟器可替换为不出声的实现
+ */
+public interface PlaybackController {
+
+    /**
+     * 启动任务播放（被抢占暂停的任务从暂停处继续）
+     */
+    void start(long taskId);
+
+    /**
+     * 批量启动任务播放，按列表顺序处理
+     * 同一时刻开始的多个任务一次发给播放服务
+     */
+    void start(List<Long> taskIds);
+
+    /**
+     * 在开始时间前预热播放：进入前台、校验播放列表并准备好第一首曲目（暂停），
+     * 随后的 {@link #start} 直接出声；超过开始时间一段时间仍未开始则自动释放
+     *
+     * @param scheduledStartTime 计划开始时间戳，用于统计开始偏差
+     */
+    void prewarm(long taskId, long scheduledStartTime);
+
+    /**
+     * 停止任务播放
+     */
+    void stop(long taskId);
+
+    /**
+     * 批量停止任务播放
+     */
+    void stop(List<Long> taskIds);
+
+    /**
+     * 因并发抢占暂停任务播放
+     */
+    void preempt(long taskId);
+
+    /**
+     * 检查任务是否正在播放
+     */
+    boolean isPlaying(long taskId);
+}
@@ -0,0 +1,27 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import java.util.Map;
+
+/**
+ * 优先级抢占准入策略
+ * 并发数已满时，若新任务优先级严格高于正在播放任务中的最低优先级，则抢占该任务；
+ * 同为最低优先级时抢占任务ID最大的（通常是最近创建的任务）
+ */
+public class PriorityAdmissionPolicy implements AdmissionPolicy {
+
+    @Override
+    public long selectVictim(long taskId, int priority, Map<Long, Integer> holders) {
+        long victim = NO_VICTIM;
+        int victimPriority = Integer.MAX_VALUE;
+        for (Map.Entry<Long, Integer> entry : holders.entrySet()) {
+            int holderPriority = entry.getValue();
+            long holderId = entry.getKey();
+            if (holderPriority < victimPriority
+                    || (holderPriority == victimPriority && holderId > victim)) {
+                victim = holderId;
+                victimPriority = holderPriority;
+            }
+        }
+        return victimPriority < priority ? victim : NO_VICTIM;
+    }
+}
@@ -0,0 +1,225 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import android.os.SystemClock;
+
+import com.caleb.scheduledplayer.util.AppLogger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调度分发器
+ * 闹钟广播的后台处理按通道排队，单线程按优先级执行：结束 > 重试 > 开始，
+ * 整点大量开始事件不会拖住结束事件，避免任务超过结束时间继续播放。
+ * 执行中的任务不会被打断，提交方应把大量事件拆成多个任务（见 AlarmReceiver），使结束事件可以插在中间执行
+ *
+ * 维护通道（重新调度全部任务等耗时操作）在独立的线程上按提交顺序执行，不占用闹钟处理线程
+ *
+ * 每个任务带有截止时间（广播的 WakeLock 最多持有 60 秒）：
+ * 开始执行时已超过截止时间的任务执行其过期处理（如把到期事件放回定时堆，由下一次系统闹钟继续），
+ * 没有过期处理的任务照常执行并计为超时
+ *
+ * 各通道统计排队深度、已执行数、平均/最大等待时间和超时数
+ */
+public final class SchedulerDispatcher {
+
+    private static final String TAG = "SchedulerDispatcher";
+
+    /**
+     * 广播任务的默认时限，留出余量在 WakeLock 到期（60 秒）前完成
+     */
+    public static final long RECEIVER_BUDGET_MS = 50 * 1000L;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * 通道，按声明顺序优先（维护通道使用独立线程）
+     */
+    public enum Lane {
+        STOP,
+        RETRY,
+        START,
+        MAINTENANCE
+    }
+
+    private static volatile SchedulerDispatcher instance;
+
+    // 结束、重试、开始通道
+    private final ThreadPoolExecutor executor;
+    // 维护通道
+    private final ThreadPoolExecutor maintenanceExecutor;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Lane, LaneStats> stats = new EnumMap<>(Lane.class);
+
+    /**
+     * 通道统计
+     */
+    private static final class LaneStats {
+        final AtomicInteger depth = new AtomicInteger();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong totalWaitMs = new AtomicLong();
+        final AtomicLong maxWaitMs = new AtomicLong();
+        final AtomicLong expired = new AtomicLong();
+
+        void recordWait(long waitMs) {
+            completed.incrementAndGet();
+            totalWaitMs.addAndGet(waitMs);
+            maxWaitMs.accumulateAndGet(waitMs, Math::max);
+        }
+    }
+
+    /**
+     * 排队的任务：先按通道，同通道按提交顺序
+     */
+    private final class Job implements Runnable, Comparable<Job> {
+        final Lane lane;
+        final long seq;
+        final long enqueuedAt;
+        final long deadline;
+        final Runnable work;
+        final Runnable onExpired;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Job(Lane lane, long deadline, Runnable work, Runnable onExpired) {
+            this.lane = lane;
+            this.seq = sequence.incrementAndGet();
+            this.enqueuedAt = SystemClock.elapsedRealtime();
+            this.deadline = deadline;
+            this.work = work;
+            this.onExpired = onExpired;
+        }
+
+        @Override
+        public void run() {
+            LaneStats laneStats = stats.get(lane);
+            laneStats.depth.decrementAndGet();
+            long now = SystemClock.elapsedRealtime();
+            laneStats.recordWait(now - enqueuedAt);
+
+            try {
+                if (deadline > 0 && now > deadline) {
+                    laneStats.expired.incrementAndGet();
+                    AppLogger.w(TAG, lane + " job expired after waiting " + (now - enqueuedAt) + "ms");
+                    if (onExpired != null) {
+                        onExpired.run();
+                        done.complete(null);
+                        return;
+                    }
+                }
+                work.run();
+                done.complete(null);
+            } catch (Throwable t) {
+                AppLogger.e(TAG, "Error running " + lane + " job", t);
+                done.completeExceptionally(t);
+            }
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int byLane = Integer.compare(lane.ordinal(), other.lane.ordinal());
+            return byLane != 0 ? byLane : Long.compare(seq, other.seq);
+        }
+    }
+
+    public static SchedulerDispatcher getInstance() {
+        if (instance == null) {
+            synchronized (SchedulerDispatcher.class) {
+                if (instance == null) {
+                    instance = new SchedulerDispatcher();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private SchedulerDispatcher() {
+        for (Lane lane : Lane.values()) {
+            stats.put(lane, new LaneStats());
+        }
+        // 单线程保证通道间严格按优先级；空闲时线程超时退出
+        executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), runnable -> new Thread(runnable, TAG));
+        executor.allowCoreThreadTimeOut(true);
+        maintenanceExecutor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, TAG + "-maintenance"));
+        maintenanceExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交不限时的任务
+     */
+    public CompletableFuture<Void> submit(Lane lane, Runnable work) {
+        return submit(lane, 0, work, null);
+    }
+
+    /**
+     * 提交限时任务
+     *
+     * @param deadline 截止时间（{@link SystemClock#elapsedRealtime()}，毫秒），0 表示不限时
+     * @param work 任务
+     * @param onExpired 开始时已超过截止时间的处理，null 表示照常执行
+     * @return 任务执行完成（或过期处理完成）时完成的 Future
+     */
+    public CompletableFuture<Void> submit(Lane lane, long deadline, Runnable work, Runnable onExpired) {
+        Job job = new Job(lane, deadline, work, onExpired);
+        stats.get(lane).depth.incrementAndGet();
+        (lane == Lane.MAINTENANCE ? maintenanceExecutor : executor).execute(job);
+        return job.done;
+    }
+
+    /**
+     * 通道当前排队数
+     */
+    public int getQueueDepth(Lane lane) {
+        return stats.get(lane).depth.get();
+    }
+
+    /**
+     * 通道的平均等待时间（毫秒）
+     */
+    public long getAverageWaitMs(Lane lane) {
+        LaneStats laneStats = stats.get(lane);
+        long completed = laneStats.completed.get();
+        return completed == 0 ? 0 : laneStats.totalWaitMs.get() / completed;
+    }
+
+    /**
+     * 通道的最大等待时间（毫秒）
+     */
+    public long getMaxWaitMs(Lane lane) {
+        return stats.get(lane).maxWaitMs.get();
+    }
+
+    /**
+     * 通道中开始时已超过截止时间的任务数
+     */
+    public long getExpiredCount(Lane lane) {
+        return stats.get(lane).expired.get();
+    }
+
+    /**
+     * 各通道统计摘要，用于日志
+     */
+    public String getStatsSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Lane lane : Lane.values()) {
+            LaneStats laneStats = stats.get(lane);
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(lane).append("{depth=").append(laneStats.depth.get())
+              .append(", done=").append(laneStats.completed.get())
+              .append(", avgWait=").append(getAverageWaitMs(lane)).append("ms")
+              .append(", maxWait=").append(laneStats.maxWaitMs.get()).append("ms")
+              .append(", expired=").append(laneStats.expired.get()).append('}');
+        }
+        return sb.toString();
+    }
+}
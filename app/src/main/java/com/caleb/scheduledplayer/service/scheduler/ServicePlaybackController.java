@@ -0,0 +1,62 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import android.content.Context;
+
+import com.caleb.scheduledplayer.service.player.AudioPlaybackService;
+
+import java.util.List;
+
+/**
+ * 通过 AudioPlaybackService 控制播放
+ */
+public class ServicePlaybackController implements PlaybackController {
+
+    private final Context context;
+
+    public ServicePlaybackController(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public void start(long taskId) {
+        AudioPlaybackService.startTaskPlayback(context, taskId);
+    }
+
+    @Override
+    public void start(List<Long> taskIds) {
+        if (taskIds.size() == 1) {
+            start(taskIds.get(0));
+        } else if (!taskIds.isEmpty()) {
+            AudioPlaybackService.startTasksPlayback(context, taskIds);
+        }
+    }
+
+    @Override
+    public void prewarm(long taskId, long scheduledStartTime) {
+        AudioPlaybackService.prewarmTaskPlayback(context, taskId, scheduledStartTime);
+    }
+
+    @Override
+    public void stop(long taskId) {
+        AudioPlaybackService.stopTaskPlayback(context, taskId);
+    }
+
+    @Override
+    public void stop(List<Long> taskIds) {
+        if (taskIds.size() == 1) {
+            stop(taskIds.get(0));
+        } else if (!taskIds.isEmpty()) {
+            AudioPlaybackService.stopTasksPlayback(context, taskIds);
+        }
+    }
+
+    @Override
+    public void preempt(long taskId) {
+        AudioPlaybackService.preemptTaskPlayback(context, taskId);
+    }
+
+    @Override
+    public boolean isPlaying(long taskId) {
+        return AudioPlaybackService.isTaskCurrentlyPlaying(taskId);
+    }
+}
@@ -0,0 +1,140 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 等待播放槽位的任务队列
+ * 处于 WAITING_SLOT 状态的任务按优先级从高到低排队，同优先级按进入等待的先后（FIFO）；
+ * 有槽位释放时由 TaskScheduleManager 立即交给队首任务，重试闹钟只作为进程崩溃后的兜底
+ *
+ * 同一任务只会在队列中出现一次，重复入队保持原有位置
+ *
+ * 线程安全：所有公开方法都是同步的
+ */
+public class SlotWaitQueue {
+
+    /**
+     * 队列节点：优先级高者在前，同优先级按序号（入队顺序）
+     */
+    private static final class Entry implements Comparable<Entry> {
+        final long taskId;
+        final int priority;
+        final long sequence;
+
+        Entry(long taskId, int priority, long sequence) {
+            this.taskId = taskId;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byPriority = Integer.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final TreeSet<Entry> queue = new TreeSet<>();
+    private final Map<Long, Entry> members = new HashMap<>();
+
+    /**
+     * 入队序号，队尾递增；放回队首时使用负数序号
+     */
+    private long tailSequence = 0;
+    private long headSequence = 0;
+
+    /**
+     * 按优先级加入队列（已在队列中时保持原有位置）
+     *
+     * @return 是否新加入
+     */
+    public synchronized boolean offer(long taskId, int priority) {
+        if (members.containsKey(taskId)) {
+            return false;
+        }
+        add(new Entry(taskId, priority, ++tailSequence));
+        return true;
+    }
+
+    /**
+     * 放回同优先级的最前面（交接失败或被抢占时使用，保证不丢失排队位置）
+     */
+    public synchronized void offerFirst(long taskId, int priority) {
+        remove(taskId);
+        add(new Entry(taskId, priority, --headSequence));
+    }
+
+    /**
+     * 取出队首任务
+     *
+     * @return 任务ID，队列为空时返回 null
+     */
+    public synchronized Long poll() {
+        Entry entry = queue.pollFirst();
+        if (entry == null) {
+            return null;
+        }
+        members.remove(entry.taskId);
+        return entry.taskId;
+    }
+
+    /**
+     * 查看队首任务的优先级
+     *
+     * @return 优先级，队列为空时返回 null
+     */
+    public synchronized Integer peekPriority() {
+        return queue.isEmpty() ? null : queue.first().priority;
+    }
+
+    /**
+     * 移出队列（任务离开 WAITING_SLOT 状态时调用）
+     *
+     * @return 任务是否在队列中
+     */
+    public synchronized boolean remove(long taskId) {
+        Entry entry = members.remove(taskId);
+        if (entry != null) {
+            queue.remove(entry);
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized boolean contains(long taskId) {
+        return members.containsKey(taskId);
+    }
+
+    public synchronized boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * 按排队顺序返回所有任务ID
+     */
+    public synchronized List<Long> snapshot() {
+        List<Long> ids = new ArrayList<>(queue.size());
+        for (Entry entry : queue) {
+            ids.add(entry.taskId);
+        }
+        return ids;
+    }
+
+    public synchronized void clear() {
+        queue.clear();
+        members.clear();
+    }
+
+    private void add(Entry entry) {
+        members.put(entry.taskId, entry);
+        queue.add(entry);
+    }
+}
@@ -0,0 +1,254 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import com.caleb.scheduledplayer.data.dao.ArmedAlarmDao;
+import com.caleb.scheduledplayer.data.database.AppDatabase;
+import com.caleb.scheduledplayer.data.entity.ArmedAlarmEntity;
+import com.caleb.scheduledplayer.util.AppLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 基于 AlarmManager 和 Room 的闹钟后端
+ * 定时堆的变更以增量方式写入 armed_alarms 表（单线程按序提交），不再每次整体序列化；
+ * 旧版本保存在 SharedPreferences 中的定时堆在首次恢复时迁移到数据库
+ */
+public class SystemAlarmBackend implements AlarmBackend {
+
+    private static final String TAG = "SystemAlarmBackend";
+
+    private static final String PREFS_NAME = "alarm_scheduler";
+    private static final String KEY_TIMER_HEAP = "timer_heap";
+    private static final String KEY_LEGACY_ALARMS_CLEARED = "legacy_alarms_cleared";
+
+    /**
+     * 唯一系统闹钟的 Request Code（action 不同，不会与旧版按任务注册的闹钟冲突）
+     */
+    private static final int TIMER_REQUEST_CODE = 0;
+
+    private final Context context;
+    private final AlarmManager alarmManager;
+    private final SharedPreferences prefs;
+    private final AppDatabase database;
+    private final ArmedAlarmDao armedAlarmDao;
+
+    /**
+     * 数据库写入线程：保证变更按产生顺序提交，且不在主线程访问数据库
+     */
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+
+    public SystemAlarmBackend(Context context) {
+        this.context = context.getApplicationContext();
+        this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.database = AppDatabase.getInstance(this.context);
+        this.armedAlarmDao = database.armedAlarmDao();
+    }
+
+    @Override
+    public void loadTimerEvents(LoadCallback callback) {
+        // 在写入线程上读取：不阻塞调用方，避开 Room 的主线程检查，也保证读到之前提交的所有变更
+        writeExecutor.execute(() -> {
+            List<AlarmTimerHeap.TimerEvent> events;
+            try {
+                events = readTimerEvents();
+            } catch (Exception e) {
+                AppLogger.e(TAG, "Failed to restore timer events", e);
+                callback.onLoadFailed(e);
+                return;
+            }
+            callback.onLoaded(events);
+        });
+    }
+
+    private List<AlarmTimerHeap.TimerEvent> readTimerEvents() {
+        String legacy = prefs.getString(KEY_TIMER_HEAP, null);
+        if (legacy != null) {
+            // 旧版本的整体序列化数据：解析后整体写入数据库
+            AlarmTimerHeap legacyHeap = new AlarmTimerHeap();
+            legacyHeap.restore(legacy);
+            AlarmTimerHeap.Changes changes = legacyHeap.drainChanges();
+            database.runInTransaction(() -> applyChanges(changes));
+            prefs.edit().remove(KEY_TIMER_HEAP).apply();
+            AppLogger.d(TAG, "Migrated " + legacyHeap.size() + " timer events from SharedPreferences");
+            return legacyHeap.snapshot();
+        }
+
+        List<ArmedAlarmEntity> rows = armedAlarmDao.getAll();
+        AlarmTimerHeap.Kind[] kinds = AlarmTimerHeap.Kind.values();
+        List<AlarmTimerHeap.TimerEvent> events = new ArrayList<>(rows.size());
+        for (ArmedAlarmEntity row : rows) {
+            if (row.getKind() >= 0 && row.getKind() < kinds.length) {
+                events.add(new AlarmTimerHeap.TimerEvent(row.getTaskId(), kinds[row.getKind()],
+                        row.getTriggerTime()));
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public void saveTimerHeap(AlarmTimerHeap heap) {
+        AlarmTimerHeap.Changes changes = heap.drainChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        writeExecutor.execute(() -> {
+            try {
+                database.runInTransaction(() -> applyChanges(changes));
+            } catch (Exception e) {
+                AppLogger.e(TAG, "Failed to persist timer events", e);
+            }
+        });
+    }
+
+    @Override
+    public void awaitSaved() {
+        // 写入线程按序执行：空任务完成时之前提交的增量都已写入
+        try {
+            writeExecutor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            AppLogger.e(TAG, "Failed to wait for timer event writes", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            AppLogger.e(TAG, "Interrupted while waiting for timer event writes", e);
+        }
+    }
+
+    private void applyChanges(AlarmTimerHeap.Changes changes) {
+        if (changes.cleared) {
+            armedAlarmDao.deleteAll();
+        }
+        for (AlarmTimerHeap.TimerEvent removed : changes.removed) {
+            armedAlarmDao.delete(removed.taskId, removed.kind.ordinal());
+        }
+        if (!changes.upserted.isEmpty()) {
+            List<ArmedAlarmEntity> rows = new ArrayList<>(changes.upserted.size());
+            for (AlarmTimerHeap.TimerEvent event : changes.upserted) {
+                rows.add(new ArmedAlarmEntity(event.taskId, event.kind.ordinal(), event.triggerTime));
+            }
+            armedAlarmDao.upsert(rows);
+        }
+    }
+
+    @Override
+    public void disarm() {
+        alarmManager.cancel(createTimerPendingIntent());
+    }
+
+    @Override
+    public boolean canScheduleExactAlarms() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return alarmManager.canScheduleExactAlarms();
+        }
+        return true;
+    }
+
+    /**
+     * 注册唯一的系统闹钟（同一个 PendingIntent，会替换之前的注册）
+     */
+    @Override
+    public void arm(long triggerTime, boolean useAlarmClock) {
+        PendingIntent pi = createTimerPendingIntent();
+
+        if (useAlarmClock) {
+            // 使用 AlarmClockInfo 确保 Doze 模式下也能触发
+            AlarmManager.AlarmClockInfo alarmClockInfo = new AlarmManager.AlarmClockInfo(triggerTime, pi);
+            alarmManager.setAlarmClock(alarmClockInfo, pi);
+            return;
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            // Android 12+ 需要检查精确闹钟权限
+            if (alarmManager.canScheduleExactAlarms()) {
+                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pi);
+            } else {
+                // 没有精确闹钟权限，使用非精确闹钟
+                AppLogger.w(TAG, "Cannot schedule exact alarms, using inexact alarm");
+                alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pi);
+            }
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            // Android 6.0+ 使用 setExactAndAllowWhileIdle
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pi);
+        } else {
+            // 低版本使用 setExact
+            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerTime, pi);
+        }
+    }
+
+    /**
+     * 创建唯一系统闹钟的 PendingIntent
+     */
+    private PendingIntent createTimerPendingIntent() {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(AlarmReceiver.ACTION_TIMER_WAKEUP);
+
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            flags |= PendingIntent.FLAG_IMMUTABLE;
+        }
+
+        return PendingIntent.getBroadcast(context, TIMER_REQUEST_CODE, intent, flags);
+    }
+
+    // ==================== 旧版按任务注册的闹钟 ====================
+
+    /**
+     * 清理旧版本按任务注册的闹钟（只执行一次）
+     * 升级后旧闹钟仍留在 AlarmManager 中，会与定时堆中的事件重复触发
+     * 
+     * @param taskIds 需要清理的任务ID
+     */
+    @Override
+    public void clearLegacyAlarmsOnce(List<Long> taskIds) {
+        if (prefs.getBoolean(KEY_LEGACY_ALARMS_CLEARED, false)) {
+            return;
+        }
+        for (long taskId : taskIds) {
+            alarmManager.cancel(createLegacyPendingIntent(taskId, AlarmReceiver.ACTION_TASK_START,
+                    calculateLegacyRequestCode(taskId, 0)));
+            alarmManager.cancel(createLegacyPendingIntent(taskId, AlarmReceiver.ACTION_TASK_STOP,
+                    calculateLegacyRequestCode(taskId, 1)));
+            alarmManager.cancel(createLegacyPendingIntent(taskId, AlarmReceiver.ACTION_TASK_RETRY,
+                    calculateLegacyRequestCode(taskId, 2)));
+        }
+        prefs.edit().putBoolean(KEY_LEGACY_ALARMS_CLEARED, true).apply();
+        AppLogger.d(TAG, "Cleared legacy per-task alarms for " + taskIds.size() + " tasks");
+    }
+
+    /**
+     * 创建旧版闹钟的 PendingIntent（仅用于取消）
+     */
+    private PendingIntent createLegacyPendingIntent(long taskId, String action, int requestCode) {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(action);
+        intent.putExtra(AlarmReceiver.EXTRA_TASK_ID, taskId);
+
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            flags |= PendingIntent.FLAG_IMMUTABLE;
+        }
+
+        return PendingIntent.getBroadcast(context, requestCode, intent, flags);
+    }
+
+    /**
+     * 旧版 Request Code
+     * 开始闹钟: taskId * 3 (mod 3 = 0)
+     * 结束闹钟: taskId * 3 + 1 (mod 3 = 1)
+     * 重试闹钟: taskId * 3 + 2 (mod 3 = 2)
+     */
+    private int calculateLegacyRequestCode(long taskId, int offset) {
+        // 取模 700000000 确保乘以 3 后不会溢出
+        return (int) (taskId % 700000000) * 3 + offset;
+    }
+}
@@ -0,0 +1,227 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 任务邮箱
+ * 每个任务一个串行邮箱（类似 Actor）：同一任务的命令（开始、结束、重试、重新调度）严格按提交顺序逐个执行，
+ * 不同任务的命令在共享线程池上并行执行，不需要按任务分配的监视器锁
+ *
+ * - {@link #post}：异步提交，由线程池执行
+ * - {@link #run} / {@link #call}：同步执行。邮箱空闲时直接在调用线程执行；邮箱忙碌时排队，
+ *   轮到时由线程池把执行权交还给调用线程。命令始终在调用线程执行，调用线程上的 ThreadLocal（如批量重调度）依然有效
+ * - 在某任务的命令内同步调用同一任务的邮箱直接执行（可重入）
+ *
+ * 邮箱在队列清空时立即回收，内存占用只与正在执行或排队的任务数有关
+ *
+ * 注意：不要在一个任务的命令内同步调用其他任务的邮箱，两个任务互相等待会死锁（与嵌套加锁相同）
+ */
+final class TaskMailboxes {
+
+    private static final int POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final long POOL_KEEP_ALIVE_SECONDS = 30;
+
+    private final Executor executor;
+    private final ConcurrentHashMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * 邮箱存在于映射中即表示有线程正在执行它（线程池或同步调用者）
+     */
+    private static final class Mailbox {
+        // 只在 mailboxes.compute 中读写
+        final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        // 正在执行命令的线程，用于判断重入
+        volatile Thread owner;
+    }
+
+    /**
+     * 同步调用的接力令牌：轮到时线程池停止执行该邮箱，由等待的调用线程接手
+     */
+    private static final class Handoff implements Runnable {
+        private final CountDownLatch turn = new CountDownLatch(1);
+
+        @Override
+        public void run() {
+            turn.countDown();
+        }
+
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    turn.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @param executor 执行异步命令的线程池；传入 Runnable::run 时所有命令都在提交线程上执行（供模拟器使用）
+     */
+    TaskMailboxes(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 创建共享线程池：固定上限，空闲线程超时回收
+     */
+    static Executor newSharedPool() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "TaskMailbox-" + threadCount.incrementAndGet()));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * 异步提交命令
+     *
+     * @return 命令执行完成（或抛出异常）时完成的 Future
+     */
+    CompletableFuture<Void> post(long taskId, Runnable command) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Runnable wrapped = () -> {
+            try {
+                command.run();
+                done.complete(null);
+            } catch (Throwable t) {
+                done.completeExceptionally(t);
+            }
+        };
+
+        boolean[] start = new boolean[1];
+        mailboxes.compute(taskId, (id, mailbox) -> {
+            if (mailbox == null) {
+                start[0] = true;
+                return new Mailbox();
+            }
+            mailbox.queue.add(wrapped);
+            return mailbox;
+        });
+        if (start[0]) {
+            executor.execute(() -> {
+                runAsOwner(taskId, wrapped);
+                drain(taskId);
+            });
+        }
+        return done;
+    }
+
+    /**
+     * 同步执行命令，返回命令的结果
+     */
+    <T> T call(long taskId, Supplier<T> command) {
+        Mailbox current = mailboxes.get(taskId);
+        if (current != null && current.owner == Thread.currentThread()) {
+            return command.get();
+        }
+
+        Handoff handoff = new Handoff();
+        boolean[] claimed = new boolean[1];
+        Mailbox mailbox = mailboxes.compute(taskId, (id, existing) -> {
+            if (existing == null) {
+                claimed[0] = true;
+                return new Mailbox();
+            }
+            existing.queue.add(handoff);
+            return existing;
+        });
+        if (!claimed[0]) {
+            handoff.await();
+        }
+
+        mailbox.owner = Thread.currentThread();
+        try {
+            return command.get();
+        } finally {
+            mailbox.owner = null;
+            resume(taskId);
+        }
+    }
+
+    /**
+     * 同步执行命令
+     */
+    void run(long taskId, Runnable command) {
+        call(taskId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * 当前存在的邮箱数（正在执行或有排队命令的任务数）
+     */
+    int size() {
+        return mailboxes.size();
+    }
+
+    /**
+     * 由线程池逐个执行邮箱中的命令，遇到接力令牌时交出执行权
+     */
+    private void drain(long taskId) {
+        Runnable command;
+        while ((command = takeNext(taskId)) != null) {
+            if (command instanceof Handoff) {
+                command.run();
+                return;
+            }
+            runAsOwner(taskId, command);
+        }
+    }
+
+    private void runAsOwner(long taskId, Runnable command) {
+        Mailbox mailbox = mailboxes.get(taskId);
+        mailbox.owner = Thread.currentThread();
+        try {
+            command.run();
+        } finally {
+            mailbox.owner = null;
+        }
+    }
+
+    /**
+     * 同步调用结束后，把剩余命令交回线程池；没有剩余命令时回收邮箱
+     */
+    private void resume(long taskId) {
+        boolean[] hasMore = new boolean[1];
+        mailboxes.compute(taskId, (id, mailbox) -> {
+            if (mailbox.queue.isEmpty()) {
+                return null;
+            }
+            hasMore[0] = true;
+            return mailbox;
+        });
+        if (hasMore[0]) {
+            executor.execute(() -> drain(taskId));
+        }
+    }
+
+    /**
+     * 取出下一条命令；队列为空时回收邮箱并返回 null
+     */
+    private Runnable takeNext(long taskId) {
+        Runnable[] next = new Runnable[1];
+        mailboxes.compute(taskId, (id, mailbox) -> {
+            next[0] = mailbox.queue.poll();
+            return next[0] != null ? mailbox : null;
+        });
+        return next[0];
+    }
+}
@@ -1,49 +1,172 @@
 package com.caleb.scheduledplayer.service.scheduler;
 
 import android.content.Context;
+import android.os.SystemClock;
 
 import com.caleb.scheduledplayer.util.AppLogger;
 
+import com.caleb.scheduledplayer.data.cache.TaskSnapshotCache;
 import com.caleb.scheduledplayer.data.dao.TaskDao;
 import com.caleb.scheduledplayer.data.database.AppDatabase;
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
-import com.caleb.scheduledplayer.service.player.AudioPlaybackService;
+import com.caleb.scheduledplayer.service.fleet.FleetRuntime;
 import com.caleb.scheduledplayer.service.scheduler.strategy.OneTimeAllDayStrategy;
 import com.caleb.scheduledplayer.service.scheduler.strategy.OneTimeCrossDayStrategy;
 import com.caleb.scheduledplayer.service.scheduler.strategy.OneTimeNormalStrategy;
 import com.caleb.scheduledplayer.service.scheduler.strategy.RepeatAllDayStrategy;
 import com.caleb.scheduledplayer.service.scheduler.strategy.RepeatCrossDayStrategy;
 import com.caleb.scheduledplayer.service.scheduler.strategy.RepeatNormalStrategy;
+import com.caleb.scheduledplayer.util.AppSettings;
 
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 
 /**
  * 任务调度管理器
  * 统一管理任务的调度、执行和状态转换
  */
-public class TaskScheduleManager {
+public class TaskScheduleManager implements ScheduleOperations {
 
     private static final String TAG = "TaskScheduleManager";
 
+    /**
+     * 小于这个量的墙上时钟调整（网络校时等）不重新调度
+     */
+    private static final long CLOCK_JUMP_TOLERANCE_MS = 2_000;
+
     private static volatile TaskScheduleManager instance;
 
-    private final Context context;
     private final TaskDao taskDao;
+    // 闹钟处理读取任务的快照缓存，调度器自身的状态写入同步更新
+    private final TaskSnapshotCache taskCache;
+    // 执行状态和触发时间的延迟合并写入
+    private final ExecutionStateWriter stateWriter;
+    private final AppSettings appSettings;
     private final AlarmScheduler alarmScheduler;
+    private final PlaybackController playback;
     private final ConcurrencyManager concurrencyManager;
     private final Map<TaskType, ScheduleStrategy> strategies;
     
-    // 任务锁映射，确保对同一任务的操作是线程安全的
-    private final ConcurrentHashMap<Long, Object> taskLocks = new ConcurrentHashMap<>();
+    // 任务邮箱：同一任务的操作串行执行，不同任务的操作可以并行
+    private final TaskMailboxes mailboxes;
+
+    // 等待播放槽位的任务队列，槽位释放时立即交给队首任务
+    private final SlotWaitQueue slotWaitQueue = new SlotWaitQueue();
+    private volatile boolean waitQueueSeeded = false;
+
+    // 已被抢占、尚未移入等待队列的任务（在任务邮箱之外处理，避免跨任务同步等待）
+    private final ConcurrentLinkedQueue<Long> pendingPreemptions = new ConcurrentLinkedQueue<>();
+
+    // 被抢占后播放器处于暂停状态的任务，跳过时需要停止其播放器
+    private final Set<Long> preemptedTaskIds = ConcurrentHashMap.newKeySet();
+
+    // 批量重调度或处理一批到期事件时当前线程收集的播放指令
+    private final ThreadLocal<PlaybackBatch> playbackBatch = new ThreadLocal<>();
+
+    /**
+     * 收集的播放指令
+     * 按发出顺序记录，发出时把相邻的同类指令合并为一次批量调用（播放服务一个 Intent），同一任务的开始/停止顺序不变。
+     * 处理到期事件时由多个任务邮箱线程同时写入
+     */
+    private static final class PlaybackBatch {
+        private final List<Long> taskIds = new ArrayList<>();
+        private final List<Boolean> starts = new ArrayList<>();
+
+        synchronized void add(long taskId, boolean start) {
+            taskIds.add(taskId);
+            starts.add(start);
+        }
+
+        synchronized int size() {
+            return taskIds.size();
+        }
+
+        synchronized void dispatch(PlaybackController playback) {
+            int from = 0;
+            while (from < taskIds.size()) {
+                boolean start = starts.get(from);
+                int to = from + 1;
+                while (to < taskIds.size() && starts.get(to) == start) {
+                    to++;
+                }
+                List<Long> run = new ArrayList<>(taskIds.subList(from, to));
+                if (start) {
+                    playback.start(run);
+                } else {
+                    playback.stop(run);
+                }
+                from = to;
+            }
+            taskIds.clear();
+            starts.clear();
+        }
+    }
+
+    /**
+     * 事务执行器
+     */
+    public interface TransactionRunner {
+        void runInTransaction(Runnable body);
+    }
 
     private TaskScheduleManager(Context context) {
-        this.context = context.getApplicationContext();
-        this.taskDao = AppDatabase.getInstance(context).taskDao();
-        this.alarmScheduler = new AlarmScheduler(context);
-        this.concurrencyManager = new ConcurrencyManager(taskDao);
+        this(AppDatabase.getInstance(context), new AppSettings(context), context.getApplicationContext());
+    }
+
+    private TaskScheduleManager(AppDatabase database, AppSettings appSettings, Context context) {
+        this(database.taskDao(), TaskSnapshotCache.getInstance(context),
+                new TaskMailboxes(TaskMailboxes.newSharedPool()), database::runInTransaction, true,
+                new AlarmScheduler(context),
+                FleetRuntime.getInstance(context).wrapPlayback(new ServicePlaybackController(context)),
+                new ConcurrencyManager(database.taskDao(), appSettings.getMaxConcurrentPlayback(),
+                        createAdmissionPolicy(appSettings.isPriorityPreemptionEnabled())),
+                appSettings);
+        // 持久化的闹钟事件读取失败时无法知道哪些事件已登记，清空后按任务表重新生成
+        alarmScheduler.setRestoreFailureListener(() -> SchedulerDispatcher.getInstance()
+                .submit(SchedulerDispatcher.Lane.MAINTENANCE, this::rebuildAllAlarms));
+    }
+
+    /**
+     * 使用指定的依赖创建调度管理器（不注册为单例）
+     * 供模拟器在内存中驱动真实的调度策略；所有操作在调用线程上执行；appSettings 为 null 时运行时调整不持久化
+     */
+    public TaskScheduleManager(TaskDao taskDao, TransactionRunner transactionRunner,
+            AlarmScheduler alarmScheduler, PlaybackController playback,
+            ConcurrencyManager concurrencyManager, AppSettings appSettings) {
+        this(taskDao, new TaskSnapshotCache(taskDao), new TaskMailboxes(Runnable::run),
+                transactionRunner, false, alarmScheduler, playback, concurrencyManager, appSettings);
+    }
+
+    /**
+     * @param writeBehind 是否在独立线程中延迟合并写入执行状态；否则每次更新立即写入
+     */
+    private TaskScheduleManager(TaskDao taskDao, TaskSnapshotCache taskCache,
+            TaskMailboxes mailboxes, TransactionRunner transactionRunner, boolean writeBehind,
+            AlarmScheduler alarmScheduler, PlaybackController playback, ConcurrencyManager concurrencyManager,
+            AppSettings appSettings) {
+        this.taskDao = taskDao;
+        this.taskCache = taskCache;
+        this.mailboxes = mailboxes;
+        this.stateWriter = writeBehind
+                ? ExecutionStateWriter.withWriterThread(taskDao, transactionRunner, taskCache)
+                : ExecutionStateWriter.writeThrough(taskDao, transactionRunner, taskCache);
+        taskCache.setLoadBarrier(stateWriter::flush);
+        stateWriter.setWriteBarrier(alarmScheduler::awaitPersisted);
+        this.alarmScheduler = alarmScheduler;
+        this.playback = playback;
+        this.concurrencyManager = concurrencyManager;
+        this.appSettings = appSettings;
         this.strategies = initStrategies();
     }
 
@@ -61,21 +184,6 @@ public class TaskScheduleManager {
         return instance;
     }
     
-    /**
-     * 获取任务锁
-     * 确保对同一任务的并发操作是线程安全的
-     */
-    private Object getTaskLock(long taskId) {
-        return taskLocks.computeIfAbsent(taskId, k -> new Object());
-    }
-    
-    /**
-     * 清理任务锁（任务删除时调用）
-     */
-    public void removeTaskLock(long taskId) {
-        taskLocks.remove(taskId);
-    }
-
     /**
      * 初始化所有策略
      */
@@ -99,6 +207,13 @@ public class TaskScheduleManager {
         return map;
     }
 
+    /**
+     * 根据设置创建准入策略
+     */
+    private static AdmissionPolicy createAdmissionPolicy(boolean preemptionEnabled) {
+        return preemptionEnabled ? new PriorityAdmissionPolicy() : AdmissionPolicy.FIRST_COME;
+    }
+
     // ==================== 核心调度方法 ====================
 
     /**
@@ -113,26 +228,31 @@ public class TaskScheduleManager {
             return ScheduleResult.noSchedule("Task is null");
         }
 
-        synchronized (getTaskLock(task.getId())) {
-            if (!task.isEnabled()) {
-                AppLogger.getInstance().d(TAG, "Task " + task.getId() + " is disabled, cancelling alarms");
-                cancelTask(task);
-                return ScheduleResult.noSchedule("Task is disabled");
-            }
+        ScheduleResult result = callForTask(task.getId(), () -> scheduleTaskLocked(task));
+        // 禁用任务可能释放了槽位
+        drainWaitingQueue();
+        return result;
+    }
 
-            TaskType type = TaskClassifier.classify(task);
-            ScheduleStrategy strategy = strategies.get(type);
+    private ScheduleResult scheduleTaskLocked(TaskEntity task) {
+        if (!task.isEnabled()) {
+            AppLogger.getInstance().d(TAG, "Task " + task.getId() + " is disabled, cancelling alarms");
+            cancelTaskInternal(task);
+            return ScheduleResult.noSchedule("Task is disabled");
+        }
 
-            if (strategy == null) {
-                AppLogger.getInstance().e(TAG, "No strategy found for task type: " + type);
-                return ScheduleResult.noSchedule("No strategy for type " + type);
-            }
+        TaskType type = TaskClassifier.classify(task);
+        ScheduleStrategy strategy = strategies.get(type);
 
-            AppLogger.getInstance().d(TAG, "Scheduling task " + task.getId() + " [" + task.getName() 
-                    + "] with type " + type);
-            
-            return strategy.schedule(task, this);
+        if (strategy == null) {
+            AppLogger.getInstance().e(TAG, "No strategy found for task type: " + type);
+            return ScheduleResult.noSchedule("No strategy for type " + type);
         }
+
+        AppLogger.getInstance().d(TAG, "Scheduling task " + task.getId() + " [" + task.getName() 
+                + "] with type " + type);
+        
+        return strategy.schedule(task, this);
     }
 
     /**
@@ -143,24 +263,27 @@ public class TaskScheduleManager {
     public void handleStartAlarm(long taskId) {
         AppLogger.getInstance().d(TAG, "Handling start alarm for task " + taskId);
         
-        synchronized (getTaskLock(taskId)) {
-            TaskEntity task = taskDao.getTaskByIdSync(taskId);
-            if (task == null) {
-                AppLogger.getInstance().w(TAG, "Task " + taskId + " not found");
-                return;
-            }
+        runForTask(taskId, () -> handleStartAlarmLocked(taskId));
+        drainWaitingQueue();
+    }
 
-            if (!task.isEnabled()) {
-                AppLogger.getInstance().d(TAG, "Task " + taskId + " is disabled, ignoring start alarm");
-                return;
-            }
+    private void handleStartAlarmLocked(long taskId) {
+        TaskEntity task = taskCache.get(taskId);
+        if (task == null) {
+            AppLogger.getInstance().w(TAG, "Task " + taskId + " not found");
+            return;
+        }
 
-            TaskType type = TaskClassifier.classify(task);
-            ScheduleStrategy strategy = strategies.get(type);
+        if (!task.isEnabled()) {
+            AppLogger.getInstance().d(TAG, "Task " + taskId + " is disabled, ignoring start alarm");
+            return;
+        }
 
-            if (strategy != null) {
-                strategy.handleStart(task, this);
-            }
+        TaskType type = TaskClassifier.classify(task);
+        ScheduleStrategy strategy = strategies.get(type);
+
+        if (strategy != null) {
+            strategy.handleStart(task, this);
         }
     }
 
@@ -172,56 +295,434 @@ public class TaskScheduleManager {
     public void handleStopAlarm(long taskId) {
         AppLogger.getInstance().d(TAG, "Handling stop alarm for task " + taskId);
         
-        synchronized (getTaskLock(taskId)) {
-            TaskEntity task = taskDao.getTaskByIdSync(taskId);
-            if (task == null) {
-                AppLogger.getInstance().w(TAG, "Task " + taskId + " not found");
-                return;
-            }
+        runForTask(taskId, () -> handleStopAlarmLocked(taskId));
+        // 结束的任务已归还槽位，立即交给等待最久的任务
+        drainWaitingQueue();
+    }
 
-            TaskExecutionState currentState = task.getExecutionStateEnum();
-            
-            // 如果任务还在等待空位，说明从未成功启动播放
-            // 应该标记为 SKIPPED 而不是正常结束
-            if (currentState == TaskExecutionState.WAITING_SLOT) {
-                AppLogger.getInstance().d(TAG, "Task " + taskId + " was waiting for slot when end time reached, marking as SKIPPED");
-                handleSkipDueToConcurrency(task);
-                return;
+    private void handleStopAlarmLocked(long taskId) {
+        TaskEntity task = taskCache.get(taskId);
+        if (task == null) {
+            AppLogger.getInstance().w(TAG, "Task " + taskId + " not found");
+            return;
+        }
+
+        TaskExecutionState currentState = task.getExecutionStateEnum();
+        
+        // 如果任务还在等待空位，说明从未成功启动播放
+        // 应该标记为 SKIPPED 而不是正常结束
+        if (currentState == TaskExecutionState.WAITING_SLOT) {
+            AppLogger.getInstance().d(TAG, "Task " + taskId + " was waiting for slot when end time reached, marking as SKIPPED");
+            handleSkipDueToConcurrency(task);
+            return;
+        }
+
+        TaskType type = TaskClassifier.classify(task);
+        ScheduleStrategy strategy = strategies.get(type);
+
+        if (strategy != null) {
+            strategy.handleStop(task, this);
+        }
+    }
+
+    /**
+     * 取出定时堆中所有到期的闹钟事件
+     * 
+     * @return 按触发时间排序的到期事件
+     */
+    public List<AlarmTimerHeap.TimerEvent> pollDueAlarms() {
+        return alarmScheduler.pollDueEvents();
+    }
+
+    /**
+     * 把未能在时限内处理的到期事件放回定时堆，由下一次系统闹钟（新的 WakeLock）继续处理
+     */
+    public void requeueTimerEvents(List<AlarmTimerHeap.TimerEvent> events) {
+        alarmScheduler.requeueEvents(events);
+    }
+
+    /**
+     * 处理定时堆中的到期事件
+     * 
+     * @param event 到期事件
+     */
+    public void handleTimerEvent(AlarmTimerHeap.TimerEvent event) {
+        switch (event.kind) {
+            case START:
+                handleStartAlarm(event.taskId);
+                break;
+            case STOP:
+                handleStopAlarm(event.taskId);
+                break;
+            case RETRY:
+                handleRetryAlarm(event.taskId);
+                break;
+            case PREWARM:
+                runForTask(event.taskId, () -> handlePrewarmAlarmLocked(event));
+                break;
+        }
+    }
+
+    /**
+     * 处理一批到期事件
+     * 每个事件投递到所属任务的邮箱：同一任务的事件按顺序执行，不同任务的事件并行执行。
+     * 按阶段处理，每个阶段结束后交接空闲槽位：
+     * 持有槽位任务的结束事件 → 其他结束事件 → 重试事件 → 开始事件。
+     * 同一时刻到达结束时间的等待任务可以先拿到刚释放的槽位，不会因为处理顺序被直接跳过；
+     * 等待中的任务也先于新开始的任务获得槽位。预热事件不涉及槽位，最后处理。
+     * 阻塞直到全部处理完成，不能在任务邮箱内调用
+     *
+     * @param events 到期事件（按触发时间排序）
+     */
+    public void handleTimerEvents(List<AlarmTimerHeap.TimerEvent> events) {
+        List<AlarmTimerHeap.TimerEvent> releasing = new ArrayList<>();
+        List<AlarmTimerHeap.TimerEvent> stops = new ArrayList<>();
+        List<AlarmTimerHeap.TimerEvent> retries = new ArrayList<>();
+        List<AlarmTimerHeap.TimerEvent> starts = new ArrayList<>();
+        List<AlarmTimerHeap.TimerEvent> prewarms = new ArrayList<>();
+        for (AlarmTimerHeap.TimerEvent event : events) {
+            switch (event.kind) {
+                case STOP:
+                    (concurrencyManager.isHoldingSlot(event.taskId) ? releasing : stops).add(event);
+                    break;
+                case RETRY:
+                    retries.add(event);
+                    break;
+                case START:
+                    starts.add(event);
+                    break;
+                case PREWARM:
+                    prewarms.add(event);
+                    break;
             }
+        }
 
-            TaskType type = TaskClassifier.classify(task);
-            ScheduleStrategy strategy = strategies.get(type);
+        for (List<AlarmTimerHeap.TimerEvent> phase : Arrays.asList(releasing, stops, retries, starts)) {
+            if (!phase.isEmpty()) {
+                dispatchTimerEvents(phase);
+                drainWaitingQueue();
+            }
+        }
+        if (!prewarms.isEmpty()) {
+            dispatchTimerEvents(prewarms);
+        }
+    }
 
-            if (strategy != null) {
-                strategy.handleStop(task, this);
+    /**
+     * 并行处理事件并等待全部完成
+     * 各事件发出的播放指令先收集起来，全部处理完成后合并发给播放服务
+     */
+    private void dispatchTimerEvents(List<AlarmTimerHeap.TimerEvent> events) {
+        PlaybackBatch commands = new PlaybackBatch();
+        List<CompletableFuture<Void>> pending = new ArrayList<>(events.size());
+        for (AlarmTimerHeap.TimerEvent event : events) {
+            AppLogger.getInstance().d(TAG, "Dispatching timer event " + event);
+            pending.add(mailboxes.post(event.taskId, () -> {
+                playbackBatch.set(commands);
+                try {
+                    handleTimerEventLocked(event);
+                } finally {
+                    playbackBatch.remove();
+                }
+                syncFireTimes(event.taskId);
+            }));
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                pending.get(i).join();
+            } catch (CompletionException e) {
+                AppLogger.getInstance().e(TAG, "Error handling timer event " + events.get(i), e.getCause());
             }
         }
+        commands.dispatch(playback);
+    }
+
+    private void handleTimerEventLocked(AlarmTimerHeap.TimerEvent event) {
+        switch (event.kind) {
+            case START:
+                handleStartAlarmLocked(event.taskId);
+                break;
+            case STOP:
+                handleStopAlarmLocked(event.taskId);
+                break;
+            case RETRY:
+                handleRetryAlarmLocked(event.taskId);
+                break;
+            case PREWARM:
+                handlePrewarmAlarmLocked(event);
+                break;
+        }
+    }
+
+    /**
+     * 处理预热事件：开始事件仍在原时间待触发时，提前准备播放
+     * 预热不占用播放槽位，开始时仍按正常流程申请；没能开始的预热由播放服务超时释放
+     */
+    private void handlePrewarmAlarmLocked(AlarmTimerHeap.TimerEvent event) {
+        long taskId = event.taskId;
+        long startTime = event.triggerTime + AlarmScheduler.PREWARM_LEAD_MS;
+        if (alarmScheduler.getPendingStartTime(taskId) != startTime) {
+            AppLogger.getInstance().d(TAG, "Start alarm of task " + taskId + " changed, skipping prewarm");
+            return;
+        }
+
+        TaskEntity task = taskCache.get(taskId);
+        if (task == null || !task.isEnabled()) {
+            return;
+        }
+
+        // 全天任务的午夜检查同样登记为开始事件，正在播放时不需要预热
+        if (playback.isPlaying(taskId)) {
+            return;
+        }
+
+        AppLogger.getInstance().d(TAG, "Prewarming task " + taskId + " for start at " + startTime);
+        playback.prewarm(taskId, startTime);
+    }
+
+    /**
+     * 清空所有已调度的闹钟事件
+     * 之后应调用 {@link #rescheduleAllTasks()} 重新生成；设备重启后优先使用 {@link #rescheduleAllTasksAfterBoot()}
+     */
+    public void clearAllAlarms() {
+        alarmScheduler.clearAllEvents();
+    }
+
+    /**
+     * 清空闹钟事件（包括数据库中的持久化行）后重新调度所有启用的任务
+     */
+    private void rebuildAllAlarms() {
+        AppLogger.getInstance().w(TAG, "Rebuilding all alarms after timer events failed to restore");
+        clearAllAlarms();
+        rescheduleAllTasks();
+    }
+
+    /**
+     * 设备重启后重新调度所有启用的任务
+     * 与持久化的闹钟事件对账：重新计算出的相同事件不会重复登记，没有被重新登记的事件才被取消
+     */
+    public void rescheduleAllTasksAfterBoot() {
+        alarmScheduler.beginReconcile();
+        try {
+            rescheduleAllTasks();
+        } finally {
+            alarmScheduler.endReconcile();
+        }
+    }
+
+    /**
+     * 设备重启后只重新调度受影响的任务（当前处于时间窗口内、触发时间已过或没有持久化的事件）
+     * 只对这些任务的持久化闹钟事件对账，其他任务的事件保持不变；开销只与受影响的任务数有关
+     */
+    public void rescheduleAffectedTasksAfterBoot() {
+        long loadStart = SystemClock.elapsedRealtime();
+        stateWriter.flush();
+        List<TaskEntity> affectedTasks = taskDao.getTasksNeedingRecovery(SchedulerClock.now());
+        List<Long> taskIds = new ArrayList<>(affectedTasks.size());
+        for (TaskEntity task : affectedTasks) {
+            taskIds.add(task.getId());
+        }
+        alarmScheduler.beginReconcile(taskIds);
+        try {
+            rescheduleTasks(affectedTasks, loadStart);
+        } finally {
+            alarmScheduler.endReconcile();
+        }
+    }
+
+    /**
+     * 只重新调度受影响的任务（当前处于时间窗口内、触发时间已过或没有持久化的事件）
+     * 进程启动时调用：其他任务的闹钟事件在后台从数据库恢复，不需要重新计算；
+     * 恢复完成前登记的事件以本次计算结果为准，不会被读取到的旧值覆盖
+     */
+    public void rescheduleAffectedTasks() {
+        long loadStart = SystemClock.elapsedRealtime();
+        stateWriter.flush();
+        rescheduleTasks(taskDao.getTasksNeedingRecovery(SchedulerClock.now()), loadStart);
+        alarmScheduler.ensureArmed();
     }
 
     /**
      * 重新调度所有启用的任务
      * 设备重启后或定期检查时调用
+     *
+     * 分阶段批量执行：先在内存中为每个任务做出调度决策，再在一个事务中提交所有状态写入，
+     * 然后一次性注册闹钟，最后发出播放指令（播放服务从数据库读取任务，必须在提交之后）
      */
     public void rescheduleAllTasks() {
-        AppLogger.getInstance().d(TAG, "Rescheduling all tasks");
-        
-        List<TaskEntity> enabledTasks = taskDao.getEnabledTasksSync();
-        AppLogger.getInstance().d(TAG, "Found " + enabledTasks.size() + " enabled tasks");
+        long loadStart = SystemClock.elapsedRealtime();
+        stateWriter.flush();
+        rescheduleTasks(taskDao.getEnabledTasksSync(), loadStart);
+    }
 
-        for (TaskEntity task : enabledTasks) {
-            // 为每个任务加锁，避免与其他操作冲突
-            synchronized (getTaskLock(task.getId())) {
-                try {
-                    TaskType type = TaskClassifier.classify(task);
-                    ScheduleStrategy strategy = strategies.get(type);
-
-                    if (strategy != null) {
-                        strategy.handleReboot(task, this);
-                    }
-                } catch (Exception e) {
-                    AppLogger.getInstance().e(TAG, "Error rescheduling task " + task.getId(), e);
+    /**
+     * 系统时间被调整后只重新调度受影响的任务
+     * 已登记的事件是按墙上时间计算的时间戳，时间调整后仍然对应原来的墙上时间：
+     * 向前调时越过的事件已经到期，由系统闹钟立即触发处理，不需要重新计算；
+     * 向后调时，当前窗口内的任务可能回到了窗口开始之前，需要停止播放并重新登记开始事件。
+     * 已经执行过的时段被调回后不会重复执行
+     *
+     * @param clockJumpMillis 墙上时钟的跳变量（正数为向前调），未知时为 {@link TimeChangeTracker#UNKNOWN_JUMP}
+     */
+    public void rescheduleAfterClockChange(long clockJumpMillis) {
+        if (clockJumpMillis != TimeChangeTracker.UNKNOWN_JUMP
+                && Math.abs(clockJumpMillis) < CLOCK_JUMP_TOLERANCE_MS) {
+            AppLogger.getInstance().d(TAG, "Clock adjusted by " + clockJumpMillis + "ms, nothing to reschedule");
+            return;
+        }
+        if (clockJumpMillis != TimeChangeTracker.UNKNOWN_JUMP && clockJumpMillis > 0) {
+            AppLogger.getInstance().i(TAG, "Clock moved forward by " + clockJumpMillis
+                    + "ms, passed events fire through the alarm");
+            alarmScheduler.ensureArmed();
+            return;
+        }
+        AppLogger.getInstance().i(TAG, "Clock moved back by "
+                + (clockJumpMillis == TimeChangeTracker.UNKNOWN_JUMP ? "unknown" : -clockJumpMillis + "ms")
+                + ", rescheduling tasks in window");
+        stateWriter.flush();
+        rescheduleAfterTimeChange(taskDao.getTasksInWindow());
+    }
+
+    /**
+     * 时区改变后只重新调度受影响的任务
+     * 任务按本地时间计算触发时间：只有下一次触发时间或当前窗口结束时间落在新旧时区偏移不同的范围内的任务
+     * 需要重新计算，其他任务已登记的事件仍然有效
+     */
+    public void rescheduleAfterTimeZoneChange(ZoneId oldZone, ZoneId newZone) {
+        long now = SchedulerClock.now();
+        List<long[]> ranges = TimeZoneShift.differingRanges(oldZone, newZone, now);
+        Map<Long, TaskEntity> affected = new LinkedHashMap<>();
+        stateWriter.flush();
+        for (long[] range : ranges) {
+            for (TaskEntity task : taskDao.getTasksWithFireTimesIn(range[0], range[1])) {
+                affected.put(task.getId(), task);
+            }
+        }
+        AppLogger.getInstance().i(TAG, "Time zone changed from " + oldZone + " to " + newZone + ", "
+                + ranges.size() + " shifted ranges, " + affected.size() + " tasks affected");
+        rescheduleAfterTimeChange(new ArrayList<>(affected.values()));
+    }
+
+    /**
+     * 重新计算时间变化影响的任务，只与这些任务已登记的事件对账，闹钟一次性重新注册
+     */
+    private void rescheduleAfterTimeChange(List<TaskEntity> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        long loadStart = SystemClock.elapsedRealtime();
+        List<Long> taskIds = new ArrayList<>(tasks.size());
+        for (TaskEntity task : tasks) {
+            taskIds.add(task.getId());
+            runForTask(task.getId(), () -> stopIfWindowLeft(task));
+        }
+        alarmScheduler.beginReconcile(taskIds);
+        try {
+            rescheduleTasks(tasks, loadStart);
+        } finally {
+            alarmScheduler.endReconcile();
+        }
+        drainWaitingQueue();
+    }
+
+    /**
+     * 墙上时间已经不在任务当前的执行窗口内时，停止播放并回到空闲状态
+     * 之后的重新调度沿用重启流程，而重启流程假定没有任务在播放，不会停止它们
+     */
+    private void stopIfWindowLeft(TaskEntity task) {
+        TaskExecutionState state = task.getExecutionStateEnum();
+        if (state != TaskExecutionState.EXECUTING && state != TaskExecutionState.PAUSED) {
+            return;
+        }
+        TimeCheckResult checkResult = TaskTimeCalculator.shouldBeActiveNow(task);
+        if (checkResult.isActive()) {
+            return;
+        }
+        AppLogger.getInstance().d(TAG, "Task " + task.getId() + " left its window after time change, reason="
+                + checkResult.getReason() + ", stopping");
+        stopPlayback(task);
+        updateTaskState(task, TaskExecutionState.IDLE);
+    }
+
+    /**
+     * @param loadStart 开始加载任务的时间（{@link SystemClock#elapsedRealtime()}），用于统计耗时
+     */
+    private void rescheduleTasks(List<TaskEntity> tasks, long loadStart) {
+        AppLogger.getInstance().d(TAG, "Rescheduling " + tasks.size() + " tasks");
+
+        // 升级后清理旧版按任务注册的系统闹钟（只执行一次）
+        List<Long> taskIds = new ArrayList<>(tasks.size());
+        for (TaskEntity task : tasks) {
+            taskIds.add(task.getId());
+        }
+        alarmScheduler.clearLegacyAlarmsOnce(taskIds);
+
+        long decideStart = SystemClock.elapsedRealtime();
+        PlaybackBatch commands = new PlaybackBatch();
+        long submittedBefore = stateWriter.getSubmittedCount();
+        long writeStart;
+        long alarmStart;
+        // 策略的状态决策先在内存中完成，状态写入在一个事务中提交，播放指令在提交后发出
+        alarmScheduler.beginBatch();
+        stateWriter.beginBatch();
+        try {
+            playbackBatch.set(commands);
+            try {
+                for (TaskEntity task : tasks) {
+                    // 在任务邮箱中执行（同步、在当前线程），避免与该任务的其他操作交错
+                    runForTask(task.getId(), () -> {
+                        try {
+                            TaskType type = TaskClassifier.classify(task);
+                            ScheduleStrategy strategy = strategies.get(type);
+
+                            if (strategy != null) {
+                                strategy.handleReboot(task, this);
+                            }
+                        } catch (Exception e) {
+                            AppLogger.getInstance().e(TAG, "Error rescheduling task " + task.getId(), e);
+                        }
+                    });
                 }
+            } finally {
+                playbackBatch.remove();
+                writeStart = SystemClock.elapsedRealtime();
+                // 播放服务从数据库读取任务，状态写入必须在发出播放指令之前提交
+                stateWriter.endBatch();
             }
+            alarmStart = SystemClock.elapsedRealtime();
+        } finally {
+            alarmScheduler.endBatch();
+        }
+
+        long dispatchStart = SystemClock.elapsedRealtime();
+        int commandCount = commands.size();
+        commands.dispatch(playback);
+        long end = SystemClock.elapsedRealtime();
+
+        AppLogger.getInstance().i(TAG, "Rescheduled " + tasks.size() + " tasks in " + (end - loadStart)
+                + "ms: load=" + (decideStart - loadStart)
+                + "ms, decide=" + (writeStart - decideStart)
+                + "ms, write=" + (alarmStart - writeStart) + "ms (" + (stateWriter.getSubmittedCount() - submittedBefore) + " updates)"
+                + ", alarms=" + (dispatchStart - alarmStart)
+                + "ms, playback=" + (end - dispatchStart) + "ms (" + commandCount + " commands)"
+                + "; alarm calls: " + alarmScheduler.getStatsSummary()
+                + "; task cache: " + taskCache.getStatsSummary()
+                + "; state writes: " + stateWriter.getStatsSummary());
+
+        drainWaitingQueue();
+    }
+
+    /**
+     * 发出播放指令；批量重调度期间推迟到状态写入提交之后，处理一批到期事件时推迟到整批处理完成后合并发出
+     */
+    private void dispatchOrDefer(long taskId, boolean start) {
+        PlaybackBatch batch = playbackBatch.get();
+        if (batch != null) {
+            batch.add(taskId, start);
+        } else if (start) {
+            playback.start(taskId);
+        } else {
+            playback.stop(taskId);
         }
     }
 
@@ -234,10 +735,17 @@ public class TaskScheduleManager {
     public void cancelTask(TaskEntity task) {
         if (task == null) return;
         
+        cancelTaskInternal(task);
+        syncFireTimes(task.getId());
+        drainWaitingQueue();
+    }
+
+    private void cancelTaskInternal(TaskEntity task) {
         AppLogger.getInstance().d(TAG, "Cancelling task " + task.getId());
         // cancelAlarms 已经包含了取消重试闹钟
         alarmScheduler.cancelAlarms(task.getId());
         stopPlayback(task);
+        releaseSlotAndLeaveQueue(task.getId());
     }
 
     /**
@@ -250,7 +758,45 @@ public class TaskScheduleManager {
         AppLogger.getInstance().d(TAG, "Cancelling task " + taskId);
         // cancelAlarms 已经包含了取消重试闹钟
         alarmScheduler.cancelAlarms(taskId);
-        AudioPlaybackService.stopTaskPlayback(context, taskId);
+        playback.stop(taskId);
+        releaseSlotAndLeaveQueue(taskId);
+        syncFireTimes(taskId);
+        drainWaitingQueue();
+    }
+
+    /**
+     * 在任务邮箱中同步执行命令，结束后把任务的触发时间写回任务表
+     */
+    private <T> T callForTask(long taskId, Supplier<T> command) {
+        return mailboxes.call(taskId, () -> {
+            T result = command.get();
+            syncFireTimes(taskId);
+            return result;
+        });
+    }
+
+    private void runForTask(long taskId, Runnable command) {
+        callForTask(taskId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * 根据定时堆中的事件更新任务的 next_fire_at / current_window_end，未变化时不写入
+     * 在任务的命令结束时调用，与命令中的状态写入合并为同一条更新
+     */
+    private void syncFireTimes(long taskId) {
+        long nextFireAt = alarmScheduler.getNextFireTime(taskId);
+        long windowEnd = alarmScheduler.getCurrentWindowEnd(taskId);
+        TaskEntity task = taskCache.get(taskId);
+        if (task == null || (task.getNextFireAt() == nextFireAt && task.getCurrentWindowEnd() == windowEnd)) {
+            return;
+        }
+        task.setNextFireAt(nextFireAt);
+        task.setCurrentWindowEnd(windowEnd);
+        stateWriter.updateFireTimes(taskId, nextFireAt, windowEnd);
+        taskCache.put(task);
     }
 
     // ==================== 辅助方法（供策略调用） ====================
@@ -258,26 +804,43 @@ public class TaskScheduleManager {
     /**
      * 启动任务播放
      */
+    @Override
     public void startPlayback(TaskEntity task) {
         AppLogger.getInstance().d(TAG, "Starting playback for task " + task.getId());
-        AudioPlaybackService.startTaskPlayback(context, task.getId());
+        long taskId = task.getId();
+        dispatchOrDefer(taskId, true);
     }
 
     /**
      * 停止任务播放
      */
+    @Override
     public void stopPlayback(TaskEntity task) {
         AppLogger.getInstance().d(TAG, "Stopping playback for task " + task.getId());
-        AudioPlaybackService.stopTaskPlayback(context, task.getId());
+        long taskId = task.getId();
+        dispatchOrDefer(taskId, false);
+    }
+
+    /**
+     * 检查任务是否正在播放
+     */
+    @Override
+    public boolean isTaskPlaying(long taskId) {
+        return playback.isPlaying(taskId);
     }
 
     /**
      * 更新任务执行状态
      */
+    @Override
     public void updateTaskState(TaskEntity task, TaskExecutionState state) {
         AppLogger.getInstance().d(TAG, "Updating task " + task.getId() + " state to " + state);
         task.setExecutionStateEnum(state);
-        taskDao.updateExecutionState(task.getId(), state.getValue(), System.currentTimeMillis());
+        long taskId = task.getId();
+        long updatedAt = SchedulerClock.now();
+        stateWriter.updateState(taskId, state.getValue(), updatedAt);
+        taskCache.put(task);
+        onExecutionStateChanged(task.getId(), state, task.getPriority());
     }
 
     /**
@@ -290,19 +853,31 @@ public class TaskScheduleManager {
         task.setExecutionStateEnum(state);
         task.setCurrentExecutionStart(executionStart);
         task.setCurrentExecutionEnd(executionEnd);
-        taskDao.updateExecutionInfo(task.getId(), state.getValue(), 
-                executionStart, executionEnd, System.currentTimeMillis());
+        long taskId = task.getId();
+        long updatedAt = SchedulerClock.now();
+        stateWriter.updateExecutionInfo(taskId, state.getValue(), executionStart, executionEnd, updatedAt);
+        taskCache.put(task);
+        onExecutionStateChanged(task.getId(), state, task.getPriority());
     }
 
     /**
      * 禁用任务
      */
+    @Override
     public void disableTask(TaskEntity task) {
         AppLogger.getInstance().d(TAG, "Disabling task " + task.getId());
         task.setEnabled(false);
         task.setExecutionStateEnum(TaskExecutionState.DISABLED);
-        // 使用新接口同时更新 enabled 和 execution_state，保持数据一致性
-        taskDao.disableTaskWithState(task.getId(), System.currentTimeMillis());
+        // 同时更新 enabled 和 execution_state，保持数据一致性
+        long taskId = task.getId();
+        long updatedAt = SchedulerClock.now();
+        stateWriter.disable(taskId, updatedAt);
+        // 立即写入：延迟期间用户可能重新启用任务，不能被之后的写入覆盖
+        stateWriter.flush();
+        // 数据库同时清零了执行时间，内存实体未同步，不能直接写入缓存
+        taskCache.evict(taskId);
+        OversubscriptionAnalyzer.getInstance().onTaskSaved(task);
+        releaseSlotAndLeaveQueue(task.getId());
         alarmScheduler.cancelAlarms(task.getId());
     }
 
@@ -312,12 +887,17 @@ public class TaskScheduleManager {
     public void resetTaskState(TaskEntity task) {
         AppLogger.getInstance().d(TAG, "Resetting task " + task.getId() + " state");
         task.resetExecutionState();
-        taskDao.resetExecutionState(task.getId(), System.currentTimeMillis());
+        long taskId = task.getId();
+        long updatedAt = SchedulerClock.now();
+        stateWriter.resetExecutionState(taskId, updatedAt);
+        taskCache.put(task);
+        releaseSlotAndLeaveQueue(task.getId());
     }
 
     /**
      * 设置开始闹钟
      */
+    @Override
     public void setStartAlarm(long taskId, long triggerTime) {
         alarmScheduler.setStartAlarm(taskId, triggerTime);
     }
@@ -325,6 +905,7 @@ public class TaskScheduleManager {
     /**
      * 设置结束闹钟
      */
+    @Override
     public void setEndAlarm(long taskId, long triggerTime) {
         alarmScheduler.setEndAlarm(taskId, triggerTime);
     }
@@ -332,6 +913,7 @@ public class TaskScheduleManager {
     /**
      * 取消开始闹钟
      */
+    @Override
     public void cancelStartAlarm(long taskId) {
         alarmScheduler.cancelStartAlarm(taskId);
     }
@@ -354,22 +936,30 @@ public class TaskScheduleManager {
      * 保存任务到数据库
      */
     public void saveTask(TaskEntity task) {
+        // 整行写入，之前合并的更新必须先写入，否则会在之后覆盖这次写入
+        stateWriter.flush();
         taskDao.update(task);
+        taskCache.put(task);
     }
 
     /**
      * 只更新执行结束时间（避免覆盖用户可能修改的其他字段）
      */
+    @Override
     public void updateExecutionEndTime(TaskEntity task, long executionEnd) {
         AppLogger.getInstance().d(TAG, "Updating task " + task.getId() + " execution end time to " + executionEnd);
         task.setCurrentExecutionEnd(executionEnd);
-        taskDao.updateExecutionEndTime(task.getId(), executionEnd, System.currentTimeMillis());
+        long taskId = task.getId();
+        long updatedAt = SchedulerClock.now();
+        stateWriter.updateExecutionEnd(taskId, executionEnd, updatedAt);
+        taskCache.put(task);
     }
 
     /**
      * 获取任务
      */
     public TaskEntity getTask(long taskId) {
+        stateWriter.flush();
         return taskDao.getTaskByIdSync(taskId);
     }
 
@@ -377,6 +967,7 @@ public class TaskScheduleManager {
      * 获取所有正在执行的任务
      */
     public List<TaskEntity> getActiveTasks() {
+        stateWriter.flush();
         return taskDao.getActiveTasks();
     }
 
@@ -389,108 +980,296 @@ public class TaskScheduleManager {
         return concurrencyManager;
     }
 
+    /**
+     * 预测未来 7 天的并发情况（需在后台线程调用）
+     * 使用当前的并发上限和准入策略
+     */
+    public ConcurrencyForecast forecastConcurrency() {
+        stateWriter.flush();
+        return ConcurrencyForecast.compute(taskDao.getEnabledTasksSync(),
+                concurrencyManager.getMaxConcurrentPlayback(),
+                concurrencyManager.getAdmissionPolicy(),
+                SchedulerClock.now());
+    }
+
+    /**
+     * 运行时调整并发上限并保存到设置
+     * 调高后立即把新增的槽位交给等待中的任务
+     */
+    public void setMaxConcurrentPlayback(int max) {
+        if (appSettings != null) {
+            appSettings.setMaxConcurrentPlayback(max);
+        }
+        concurrencyManager.setMaxConcurrentPlayback(max);
+        drainWaitingQueue();
+    }
+
+    /**
+     * 运行时开关优先级抢占并保存到设置
+     */
+    public void setPriorityPreemptionEnabled(boolean enabled) {
+        if (appSettings != null) {
+            appSettings.setPriorityPreemptionEnabled(enabled);
+        }
+        concurrencyManager.setAdmissionPolicy(createAdmissionPolicy(enabled));
+    }
+
     /**
      * 检查并发并尝试启动播放
-     * 如果并发达上限，则设置状态为 WAITING_SLOT 并设置重试闹钟
+     * 如果并发达上限且准入策略不允许抢占，则设置状态为 WAITING_SLOT 并加入等待队列，
+     * 有槽位释放时立即启动；同时设置重试闹钟，仅作为进程被杀后内存队列丢失时的兜底。
+     * 抢占成功时被抢占任务的暂停和入队推迟到当前任务的命令结束之后（见 drainWaitingQueue）
      * 
-     * 注意：此方法应该在 synchronized(getTaskLock(taskId)) 块中调用，以确保线程安全
+     * 注意：此方法应该在该任务的邮箱中调用（见 {@link TaskMailboxes}），以确保线程安全
      * 
      * @param task 任务实体
      * @param executionStart 执行开始时间戳
      * @param executionEnd 执行结束时间戳
      * @return true 如果成功启动播放，false 如果因并发限制进入等待
      */
+    @Override
     public boolean tryStartPlaybackWithConcurrencyCheck(TaskEntity task, 
             long executionStart, long executionEnd) {
         
-        // 使用同步块确保并发检查和状态更新的原子性
-        // 注意：这里使用类锁而非任务锁，因为需要跨任务保证并发数不超限
-        synchronized (ConcurrencyManager.class) {
-            // 检查并发数
-            if (!concurrencyManager.canStartPlayback()) {
-                int currentCount = concurrencyManager.getCurrentPlaybackCount();
-                AppLogger.getInstance().w(TAG, "Concurrent playback limit reached (" + currentCount + "/" +
-                        ConcurrencyManager.MAX_CONCURRENT_PLAYBACK + "), task " + 
-                        task.getId() + " waiting for slot");
-                
-                // 更新状态为等待空位
-                updateTaskExecutionInfo(task, TaskExecutionState.WAITING_SLOT, 
-                        executionStart, executionEnd);
-                
-                // 设置重试闹钟（5分钟后）
-                alarmScheduler.setRetryAlarm(task.getId());
-                
-                return false;
-            }
+        // 内存槽位的获取是原子的（CAS），不再需要跨任务的全局锁和数据库计数查询
+        ConcurrencyManager.Admission admission = concurrencyManager.admit(task.getId(), task.getPriority());
+        if (!admission.granted) {
+            int currentCount = concurrencyManager.getCurrentPlaybackCount();
+            AppLogger.getInstance().w(TAG, "Concurrent playback limit reached (" + currentCount + "/" +
+                    concurrencyManager.getMaxConcurrentPlayback() + "), task " + 
+                    task.getId() + " waiting for slot");
             
-            // 可以启动：先更新状态为 EXECUTING（这会增加数据库中的 EXECUTING 计数），再启动播放
-            AppLogger.getInstance().d(TAG, "Concurrent check passed, starting playback for task " + task.getId());
+            // 更新状态为等待空位并排队
+            updateTaskExecutionInfo(task, TaskExecutionState.WAITING_SLOT, 
+                    executionStart, executionEnd);
+            ensureWaitQueueSeeded();
+            slotWaitQueue.offer(task.getId(), task.getPriority());
+            AppLogger.getInstance().d(TAG, "Task " + task.getId() + " queued for slot, queue size=" + slotWaitQueue.size());
+            
+            // 兜底重试闹钟（5分钟后），进程存活时由槽位交接启动
+            alarmScheduler.setRetryAlarm(task.getId());
+            
+            return false;
+        }
+        
+        // 已持有槽位：更新状态为 EXECUTING，再启动播放
+        AppLogger.getInstance().d(TAG, "Concurrent check passed, starting playback for task " + task.getId());
+        try {
             updateTaskExecutionInfo(task, TaskExecutionState.EXECUTING, 
                     executionStart, executionEnd);
+        } catch (RuntimeException e) {
+            // 状态写入失败时归还槽位，避免槽位泄漏
+            concurrencyManager.release(task.getId());
+            throw e;
         }
         
-        // 状态已更新，可以在锁外启动播放
+        if (admission.hasPreempted()) {
+            pendingPreemptions.add(admission.preemptedTaskId);
+        }
         startPlayback(task);
         return true;
     }
 
     /**
      * 处理重试启动闹钟
+     * 进程存活时等待任务由槽位交接启动，此闹钟只作为进程被杀后的兜底
      * 
      * @param taskId 任务ID
      */
     public void handleRetryAlarm(long taskId) {
         AppLogger.getInstance().d(TAG, "Handling retry alarm for task " + taskId);
         
-        synchronized (getTaskLock(taskId)) {
-            TaskEntity task = taskDao.getTaskByIdSync(taskId);
-            if (task == null) {
-                AppLogger.getInstance().w(TAG, "Task " + taskId + " not found for retry");
-                return;
-            }
+        runForTask(taskId, () -> handleRetryAlarmLocked(taskId));
+        drainWaitingQueue();
+    }
+
+    private void handleRetryAlarmLocked(long taskId) {
+        TaskEntity task = taskCache.get(taskId);
+        if (task == null) {
+            AppLogger.getInstance().w(TAG, "Task " + taskId + " not found for retry");
+            return;
+        }
+
+        if (!task.isEnabled()) {
+            AppLogger.getInstance().d(TAG, "Task " + taskId + " is disabled, ignoring retry alarm");
+            return;
+        }
+
+        TaskExecutionState currentState = task.getExecutionStateEnum();
+        
+        // 只有 WAITING_SLOT 状态才处理重试
+        if (currentState != TaskExecutionState.WAITING_SLOT) {
+            AppLogger.getInstance().d(TAG, "Task " + taskId + " state is " + currentState + ", skip retry");
+            return;
+        }
+        
+        // 检查是否已超过结束时间
+        long now = SchedulerClock.now();
+        if (task.getCurrentExecutionEnd() > 0 && now >= task.getCurrentExecutionEnd()) {
+            AppLogger.getInstance().d(TAG, "Task " + taskId + " execution window expired, marking as SKIPPED");
+            handleSkipDueToConcurrency(task);
+            return;
+        }
+        
+        // 尝试启动
+        TaskType type = TaskClassifier.classify(task);
+        ScheduleStrategy strategy = strategies.get(type);
+        if (strategy != null) {
+            strategy.handleRetryStart(task, this);
+        }
+    }
+
+    // ==================== 槽位交接 ====================
+
+    /**
+     * 获取等待槽位的任务ID（按排队顺序）
+     */
+    public List<Long> getWaitingTaskIds() {
+        ensureWaitQueueSeeded();
+        return slotWaitQueue.snapshot();
+    }
 
-            if (!task.isEnabled()) {
-                AppLogger.getInstance().d(TAG, "Task " + taskId + " is disabled, ignoring retry alarm");
+    /**
+     * 将空闲的播放槽位依次交给等待最久的任务
+     * 必须在任务邮箱之外调用，避免跨任务同步等待导致死锁
+     */
+    private void drainWaitingQueue() {
+        ensureWaitQueueSeeded();
+        processPendingPreemptions();
+        while (concurrencyManager.getAvailableSlots() > 0) {
+            Long taskId = slotWaitQueue.poll();
+            if (taskId == null) {
                 return;
             }
 
-            TaskExecutionState currentState = task.getExecutionStateEnum();
-            
-            // 只有 WAITING_SLOT 状态才处理重试
-            if (currentState != TaskExecutionState.WAITING_SLOT) {
-                AppLogger.getInstance().d(TAG, "Task " + taskId + " state is " + currentState + ", skip retry");
+            if (!callForTask(taskId, () -> handOffSlotLocked(taskId))) {
                 return;
             }
-            
-            // 检查是否已超过结束时间
-            long now = System.currentTimeMillis();
-            if (task.getCurrentExecutionEnd() > 0 && now >= task.getCurrentExecutionEnd()) {
-                AppLogger.getInstance().d(TAG, "Task " + taskId + " execution window expired, marking as SKIPPED");
-                handleSkipDueToConcurrency(task);
+        }
+    }
+
+    /**
+     * 把空闲槽位交给等待中的任务
+     * @return false 表示槽位已被其他任务抢先占用，应停止交接
+     */
+    private boolean handOffSlotLocked(long taskId) {
+        TaskEntity task = taskCache.get(taskId);
+        if (task == null || !task.isEnabled()
+                || task.getExecutionStateEnum() != TaskExecutionState.WAITING_SLOT) {
+            AppLogger.getInstance().d(TAG, "Task " + taskId + " no longer waiting for slot, dropped from queue");
+            return true;
+        }
+
+        ScheduleStrategy strategy = strategies.get(TaskClassifier.classify(task));
+        if (strategy == null) {
+            return true;
+        }
+
+        AppLogger.getInstance().d(TAG, "Handing free slot to waiting task " + taskId);
+        strategy.handleRetryStart(task, this);
+
+        TaskExecutionState newState = task.getExecutionStateEnum();
+        if (newState == TaskExecutionState.WAITING_SLOT) {
+            // 槽位已被其他任务抢先占用，放回队首保持排队顺序
+            slotWaitQueue.offerFirst(taskId, task.getPriority());
+            return false;
+        }
+        if (newState == TaskExecutionState.EXECUTING) {
+            alarmScheduler.cancelRetryAlarm(taskId);
+        }
+        return true;
+    }
+
+    /**
+     * 将被抢占的任务暂停播放并移入等待队列
+     * 被抢占任务的槽位已转交给抢占者，这里只更新其状态；放回同优先级队首，不丢失排队位置
+     */
+    private void processPendingPreemptions() {
+        Long taskId;
+        while ((taskId = pendingPreemptions.poll()) != null) {
+            long preemptedId = taskId;
+            runForTask(preemptedId, () -> applyPreemptionLocked(preemptedId));
+        }
+    }
+
+    private void applyPreemptionLocked(long taskId) {
+        TaskEntity task = taskCache.get(taskId);
+        if (task == null || task.getExecutionStateEnum() != TaskExecutionState.EXECUTING
+                || concurrencyManager.isHoldingSlot(taskId)) {
+            // 抢占后任务已结束或已重新获得槽位
+            return;
+        }
+
+        AppLogger.getInstance().d(TAG, "Task " + taskId + " preempted, moving to WAITING_SLOT");
+        updateTaskState(task, TaskExecutionState.WAITING_SLOT);
+        preemptedTaskIds.add(taskId);
+        playback.preempt(taskId);
+        slotWaitQueue.offerFirst(taskId, task.getPriority());
+        alarmScheduler.setRetryAlarm(taskId);
+    }
+
+    /**
+     * 首次使用时从数据库恢复等待队列（按进入等待的时间排序）
+     * 需在后台线程调用
+     */
+    private void ensureWaitQueueSeeded() {
+        if (waitQueueSeeded) {
+            return;
+        }
+        synchronized (slotWaitQueue) {
+            if (waitQueueSeeded) {
                 return;
             }
-            
-            // 尝试启动
-            TaskType type = TaskClassifier.classify(task);
-            ScheduleStrategy strategy = strategies.get(type);
-            if (strategy != null) {
-                strategy.handleRetryStart(task, this);
+            stateWriter.flush();
+            List<TaskEntity> waitingTasks = taskDao.getWaitingSlotTasks();
+            for (TaskEntity task : waitingTasks) {
+                slotWaitQueue.offer(task.getId(), task.getPriority());
             }
+            waitQueueSeeded = true;
+            AppLogger.getInstance().d(TAG, "Seeded slot wait queue with " + waitingTasks.size() + " tasks");
+        }
+    }
+
+    /**
+     * 执行状态变化时同步槽位和等待队列
+     */
+    private void onExecutionStateChanged(long taskId, TaskExecutionState state, int priority) {
+        concurrencyManager.onStateChanged(taskId, state, priority);
+        if (state != TaskExecutionState.WAITING_SLOT) {
+            preemptedTaskIds.remove(taskId);
+        }
+        if (state != TaskExecutionState.WAITING_SLOT && slotWaitQueue.remove(taskId)) {
+            alarmScheduler.cancelRetryAlarm(taskId);
         }
     }
 
+    /**
+     * 归还槽位并移出等待队列（任务被取消、禁用或重置时）
+     */
+    private void releaseSlotAndLeaveQueue(long taskId) {
+        concurrencyManager.release(taskId);
+        slotWaitQueue.remove(taskId);
+        preemptedTaskIds.remove(taskId);
+    }
+
     /**
      * 处理因并发限制跳过的任务
      * 
      * 注意：SKIPPED 状态会保留，直到下次任务触发时才会更新
      * 这样用户可以在 UI 上看到"已跳过"状态
      */
+    @Override
     public void handleSkipDueToConcurrency(TaskEntity task) {
         AppLogger.getInstance().d(TAG, "Task " + task.getId() + " skipped due to concurrency limit timeout");
         
         // 取消重试闹钟
         alarmScheduler.cancelRetryAlarm(task.getId());
         
+        // 被抢占的任务播放器仍处于暂停状态，需要停止
+        if (preemptedTaskIds.remove(task.getId())) {
+            stopPlayback(task);
+        }
+        
         // 更新状态为 SKIPPED（保留此状态供 UI 显示）
         updateTaskState(task, TaskExecutionState.SKIPPED);
         
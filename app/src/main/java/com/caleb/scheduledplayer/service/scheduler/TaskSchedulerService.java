@@ -61,12 +61,12 @@ public class TaskSchedulerService {
     }
     
     /**
-     * 在后台线程执行任务（供 AlarmReceiver 使用）
+     * 在后台线程执行任务
+     * @deprecated 闹钟处理已改用 {@link SchedulerDispatcher}，维护任务请提交到其维护通道
      */
+    @Deprecated
     public void executeAsync(Runnable task) {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.execute(task);
-        }
+        SchedulerDispatcher.getInstance().submit(SchedulerDispatcher.Lane.MAINTENANCE, task);
     }
 
     /**
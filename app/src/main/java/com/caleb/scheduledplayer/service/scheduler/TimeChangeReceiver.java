@@ -0,0 +1,75 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import com.caleb.scheduledplayer.util.AppLogger;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+
+/**
+ * 系统时间/时区改变广播接收器
+ * 根据记录的墙上时钟基准和时区算出变化量，只重新调度受影响的任务
+ */
+public class TimeChangeReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "TimeChangeReceiver";
+
+    /**
+     * 时区改变广播中新时区 ID 的 extra（Intent.EXTRA_TIMEZONE 在 API 30 才公开）
+     */
+    private static final String EXTRA_TIME_ZONE = "time-zone";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (intent == null || intent.getAction() == null) {
+            return;
+        }
+
+        String action = intent.getAction();
+        boolean timeSet = Intent.ACTION_TIME_CHANGED.equals(action);
+        boolean zoneChanged = Intent.ACTION_TIMEZONE_CHANGED.equals(action);
+        if (!timeSet && !zoneChanged) {
+            return;
+        }
+        AppLogger.d(TAG, "Received " + action);
+
+        final PendingResult pendingResult = goAsync();
+        final Context appContext = context.getApplicationContext();
+        final ZoneId newZone = zoneChanged ? resolveZone(intent.getStringExtra(EXTRA_TIME_ZONE)) : null;
+
+        // 在调度分发器的维护通道执行数据库操作，避免ANR；排在已到达的闹钟处理之后
+        SchedulerDispatcher.getInstance().submit(SchedulerDispatcher.Lane.MAINTENANCE, () -> {
+            try {
+                TaskScheduleManager manager = TaskScheduleManager.getInstance(appContext);
+                TimeChangeTracker tracker = new TimeChangeTracker(appContext);
+                if (timeSet) {
+                    manager.rescheduleAfterClockChange(tracker.consumeClockJump());
+                } else {
+                    ZoneId oldZone = tracker.consumeZoneChange(newZone);
+                    if (oldZone != null) {
+                        manager.rescheduleAfterTimeZoneChange(oldZone, newZone);
+                    } else {
+                        AppLogger.d(TAG, "Time zone unchanged or previous zone unknown: " + newZone);
+                    }
+                }
+            } catch (Exception e) {
+                AppLogger.e(TAG, "Error rescheduling tasks after " + action, e);
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
+
+    private static ZoneId resolveZone(String zoneId) {
+        if (zoneId != null) {
+            try {
+                return ZoneId.of(zoneId);
+            } catch (DateTimeException e) {
+                AppLogger.w(TAG, "Unknown time zone " + zoneId + ", using system default");
+            }
+        }
+        return ZoneId.systemDefault();
+    }
+}
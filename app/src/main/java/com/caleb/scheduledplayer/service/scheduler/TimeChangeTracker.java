@@ -0,0 +1,101 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.provider.Settings;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+
+/**
+ * 记录墙上时钟基准和时区，用于在系统时间/时区改变后算出变化量
+ * 墙上时钟基准 = currentTimeMillis - elapsedRealtime，只有时间被调整时才会跳变；
+ * 设备重启后 elapsedRealtime 重新计数，之前的基准失效（按开机次数判断）
+ */
+public class TimeChangeTracker {
+
+    /**
+     * 跳变量未知（没有有效的基准）
+     */
+    public static final long UNKNOWN_JUMP = Long.MIN_VALUE;
+
+    private static final String PREFS_NAME = "time_change_tracker";
+    private static final String KEY_WALL_BASE = "wall_base";
+    private static final String KEY_BOOT_COUNT = "boot_count";
+    private static final String KEY_ZONE_ID = "zone_id";
+
+    private final Context context;
+    private final SharedPreferences prefs;
+
+    public TimeChangeTracker(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * 没有有效的基准时记录当前基准和时区
+     * 进程启动时调用；已有的基准不覆盖，否则由时间变化广播拉起进程时会丢失变化量
+     */
+    public synchronized void recordIfMissing() {
+        if (!hasValidBase()) {
+            recordWallBase();
+        }
+        if (!prefs.contains(KEY_ZONE_ID)) {
+            prefs.edit().putString(KEY_ZONE_ID, ZoneId.systemDefault().getId()).apply();
+        }
+    }
+
+    /**
+     * 取出墙上时钟相对上次记录的跳变量并记录新的基准
+     *
+     * @return 跳变量（毫秒，正数为向前调），没有有效的基准时返回 {@link #UNKNOWN_JUMP}
+     */
+    public synchronized long consumeClockJump() {
+        long jump = hasValidBase()
+                ? currentWallBase() - prefs.getLong(KEY_WALL_BASE, 0)
+                : UNKNOWN_JUMP;
+        recordWallBase();
+        return jump;
+    }
+
+    /**
+     * 取出上次记录的时区并记录新的时区
+     *
+     * @param newZone 新时区
+     * @return 上次记录的时区，与新时区相同或没有记录时返回 null
+     */
+    public synchronized ZoneId consumeZoneChange(ZoneId newZone) {
+        String oldId = prefs.getString(KEY_ZONE_ID, null);
+        prefs.edit().putString(KEY_ZONE_ID, newZone.getId()).apply();
+        if (oldId == null || oldId.equals(newZone.getId())) {
+            return null;
+        }
+        try {
+            return ZoneId.of(oldId);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private boolean hasValidBase() {
+        int bootCount = getBootCount();
+        return prefs.contains(KEY_WALL_BASE) && bootCount >= 0
+                && prefs.getInt(KEY_BOOT_COUNT, -1) == bootCount;
+    }
+
+    private void recordWallBase() {
+        prefs.edit()
+                .putLong(KEY_WALL_BASE, currentWallBase())
+                .putInt(KEY_BOOT_COUNT, getBootCount())
+                .apply();
+    }
+
+    private int getBootCount() {
+        return Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, -1);
+    }
+
+    private static long currentWallBase() {
+        return System.currentTimeMillis() - SystemClock.elapsedRealtime();
+    }
+}
@@ -0,0 +1,210 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 周内时段区间树
+ * 保存半开区间 [start, end)（周内分钟序号），按 (start, end, taskId) 排序的 treap，
+ * 每个节点额外记录子树内的最大 end，用于剪枝重叠查询
+ *
+ * - 插入/删除：期望 O(log n)
+ * - 重叠查询：O(log n + k)，k 为与查询区间重叠的区间数
+ *
+ * 线程安全：所有公开方法都是同步的
+ */
+public class WeeklyIntervalTree {
+
+    /**
+     * 区间（不可变）
+     */
+    public static final class Interval {
+        public final int start;
+        public final int end;
+        public final long taskId;
+
+        public Interval(int start, int end, long taskId) {
+            this.start = start;
+            this.end = end;
+            this.taskId = taskId;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + end + ")@" + taskId;
+        }
+    }
+
+    private static final class Node {
+        final Interval interval;
+        final int priority;
+        int maxEnd;
+        Node left;
+        Node right;
+
+        Node(Interval interval, int priority) {
+            this.interval = interval;
+            this.priority = priority;
+            this.maxEnd = interval.end;
+        }
+    }
+
+    /**
+     * 固定种子，保证相同的插入序列得到相同的树形
+     */
+    private final Random random = new Random(0x5EED);
+
+    private Node root;
+    private int size;
+
+    /**
+     * 插入区间，空区间被忽略
+     */
+    public synchronized void insert(Interval interval) {
+        if (interval.start >= interval.end) {
+            return;
+        }
+        root = insert(root, new Node(interval, random.nextInt()));
+        size++;
+    }
+
+    /**
+     * 删除区间（按 start、end、taskId 匹配）
+     * @return 是否找到并删除
+     */
+    public synchronized boolean remove(Interval interval) {
+        int before = size;
+        root = remove(root, interval);
+        return size < before;
+    }
+
+    /**
+     * 收集与 [start, end) 重叠的所有区间
+     * @param out 结果追加到该列表
+     */
+    public synchronized void collectOverlapping(int start, int end, List<Interval> out) {
+        if (start < end) {
+            collect(root, start, end, out);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        root = null;
+        size = 0;
+    }
+
+    private Node insert(Node node, Node created) {
+        if (node == null) {
+            return created;
+        }
+        if (compare(created.interval, node.interval) < 0) {
+            node.left = insert(node.left, created);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, created);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node remove(Node node, Interval interval) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(interval, node.interval);
+        if (cmp < 0) {
+            node.left = remove(node.left, interval);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, interval);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * 合并两棵子树（left 的所有键都小于 right）
+     */
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private void collect(Node node, int start, int end, List<Interval> out) {
+        // 子树内所有区间都在查询起点之前结束
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, out);
+        // 当前节点及右子树的 start 都不小于当前 start，超出查询终点后不再向右
+        if (node.interval.start >= end) {
+            return;
+        }
+        if (node.interval.end > start) {
+            out.add(node.interval);
+        }
+        collect(node.right, start, end, out);
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        int maxEnd = node.interval.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int compare(Interval a, Interval b) {
+        if (a.start != b.start) {
+            return Integer.compare(a.start, b.start);
+        }
+        if (a.end != b.end) {
+            return Integer.compare(a.end, b.end);
+        }
+        return Long.compare(a.taskId, b.taskId);
+    }
+}
@@ -17,6 +17,7 @@ import com.caleb.scheduledplayer.service.player.AudioPlaybackService;
 import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
 import com.caleb.scheduledplayer.service.scheduler.TaskTimeCalculator;
 import com.caleb.scheduledplayer.service.scheduler.TaskType;
+import com.caleb.scheduledplayer.service.scheduler.OversubscriptionAnalyzer;
 import com.caleb.scheduledplayer.service.scheduler.TaskClassifier;
 import com.caleb.scheduledplayer.service.scheduler.TaskExecutionState;
 import com.caleb.scheduledplayer.service.scheduler.TimeCheckResult;
@@ -48,19 +49,23 @@ public class TaskCheckWorker extends Worker {
             Context context = getApplicationContext();
             AppDatabase database = AppDatabase.getInstance(context);
             
-            // 获取所有启用的任务
-            List<TaskEntity> enabledTasks = database.taskDao().getEnabledTasksSync();
+            // 获取当前时间
+            Calendar now = Calendar.getInstance();
+            AppLogger.d(TAG, "当前时间: " + now.getTime());
             
-            if (enabledTasks.isEmpty()) {
-                AppLogger.d(TAG, "没有启用的任务");
+            // 只检查处于时间窗口内、触发时间已过或没有已登记事件的任务，
+            // 其他任务的下一次闹钟仍在未来，不需要检查
+            List<TaskEntity> affectedTasks = database.taskDao().getTasksNeedingRecovery(now.getTimeInMillis());
+            
+            if (affectedTasks.isEmpty()) {
+                AppLogger.d(TAG, "没有需要检查的任务");
+                // 仍需校准内存中的播放槽位计数
+                TaskScheduleManager.getInstance(context).getConcurrencyManager().reconcile();
                 return Result.success();
             }
+            AppLogger.d(TAG, "需要检查的任务数: " + affectedTasks.size());
             
-            // 获取当前时间（仅用于日志）
-            Calendar now = Calendar.getInstance();
-            AppLogger.d(TAG, "当前时间: " + now.getTime());
-            
-            for (TaskEntity task : enabledTasks) {
+            for (TaskEntity task : affectedTasks) {
                 // 使用新的时间计算器检查任务是否应该活跃
                 TimeCheckResult checkResult = TaskTimeCalculator.shouldBeActiveNow(task);
                 
@@ -87,12 +92,16 @@ public class TaskCheckWorker extends Worker {
                         if (task.isOneTime()) {
                             AppLogger.d(TAG, "一次性全天播放任务 " + task.getId() + " 完成，禁用它");
                             database.taskDao().updateEnabled(task.getId(), false, System.currentTimeMillis());
+                            OversubscriptionAnalyzer.getInstance().onTaskDeleted(task.getId());
                         }
                     }
                     // 非全天播放任务不在这里停止，让结束闹钟处理
                 }
             }
             
+            // 校准内存中的播放槽位计数
+            TaskScheduleManager.getInstance(context).getConcurrencyManager().reconcile();
+            
             // 注意：不再调用 rescheduleAllTasks()
             // 因为 rescheduleAllTasks() 会调用 handleReboot()，对正在播放的任务会重新调用 startPlayback
             // 这会导致不必要的播放重启
@@ -3,6 +3,8 @@ package com.caleb.scheduledplayer.util;
 import android.content.Context;
 import android.util.Log;
 
+import com.caleb.scheduledplayer.service.scheduler.SchedulerLog;
+
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
@@ -32,6 +34,7 @@ public class AppLogger {
     private static final int RETENTION_DAYS = 7;
 
     private static volatile AppLogger instance;
+    private static volatile boolean muted = false;
     private Context context;
     private File logDir;
     private File currentLogFile;
@@ -79,6 +82,33 @@ public class AppLogger {
         // 清理过期文件
         cleanOldFiles();
         
+        // 调度核心的日志转发到这里
+        SchedulerLog.setSink(new SchedulerLog.Sink() {
+            @Override
+            public void d(String tag, String msg) {
+                AppLogger.d(tag, msg);
+            }
+
+            @Override
+            public void i(String tag, String msg) {
+                AppLogger.i(tag, msg);
+            }
+
+            @Override
+            public void w(String tag, String msg) {
+                AppLogger.w(tag, msg);
+            }
+
+            @Override
+            public void e(String tag, String msg, Throwable tr) {
+                if (tr != null) {
+                    AppLogger.e(tag, msg, tr);
+                } else {
+                    AppLogger.e(tag, msg);
+                }
+            }
+        });
+        
         Log.d(TAG, "AppLogger initialized, log dir: " + logDir.getAbsolutePath());
     }
 
@@ -118,10 +148,21 @@ public class AppLogger {
         }
     }
 
+    /**
+     * 暂停 Debug/Info/Warning 级别日志，错误日志不受影响
+     * 用于模拟器等短时间内产生海量调度日志的场景
+     */
+    public static void setMuted(boolean mute) {
+        muted = mute;
+    }
+
     /**
      * Debug 级别日志
      */
     public static void d(String tag, String msg) {
+        if (muted) {
+            return;
+        }
         Log.d(tag, msg);
         getInstance().writeToFile("D", tag, msg);
     }
@@ -130,6 +171,9 @@ public class AppLogger {
      * Info 级别日志
      */
     public static void i(String tag, String msg) {
+        if (muted) {
+            return;
+        }
         Log.i(tag, msg);
         getInstance().writeToFile("I", tag, msg);
     }
@@ -138,6 +182,9 @@ public class AppLogger {
      * Warning 级别日志
      */
     public static void w(String tag, String msg) {
+        if (muted) {
+            return;
+        }
         Log.w(tag, msg);
         getInstance().writeToFile("W", tag, msg);
     }
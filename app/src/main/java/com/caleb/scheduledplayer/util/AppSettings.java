@@ -3,6 +3,8 @@ package com.caleb.scheduledplayer.util;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import com.caleb.scheduledplayer.service.fleet.FleetRole;
+
 /**
  * 全局设置管理类
  * 使用 SharedPreferences 存储应用设置
@@ -14,6 +16,21 @@ public class AppSettings {
     // 设置项 Key
     private static final String KEY_KEEP_BLUETOOTH_ALIVE = "keep_bluetooth_alive";
     private static final String KEY_BLUETOOTH_AUTO_RECONNECT = "bluetooth_auto_reconnect";
+    private static final String KEY_MAX_CONCURRENT_PLAYBACK = "max_concurrent_playback";
+    private static final String KEY_PRIORITY_PREEMPTION = "priority_preemption";
+    private static final String KEY_FLEET_ROLE = "fleet_role";
+    private static final String KEY_FLEET_CONTROLLER_HOST = "fleet_controller_host";
+    private static final String KEY_FLEET_PORT = "fleet_port";
+
+    /**
+     * 默认最大并发播放任务数
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_PLAYBACK = 10;
+
+    /**
+     * 默认协同端口（控制端监听）
+     */
+    public static final int DEFAULT_FLEET_PORT = 47810;
     
     private final SharedPreferences prefs;
     
@@ -51,4 +68,88 @@ public class AppSettings {
     public void setBluetoothAutoReconnect(boolean enabled) {
         prefs.edit().putBoolean(KEY_BLUETOOTH_AUTO_RECONNECT, enabled).apply();
     }
+    
+    /**
+     * 获取最大并发播放任务数
+     * 默认值：10
+     */
+    public int getMaxConcurrentPlayback() {
+        return prefs.getInt(KEY_MAX_CONCURRENT_PLAYBACK, DEFAULT_MAX_CONCURRENT_PLAYBACK);
+    }
+    
+    /**
+     * 设置最大并发播放任务数
+     * 运行时生效需通过 TaskScheduleManager#setMaxConcurrentPlayback
+     */
+    public void setMaxConcurrentPlayback(int max) {
+        prefs.edit().putInt(KEY_MAX_CONCURRENT_PLAYBACK, Math.max(1, max)).apply();
+    }
+    
+    /**
+     * 获取是否启用优先级抢占
+     * 默认值：true
+     */
+    public boolean isPriorityPreemptionEnabled() {
+        return prefs.getBoolean(KEY_PRIORITY_PREEMPTION, true);
+    }
+    
+    /**
+     * 设置是否启用优先级抢占
+     */
+    public void setPriorityPreemptionEnabled(boolean enabled) {
+        prefs.edit().putBoolean(KEY_PRIORITY_PREEMPTION, enabled).apply();
+    }
+    
+    /**
+     * 获取多设备协同角色
+     * 默认值：STANDALONE
+     */
+    public FleetRole getFleetRole() {
+        String value = prefs.getString(KEY_FLEET_ROLE, FleetRole.STANDALONE.name());
+        try {
+            return FleetRole.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return FleetRole.STANDALONE;
+        }
+    }
+    
+    /**
+     * 设置多设备协同角色
+     * 重启应用后生效
+     */
+    public void setFleetRole(FleetRole role) {
+        prefs.edit().putString(KEY_FLEET_ROLE, role.name()).apply();
+    }
+    
+    /**
+     * 获取控制端地址（跟随端使用）
+     * 默认值：空
+     */
+    public String getFleetControllerHost() {
+        return prefs.getString(KEY_FLEET_CONTROLLER_HOST, "");
+    }
+    
+    /**
+     * 设置控制端地址
+     * 重启应用后生效
+     */
+    public void setFleetControllerHost(String host) {
+        prefs.edit().putString(KEY_FLEET_CONTROLLER_HOST, host != null ? host.trim() : "").apply();
+    }
+    
+    /**
+     * 获取协同端口
+     * 默认值：47810
+     */
+    public int getFleetPort() {
+        return prefs.getInt(KEY_FLEET_PORT, DEFAULT_FLEET_PORT);
+    }
+    
+    /**
+     * 设置协同端口
+     * 重启应用后生效
+     */
+    public void setFleetPort(int port) {
+        prefs.edit().putInt(KEY_FLEET_PORT, port).apply();
+    }
 }
@@ -0,0 +1,171 @@
+package com.caleb.scheduledplayer.service.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+/**
+ * 播放断点日志测试：重新打开后的恢复、不完整或损坏的尾部记录、清除记录和整理
+ * 每个测试使用独立的临时目录
+ */
+public class PlaybackCheckpointJournalTest {
+
+    private static final String FILE_NAME = "playback_checkpoints.bin";
+
+    /**
+     * 足以触发一次整理的记录数（存活断点很少时，整理阈值为 256 条记录）
+     */
+    private static final int RECORDS_PAST_COMPACTION = 300;
+
+    private File dir;
+    private PlaybackCheckpointJournal journal;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("checkpoints").toFile();
+        journal = new PlaybackCheckpointJournal(dir);
+    }
+
+    @After
+    public void tearDown() {
+        journal.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void checkpointsSurviveReopen() {
+        journal.save(1, 11, 101, 2, 30_000);
+        journal.save(2, 22, 202, 0, 5_000);
+        journal.save(1, 11, 101, 3, 1_000);
+
+        reopen();
+
+        assertCheckpoint(1, 11, 101, 3, 1_000);
+        assertCheckpoint(2, 22, 202, 0, 5_000);
+        assertNull(journal.get(3));
+    }
+
+    @Test
+    public void tornTrailingRecordIsTruncated() throws IOException {
+        journal.save(1, 11, 101, 2, 30_000);
+        journal.save(2, 22, 202, 0, 5_000);
+        journal.close();
+        // 进程在写入第三条记录的中途被杀
+        appendBytes(new byte[PlaybackCheckpointJournal.RECORD_SIZE / 2]);
+
+        reopen();
+
+        assertCheckpoint(1, 11, 101, 2, 30_000);
+        assertCheckpoint(2, 22, 202, 0, 5_000);
+        assertEquals(2L * PlaybackCheckpointJournal.RECORD_SIZE, journalFile().length());
+
+        // 新记录接在截断位置之后
+        journal.save(3, 33, 303, 1, 0);
+        reopen();
+        assertCheckpoint(3, 33, 303, 1, 0);
+    }
+
+    @Test
+    public void corruptRecordDiscardsItAndEverythingAfter() throws IOException {
+        journal.save(1, 11, 101, 2, 30_000);
+        journal.save(1, 11, 101, 4, 0);
+        journal.save(2, 22, 202, 0, 5_000);
+        journal.close();
+        // 破坏第二条记录的播放位置，校验和不再匹配
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile(), "rw")) {
+            raf.seek(PlaybackCheckpointJournal.RECORD_SIZE + 28);
+            raf.writeInt(12_345);
+        }
+
+        reopen();
+
+        assertCheckpoint(1, 11, 101, 2, 30_000);
+        assertNull(journal.get(2));
+        assertEquals(PlaybackCheckpointJournal.RECORD_SIZE, journalFile().length());
+    }
+
+    @Test
+    public void clearOverridesEarlierSave() {
+        journal.save(1, 11, 101, 2, 30_000);
+        journal.save(2, 22, 202, 0, 5_000);
+        journal.clear(1);
+
+        reopen();
+
+        assertNull(journal.get(1));
+        assertCheckpoint(2, 22, 202, 0, 5_000);
+
+        // 清除之后再次保存的断点照常恢复
+        journal.save(1, 11, 101, 5, 7_000);
+        reopen();
+        assertCheckpoint(1, 11, 101, 5, 7_000);
+    }
+
+    @Test
+    public void compactionKeepsOnlyLiveCheckpoints() {
+        journal.save(3, 33, 303, 1, 0);
+        journal.clear(3);
+        for (int i = 0; i < RECORDS_PAST_COMPACTION; i++) {
+            journal.save(1 + i % 2, 11, 101, i, i * 1_000);
+        }
+
+        long length = journalFile().length();
+        assertTrue("journal not compacted: " + length + " bytes",
+                length < (long) RECORDS_PAST_COMPACTION * PlaybackCheckpointJournal.RECORD_SIZE);
+        assertEquals(0, length % PlaybackCheckpointJournal.RECORD_SIZE);
+        assertCheckpoint(1, 11, 101, RECORDS_PAST_COMPACTION - 2, (RECORDS_PAST_COMPACTION - 2) * 1_000);
+        assertCheckpoint(2, 11, 101, RECORDS_PAST_COMPACTION - 1, (RECORDS_PAST_COMPACTION - 1) * 1_000);
+
+        reopen();
+
+        assertCheckpoint(1, 11, 101, RECORDS_PAST_COMPACTION - 2, (RECORDS_PAST_COMPACTION - 2) * 1_000);
+        assertCheckpoint(2, 11, 101, RECORDS_PAST_COMPACTION - 1, (RECORDS_PAST_COMPACTION - 1) * 1_000);
+        assertNull(journal.get(3));
+
+        // 整理后的文件可以继续追加
+        journal.save(2, 11, 101, 0, 0);
+        reopen();
+        assertCheckpoint(2, 11, 101, 0, 0);
+    }
+
+    private void reopen() {
+        journal.close();
+        journal = new PlaybackCheckpointJournal(dir);
+    }
+
+    private File journalFile() {
+        return new File(dir, FILE_NAME);
+    }
+
+    private void appendBytes(byte[] bytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile(), "rw")) {
+            raf.seek(raf.length());
+            raf.write(bytes);
+        }
+    }
+
+    private void assertCheckpoint(long taskId, long playlistHash, long shuffleSeed, int index, int position) {
+        PlaybackCheckpointJournal.Checkpoint checkpoint = journal.get(taskId);
+        assertNotNull("no checkpoint for task " + taskId, checkpoint);
+        assertEquals(playlistHash, checkpoint.playlistHash);
+        assertEquals(shuffleSeed, checkpoint.shuffleSeed);
+        assertEquals(index, checkpoint.index);
+        assertEquals(position, checkpoint.position);
+    }
+}
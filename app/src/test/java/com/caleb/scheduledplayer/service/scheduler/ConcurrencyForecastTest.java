@@ -0,0 +1,147 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import static org.junit.Assert.assertEquals;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 并发预测回放测试
+ * 预测起点为 2026-03-02（周一）08:00，任务只在周一执行，7 天内各执行一次；最大并发数为 1
+ */
+public class ConcurrencyForecastTest {
+
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalZone);
+    }
+
+    @Test
+    public void preemptedTaskWaitsAheadOfItsPriorityClass() {
+        List<TaskEntity> tasks = Arrays.asList(
+                task(1, "09:00", "12:00", TaskEntity.PRIORITY_NORMAL),
+                task(2, "09:30", "11:00", TaskEntity.PRIORITY_NORMAL),
+                task(3, "10:00", "10:30", TaskEntity.PRIORITY_HIGH));
+
+        ConcurrencyForecast forecast = ConcurrencyForecast.compute(tasks, 1,
+                new PriorityAdmissionPolicy(), at(8, 0));
+
+        // 3 抢占 1；1 放回普通优先级的最前面，3 结束时先于 09:30 起等待的 2 获得槽位
+        assertRanges(forecast.getRanges(),
+                range(2, ConcurrencyForecast.Outcome.SKIPPED, at(9, 30), at(11, 0)),
+                range(1, ConcurrencyForecast.Outcome.WAITING_SLOT, at(10, 0), at(10, 30)));
+    }
+
+    @Test
+    public void firstComeSkipsLaterArrivals() {
+        List<TaskEntity> tasks = Arrays.asList(
+                task(1, "09:00", "12:00", TaskEntity.PRIORITY_NORMAL),
+                task(2, "09:30", "11:00", TaskEntity.PRIORITY_NORMAL),
+                task(3, "10:00", "10:30", TaskEntity.PRIORITY_HIGH));
+
+        ConcurrencyForecast forecast = ConcurrencyForecast.compute(tasks, 1,
+                AdmissionPolicy.FIRST_COME, at(8, 0));
+
+        assertRanges(forecast.getRanges(),
+                range(2, ConcurrencyForecast.Outcome.SKIPPED, at(9, 30), at(11, 0)),
+                range(3, ConcurrencyForecast.Outcome.SKIPPED, at(10, 0), at(10, 30)));
+        assertEquals(0, forecast.getRanges(ConcurrencyForecast.Outcome.WAITING_SLOT).size());
+    }
+
+    @Test
+    public void higherPriorityWaiterGetsFreedSlotFirst() {
+        List<TaskEntity> tasks = Arrays.asList(
+                task(1, "09:00", "10:00", TaskEntity.PRIORITY_NORMAL),
+                task(2, "09:10", "11:00", TaskEntity.PRIORITY_LOW),
+                task(3, "09:20", "11:00", TaskEntity.PRIORITY_HIGH));
+
+        ConcurrencyForecast forecast = ConcurrencyForecast.compute(tasks, 1,
+                AdmissionPolicy.FIRST_COME, at(8, 0));
+
+        // 2 先开始等待，但 10:00 释放的槽位交给优先级更高的 3；3 结束时 2 的时段也已结束
+        assertRanges(forecast.getRanges(),
+                range(2, ConcurrencyForecast.Outcome.SKIPPED, at(9, 10), at(11, 0)),
+                range(3, ConcurrencyForecast.Outcome.WAITING_SLOT, at(9, 20), at(10, 0)));
+    }
+
+    @Test
+    public void demandTimelineCountsAllWantedPlayback() {
+        List<TaskEntity> tasks = Arrays.asList(
+                task(1, "09:00", "12:00", TaskEntity.PRIORITY_NORMAL),
+                task(2, "09:30", "11:00", TaskEntity.PRIORITY_NORMAL),
+                task(3, "10:00", "10:30", TaskEntity.PRIORITY_HIGH));
+        TaskEntity disabled = task(4, "09:00", "12:00", TaskEntity.PRIORITY_CRITICAL);
+        disabled.setEnabled(false);
+
+        ConcurrencyForecast forecast = ConcurrencyForecast.compute(
+                Arrays.asList(tasks.get(0), tasks.get(1), tasks.get(2), disabled), 1,
+                new PriorityAdmissionPolicy(), at(8, 0));
+
+        assertEquals(at(8, 0), forecast.getOriginTime());
+        assertEquals(3, forecast.getPeakDemand());
+        assertEquals(0, forecast.getDemandAt(59));
+        assertEquals(1, forecast.getDemandAt(60));
+        assertEquals(2, forecast.getDemandAt(90));
+        assertEquals(3, forecast.getDemandAt(120));
+        assertEquals(1, forecast.getDemandAt(180));
+
+        List<long[]> overloaded = forecast.getOverloadedWindows();
+        assertEquals(1, overloaded.size());
+        assertEquals(at(9, 30), overloaded.get(0)[0]);
+        assertEquals(at(11, 0), overloaded.get(0)[1]);
+    }
+
+    private static void assertRanges(List<ConcurrencyForecast.Range> actual, long[]... expected) {
+        assertEquals(actual.toString(), expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            ConcurrencyForecast.Range range = actual.get(i);
+            String message = "range " + i + ": " + range;
+            assertEquals(message, expected[i][0], range.taskId);
+            assertEquals(message, expected[i][1], range.outcome.ordinal());
+            assertEquals(message, expected[i][2], range.startTime);
+            assertEquals(message, expected[i][3], range.endTime);
+        }
+    }
+
+    private static long[] range(long taskId, ConcurrencyForecast.Outcome outcome, long start, long end) {
+        return new long[]{taskId, outcome.ordinal(), start, end};
+    }
+
+    /**
+     * 2026-03-02（周一）的本地时间
+     */
+    private static long at(int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2026, Calendar.MARCH, 2, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    private static TaskEntity task(long id, String start, String end, int priority) {
+        TaskEntity task = new TaskEntity();
+        task.setId(id);
+        task.setName("task-" + id);
+        task.setEnabled(true);
+        task.setRepeatDays(TaskEntity.MONDAY);
+        task.setStartTime(start);
+        task.setEndTime(end);
+        task.setPriority(priority);
+        return task;
+    }
+}
@@ -0,0 +1,119 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import static org.junit.Assert.assertEquals;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.service.scheduler.simulation.SimulatedTaskDao;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 并发超额分析索引的增量维护测试
+ * 数据库在分析器之外被修改时，失效通知只重新索引时段变化的任务
+ */
+public class OversubscriptionAnalyzerTest {
+
+    private static final int MAX_CONCURRENT = 2;
+
+    private SimulatedTaskDao taskDao;
+    private OversubscriptionAnalyzer analyzer;
+    private long clock = 1_000;
+
+    @Before
+    public void setUp() {
+        taskDao = new SimulatedTaskDao();
+        analyzer = new OversubscriptionAnalyzer();
+        insert("a", "09:00", "10:00");
+        insert("b", "09:30", "11:00");
+        insert("c", "13:00", "14:00");
+        // 首次分析时加载索引
+        assertEquals(3, peak());
+    }
+
+    @Test
+    public void stateWritesOnlyUpdateStamps() {
+        for (TaskEntity task : taskDao.getAllTasksSync()) {
+            taskDao.updateExecutionState(task.getId(), TaskExecutionState.EXECUTING.getValue(), ++clock);
+        }
+
+        assertEquals(0, analyzer.refreshChanged(taskDao));
+        // 更新时间已同步，再次通知时不再读取任务
+        assertEquals(0, analyzer.refreshChanged(taskDao));
+        assertEquals(3, peak());
+    }
+
+    @Test
+    public void externalScheduleChangeIsReindexed() {
+        TaskEntity b = find("b");
+        b.setStartTime("12:00");
+        b.setEndTime("13:00");
+        b.setUpdatedAt(++clock);
+        taskDao.update(b);
+
+        assertEquals(1, analyzer.refreshChanged(taskDao));
+        assertEquals(2, peak());
+    }
+
+    @Test
+    public void externalInsertDeleteAndDisableAreReindexed() {
+        taskDao.updateEnabled(find("a").getId(), false, ++clock);
+        assertEquals(1, analyzer.refreshChanged(taskDao));
+        assertEquals(2, peak());
+
+        taskDao.deleteById(find("b").getId());
+        insert("d", "09:45", "10:15");
+        insert("e", "20:00", "21:00");
+        // 删除 b、加入 d；未与新任务重叠的 e 也要加入索引
+        assertEquals(3, analyzer.refreshChanged(taskDao));
+        assertEquals(2, peak());
+
+        taskDao.updateEnabled(find("a").getId(), true, ++clock);
+        assertEquals(1, analyzer.refreshChanged(taskDao));
+        assertEquals(3, peak());
+    }
+
+    @Test
+    public void savedTaskIsNotReindexedAgainByNotification() {
+        TaskEntity c = find("c");
+        c.setStartTime("09:00");
+        c.setUpdatedAt(++clock);
+        taskDao.update(c);
+        analyzer.onTaskSaved(c);
+
+        assertEquals(0, analyzer.refreshChanged(taskDao));
+        assertEquals(4, peak());
+    }
+
+    /**
+     * 周一 09:00-10:30 的新任务所在时段的并发峰值（含新任务）
+     */
+    private int peak() {
+        TaskEntity probe = task("probe", "09:00", "10:30");
+        return analyzer.analyze(taskDao, probe, MAX_CONCURRENT).getPeakConcurrency();
+    }
+
+    private void insert(String name, String start, String end) {
+        taskDao.insert(task(name, start, end));
+    }
+
+    private TaskEntity find(String name) {
+        for (TaskEntity task : taskDao.getAllTasksSync()) {
+            if (name.equals(task.getName())) {
+                return task;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private TaskEntity task(String name, String start, String end) {
+        TaskEntity task = new TaskEntity();
+        task.setName(name);
+        task.setEnabled(true);
+        task.setRepeatDays(TaskEntity.MONDAY);
+        task.setStartTime(start);
+        task.setEndTime(end);
+        task.setUpdatedAt(++clock);
+        return task;
+    }
+}
@@ -0,0 +1,194 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 任务邮箱测试：同一任务的异步和同步命令按提交顺序执行、同步调用的重入和接力、邮箱回收与异常传播
+ * 每个测试先用一条阻塞的命令占住邮箱，使后续命令确定地进入队列
+ */
+public class TaskMailboxesTest {
+
+    private static final long TASK_ID = 1;
+
+    /**
+     * 等待异步条件成立的最长时间
+     */
+    private static final long WAIT_MILLIS = 5_000;
+
+    private ExecutorService pool;
+    private TaskMailboxes mailboxes;
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+        mailboxes = new TaskMailboxes(pool);
+    }
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void postsAndCallsRunInSubmissionOrder() throws Exception {
+        CompletableFuture<Void> first = blockMailbox();
+        CompletableFuture<Void> a = mailboxes.post(TASK_ID, () -> order.add("a"));
+        Thread caller = callInBackground("call");
+        CompletableFuture<Void> b = mailboxes.post(TASK_ID, () -> order.add("b"));
+
+        gate.countDown();
+        await(first, a, b);
+        caller.join(WAIT_MILLIS);
+
+        assertEquals(Arrays.asList("first", "a", "call", "b"), order);
+    }
+
+    @Test
+    public void callWaitsBehindQueuedPostsAndRunsOnCallerThread() throws Exception {
+        blockMailbox();
+        AtomicInteger posted = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            mailboxes.post(TASK_ID, posted::incrementAndGet);
+        }
+
+        Thread[] ranOn = new Thread[1];
+        int[] seen = new int[1];
+        Thread caller = new Thread(() -> seen[0] = mailboxes.call(TASK_ID, () -> {
+            ranOn[0] = Thread.currentThread();
+            return posted.get();
+        }));
+        caller.start();
+        awaitCondition("call queued", () -> caller.getState() == Thread.State.WAITING);
+        assertEquals(0, posted.get());
+
+        gate.countDown();
+        caller.join(WAIT_MILLIS);
+
+        assertEquals(3, seen[0]);
+        assertSame(caller, ranOn[0]);
+    }
+
+    @Test
+    public void nestedCallOnSameTaskRunsInline() throws Exception {
+        int result = mailboxes.call(TASK_ID, () -> mailboxes.call(TASK_ID, () -> 1) + 1);
+        assertEquals(2, result);
+
+        // 线程池执行的命令内同步调用同一任务同样直接执行
+        CompletableFuture<Void> posted = mailboxes.post(TASK_ID,
+                () -> order.add("nested=" + mailboxes.call(TASK_ID, () -> 3)));
+        await(posted);
+        assertEquals(Collections.singletonList("nested=3"), order);
+    }
+
+    @Test
+    public void mailboxesAreReclaimedWhenDrained() throws Exception {
+        CompletableFuture<Void> first = blockMailbox();
+        CompletableFuture<Void> other = mailboxes.post(2, () -> order.add("other"));
+        Thread caller = callInBackground("call");
+        assertTrue(mailboxes.size() >= 1);
+
+        gate.countDown();
+        await(first, other);
+        caller.join(WAIT_MILLIS);
+
+        awaitCondition("mailboxes reclaimed", () -> mailboxes.size() == 0);
+        mailboxes.run(TASK_ID, () -> order.add("idle"));
+        assertEquals(0, mailboxes.size());
+    }
+
+    @Test
+    public void exceptionsReachTheSubmitterAndDoNotStallTheMailbox() throws Exception {
+        blockMailbox();
+        IllegalStateException failure = new IllegalStateException("boom");
+        CompletableFuture<Void> failed = mailboxes.post(TASK_ID, () -> {
+            throw failure;
+        });
+        CompletableFuture<Void> after = mailboxes.post(TASK_ID, () -> order.add("after"));
+
+        gate.countDown();
+        try {
+            failed.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            fail("Expected the posted command to fail");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        await(after);
+
+        try {
+            mailboxes.run(TASK_ID, () -> {
+                throw failure;
+            });
+            fail("Expected the synchronous command to fail");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(Arrays.asList("first", "after"), order);
+        awaitCondition("mailbox reclaimed", () -> mailboxes.size() == 0);
+    }
+
+    /**
+     * 提交一条等待 gate 的命令，返回时邮箱已被线程池占住
+     */
+    private CompletableFuture<Void> blockMailbox() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> first = mailboxes.post(TASK_ID, () -> {
+            started.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            order.add("first");
+        });
+        assertTrue(started.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        return first;
+    }
+
+    /**
+     * 在新线程中同步调用，返回时调用已在邮箱中排队
+     */
+    private Thread callInBackground(String label) throws InterruptedException {
+        Thread caller = new Thread(() -> mailboxes.run(TASK_ID, () -> order.add(label)));
+        caller.start();
+        awaitCondition(label + " queued", () -> caller.getState() == Thread.State.WAITING);
+        return caller;
+    }
+
+    @SafeVarargs
+    private static void await(CompletableFuture<Void>... futures) throws Exception {
+        CompletableFuture.allOf(futures).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void awaitCondition(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            Thread.sleep(10);
+        }
+    }
+}
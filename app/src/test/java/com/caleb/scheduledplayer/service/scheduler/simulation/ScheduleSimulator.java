@@ -0,0 +1,159 @@
+package com.caleb.scheduledplayer.service.scheduler.simulation;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.service.scheduler.AdmissionPolicy;
+import com.caleb.scheduledplayer.service.scheduler.AlarmScheduler;
+import com.caleb.scheduledplayer.service.scheduler.AlarmTimerHeap;
+import com.caleb.scheduledplayer.service.scheduler.ConcurrencyManager;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerClock;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerLog;
+import com.caleb.scheduledplayer.service.scheduler.TaskClassifier;
+import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
+import com.caleb.scheduledplayer.service.scheduler.WeeklySchedule;
+import com.caleb.scheduledplayer.util.AppLogger;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 虚拟时钟调度模拟器
+ * 用内存中的 TaskDao、闹钟后端和播放控制驱动真实的 TaskScheduleManager 和各调度策略，
+ * 按定时堆的触发顺序直接跳到下一个事件，几秒内即可回放数千个任务的多天调度过程。
+ * 用于评估并发上限，以及发现策略改动带来的行为回归
+ *
+ * 模拟期间会替换进程级的 {@link SchedulerClock} 并暂停日志，
+ * 因此只放在测试源码中，由 JVM 单元测试驱动（见 ScheduleSimulatorTest）
+ */
+public class ScheduleSimulator {
+
+    private static final long MINUTE_MS = 60 * 1000L;
+
+    private final SimulatedTaskDao taskDao = new SimulatedTaskDao();
+    private final SimulatedAlarmBackend alarmBackend = new SimulatedAlarmBackend();
+    private final SimulatedPlayback playback = new SimulatedPlayback();
+    private final int maxConcurrentPlayback;
+    private final AdmissionPolicy admissionPolicy;
+
+    /**
+     * 虚拟时钟的当前时间
+     */
+    private volatile long now;
+
+    public ScheduleSimulator(int maxConcurrentPlayback, AdmissionPolicy admissionPolicy) {
+        this.maxConcurrentPlayback = Math.max(1, maxConcurrentPlayback);
+        this.admissionPolicy = admissionPolicy;
+    }
+
+    /**
+     * 添加任务
+     *
+     * @return 分配的任务ID
+     */
+    public long addTask(TaskEntity task) {
+        return taskDao.insert(task);
+    }
+
+    /**
+     * 按固定种子生成随机任务
+     * 约 5% 全天任务；其余时长 5 分钟到 4 小时，开始时间均匀分布（跨过午夜的即为跨天任务）；
+     * 约 15% 一次性、20% 每天、其余为随机重复日；优先级以普通为主
+     *
+     * @param count 任务数
+     * @param seed 随机种子，相同种子生成相同的任务集
+     */
+    public void addSyntheticTasks(int count, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            TaskEntity task = new TaskEntity();
+            task.setName("sim-" + i);
+            task.setEnabled(true);
+            task.setVolume(50);
+
+            int start = random.nextInt(WeeklySchedule.MINUTES_PER_DAY);
+            int duration = 5 + random.nextInt(4 * 60);
+            task.setStartTime(TaskClassifier.minutesToTimeString(start));
+            task.setEndTime(TaskClassifier.minutesToTimeString((start + duration) % WeeklySchedule.MINUTES_PER_DAY));
+            task.setAllDayPlay(random.nextInt(100) < 5);
+
+            int repeatRoll = random.nextInt(100);
+            if (repeatRoll < 15) {
+                task.setRepeatDays(0);
+            } else if (repeatRoll < 35) {
+                task.setRepeatDays(TaskEntity.EVERYDAY);
+            } else {
+                task.setRepeatDays(1 + random.nextInt(TaskEntity.EVERYDAY));
+            }
+
+            int priorityRoll = random.nextInt(100);
+            if (priorityRoll < 25) {
+                task.setPriority(TaskEntity.PRIORITY_LOW);
+            } else if (priorityRoll < 85) {
+                task.setPriority(TaskEntity.PRIORITY_NORMAL);
+            } else if (priorityRoll < 97) {
+                task.setPriority(TaskEntity.PRIORITY_HIGH);
+            } else {
+                task.setPriority(TaskEntity.PRIORITY_CRITICAL);
+            }
+
+            addTask(task);
+        }
+    }
+
+    /**
+     * 从指定时刻开始回放若干天
+     * 先执行一次 rescheduleAllTasks（相当于开机），之后每次把虚拟时钟拨到系统闹钟的触发时间，
+     * 取出到期事件交给 TaskScheduleManager 处理，直到超出模拟时长或没有待触发的事件
+     *
+     * @param startTime 模拟开始时间戳
+     * @param days 模拟天数
+     * @return 模拟结果
+     */
+    public SimulationReport run(long startTime, int days) {
+        long endTime = startTime + days * WeeklySchedule.MINUTES_PER_DAY * MINUTE_MS;
+        int[] concurrency = new int[days * WeeklySchedule.MINUTES_PER_DAY];
+        int sampledMinutes = 0;
+        long eventCount = 0;
+
+        now = startTime;
+        SchedulerClock.setTimeSource(() -> now);
+        AppLogger.setMuted(true);
+        SchedulerLog.setMuted(true);
+        long wallStart = System.nanoTime();
+        ConcurrencyManager concurrencyManager = new ConcurrencyManager(taskDao,
+                maxConcurrentPlayback, admissionPolicy);
+        try {
+            TaskScheduleManager manager = new TaskScheduleManager(taskDao, Runnable::run,
+                    new AlarmScheduler(alarmBackend), playback, concurrencyManager, null);
+            manager.rescheduleAllTasks();
+
+            while (true) {
+                long next = alarmBackend.getArmedTriggerTime();
+                boolean finished = next < 0 || next >= endTime;
+                long until = finished ? endTime : next;
+
+                // 两次事件之间并发数不变，采样下一个事件之前的每个整分钟
+                while (sampledMinutes < concurrency.length
+                        && startTime + sampledMinutes * MINUTE_MS < until) {
+                    concurrency[sampledMinutes++] = concurrencyManager.getCurrentPlaybackCount();
+                }
+                if (finished) {
+                    break;
+                }
+
+                now = Math.max(now, next);
+                List<AlarmTimerHeap.TimerEvent> dueEvents = manager.pollDueAlarms();
+                manager.handleTimerEvents(dueEvents);
+                eventCount += dueEvents.size();
+            }
+        } finally {
+            SchedulerClock.reset();
+            AppLogger.setMuted(false);
+            SchedulerLog.setMuted(false);
+        }
+        long wallTimeMs = (System.nanoTime() - wallStart) / 1_000_000L;
+
+        return new SimulationReport(taskDao.getTaskCount(), days,
+                maxConcurrentPlayback, concurrency, eventCount, taskDao.getSkippedCount(),
+                concurrencyManager.getPreemptionCount(), wallTimeMs);
+    }
+}
@@ -0,0 +1,81 @@
+package com.caleb.scheduledplayer.service.scheduler.simulation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.caleb.scheduledplayer.service.scheduler.AdmissionPolicy;
+import com.caleb.scheduledplayer.service.scheduler.PriorityAdmissionPolicy;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerClock;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+/**
+ * 虚拟时钟调度模拟测试
+ * 用固定种子的随机任务集回放一周调度，检查并发上限、抢占和可重复性等不变量，
+ * 同时作为评估并发上限的入口：需要查看数据时打印 {@link SimulationReport} 即可
+ */
+public class ScheduleSimulatorTest {
+
+    private static final int MAX_CONCURRENT = 10;
+    private static final int TASK_COUNT = 200;
+    private static final long SEED = 42;
+    private static final int DAYS = 7;
+
+    private static long startTime() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2024, Calendar.JANUARY, 8, 0, 0, 30);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private static SimulationReport simulate(AdmissionPolicy policy) {
+        ScheduleSimulator simulator = new ScheduleSimulator(MAX_CONCURRENT, policy);
+        simulator.addSyntheticTasks(TASK_COUNT, SEED);
+        return simulator.run(startTime(), DAYS);
+    }
+
+    @Test
+    public void concurrencyNeverExceedsLimit() {
+        SimulationReport report = simulate(AdmissionPolicy.FIRST_COME);
+
+        assertEquals(TASK_COUNT, report.getTaskCount());
+        assertTrue(report.getEventCount() > 0);
+        assertTrue(report.getPeakConcurrency() <= MAX_CONCURRENT);
+        // 该任务集在高峰时段超出上限，应当有整分钟处于满载并出现跳过
+        assertTrue(report.getMinutesAtCapacity() > 0);
+        assertTrue(report.getSkippedCount() > 0);
+    }
+
+    @Test
+    public void firstComeNeverPreempts() {
+        assertEquals(0, simulate(AdmissionPolicy.FIRST_COME).getPreemptionCount());
+    }
+
+    @Test
+    public void priorityPolicyPreemptsUnderLoad() {
+        SimulationReport report = simulate(new PriorityAdmissionPolicy());
+
+        assertTrue(report.getPreemptionCount() > 0);
+        assertTrue(report.getPeakConcurrency() <= MAX_CONCURRENT);
+    }
+
+    @Test
+    public void sameSeedReproducesRun() {
+        SimulationReport first = simulate(AdmissionPolicy.FIRST_COME);
+        SimulationReport second = simulate(AdmissionPolicy.FIRST_COME);
+
+        assertEquals(first.getEventCount(), second.getEventCount());
+        assertEquals(first.getSkippedCount(), second.getSkippedCount());
+        assertArrayEquals(first.getConcurrencyPerMinute(), second.getConcurrencyPerMinute());
+    }
+
+    @Test
+    public void runRestoresSystemClock() {
+        simulate(AdmissionPolicy.FIRST_COME);
+
+        assertTrue(Math.abs(SchedulerClock.now() - System.currentTimeMillis()) < 60_000L);
+    }
+}
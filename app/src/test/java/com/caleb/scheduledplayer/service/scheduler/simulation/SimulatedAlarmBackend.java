@@ -0,0 +1,55 @@
+package com.caleb.scheduledplayer.service.scheduler.simulation;
+
+import com.caleb.scheduledplayer.service.scheduler.AlarmBackend;
+import com.caleb.scheduledplayer.service.scheduler.AlarmTimerHeap;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 内存中的闹钟后端
+ * 只记录当前注册的触发时间，由模拟器推进虚拟时钟后主动“触发”；定时堆不持久化
+ */
+class SimulatedAlarmBackend implements AlarmBackend {
+
+    private long armedTriggerTime = -1;
+
+    /**
+     * 当前注册的系统闹钟触发时间，-1 表示未注册
+     */
+    long getArmedTriggerTime() {
+        return armedTriggerTime;
+    }
+
+    @Override
+    public void loadTimerEvents(LoadCallback callback) {
+        callback.onLoaded(Collections.emptyList());
+    }
+
+    @Override
+    public void saveTimerHeap(AlarmTimerHeap heap) {
+    }
+
+    @Override
+    public void awaitSaved() {
+    }
+
+    @Override
+    public void arm(long triggerTime, boolean useAlarmClock) {
+        armedTriggerTime = triggerTime;
+    }
+
+    @Override
+    public void disarm() {
+        armedTriggerTime = -1;
+    }
+
+    @Override
+    public boolean canScheduleExactAlarms() {
+        return true;
+    }
+
+    @Override
+    public void clearLegacyAlarmsOnce(List<Long> taskIds) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.caleb.scheduledplayer.service.scheduler.simulation;
+
+import com.caleb.scheduledplayer.service.scheduler.PlaybackController;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 不出声的播放控制
+ * 只记录哪些任务处于播放状态，被抢占的任务视为暂停（不在播放）
+ */
+class SimulatedPlayback implements PlaybackController {
+
+    private final Set<Long> playing = new HashSet<>();
+
+    @Override
+    public void start(long taskId) {
+        playing.add(taskId);
+    }
+
+    @Override
+    public void start(List<Long> taskIds) {
+        playing.addAll(taskIds);
+    }
+
+    @Override
+    public void prewarm(long taskId, long scheduledStartTime) {
+        // 预热不改变播放状态
+    }
+
+    @Override
+    public void stop(long taskId) {
+        playing.remove(taskId);
+    }
+
+    @Override
+    public void stop(List<Long> taskIds) {
+        playing.removeAll(taskIds);
+    }
+
+    @Override
+    public void preempt(long taskId) {
+        playing.remove(taskId);
+    }
+
+    @Override
+    public boolean isPlaying(long taskId) {
+        return playing.contains(taskId);
+    }
+}
@@ -0,0 +1,362 @@
+package com.caleb.scheduledplayer.service.scheduler.simulation;
+
+import androidx.lifecycle.LiveData;
+
+import com.caleb.scheduledplayer.data.dao.TaskDao;
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.service.scheduler.TaskClassifier;
+import com.caleb.scheduledplayer.service.scheduler.TaskExecutionState;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存中的 TaskDao
+ * 与 Room 一样，查询返回的是副本，调度代码对实体的修改只有经过写入方法才会生效；
+ * 同时统计模拟过程中进入 SKIPPED 状态的次数
+ *
+ * 只在单线程中使用（模拟器和其他 JVM 测试），不做同步；LiveData 查询不支持
+ */
+public class SimulatedTaskDao implements TaskDao {
+
+    private final Map<Long, TaskEntity> tasks = new LinkedHashMap<>();
+    private long nextId = 1;
+    private int skippedCount = 0;
+
+    int getSkippedCount() {
+        return skippedCount;
+    }
+
+    @Override
+    public long insert(TaskEntity task) {
+        if (task.getId() <= 0) {
+            task.setId(nextId++);
+        } else {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        TaskClassifier.refreshDerivedFields(task);
+        tasks.put(task.getId(), copyOf(task));
+        return task.getId();
+    }
+
+    @Override
+    public void update(TaskEntity task) {
+        if (tasks.containsKey(task.getId())) {
+            TaskEntity stored = copyOf(task);
+            onStateWritten(tasks.get(task.getId()).getExecutionState(), stored.getExecutionState());
+            tasks.put(task.getId(), stored);
+        }
+    }
+
+    @Override
+    public void delete(TaskEntity task) {
+        tasks.remove(task.getId());
+    }
+
+    @Override
+    public void deleteById(long taskId) {
+        tasks.remove(taskId);
+    }
+
+    @Override
+    public LiveData<List<TaskEntity>> getAllTasks() {
+        throw new UnsupportedOperationException("LiveData is not supported in simulation");
+    }
+
+    @Override
+    public List<TaskEntity> getAllTasksSync() {
+        List<TaskEntity> result = copies(task -> true);
+        result.sort(Comparator.comparingLong(TaskEntity::getCreatedAt).reversed());
+        return result;
+    }
+
+    @Override
+    public LiveData<TaskEntity> getTaskById(long taskId) {
+        throw new UnsupportedOperationException("LiveData is not supported in simulation");
+    }
+
+    @Override
+    public TaskEntity getTaskByIdSync(long taskId) {
+        TaskEntity task = tasks.get(taskId);
+        return task != null ? copyOf(task) : null;
+    }
+
+    @Override
+    public List<TaskEntity> getTasksByIdsSync(List<Long> taskIds) {
+        List<TaskEntity> result = new ArrayList<>();
+        for (Long taskId : taskIds) {
+            TaskEntity task = tasks.get(taskId);
+            if (task != null) {
+                result.add(copyOf(task));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<TaskStamp> getTaskStampsSync() {
+        return stamps(tasks.keySet());
+    }
+
+    @Override
+    public List<TaskStamp> getTaskStampsByIdsSync(List<Long> taskIds) {
+        return stamps(taskIds);
+    }
+
+    private List<TaskStamp> stamps(Iterable<Long> taskIds) {
+        List<TaskStamp> result = new ArrayList<>();
+        for (Long taskId : taskIds) {
+            TaskEntity task = tasks.get(taskId);
+            if (task != null) {
+                TaskStamp stamp = new TaskStamp();
+                stamp.id = task.getId();
+                stamp.updatedAt = task.getUpdatedAt();
+                result.add(stamp);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public LiveData<List<TaskEntity>> getEnabledTasks() {
+        throw new UnsupportedOperationException("LiveData is not supported in simulation");
+    }
+
+    @Override
+    public List<TaskEntity> getEnabledTasksSync() {
+        List<TaskEntity> result = copies(TaskEntity::isEnabled);
+        result.sort(Comparator.comparing(TaskEntity::getStartTime));
+        return result;
+    }
+
+    @Override
+    public void updateEnabled(long taskId, boolean enabled, long updatedAt) {
+        TaskEntity task = tasks.get(taskId);
+        if (task != null) {
+            task.setEnabled(enabled);
+            task.setUpdatedAt(updatedAt);
+        }
+    }
+
+    @Override
+    public int getTaskCount() {
+        return tasks.size();
+    }
+
+    @Override
+    public void deleteAll() {
+        tasks.clear();
+    }
+
+    // ==================== 执行状态相关方法 ====================
+
+    @Override
+    public void updateExecutionState(long taskId, int executionState, long updatedAt) {
+        TaskEntity task = tasks.get(taskId);
+        if (task != null) {
+            setState(task, executionState);
+            task.setUpdatedAt(updatedAt);
+        }
+    }
+
+    @Override
+    public void updateExecutionTimes(long taskId, long executionStart, long executionEnd, long updatedAt) {
+        TaskEntity task = tasks.get(taskId);
+        if (task != null) {
+            task.setCurrentExecutionStart(executionStart);
+            task.setCurrentExecutionEnd(executionEnd);
+            task.setUpdatedAt(updatedAt);
+        }
+    }
+
+    @Override
+    public void updateExecutionInfo(long taskId, int executionState, long executionStart,
+            long executionEnd, long updatedAt) {
+        TaskEntity task = tasks.get(taskId);
+        if (task != null) {
+            setState(task, executionState);
+            task.setCurrentExecutionStart(executionStart);
+            task.setCurrentExecutionEnd(executionEnd);
+            task.setUpdatedAt(updatedAt);
+        }
+    }
+
+    @Override
+    public void resetExecutionState(long taskId, long updatedAt) {
+        TaskEntity task = tasks.get(taskId);
+        if (task != null) {
+            setState(task, TaskExecutionState.IDLE.getValue());
+            task.setCurrentExecutionStart(0);
+            task.setCurrentExecutionEnd(0);
+            task.setUpdatedAt(updatedAt);
+        }
+    }
+
+    @Override
+    public List<TaskEntity> getTasksByExecutionState(int executionState) {
+        return copies(task -> task.getExecutionState() == executionState);
+    }
+
+    @Override
+    public List<TaskEntity> getActiveTasks() {
+        return copies(task -> task.getExecutionState() == TaskExecutionState.EXECUTING.getValue()
+                || task.getExecutionState() == TaskExecutionState.PAUSED.getValue());
+    }
+
+    @Override
+    public void updateEnabledAndResetState(long taskId, boolean enabled, long updatedAt) {
+        TaskEntity task = tasks.get(taskId);
+        if (task != null) {
+            task.setEnabled(enabled);
+            resetExecutionState(taskId, updatedAt);
+        }
+    }
+
+    @Override
+    public void disableTaskWithState(long taskId, long updatedAt) {
+        TaskEntity task = tasks.get(taskId);
+        if (task != null) {
+            task.setEnabled(false);
+            setState(task, TaskExecutionState.DISABLED.getValue());
+            task.setCurrentExecutionStart(0);
+            task.setCurrentExecutionEnd(0);
+            task.setUpdatedAt(updatedAt);
+        }
+    }
+
+    @Override
+    public void updateExecutionEndTime(long taskId, long executionEnd, long updatedAt) {
+        TaskEntity task = tasks.get(taskId);
+        if (task != null) {
+            task.setCurrentExecutionEnd(executionEnd);
+            task.setUpdatedAt(updatedAt);
+        }
+    }
+
+    @Override
+    public void applyExecutionUpdate(long taskId, boolean disable,
+            boolean hasState, int executionState,
+            boolean hasStart, long executionStart,
+            boolean hasEnd, long executionEnd,
+            boolean hasFireTimes, long nextFireAt, long currentWindowEnd,
+            long updatedAt) {
+        TaskEntity task = tasks.get(taskId);
+        if (task == null) {
+            return;
+        }
+        if (disable) {
+            task.setEnabled(false);
+        }
+        if (hasState) {
+            setState(task, executionState);
+        }
+        if (hasStart) {
+            task.setCurrentExecutionStart(executionStart);
+        }
+        if (hasEnd) {
+            task.setCurrentExecutionEnd(executionEnd);
+        }
+        if (hasFireTimes) {
+            task.setNextFireAt(nextFireAt);
+            task.setCurrentWindowEnd(currentWindowEnd);
+        }
+        if (updatedAt > 0) {
+            task.setUpdatedAt(updatedAt);
+        }
+    }
+
+    // ==================== 并发控制相关方法 ====================
+
+    @Override
+    public int getExecutingTaskCount() {
+        int count = 0;
+        for (TaskEntity task : tasks.values()) {
+            if (task.getExecutionState() == TaskExecutionState.EXECUTING.getValue()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public LiveData<Integer> getExecutingTaskCountLive() {
+        throw new UnsupportedOperationException("LiveData is not supported in simulation");
+    }
+
+    @Override
+    public List<TaskEntity> getWaitingSlotTasks() {
+        List<TaskEntity> result = copies(task -> task.getExecutionState() == TaskExecutionState.WAITING_SLOT.getValue());
+        result.sort(Comparator.comparingLong(TaskEntity::getCurrentExecutionStart));
+        return result;
+    }
+
+    // ==================== 恢复检查相关方法 ====================
+
+    @Override
+    public void updateFireTimes(long taskId, long nextFireAt, long currentWindowEnd) {
+        TaskEntity task = tasks.get(taskId);
+        if (task != null) {
+            task.setNextFireAt(nextFireAt);
+            task.setCurrentWindowEnd(currentWindowEnd);
+        }
+    }
+
+    /**
+     * 模拟器的定时堆不持久化，不存在 armed_alarms 行丢失的情况，只按触发时间筛选
+     */
+    @Override
+    public List<TaskEntity> getTasksNeedingRecovery(long now) {
+        return copies(task -> task.isEnabled()
+                && (task.getNextFireAt() <= now || task.getCurrentWindowEnd() > now));
+    }
+
+    @Override
+    public List<TaskEntity> getTasksInWindow() {
+        return copies(task -> task.isEnabled() && task.getCurrentWindowEnd() > 0);
+    }
+
+    @Override
+    public List<TaskEntity> getTasksWithFireTimesIn(long from, long to) {
+        return copies(task -> task.isEnabled()
+                && ((task.getNextFireAt() >= from && task.getNextFireAt() < to)
+                || (task.getCurrentWindowEnd() >= from && task.getCurrentWindowEnd() < to)));
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void setState(TaskEntity task, int executionState) {
+        onStateWritten(task.getExecutionState(), executionState);
+        task.setExecutionState(executionState);
+    }
+
+    private void onStateWritten(int oldState, int newState) {
+        if (newState == TaskExecutionState.SKIPPED.getValue()
+                && oldState != TaskExecutionState.SKIPPED.getValue()) {
+            skippedCount++;
+        }
+    }
+
+    private interface Filter {
+        boolean matches(TaskEntity task);
+    }
+
+    private List<TaskEntity> copies(Filter filter) {
+        List<TaskEntity> result = new ArrayList<>();
+        for (TaskEntity task : tasks.values()) {
+            if (filter.matches(task)) {
+                result.add(copyOf(task));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 复制实体，避免调用方修改存储的数据
+     */
+    static TaskEntity copyOf(TaskEntity source) {
+        return source.copy();
+    }
+}
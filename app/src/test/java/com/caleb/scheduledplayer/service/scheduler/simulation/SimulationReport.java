@@ -0,0 +1,127 @@
+package com.caleb.scheduledplayer.service.scheduler.simulation;
+
+import java.util.Locale;
+
+/**
+ * 调度模拟结果
+ */
+public class SimulationReport {
+
+    private final int taskCount;
+    private final int simulatedDays;
+    private final int maxConcurrentPlayback;
+    private final int[] concurrencyPerMinute;
+    private final long eventCount;
+    private final int skippedCount;
+    private final long preemptionCount;
+    private final long wallTimeMs;
+
+    SimulationReport(int taskCount, int simulatedDays, int maxConcurrentPlayback,
+            int[] concurrencyPerMinute, long eventCount, int skippedCount,
+            long preemptionCount, long wallTimeMs) {
+        this.taskCount = taskCount;
+        this.simulatedDays = simulatedDays;
+        this.maxConcurrentPlayback = maxConcurrentPlayback;
+        this.concurrencyPerMinute = concurrencyPerMinute;
+        this.eventCount = eventCount;
+        this.skippedCount = skippedCount;
+        this.preemptionCount = preemptionCount;
+        this.wallTimeMs = wallTimeMs;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public int getSimulatedDays() {
+        return simulatedDays;
+    }
+
+    public int getMaxConcurrentPlayback() {
+        return maxConcurrentPlayback;
+    }
+
+    /**
+     * 每个模拟分钟开始时占用的播放槽位数（下标为距模拟开始的分钟数）
+     */
+    public int[] getConcurrencyPerMinute() {
+        return concurrencyPerMinute;
+    }
+
+    /**
+     * 处理的闹钟事件数
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * 因并发限制被跳过的次数
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * 优先级抢占次数
+     */
+    public long getPreemptionCount() {
+        return preemptionCount;
+    }
+
+    /**
+     * 模拟耗费的真实时间
+     */
+    public long getWallTimeMs() {
+        return wallTimeMs;
+    }
+
+    public int getPeakConcurrency() {
+        int peak = 0;
+        for (int count : concurrencyPerMinute) {
+            peak = Math.max(peak, count);
+        }
+        return peak;
+    }
+
+    public double getAverageConcurrency() {
+        if (concurrencyPerMinute.length == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int count : concurrencyPerMinute) {
+            total += count;
+        }
+        return (double) total / concurrencyPerMinute.length;
+    }
+
+    /**
+     * 并发数达到上限的分钟数
+     */
+    public int getMinutesAtCapacity() {
+        int minutes = 0;
+        for (int count : concurrencyPerMinute) {
+            if (count >= maxConcurrentPlayback) {
+                minutes++;
+            }
+        }
+        return minutes;
+    }
+
+    /**
+     * 吞吐量：每秒真实时间处理的模拟事件数
+     */
+    public double getEventsPerSecond() {
+        return wallTimeMs > 0 ? eventCount * 1000.0 / wallTimeMs : eventCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "tasks=%d, days=%d, max=%d, peak=%d, avg=%.2f, minutesAtCapacity=%d, skipped=%d, "
+                        + "preempted=%d, events=%d, wall=%dms, throughput=%.0f events/s",
+                taskCount, simulatedDays, maxConcurrentPlayback, getPeakConcurrency(),
+                getAverageConcurrency(), getMinutesAtCapacity(), skippedCount, preemptionCount,
+                eventCount, wallTimeMs, getEventsPerSecond());
+    }
+}
@@ -0,0 +1,114 @@
+package com.caleb.scheduledplayer.benchmark;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.service.scheduler.TaskClassifier;
+import com.caleb.scheduledplayer.service.scheduler.WeeklySchedule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的代表性任务
+ * 覆盖普通时段、跨天、全天、一次性和每天五种形态
+ */
+final class BenchmarkTasks {
+
+    private BenchmarkTasks() {
+    }
+
+    static TaskEntity normal() {
+        return create(1, "08:00", "09:30",
+                TaskEntity.MONDAY | TaskEntity.WEDNESDAY | TaskEntity.FRIDAY, false);
+    }
+
+    static TaskEntity crossDay() {
+        return create(2, "22:00", "06:00",
+                TaskEntity.MONDAY | TaskEntity.TUESDAY | TaskEntity.SATURDAY, false);
+    }
+
+    static TaskEntity allDay() {
+        return create(3, "00:00", "00:00",
+                TaskEntity.SATURDAY | TaskEntity.SUNDAY, true);
+    }
+
+    static TaskEntity oneTime() {
+        return create(4, "14:15", "15:45", 0, false);
+    }
+
+    static TaskEntity everyday() {
+        return create(5, "07:00", "07:30", TaskEntity.EVERYDAY, false);
+    }
+
+    /**
+     * 按 @Param 名称创建任务
+     */
+    static TaskEntity byName(String shape) {
+        switch (shape) {
+            case "normal":
+                return normal();
+            case "crossDay":
+                return crossDay();
+            case "allDay":
+                return allDay();
+            case "oneTime":
+                return oneTime();
+            case "everyday":
+                return everyday();
+            default:
+                throw new IllegalArgumentException("Unknown task shape: " + shape);
+        }
+    }
+
+    static List<TaskEntity> all() {
+        List<TaskEntity> tasks = new ArrayList<>();
+        tasks.add(normal());
+        tasks.add(crossDay());
+        tasks.add(allDay());
+        tasks.add(oneTime());
+        tasks.add(everyday());
+        return tasks;
+    }
+
+    /**
+     * 随机生成的任务集，形态和优先级分布与调度模拟器一致，相同种子得到相同的任务
+     */
+    static List<TaskEntity> synthetic(int count, long seed) {
+        Random random = new Random(seed);
+        List<TaskEntity> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int start = random.nextInt(WeeklySchedule.MINUTES_PER_DAY);
+            int end = (start + 5 + random.nextInt(4 * 60)) % WeeklySchedule.MINUTES_PER_DAY;
+            boolean allDay = random.nextInt(100) < 5;
+
+            int repeatDays;
+            int repeatRoll = random.nextInt(100);
+            if (repeatRoll < 15) {
+                repeatDays = 0;
+            } else if (repeatRoll < 35) {
+                repeatDays = TaskEntity.EVERYDAY;
+            } else {
+                repeatDays = 1 + random.nextInt(TaskEntity.EVERYDAY);
+            }
+
+            TaskEntity task = create(i + 1, TaskClassifier.minutesToTimeString(start),
+                    TaskClassifier.minutesToTimeString(end), repeatDays, allDay);
+            task.setPriority(random.nextInt(TaskEntity.PRIORITY_CRITICAL + 1));
+            TaskClassifier.refreshDerivedFields(task);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static TaskEntity create(long id, String start, String end, int repeatDays, boolean allDay) {
+        TaskEntity task = new TaskEntity();
+        task.setId(id);
+        task.setName("Benchmark " + id);
+        task.setStartTime(start);
+        task.setEndTime(end);
+        task.setRepeatDays(repeatDays);
+        task.setAllDayPlay(allDay);
+        task.setEnabled(true);
+        return task;
+    }
+}
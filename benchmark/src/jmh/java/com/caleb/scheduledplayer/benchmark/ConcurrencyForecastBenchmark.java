@@ -0,0 +1,67 @@
+package com.caleb.scheduledplayer.benchmark;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.service.scheduler.AdmissionPolicy;
+import com.caleb.scheduledplayer.service.scheduler.ConcurrencyForecast;
+import com.caleb.scheduledplayer.service.scheduler.PriorityAdmissionPolicy;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerLog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConcurrencyForecast 基准测试
+ * 对数千个随机任务展开 7 天的执行并回放槽位分配，预测起点固定在一个周一 08:00
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConcurrencyForecastBenchmark {
+
+    private static final int MAX_CONCURRENT = 10;
+    private static final long SEED = 42;
+
+    @Param({"1000", "5000"})
+    public int taskCount;
+
+    @Param({"firstCome", "priority"})
+    public String policy;
+
+    private List<TaskEntity> tasks;
+    private AdmissionPolicy admissionPolicy;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        SchedulerLog.setMuted(true);
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2024, Calendar.JANUARY, 8, 8, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        now = calendar.getTimeInMillis();
+
+        tasks = BenchmarkTasks.synthetic(taskCount, SEED);
+        admissionPolicy = "priority".equals(policy) ? new PriorityAdmissionPolicy() : AdmissionPolicy.FIRST_COME;
+    }
+
+    @TearDown
+    public void tearDown() {
+        SchedulerLog.setMuted(false);
+    }
+
+    @Benchmark
+    public ConcurrencyForecast compute() {
+        return ConcurrencyForecast.compute(tasks, MAX_CONCURRENT, admissionPolicy, now);
+    }
+}
@@ -0,0 +1,54 @@
+package com.caleb.scheduledplayer.benchmark;
+
+import com.caleb.scheduledplayer.data.converter.Converters;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converters 基准测试
+ * 音频路径列表与 JSON 字符串互转，路径数从 10 到 10000
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConvertersBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int pathCount;
+
+    private List<String> paths;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        paths = new ArrayList<>(pathCount);
+        for (int i = 0; i < pathCount; i++) {
+            paths.add(String.format(Locale.US,
+                    "/storage/emulated/0/Music/Artist %d/Album %d/Track %03d - Title.mp3",
+                    i / 100, i / 10 % 10, i % 1000));
+        }
+        json = Converters.fromStringList(paths);
+    }
+
+    @Benchmark
+    public String fromStringList() {
+        return Converters.fromStringList(paths);
+    }
+
+    @Benchmark
+    public List<String> toStringList() {
+        return Converters.toStringList(json);
+    }
+}
@@ -0,0 +1,67 @@
+package com.caleb.scheduledplayer.benchmark;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerLog;
+import com.caleb.scheduledplayer.service.scheduler.TaskClassifier;
+import com.caleb.scheduledplayer.service.scheduler.TaskType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskClassifier 基准测试
+ * 轮流使用五种代表性任务；classifyCached 测量命中派生字段缓存的路径，classifyUncached 每次清空缓存后重新计算
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskClassifierBenchmark {
+
+    private static final String[] TIMES = {"00:00", "07:05", "09:30", "12:00", "18:45", "23:59"};
+
+    private TaskEntity[] tasks;
+    private int timeIndex;
+    private int taskIndex;
+
+    @Setup
+    public void setUp() {
+        SchedulerLog.setMuted(true);
+        tasks = BenchmarkTasks.all().toArray(new TaskEntity[0]);
+        for (TaskEntity task : tasks) {
+            TaskClassifier.refreshDerivedFields(task);
+        }
+    }
+
+    @Benchmark
+    public int parseTimeToMinutes() {
+        timeIndex = (timeIndex + 1) % TIMES.length;
+        return TaskClassifier.parseTimeToMinutes(TIMES[timeIndex]);
+    }
+
+    @Benchmark
+    public TaskType classifyCached() {
+        TaskEntity task = nextTask();
+        return TaskClassifier.classify(task);
+    }
+
+    @Benchmark
+    public TaskType classifyUncached() {
+        TaskEntity task = nextTask();
+        task.setTaskType(TaskEntity.TASK_TYPE_UNKNOWN);
+        task.setStartMinutes(TaskEntity.MINUTES_UNKNOWN);
+        task.setEndMinutes(TaskEntity.MINUTES_UNKNOWN);
+        return TaskClassifier.classify(task);
+    }
+
+    private TaskEntity nextTask() {
+        taskIndex = (taskIndex + 1) % tasks.length;
+        return tasks[taskIndex];
+    }
+}
@@ -0,0 +1,66 @@
+package com.caleb.scheduledplayer.benchmark;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerClock;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerLog;
+import com.caleb.scheduledplayer.service.scheduler.TaskClassifier;
+import com.caleb.scheduledplayer.service.scheduler.TaskTimeCalculator;
+import com.caleb.scheduledplayer.service.scheduler.TimeCheckResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskTimeCalculator 基准测试
+ * 调度时钟固定在一个周三 09:00，保证不同运行之间走的是同一条计算路径
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskTimeCalculatorBenchmark {
+
+    @Param({"normal", "crossDay", "allDay", "oneTime", "everyday"})
+    public String shape;
+
+    private TaskEntity task;
+
+    @Setup
+    public void setUp() {
+        SchedulerLog.setMuted(true);
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2024, Calendar.JANUARY, 10, 9, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        long fixedNow = calendar.getTimeInMillis();
+        SchedulerClock.setTimeSource(() -> fixedNow);
+
+        task = BenchmarkTasks.byName(shape);
+        TaskClassifier.refreshDerivedFields(task);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SchedulerClock.reset();
+        SchedulerLog.setMuted(false);
+    }
+
+    @Benchmark
+    public TimeCheckResult shouldBeActiveNow() {
+        return TaskTimeCalculator.shouldBeActiveNow(task);
+    }
+
+    @Benchmark
+    public long calculateNextStartTime() {
+        return TaskTimeCalculator.calculateNextStartTime(task);
+    }
+}
@@ -4,6 +4,7 @@ import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import com.caleb.scheduledplayer.service.scheduler.TaskExecutionState;
@@ -12,7 +13,11 @@ import com.caleb.scheduledplayer.service.scheduler.TaskExecutionState;
  * 任务实体类
  * 对应数据库中的 tasks 表
  */
-@Entity(tableName = "tasks")
+@Entity(tableName = "tasks",
+        indices = {
+                @Index(value = "next_fire_at"),
+                @Index(value = "current_window_end")
+        })
 public class TaskEntity {
 
     @PrimaryKey(autoGenerate = true)
@@ -45,12 +50,6 @@ public class TaskEntity {
     @ColumnInfo(name = "end_time")
     private String endTime;
 
-    /**
-     * 音频文件路径列表 (JSON 格式存储)
-     */
-    @ColumnInfo(name = "audio_paths")
-    private String audioPaths;
-
     /**
      * 播放模式: 0=顺序, 1=随机, 2=循环
      */
@@ -93,6 +92,13 @@ public class TaskEntity {
     @ColumnInfo(name = "all_day_play", defaultValue = "0")
     private boolean allDayPlay;
 
+    /**
+     * 扩展重复规则（隔周、起止日期、排除日期），null 表示只按 repeat_days 每周重复
+     * 格式见 com.caleb.scheduledplayer.service.scheduler.RecurrenceRule，一次性任务忽略
+     */
+    @ColumnInfo(name = "recurrence_rule")
+    private String recurrenceRule;
+
     /**
      * 执行状态
      * @see TaskExecutionState
@@ -113,11 +119,60 @@ public class TaskEntity {
     @ColumnInfo(name = "current_execution_end", defaultValue = "0")
     private long currentExecutionEnd = 0;
 
+    /**
+     * 并发优先级：并发数已满时，高优先级任务可以抢占低优先级任务的播放槽位
+     */
+    @ColumnInfo(name = "priority", defaultValue = "1")
+    private int priority = PRIORITY_NORMAL;
+
+    /**
+     * 开始时间的分钟数（由 start_time 解析，保存时写入）
+     * 调度热路径直接读取，避免重复解析字符串
+     * 源字段（start_time/end_time/repeat_days/all_day_play/recurrence_rule）的 setter 会将派生字段置为未计算，
+     * Room 读取时通过构造函数一起赋值，不经过这些 setter
+     */
+    @ColumnInfo(name = "start_minutes", defaultValue = "-1")
+    private int startMinutes = MINUTES_UNKNOWN;
+
+    /**
+     * 结束时间的分钟数（由 end_time 解析，保存时写入）
+     */
+    @ColumnInfo(name = "end_minutes", defaultValue = "-1")
+    private int endMinutes = MINUTES_UNKNOWN;
+
+    /**
+     * 任务类型缓存
+     * @see com.caleb.scheduledplayer.service.scheduler.TaskType#getValue()
+     */
+    @ColumnInfo(name = "task_type", defaultValue = "-1")
+    private int taskType = TASK_TYPE_UNKNOWN;
+
+    /**
+     * 下一次需要调度器处理的时间：已登记的开始/结束/重试事件中最早的触发时间
+     * 0 表示没有登记的事件或尚未计算，恢复检查时总会被选中
+     * 由 TaskScheduleManager 在每次调度后维护
+     */
+    @ColumnInfo(name = "next_fire_at", defaultValue = "0")
+    private long nextFireAt = 0;
+
+    /**
+     * 当前时间窗口的结束时间：窗口已开始（结束事件已登记、下一次开始不早于结束）时为结束事件的触发时间，否则为 0
+     * 由 TaskScheduleManager 在每次调度后维护
+     */
+    @ColumnInfo(name = "current_window_end", defaultValue = "0")
+    private long currentWindowEnd = 0;
+
     // 播放模式常量
     public static final int PLAY_MODE_SEQUENCE = 0;
     public static final int PLAY_MODE_RANDOM = 1;
     public static final int PLAY_MODE_LOOP = 2;
 
+    // 优先级常量
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_HIGH = 2;
+    public static final int PRIORITY_CRITICAL = 3;
+
     // 播放设备常量
     public static final int OUTPUT_DEVICE_DEFAULT = 0;
     public static final int OUTPUT_DEVICE_BLUETOOTH = 1;
@@ -132,6 +187,34 @@ public class TaskEntity {
     public static final int SUNDAY = 64;
     public static final int EVERYDAY = 127;
 
+    // 派生字段常量
+    /** 分钟数尚未计算 */
+    public static final int MINUTES_UNKNOWN = -1;
+    /** 时间字符串无法解析 */
+    public static final int MINUTES_INVALID = -2;
+    /** 任务类型尚未计算 */
+    public static final int TASK_TYPE_UNKNOWN = -1;
+
+    @Ignore
+    public TaskEntity() {
+    }
+
+    /**
+     * Room 读取数据库时使用的构造函数
+     * 源字段与派生列一起赋值，派生列不受 setter 调用顺序影响
+     */
+    public TaskEntity(@NonNull String startTime, @NonNull String endTime, int repeatDays,
+            boolean allDayPlay, String recurrenceRule, int startMinutes, int endMinutes, int taskType) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.repeatDays = repeatDays;
+        this.allDayPlay = allDayPlay;
+        this.recurrenceRule = recurrenceRule;
+        this.startMinutes = startMinutes;
+        this.endMinutes = endMinutes;
+        this.taskType = taskType;
+    }
+
     // Getters and Setters
     public long getId() {
         return id;
@@ -165,6 +248,8 @@ public class TaskEntity {
 
     public void setStartTime(@NonNull String startTime) {
         this.startTime = startTime;
+        this.startMinutes = MINUTES_UNKNOWN;
+        this.taskType = TASK_TYPE_UNKNOWN;
     }
 
     @NonNull
@@ -174,14 +259,8 @@ public class TaskEntity {
 
     public void setEndTime(@NonNull String endTime) {
         this.endTime = endTime;
-    }
-
-    public String getAudioPaths() {
-        return audioPaths;
-    }
-
-    public void setAudioPaths(String audioPaths) {
-        this.audioPaths = audioPaths;
+        this.endMinutes = MINUTES_UNKNOWN;
+        this.taskType = TASK_TYPE_UNKNOWN;
     }
 
     public int getPlayMode() {
@@ -206,6 +285,7 @@ public class TaskEntity {
 
     public void setRepeatDays(int repeatDays) {
         this.repeatDays = repeatDays;
+        this.taskType = TASK_TYPE_UNKNOWN;
     }
 
     public long getCreatedAt() {
@@ -238,6 +318,16 @@ public class TaskEntity {
 
     public void setAllDayPlay(boolean allDayPlay) {
         this.allDayPlay = allDayPlay;
+        this.taskType = TASK_TYPE_UNKNOWN;
+    }
+
+    public String getRecurrenceRule() {
+        return recurrenceRule;
+    }
+
+    public void setRecurrenceRule(String recurrenceRule) {
+        this.recurrenceRule = recurrenceRule;
+        this.taskType = TASK_TYPE_UNKNOWN;
     }
 
     /**
@@ -289,6 +379,58 @@ public class TaskEntity {
         this.currentExecutionEnd = currentExecutionEnd;
     }
 
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    // 派生字段的 Getter/Setter（由 TaskClassifier 维护）
+
+    public int getStartMinutes() {
+        return startMinutes;
+    }
+
+    public void setStartMinutes(int startMinutes) {
+        this.startMinutes = startMinutes;
+    }
+
+    public int getEndMinutes() {
+        return endMinutes;
+    }
+
+    public void setEndMinutes(int endMinutes) {
+        this.endMinutes = endMinutes;
+    }
+
+    public int getTaskType() {
+        return taskType;
+    }
+
+    public void setTaskType(int taskType) {
+        this.taskType = taskType;
+    }
+
+    // 调度维护的触发时间
+
+    public long getNextFireAt() {
+        return nextFireAt;
+    }
+
+    public void setNextFireAt(long nextFireAt) {
+        this.nextFireAt = nextFireAt;
+    }
+
+    public long getCurrentWindowEnd() {
+        return currentWindowEnd;
+    }
+
+    public void setCurrentWindowEnd(long currentWindowEnd) {
+        this.currentWindowEnd = currentWindowEnd;
+    }
+
     /**
      * 重置执行状态（用于任务编辑或重新启用时）
      */
@@ -306,9 +448,46 @@ public class TaskEntity {
     }
 
     /**
-     * 检查任务是否为每天重复任务
+     * 检查任务是否为每天重复任务（有扩展重复规则时不算每天）
      */
     public boolean isEveryday() {
-        return repeatDays == EVERYDAY;
+        return repeatDays == EVERYDAY && !hasRecurrenceRule();
+    }
+
+    /**
+     * 检查任务是否设置了扩展重复规则
+     */
+    public boolean hasRecurrenceRule() {
+        return recurrenceRule != null && !recurrenceRule.isEmpty();
+    }
+
+    /**
+     * 复制实体（直接复制字段，派生列保持原值）
+     */
+    public TaskEntity copy() {
+        TaskEntity copy = new TaskEntity();
+        copy.id = id;
+        copy.name = name;
+        copy.enabled = enabled;
+        copy.startTime = startTime;
+        copy.endTime = endTime;
+        copy.playMode = playMode;
+        copy.volume = volume;
+        copy.repeatDays = repeatDays;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        copy.outputDevice = outputDevice;
+        copy.allDayPlay = allDayPlay;
+        copy.recurrenceRule = recurrenceRule;
+        copy.executionState = executionState;
+        copy.currentExecutionStart = currentExecutionStart;
+        copy.currentExecutionEnd = currentExecutionEnd;
+        copy.priority = priority;
+        copy.startMinutes = startMinutes;
+        copy.endMinutes = endMinutes;
+        copy.taskType = taskType;
+        copy.nextFireAt = nextFireAt;
+        copy.currentWindowEnd = currentWindowEnd;
+        return copy;
     }
 }
@@ -0,0 +1,72 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+/**
+ * 时钟偏差估计
+ * 按 NTP 的方式由一次对时往返计算偏差：
+ * offset = ((t1 - t0) + (t2 - t3)) / 2，往返时间 rtt = (t3 - t0) - (t2 - t1)。
+ * 保留最近若干个样本，取往返时间最短的样本作为估计（排队延迟最小，不对称误差最小）
+ */
+public class ClockOffsetEstimator {
+
+    /**
+     * 保留的样本数
+     */
+    private static final int WINDOW = 8;
+
+    private final long[] offsets = new long[WINDOW];
+    private final long[] roundTrips = new long[WINDOW];
+    private int count;
+    private int next;
+
+    /**
+     * 添加一次对时样本
+     *
+     * @param t0 本地发出请求的时间
+     * @param t1 对端收到请求的时间
+     * @param t2 对端发出回复的时间
+     * @param t3 本地收到回复的时间
+     */
+    public synchronized void addSample(long t0, long t1, long t2, long t3) {
+        long rtt = (t3 - t0) - (t2 - t1);
+        if (rtt < 0) {
+            // 本地时钟在往返期间被回拨，样本无效
+            return;
+        }
+        offsets[next] = ((t1 - t0) + (t2 - t3)) / 2;
+        roundTrips[next] = rtt;
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW) {
+            count++;
+        }
+    }
+
+    public synchronized boolean hasEstimate() {
+        return count > 0;
+    }
+
+    /**
+     * 对端时钟减去本地时钟的估计值，没有样本时为 0
+     */
+    public synchronized long getOffsetMillis() {
+        int best = bestIndex();
+        return best >= 0 ? offsets[best] : 0;
+    }
+
+    /**
+     * 估计所用样本的往返时间，没有样本时为 -1
+     */
+    public synchronized long getRoundTripMillis() {
+        int best = bestIndex();
+        return best >= 0 ? roundTrips[best] : -1;
+    }
+
+    private int bestIndex() {
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            if (best < 0 || roundTrips[i] < roundTrips[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
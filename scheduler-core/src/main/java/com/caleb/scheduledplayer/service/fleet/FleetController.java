@@ -0,0 +1,362 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import com.caleb.scheduledplayer.service.scheduler.SchedulerClock;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协同控制端
+ * 调度只在控制端运行一次，产生的播放指令按批次推送给所有节点：
+ * 同一时刻连续发出的指令合并为一条命令，只编码一次，执行时间设为当前时间加上提前量，
+ * 各节点按对时结果换算到本地时钟后同时执行。节点增加时调度开销不变，只多一次发送。
+ *
+ * 节点通过对时请求注册，超时未收到对时请求视为离线；命令在执行时间过后一段时间内
+ * 对未确认的节点重发。新加入（或重启）的节点会收到当前正在播放的任务，随即补播
+ */
+public class FleetController implements FleetTransport.Receiver {
+
+    private static final String TAG = "FleetController";
+
+    /**
+     * 默认提前量：指令发出到执行之间留给网络传输和重发的时间
+     */
+    public static final long DEFAULT_LEAD_MILLIS = 300;
+
+    /**
+     * 重发和离线检查的间隔
+     */
+    private static final long MAINTENANCE_INTERVAL_MILLIS = 100;
+
+    /**
+     * 超过这个时间没有收到对时请求的节点视为离线（节点每 5 秒对时一次）
+     */
+    private static final long NODE_TIMEOUT_MILLIS = 20_000;
+
+    /**
+     * 执行时间过后继续重发的时长，迟到的指令节点会立即执行
+     */
+    private static final long LATE_GRACE_MILLIS = 2_000;
+
+    /**
+     * 单条命令的最大指令数，保证数据报不超过 UDP 上限
+     */
+    private static final int MAX_OPS_PER_COMMAND = 1000;
+
+    /**
+     * 已发出但还有节点未确认的命令
+     */
+    private static final class PendingCommand {
+        final byte[] payload;
+        final long executeAt;
+        final Set<String> unacked;
+
+        PendingCommand(byte[] payload, long executeAt, Set<String> unacked) {
+            this.payload = payload;
+            this.executeAt = executeAt;
+            this.unacked = unacked;
+        }
+    }
+
+    private final FleetTransport transport;
+    private final SchedulerClock.TimeSource clock;
+    private final long leadMillis;
+    private final FleetPlayer localPlayer;
+    private final long epoch;
+    private final ScheduledExecutorService executor;
+
+    // 以下状态由 this 保护
+    private final Map<String, Long> nodeLastSeen = new HashMap<>();
+    private final Map<String, Long> nodeEpochs = new HashMap<>();
+    private final Map<Long, PendingCommand> pending = new LinkedHashMap<>();
+    private final Set<Long> activeTaskIds = new LinkedHashSet<>();
+    private final List<FleetMessage.Op> openTick = new ArrayList<>();
+    private boolean flushScheduled;
+    private long lastSeq;
+
+    /**
+     * @param clock 控制端时钟，命令中的执行时间以它为准
+     * @param leadMillis 提前量
+     * @param localPlayer 控制端本机的播放端，在执行时间与节点同时执行；为 null 时本机不播放
+     */
+    public FleetController(FleetTransport transport, SchedulerClock.TimeSource clock,
+            long leadMillis, FleetPlayer localPlayer) {
+        this.transport = transport;
+        this.clock = clock;
+        this.leadMillis = leadMillis;
+        this.localPlayer = localPlayer;
+        this.epoch = clock.currentTimeMillis();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fleet-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 开始接收节点消息并定期重发
+     */
+    public void start() {
+        transport.setReceiver(this);
+        executor.scheduleWithFixedDelay(this::maintain, MAINTENANCE_INTERVAL_MILLIS,
+                MAINTENANCE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        SchedulerLog.i(TAG, "Fleet controller started, epoch " + epoch + ", lead " + leadMillis + "ms");
+    }
+
+    /**
+     * 停止控制端并关闭传输通道
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        transport.close();
+    }
+
+    // ==================== 播放指令 ====================
+
+    public void start(List<Long> taskIds) {
+        submit(FleetMessage.Kind.START, taskIds);
+    }
+
+    public void stop(List<Long> taskIds) {
+        submit(FleetMessage.Kind.STOP, taskIds);
+    }
+
+    public void pause(long taskId) {
+        submit(FleetMessage.Kind.PAUSE, Collections.singletonList(taskId));
+    }
+
+    /**
+     * @param scheduledStartTime 计划开始时间（控制端时钟）
+     */
+    public void prewarm(long taskId, long scheduledStartTime) {
+        List<FleetMessage.Op> ops = new ArrayList<>(1);
+        ops.add(new FleetMessage.Op(FleetMessage.Kind.PREWARM, taskId, scheduledStartTime));
+        submitOps(ops);
+    }
+
+    private void submit(FleetMessage.Kind kind, List<Long> taskIds) {
+        List<FleetMessage.Op> ops = new ArrayList<>(taskIds.size());
+        for (Long taskId : taskIds) {
+            ops.add(new FleetMessage.Op(kind, taskId, 0));
+        }
+        submitOps(ops);
+    }
+
+    /**
+     * 把指令加入当前批次；批次为空时安排一次发送，发送前加入的指令都合并到同一条命令
+     */
+    private void submitOps(List<FleetMessage.Op> ops) {
+        if (ops.isEmpty()) {
+            return;
+        }
+        boolean schedule;
+        synchronized (this) {
+            openTick.addAll(ops);
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+        if (schedule) {
+            executor.execute(this::flushTick);
+        }
+    }
+
+    private void flushTick() {
+        List<FleetMessage> commands = new ArrayList<>();
+        List<byte[]> payloads = new ArrayList<>();
+        List<String> targets;
+        long executeAt;
+        synchronized (this) {
+            flushScheduled = false;
+            if (openTick.isEmpty()) {
+                return;
+            }
+            executeAt = clock.currentTimeMillis() + leadMillis;
+            targets = new ArrayList<>(nodeLastSeen.keySet());
+            for (int from = 0; from < openTick.size(); from += MAX_OPS_PER_COMMAND) {
+                List<FleetMessage.Op> chunk = openTick.subList(from,
+                        Math.min(from + MAX_OPS_PER_COMMAND, openTick.size()));
+                FleetMessage command = FleetMessage.command(epoch, ++lastSeq, executeAt, chunk);
+                byte[] payload = command.encode();
+                if (!targets.isEmpty()) {
+                    pending.put(command.getSeq(), new PendingCommand(payload, executeAt, new HashSet<>(targets)));
+                }
+                commands.add(command);
+                payloads.add(payload);
+            }
+            for (FleetMessage.Op op : openTick) {
+                trackActive(op);
+            }
+            openTick.clear();
+        }
+
+        for (byte[] payload : payloads) {
+            for (String target : targets) {
+                transport.send(target, payload);
+            }
+        }
+        SchedulerLog.d(TAG, "Sent " + commands.size() + " command(s) to " + targets.size()
+                + " node(s), execute at " + executeAt);
+
+        if (localPlayer != null) {
+            long delay = Math.max(0, executeAt - clock.currentTimeMillis());
+            for (FleetMessage command : commands) {
+                command.applyPrewarms(localPlayer, 0);
+                executor.schedule(() -> applyLocally(command), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void applyLocally(FleetMessage command) {
+        try {
+            command.applyTo(localPlayer);
+        } catch (RuntimeException e) {
+            SchedulerLog.e(TAG, "Local playback failed for command " + command.getSeq(), e);
+        }
+    }
+
+    /**
+     * 记录正在播放的任务，供新加入的节点补播
+     */
+    private void trackActive(FleetMessage.Op op) {
+        switch (op.kind) {
+            case START:
+                activeTaskIds.add(op.taskId);
+                break;
+            case STOP:
+            case PAUSE:
+                activeTaskIds.remove(op.taskId);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // ==================== 节点消息 ====================
+
+    @Override
+    public void onMessage(String from, FleetMessage message) {
+        switch (message.getType()) {
+            case SYNC:
+                handleSync(from, message);
+                break;
+            case ACK:
+                handleAck(from, message);
+                break;
+            default:
+                SchedulerLog.w(TAG, "Unexpected " + message.getType() + " from " + from);
+                break;
+        }
+    }
+
+    private void handleSync(String from, FleetMessage message) {
+        long received = clock.currentTimeMillis();
+        byte[] catchUp = null;
+        synchronized (this) {
+            Long previous = nodeLastSeen.put(from, received);
+            Long previousEpoch = nodeEpochs.put(from, message.getEpoch());
+            boolean joined = previous == null || previousEpoch == null || previousEpoch != message.getEpoch();
+            if (joined) {
+                SchedulerLog.i(TAG, "Node " + from + " joined, " + nodeLastSeen.size() + " node(s) online");
+                if (!activeTaskIds.isEmpty()) {
+                    List<FleetMessage.Op> ops = new ArrayList<>(activeTaskIds.size());
+                    for (Long taskId : activeTaskIds) {
+                        ops.add(new FleetMessage.Op(FleetMessage.Kind.START, taskId, 0));
+                    }
+                    long executeAt = received + leadMillis;
+                    FleetMessage command = FleetMessage.command(epoch, ++lastSeq, executeAt, ops);
+                    catchUp = command.encode();
+                    Set<String> unacked = new HashSet<>();
+                    unacked.add(from);
+                    pending.put(command.getSeq(), new PendingCommand(catchUp, executeAt, unacked));
+                }
+            }
+        }
+        transport.send(from, FleetMessage.syncReply(message.getT0(), received,
+                clock.currentTimeMillis()).encode());
+        if (catchUp != null) {
+            transport.send(from, catchUp);
+        }
+    }
+
+    private synchronized void handleAck(String from, FleetMessage message) {
+        if (message.getEpoch() != epoch) {
+            return;
+        }
+        PendingCommand command = pending.get(message.getSeq());
+        if (command != null && command.unacked.remove(from) && command.unacked.isEmpty()) {
+            pending.remove(message.getSeq());
+        }
+    }
+
+    // ==================== 维护 ====================
+
+    /**
+     * 移除离线节点，对未确认的节点重发命令，放弃已过期的命令
+     */
+    private void maintain() {
+        long now = clock.currentTimeMillis();
+        List<String> resendTargets = new ArrayList<>();
+        List<byte[]> resendPayloads = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Long>> nodes = nodeLastSeen.entrySet().iterator();
+            while (nodes.hasNext()) {
+                Map.Entry<String, Long> node = nodes.next();
+                if (now - node.getValue() > NODE_TIMEOUT_MILLIS) {
+                    nodes.remove();
+                    nodeEpochs.remove(node.getKey());
+                    SchedulerLog.i(TAG, "Node " + node.getKey() + " timed out, "
+                            + nodeLastSeen.size() + " node(s) online");
+                }
+            }
+
+            Iterator<Map.Entry<Long, PendingCommand>> commands = pending.entrySet().iterator();
+            while (commands.hasNext()) {
+                Map.Entry<Long, PendingCommand> entry = commands.next();
+                PendingCommand command = entry.getValue();
+                command.unacked.retainAll(nodeLastSeen.keySet());
+                if (command.unacked.isEmpty()) {
+                    commands.remove();
+                } else if (now > command.executeAt + LATE_GRACE_MILLIS) {
+                    SchedulerLog.w(TAG, "Command " + entry.getKey() + " not acknowledged by " + command.unacked);
+                    commands.remove();
+                } else {
+                    for (String target : command.unacked) {
+                        resendTargets.add(target);
+                        resendPayloads.add(command.payload);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < resendTargets.size(); i++) {
+            transport.send(resendTargets.get(i), resendPayloads.get(i));
+        }
+    }
+
+    // ==================== 状态 ====================
+
+    /**
+     * 在线节点数
+     */
+    public synchronized int getNodeCount() {
+        return nodeLastSeen.size();
+    }
+
+    /**
+     * 还有节点未确认的命令数
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+}
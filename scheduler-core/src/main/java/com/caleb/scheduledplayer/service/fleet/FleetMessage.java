@@ -0,0 +1,302 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多设备协同的协议消息
+ * 每条消息是一个 UTF-8 文本行（一个 UDP 数据报），字段以空格分隔：
+ * <pre>
+ * SPF1 SYNC &lt;epoch&gt; &lt;t0&gt;                        节点 → 控制端：对时请求，同时作为注册/心跳
+ * SPF1 SYNC_REPLY &lt;t0&gt; &lt;t1&gt; &lt;t2&gt;                控制端 → 节点：回显 t0，附带控制端收到/发出的时间
+ * SPF1 CMD &lt;epoch&gt; &lt;seq&gt; &lt;executeAt&gt; &lt;ops&gt;    控制端 → 节点：一个调度批次的播放指令
+ * SPF1 ACK &lt;epoch&gt; &lt;seq&gt;                        节点 → 控制端：确认收到指令
+ * </pre>
+ * ops 为逗号分隔的指令列表，按发出顺序执行：S&lt;id&gt; 开始、T&lt;id&gt; 停止、P&lt;id&gt; 抢占暂停、
+ * W&lt;id&gt;@&lt;time&gt; 预热（time 为计划开始时间）。所有时间均为控制端时钟
+ */
+public final class FleetMessage {
+
+    private static final String MAGIC = "SPF1";
+
+    /**
+     * 消息类型
+     */
+    public enum Type {
+        SYNC,
+        SYNC_REPLY,
+        CMD,
+        ACK
+    }
+
+    /**
+     * 指令类型
+     */
+    public enum Kind {
+        START('S'),
+        STOP('T'),
+        PAUSE('P'),
+        PREWARM('W');
+
+        final char code;
+
+        Kind(char code) {
+            this.code = code;
+        }
+
+        static Kind fromCode(char code) {
+            for (Kind kind : values()) {
+                if (kind.code == code) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 单条播放指令
+     */
+    public static final class Op {
+        public final Kind kind;
+        public final long taskId;
+        /**
+         * 预热指令的计划开始时间（控制端时钟），其他指令为 0
+         */
+        public final long time;
+
+        public Op(Kind kind, long taskId, long time) {
+            this.kind = kind;
+            this.taskId = taskId;
+            this.time = time;
+        }
+
+        @Override
+        public String toString() {
+            return kind == Kind.PREWARM ? kind.code + Long.toString(taskId) + "@" + time
+                    : kind.code + Long.toString(taskId);
+        }
+    }
+
+    private final Type type;
+    private final long epoch;
+    private final long seq;
+    private final long t0;
+    private final long t1;
+    private final long t2;
+    private final List<Op> ops;
+
+    private FleetMessage(Type type, long epoch, long seq, long t0, long t1, long t2, List<Op> ops) {
+        this.type = type;
+        this.epoch = epoch;
+        this.seq = seq;
+        this.t0 = t0;
+        this.t1 = t1;
+        this.t2 = t2;
+        this.ops = ops;
+    }
+
+    public static FleetMessage sync(long epoch, long t0) {
+        return new FleetMessage(Type.SYNC, epoch, 0, t0, 0, 0, Collections.emptyList());
+    }
+
+    public static FleetMessage syncReply(long t0, long t1, long t2) {
+        return new FleetMessage(Type.SYNC_REPLY, 0, 0, t0, t1, t2, Collections.emptyList());
+    }
+
+    public static FleetMessage command(long epoch, long seq, long executeAt, List<Op> ops) {
+        return new FleetMessage(Type.CMD, epoch, seq, executeAt, 0, 0,
+                Collections.unmodifiableList(new ArrayList<>(ops)));
+    }
+
+    public static FleetMessage ack(long epoch, long seq) {
+        return new FleetMessage(Type.ACK, epoch, seq, 0, 0, 0, Collections.emptyList());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * 发送方启动时间：指令中为控制端的，控制端重启后序号重新开始，节点据此区分；
+     * 对时请求中为节点的，控制端据此发现节点重启
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * 指令的执行时间（控制端时钟）
+     */
+    public long getExecuteAt() {
+        return t0;
+    }
+
+    /**
+     * 对时请求的发出时间（节点时钟）
+     */
+    public long getT0() {
+        return t0;
+    }
+
+    /**
+     * 控制端收到对时请求的时间
+     */
+    public long getT1() {
+        return t1;
+    }
+
+    /**
+     * 控制端发出对时回复的时间
+     */
+    public long getT2() {
+        return t2;
+    }
+
+    public List<Op> getOps() {
+        return ops;
+    }
+
+    /**
+     * 按顺序执行指令：相邻的开始/停止指令合并为一次批量调用，预热指令不执行
+     * （预热在收到指令时就处理，见 {@link #applyPrewarms}）
+     */
+    public void applyTo(FleetPlayer player) {
+        int from = 0;
+        while (from < ops.size()) {
+            Kind kind = ops.get(from).kind;
+            int to = from + 1;
+            while (to < ops.size() && ops.get(to).kind == kind) {
+                to++;
+            }
+            if (kind == Kind.START || kind == Kind.STOP) {
+                List<Long> run = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    run.add(ops.get(i).taskId);
+                }
+                if (kind == Kind.START) {
+                    player.start(run);
+                } else {
+                    player.stop(run);
+                }
+            } else if (kind == Kind.PAUSE) {
+                for (int i = from; i < to; i++) {
+                    player.pause(ops.get(i).taskId);
+                }
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * 执行预热指令
+     *
+     * @param offsetMillis 控制端时钟减去本地时钟，用于把计划开始时间换算到本地
+     */
+    public void applyPrewarms(FleetPlayer player, long offsetMillis) {
+        for (Op op : ops) {
+            if (op.kind == Kind.PREWARM) {
+                player.prewarm(op.taskId, op.time - offsetMillis);
+            }
+        }
+    }
+
+    /**
+     * 编码为数据报内容
+     */
+    public byte[] encode() {
+        StringBuilder sb = new StringBuilder(32 + ops.size() * 8);
+        sb.append(MAGIC).append(' ').append(type.name());
+        switch (type) {
+            case SYNC:
+                sb.append(' ').append(epoch).append(' ').append(t0);
+                break;
+            case SYNC_REPLY:
+                sb.append(' ').append(t0).append(' ').append(t1).append(' ').append(t2);
+                break;
+            case CMD:
+                sb.append(' ').append(epoch).append(' ').append(seq).append(' ').append(t0).append(' ');
+                for (int i = 0; i < ops.size(); i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(ops.get(i));
+                }
+                break;
+            case ACK:
+                sb.append(' ').append(epoch).append(' ').append(seq);
+                break;
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解码数据报内容
+     *
+     * @return 消息，格式不正确时返回 null
+     */
+    public static FleetMessage decode(byte[] data, int length) {
+        String[] parts = new String(data, 0, length, StandardCharsets.UTF_8).trim().split(" ");
+        if (parts.length < 2 || !MAGIC.equals(parts[0])) {
+            return null;
+        }
+        try {
+            switch (Type.valueOf(parts[1])) {
+                case SYNC:
+                    return parts.length == 4 ? sync(Long.parseLong(parts[2]), Long.parseLong(parts[3])) : null;
+                case SYNC_REPLY:
+                    return parts.length == 5 ? syncReply(Long.parseLong(parts[2]),
+                            Long.parseLong(parts[3]), Long.parseLong(parts[4])) : null;
+                case CMD:
+                    if (parts.length != 6) {
+                        return null;
+                    }
+                    List<Op> ops = decodeOps(parts[5]);
+                    return ops != null ? command(Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+                            Long.parseLong(parts[4]), ops) : null;
+                case ACK:
+                    return parts.length == 4 ? ack(Long.parseLong(parts[2]), Long.parseLong(parts[3])) : null;
+                default:
+                    return null;
+            }
+        } catch (IllegalArgumentException e) {
+            // 未知类型或数字格式错误（NumberFormatException 是它的子类）
+            return null;
+        }
+    }
+
+    private static List<Op> decodeOps(String text) {
+        String[] items = text.split(",");
+        List<Op> ops = new ArrayList<>(items.length);
+        for (String item : items) {
+            if (item.length() < 2) {
+                return null;
+            }
+            Kind kind = Kind.fromCode(item.charAt(0));
+            if (kind == null) {
+                return null;
+            }
+            if (kind == Kind.PREWARM) {
+                int at = item.indexOf('@');
+                if (at < 0) {
+                    return null;
+                }
+                ops.add(new Op(kind, Long.parseLong(item.substring(1, at)), Long.parseLong(item.substring(at + 1))));
+            } else {
+                ops.add(new Op(kind, Long.parseLong(item.substring(1)), 0));
+            }
+        }
+        return ops;
+    }
+
+    @Override
+    public String toString() {
+        return new String(encode(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,166 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import com.caleb.scheduledplayer.service.scheduler.SchedulerClock;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerLog;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协同节点（跟随端）
+ * 不运行自己的调度，只执行控制端推送的播放指令：定期向控制端对时（同时作为注册和心跳），
+ * 收到命令后立即确认，再把控制端时钟的执行时间换算到本地时钟，到点交给本地播放端执行。
+ * 重发的命令按序号去重；只接受来自控制端地址的消息，
+ * 但来源地址可以伪造，协议本身不做认证，只应在可信的局域网中使用
+ */
+public class FleetNode implements FleetTransport.Receiver {
+
+    private static final String TAG = "FleetNode";
+
+    /**
+     * 常规对时间隔
+     */
+    private static final long SYNC_INTERVAL_MILLIS = 5_000;
+
+    /**
+     * 启动时连续对时的次数和间隔，尽快得到可靠的偏差估计
+     */
+    private static final int INITIAL_SYNC_COUNT = 5;
+    private static final long INITIAL_SYNC_INTERVAL_MILLIS = 200;
+
+    /**
+     * 记住的已执行命令序号数
+     */
+    private static final int SEEN_WINDOW = 512;
+
+    private final FleetTransport transport;
+    private final String controllerAddress;
+    private final SchedulerClock.TimeSource clock;
+    private final FleetPlayer player;
+    private final long epoch;
+    private final ClockOffsetEstimator offsetEstimator = new ClockOffsetEstimator();
+    private final ScheduledExecutorService executor;
+
+    // 以下状态由 this 保护
+    private final Set<Long> seenSeqs = new LinkedHashSet<>();
+    private long controllerEpoch;
+    private long lastLocalExecuteAt;
+
+    /**
+     * @param controllerAddress 控制端地址
+     * @param clock 本地时钟
+     * @param player 本地播放端
+     */
+    public FleetNode(FleetTransport transport, String controllerAddress,
+            SchedulerClock.TimeSource clock, FleetPlayer player) {
+        this.transport = transport;
+        this.controllerAddress = controllerAddress;
+        this.clock = clock;
+        this.player = player;
+        this.epoch = clock.currentTimeMillis();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fleet-node");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 开始对时并接收命令
+     */
+    public void start() {
+        transport.setReceiver(this);
+        for (int i = 0; i < INITIAL_SYNC_COUNT; i++) {
+            executor.schedule(this::sendSync, i * INITIAL_SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        executor.scheduleWithFixedDelay(this::sendSync, SYNC_INTERVAL_MILLIS,
+                SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        SchedulerLog.i(TAG, "Fleet node started, controller " + controllerAddress);
+    }
+
+    /**
+     * 停止节点并关闭传输通道，已安排但未执行的指令不再执行
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        transport.close();
+    }
+
+    /**
+     * 控制端时钟减去本地时钟的当前估计
+     */
+    public long getClockOffsetMillis() {
+        return offsetEstimator.getOffsetMillis();
+    }
+
+    private void sendSync() {
+        transport.send(controllerAddress, FleetMessage.sync(epoch, clock.currentTimeMillis()).encode());
+    }
+
+    @Override
+    public void onMessage(String from, FleetMessage message) {
+        if (!transport.isFrom(from, controllerAddress)) {
+            SchedulerLog.w(TAG, "Dropped " + message.getType() + " from " + from + ", not the controller");
+            return;
+        }
+        switch (message.getType()) {
+            case SYNC_REPLY:
+                offsetEstimator.addSample(message.getT0(), message.getT1(), message.getT2(),
+                        clock.currentTimeMillis());
+                break;
+            case CMD:
+                handleCommand(from, message);
+                break;
+            default:
+                SchedulerLog.w(TAG, "Unexpected " + message.getType() + " from " + from);
+                break;
+        }
+    }
+
+    private void handleCommand(String from, FleetMessage command) {
+        // 先确认，重发的命令也要确认（上一次的确认可能丢失）
+        transport.send(from, FleetMessage.ack(command.getEpoch(), command.getSeq()).encode());
+
+        if (!offsetEstimator.hasEstimate()) {
+            SchedulerLog.w(TAG, "Command " + command.getSeq() + " received before clock sync, assuming no offset");
+        }
+        long offset = offsetEstimator.getOffsetMillis();
+        long delay;
+        synchronized (this) {
+            if (command.getEpoch() != controllerEpoch) {
+                // 控制端重启，序号重新开始
+                controllerEpoch = command.getEpoch();
+                seenSeqs.clear();
+                lastLocalExecuteAt = 0;
+            }
+            if (!seenSeqs.add(command.getSeq())) {
+                return;
+            }
+            if (seenSeqs.size() > SEEN_WINDOW) {
+                Iterator<Long> oldest = seenSeqs.iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            // 偏差估计更新可能让换算后的执行时间略早于上一条命令，保持命令的先后顺序
+            long localExecuteAt = Math.max(command.getExecuteAt() - offset, lastLocalExecuteAt);
+            lastLocalExecuteAt = localExecuteAt;
+            delay = localExecuteAt - clock.currentTimeMillis();
+        }
+        if (delay < 0) {
+            SchedulerLog.w(TAG, "Command " + command.getSeq() + " arrived " + (-delay) + "ms late, executing now");
+        }
+
+        command.applyPrewarms(player, offset);
+        executor.schedule(() -> {
+            try {
+                command.applyTo(player);
+            } catch (RuntimeException e) {
+                SchedulerLog.e(TAG, "Playback failed for command " + command.getSeq(), e);
+            }
+        }, Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+}
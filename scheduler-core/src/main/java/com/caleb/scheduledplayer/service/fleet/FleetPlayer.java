@@ -0,0 +1,32 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import java.util.List;
+
+/**
+ * 执行协同指令的播放端
+ * 节点（以及参与播放的控制端本机）通过它驱动本地播放服务
+ */
+public interface FleetPlayer {
+
+    /**
+     * 批量启动任务播放
+     */
+    void start(List<Long> taskIds);
+
+    /**
+     * 批量停止任务播放
+     */
+    void stop(List<Long> taskIds);
+
+    /**
+     * 因并发抢占暂停任务播放
+     */
+    void pause(long taskId);
+
+    /**
+     * 预热任务播放
+     *
+     * @param scheduledStartTime 计划开始时间（本地时钟）
+     */
+    void prewarm(long taskId, long scheduledStartTime);
+}
@@ -0,0 +1,42 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+/**
+ * 协同消息的传输通道
+ * 地址是不透明的字符串：UDP 实现为 "host:port"，进程内实现为端点名称。
+ * 发送的是已编码的数据，控制端每个批次只编码一次，再发给所有节点
+ */
+public interface FleetTransport {
+
+    /**
+     * 消息接收回调，在传输层的接收线程上调用
+     */
+    interface Receiver {
+        void onMessage(String from, FleetMessage message);
+    }
+
+    /**
+     * 设置接收回调，之后收到的消息交给它处理
+     */
+    void setReceiver(Receiver receiver);
+
+    /**
+     * 发送已编码的消息，不保证送达
+     */
+    void send(String to, byte[] payload);
+
+    /**
+     * 判断收到的消息是否来自指定地址
+     * 同一端点可能有多种写法（例如主机名与 IP），默认按字符串比较
+     *
+     * @param from 接收回调中的来源地址
+     * @param address 配置的地址
+     */
+    default boolean isFrom(String from, String address) {
+        return from.equals(address);
+    }
+
+    /**
+     * 关闭通道，之后不再收发消息
+     */
+    void close();
+}
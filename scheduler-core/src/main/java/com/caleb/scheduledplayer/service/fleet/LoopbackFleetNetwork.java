@@ -0,0 +1,135 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import com.caleb.scheduledplayer.service.scheduler.SchedulerLog;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内的协同网络
+ * 用于在一台机器上以进程内替身节点验证协议：每个端点是一个 {@link FleetTransport}，
+ * 消息照常编码/解码，可为端点设置单程延迟，并按比例随机丢包
+ */
+public class LoopbackFleetNetwork {
+
+    private static final String TAG = "LoopbackFleetNetwork";
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Long> latencies = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService delivery;
+    private final Random random;
+    private volatile double lossRate;
+
+    /**
+     * @param seed 丢包随机数种子，相同种子得到相同的丢包序列
+     */
+    public LoopbackFleetNetwork(long seed) {
+        random = new Random(seed);
+        delivery = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fleet-loopback");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 创建端点
+     *
+     * @param address 端点地址（名称），在网络内唯一
+     */
+    public FleetTransport endpoint(String address) {
+        Endpoint endpoint = new Endpoint(address);
+        if (endpoints.putIfAbsent(address, endpoint) != null) {
+            throw new IllegalArgumentException("Endpoint already exists: " + address);
+        }
+        return endpoint;
+    }
+
+    /**
+     * 设置端点的单程延迟，发往和来自该端点的消息都会延迟
+     */
+    public void setLatency(String address, long latencyMillis) {
+        latencies.put(address, latencyMillis);
+    }
+
+    /**
+     * 设置丢包率（0 ~ 1）
+     */
+    public void setLossRate(double lossRate) {
+        this.lossRate = lossRate;
+    }
+
+    /**
+     * 关闭网络，停止投递
+     */
+    public void shutdown() {
+        delivery.shutdownNow();
+    }
+
+    private void deliver(String from, String to, byte[] payload) {
+        Endpoint target = endpoints.get(to);
+        if (target == null) {
+            return;
+        }
+        boolean lost;
+        synchronized (random) {
+            lost = random.nextDouble() < lossRate;
+        }
+        if (lost) {
+            return;
+        }
+        // 复制数据，模拟真实网络中收发双方不共享缓冲区
+        byte[] copy = payload.clone();
+        long delay = latencies.getOrDefault(from, 0L) + latencies.getOrDefault(to, 0L);
+        delivery.schedule(() -> target.receive(from, copy), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private final class Endpoint implements FleetTransport {
+        private final String address;
+        private volatile Receiver receiver;
+        private volatile boolean closed;
+
+        Endpoint(String address) {
+            this.address = address;
+        }
+
+        @Override
+        public void setReceiver(Receiver receiver) {
+            this.receiver = receiver;
+        }
+
+        @Override
+        public void send(String to, byte[] payload) {
+            if (!closed) {
+                deliver(address, to, payload);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            endpoints.remove(address);
+        }
+
+        void receive(String from, byte[] payload) {
+            Receiver current = receiver;
+            if (closed || current == null) {
+                return;
+            }
+            FleetMessage message = FleetMessage.decode(payload, payload.length);
+            if (message == null) {
+                SchedulerLog.w(TAG, "Dropped malformed message from " + from);
+                return;
+            }
+            try {
+                current.onMessage(from, message);
+            } catch (RuntimeException e) {
+                SchedulerLog.e(TAG, "Error handling message from " + from, e);
+            }
+        }
+    }
+}
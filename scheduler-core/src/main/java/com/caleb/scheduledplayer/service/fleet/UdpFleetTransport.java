@@ -0,0 +1,148 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import com.caleb.scheduledplayer.service.scheduler.SchedulerLog;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 UDP 的局域网传输通道
+ * 每条消息一个数据报，地址格式为 "host:port"；丢包由控制端的重发和节点的确认处理
+ */
+public class UdpFleetTransport implements FleetTransport {
+
+    private static final String TAG = "UdpFleetTransport";
+
+    /**
+     * 单个数据报的最大长度（UDP 上限）
+     */
+    private static final int MAX_DATAGRAM = 65507;
+
+    private final DatagramSocket socket;
+    private final Thread receiveThread;
+    private final Map<String, InetSocketAddress> resolved = new ConcurrentHashMap<>();
+    private volatile Receiver receiver;
+    private volatile boolean closed;
+
+    /**
+     * 绑定指定端口并开始接收
+     *
+     * @param port 本地端口，0 表示由系统分配
+     */
+    public UdpFleetTransport(int port) throws SocketException {
+        socket = new DatagramSocket(port);
+        receiveThread = new Thread(this::receiveLoop, "fleet-udp-" + socket.getLocalPort());
+        receiveThread.setDaemon(true);
+        receiveThread.start();
+    }
+
+    /**
+     * 实际绑定的本地端口
+     */
+    public int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    public void setReceiver(Receiver receiver) {
+        this.receiver = receiver;
+    }
+
+    @Override
+    public void send(String to, byte[] payload) {
+        if (closed) {
+            return;
+        }
+        try {
+            InetSocketAddress address = resolve(to);
+            if (address == null) {
+                SchedulerLog.w(TAG, "Cannot resolve " + to);
+                return;
+            }
+            socket.send(new DatagramPacket(payload, payload.length, address));
+        } catch (IOException | IllegalArgumentException e) {
+            SchedulerLog.w(TAG, "Failed to send to " + to + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 来源地址是接收时的 "IP:port"，配置的地址可以是主机名，解析后比较
+     */
+    @Override
+    public boolean isFrom(String from, String address) {
+        if (from.equals(address)) {
+            return true;
+        }
+        try {
+            InetSocketAddress expected = resolve(address);
+            return expected != null && from.equals(format(expected));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        socket.close();
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[MAX_DATAGRAM];
+        while (!closed) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (IOException e) {
+                if (!closed) {
+                    SchedulerLog.e(TAG, "Receive failed, transport stopped", e);
+                }
+                return;
+            }
+            FleetMessage message = FleetMessage.decode(packet.getData(), packet.getLength());
+            String from = format((InetSocketAddress) packet.getSocketAddress());
+            if (message == null) {
+                SchedulerLog.w(TAG, "Dropped malformed datagram from " + from);
+                continue;
+            }
+            Receiver current = receiver;
+            if (current != null) {
+                try {
+                    current.onMessage(from, message);
+                } catch (RuntimeException e) {
+                    SchedulerLog.e(TAG, "Error handling message from " + from, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 解析并缓存地址，解析失败时返回 null（不缓存，下次重试）
+     */
+    private InetSocketAddress resolve(String address) {
+        InetSocketAddress resolvedAddress = resolved.computeIfAbsent(address, UdpFleetTransport::parseAddress);
+        if (resolvedAddress.isUnresolved()) {
+            resolved.remove(address);
+            return null;
+        }
+        return resolvedAddress;
+    }
+
+    private static String format(InetSocketAddress address) {
+        return address.getAddress().getHostAddress() + ":" + address.getPort();
+    }
+
+    private static InetSocketAddress parseAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Invalid address: " + address);
+        }
+        return new InetSocketAddress(address.substring(0, colon),
+                Integer.parseInt(address.substring(colon + 1)));
+    }
+}
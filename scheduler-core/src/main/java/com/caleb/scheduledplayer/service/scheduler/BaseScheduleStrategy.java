@@ -1,9 +1,6 @@
 package com.caleb.scheduledplayer.service.scheduler;
 
-import com.caleb.scheduledplayer.util.AppLogger;
-
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
-import com.caleb.scheduledplayer.service.player.AudioPlaybackService;
 
 /**
  * 调度策略基类
@@ -21,21 +18,21 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
      * 记录调度日志
      */
     protected void logSchedule(TaskEntity task, String message) {
-        AppLogger.d(TAG, "Task " + task.getId() + " [" + task.getName() + "]: " + message);
+        SchedulerLog.d(TAG, "Task " + task.getId() + " [" + task.getName() + "]: " + message);
     }
 
     /**
      * 记录警告日志
      */
     protected void logWarning(TaskEntity task, String message) {
-        AppLogger.w(TAG, "Task " + task.getId() + " [" + task.getName() + "]: " + message);
+        SchedulerLog.w(TAG, "Task " + task.getId() + " [" + task.getName() + "]: " + message);
     }
 
     /**
      * 记录错误日志
      */
     protected void logError(TaskEntity task, String message, Throwable e) {
-        AppLogger.e(TAG, "Task " + task.getId() + " [" + task.getName() + "]: " + message, e);
+        SchedulerLog.e(TAG, "Task " + task.getId() + " [" + task.getName() + "]: " + message, e);
     }
 
     /**
@@ -44,7 +41,7 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
      * 
      * @return true 如果成功启动播放，false 如果进入等待状态
      */
-    protected boolean startPlaybackAndUpdateState(TaskEntity task, TaskScheduleManager manager, 
+    protected boolean startPlaybackAndUpdateState(TaskEntity task, ScheduleOperations manager, 
             long executionStart, long executionEnd) {
         logSchedule(task, "Attempting to start playback with concurrency check");
         
@@ -62,7 +59,7 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
      * 停止播放并更新状态为已完成
      * 用于一次性任务结束时
      */
-    protected void stopPlaybackAndUpdateState(TaskEntity task, TaskScheduleManager manager) {
+    protected void stopPlaybackAndUpdateState(TaskEntity task, ScheduleOperations manager) {
         logSchedule(task, "Stopping playback");
         
         // 停止播放
@@ -76,7 +73,7 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
      * 停止播放但不更新状态
      * 用于重复任务结束时，调用方会自行管理状态
      */
-    protected void stopPlaybackOnly(TaskEntity task, TaskScheduleManager manager) {
+    protected void stopPlaybackOnly(TaskEntity task, ScheduleOperations manager) {
         logSchedule(task, "Stopping playback (state managed by caller)");
         manager.stopPlayback(task);
     }
@@ -84,7 +81,7 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
     /**
      * 禁用一次性任务
      */
-    protected void disableOneTimeTask(TaskEntity task, TaskScheduleManager manager) {
+    protected void disableOneTimeTask(TaskEntity task, ScheduleOperations manager) {
         if (task.isOneTime()) {
             logSchedule(task, "One-time task completed, disabling");
             manager.disableTask(task);
@@ -94,7 +91,7 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
     /**
      * 调度下一次执行（重复任务）
      */
-    protected ScheduleResult scheduleNextExecution(TaskEntity task, TaskScheduleManager manager) {
+    protected ScheduleResult scheduleNextExecution(TaskEntity task, ScheduleOperations manager) {
         if (task.isOneTime()) {
             // 一次性任务没有下次执行
             return ScheduleResult.noSchedule("One-time task, no next execution");
@@ -110,9 +107,9 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
     /**
      * 验证任务是否可以开始执行
      */
-    protected boolean validateTaskForStart(TaskEntity task, TaskScheduleManager manager) {
+    protected boolean validateTaskForStart(TaskEntity task, ScheduleOperations manager) {
         if (task == null) {
-            AppLogger.w(TAG, "Task is null, cannot start");
+            SchedulerLog.w(TAG, "Task is null, cannot start");
             return false;
         }
 
@@ -128,7 +125,7 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
      * 通用的重启恢复逻辑
      */
     @Override
-    public void handleReboot(TaskEntity task, TaskScheduleManager manager) {
+    public void handleReboot(TaskEntity task, ScheduleOperations manager) {
         if (!validateTaskForStart(task, manager)) {
             return;
         }
@@ -157,8 +154,8 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
             if (currentState == TaskExecutionState.EXECUTING 
                     || currentState == TaskExecutionState.PAUSED) {
                 // 之前在执行中，检查是否需要恢复播放
-                // 使用 isTaskCurrentlyPlaying 检查**特定任务**是否正在播放
-                if (AudioPlaybackService.isTaskCurrentlyPlaying(task.getId())) {
+                // 使用 manager.isTaskPlaying 检查**特定任务**是否正在播放
+                if (manager.isTaskPlaying(task.getId())) {
                     logSchedule(task, "Task is currently playing, skipping startPlayback for state=" + currentState 
                             + " - playback should continue normally");
                     // 只确保结束闹钟正确设置
@@ -185,10 +182,10 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
      * 处理重启后在活跃时间范围内但状态不是执行中的情况
      * 子类可以覆写此方法实现特殊逻辑
      */
-    protected void handleRebootInActiveRange(TaskEntity task, TaskScheduleManager manager,
+    protected void handleRebootInActiveRange(TaskEntity task, ScheduleOperations manager,
             TimeCheckResult checkResult) {
         // 检查任务是否已经在播放
-        if (AudioPlaybackService.isTaskCurrentlyPlaying(task.getId())) {
+        if (manager.isTaskPlaying(task.getId())) {
             logSchedule(task, "Task already playing, skipping start");
             manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
             return;
@@ -197,7 +194,7 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
         // 默认行为：启动播放
         logSchedule(task, "In active range after reboot, starting playback");
         startPlaybackAndUpdateState(task, manager, 
-                System.currentTimeMillis(), checkResult.getEffectiveEndTime());
+                SchedulerClock.now(), checkResult.getEffectiveEndTime());
         manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
     }
 
@@ -206,7 +203,7 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
      * 默认实现：检查任务是否仍应活跃，如果是则尝试启动
      */
     @Override
-    public void handleRetryStart(TaskEntity task, TaskScheduleManager manager) {
+    public void handleRetryStart(TaskEntity task, ScheduleOperations manager) {
         logSchedule(task, "Retry start triggered");
         
         // 检查任务是否仍应活跃
@@ -218,7 +215,7 @@ public abstract class BaseScheduleStrategy implements ScheduleStrategy {
         }
         
         // 重新尝试启动
-        long now = System.currentTimeMillis();
+        long now = SchedulerClock.now();
         long endTime = task.getCurrentExecutionEnd();
         if (endTime <= 0) {
             endTime = checkResult.getEffectiveEndTime();
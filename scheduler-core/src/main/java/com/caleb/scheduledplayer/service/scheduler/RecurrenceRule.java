@@ -0,0 +1,350 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 扩展重复规则（编译后的日期位图）
+ * 在 repeatDays 星期掩码之外支持隔周重复、起止日期和排除日期（节假日等），
+ * 按自然年编译为"该日是否执行"的位图：位序号 = 当年第几天（0 起），每年 6 个 long。
+ * - 判断某天是否执行：一次位测试
+ * - 查找下一个执行日：按字（64 天）跳过不执行的日期，不逐天循环
+ *
+ * 规则文本格式（分号分隔，各项均可省略，日期为本地日期 yyyy-MM-dd）：
+ * INTERVAL=2;FROM=2026-01-05;UNTIL=2026-12-31;EXDATE=2026-05-01,2026-10-01
+ * - INTERVAL：每隔几周执行一次，以 FROM 所在周（周一开始）为第一周；没有 FROM 时以 1970-01-05 所在周为基准
+ * - FROM / UNTIL：生效的起止日期（含）
+ * - EXDATE：不执行的日期
+ *
+ * 日期以纪元日表示（本地日期距 1970-01-01 的天数）。
+ * 实例不可变（年位图按需编译后缓存），相同规则的任务共享同一个实例
+ */
+public final class RecurrenceRule {
+
+    private static final String TAG = "RecurrenceRule";
+
+    /**
+     * 没有执行日
+     */
+    public static final int NONE = Integer.MIN_VALUE;
+
+    private static final String KEY_INTERVAL = "INTERVAL";
+    private static final String KEY_FROM = "FROM";
+    private static final String KEY_UNTIL = "UNTIL";
+    private static final String KEY_EXDATE = "EXDATE";
+
+    /**
+     * 每年的位图字数（366 位）
+     */
+    private static final int WORDS_PER_YEAR = 6;
+
+    /**
+     * 查找下一个执行日时最多向后查找的年数
+     */
+    private static final int MAX_SEARCH_YEARS = 10;
+
+    /**
+     * 没有 FROM 时隔周计算的基准周一（1970-01-05）
+     */
+    private static final int EPOCH_MONDAY = 4;
+
+    /**
+     * 按规则文本和星期掩码缓存解析结果
+     */
+    private static final ConcurrentHashMap<String, RecurrenceRule> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存上限，超过后整体清空
+     */
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    /**
+     * 无法解析的规则，缓存后不再重复解析和记录日志
+     */
+    private static final RecurrenceRule INVALID = new RecurrenceRule(0, 1, NONE, Integer.MAX_VALUE, new int[0]);
+
+    private final int weekdayMask;
+    private final int weekInterval;
+    private final int fromDay;
+    private final int untilDay;
+    private final int anchorMonday;
+    private final int[] exceptionDays;
+
+    private final ConcurrentHashMap<Integer, YearDates> years = new ConcurrentHashMap<>();
+    private volatile YearDates lastYear;
+
+    /**
+     * 一年的日期位图
+     */
+    private static final class YearDates {
+        final int year;
+        final int firstDay;
+        final int length;
+        final long[] words;
+
+        YearDates(int year, int firstDay, int length, long[] words) {
+            this.year = year;
+            this.firstDay = firstDay;
+            this.length = length;
+            this.words = words;
+        }
+
+        boolean contains(int epochDay) {
+            return epochDay >= firstDay && epochDay < firstDay + length;
+        }
+    }
+
+    private RecurrenceRule(int weekdayMask, int weekInterval, int fromDay, int untilDay, int[] exceptionDays) {
+        this.weekdayMask = weekdayMask;
+        this.weekInterval = weekInterval;
+        this.fromDay = fromDay;
+        this.untilDay = untilDay;
+        this.anchorMonday = fromDay != NONE ? fromDay - dayOfWeekIndex(fromDay) : EPOCH_MONDAY;
+        this.exceptionDays = exceptionDays;
+    }
+
+    /**
+     * 获取任务的扩展重复规则
+     * @param task 任务实体
+     * @return 编译后的规则（共享实例）；一次性任务、没有规则或规则无法解析时返回 null
+     */
+    public static RecurrenceRule of(TaskEntity task) {
+        if (task.isOneTime() || !task.hasRecurrenceRule()) {
+            return null;
+        }
+        return of(task.getRecurrenceRule(), task.getRepeatDays());
+    }
+
+    /**
+     * 获取指定规则
+     * @param text 规则文本
+     * @param weekdayMask 星期掩码（与 repeatDays 相同，0 表示不限星期）
+     * @return 编译后的规则（共享实例），无法解析时返回 null
+     */
+    public static RecurrenceRule of(String text, int weekdayMask) {
+        String key = (weekdayMask & TaskEntity.EVERYDAY) + "#" + text;
+        RecurrenceRule rule = CACHE.get(key);
+        if (rule == null) {
+            if (CACHE.size() >= MAX_CACHE_SIZE) {
+                CACHE.clear();
+            }
+            rule = parse(text, weekdayMask & TaskEntity.EVERYDAY);
+            RecurrenceRule existing = CACHE.putIfAbsent(key, rule);
+            if (existing != null) {
+                rule = existing;
+            }
+        }
+        return rule != INVALID ? rule : null;
+    }
+
+    private static RecurrenceRule parse(String text, int weekdayMask) {
+        int interval = 1;
+        int from = NONE;
+        int until = Integer.MAX_VALUE;
+        int[] exceptions = new int[0];
+        try {
+            for (String part : text.split(";")) {
+                part = part.trim();
+                if (part.isEmpty()) {
+                    continue;
+                }
+                int separator = part.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("missing '=' in " + part);
+                }
+                String key = part.substring(0, separator).trim().toUpperCase(Locale.ROOT);
+                String value = part.substring(separator + 1).trim();
+                switch (key) {
+                    case KEY_INTERVAL:
+                        interval = Integer.parseInt(value);
+                        if (interval < 1) {
+                            throw new IllegalArgumentException("interval must be positive: " + interval);
+                        }
+                        break;
+                    case KEY_FROM:
+                        from = parseDay(value);
+                        break;
+                    case KEY_UNTIL:
+                        until = parseDay(value);
+                        break;
+                    case KEY_EXDATE:
+                        exceptions = parseDays(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown key " + key);
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            SchedulerLog.w(TAG, "Invalid recurrence rule '" + text + "': " + e.getMessage());
+            return INVALID;
+        }
+        return new RecurrenceRule(weekdayMask, interval, from, until, exceptions);
+    }
+
+    private static int parseDay(String value) {
+        return (int) LocalDate.parse(value).toEpochDay();
+    }
+
+    private static int[] parseDays(String value) {
+        if (value.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = value.split(",");
+        int[] days = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            days[i] = parseDay(parts[i].trim());
+        }
+        Arrays.sort(days);
+        return days;
+    }
+
+    /**
+     * 指定日期是否执行
+     * @param epochDay 本地日期的纪元日
+     */
+    public boolean runsOn(int epochDay) {
+        if (epochDay < fromDay || epochDay > untilDay) {
+            return false;
+        }
+        YearDates dates = yearOf(epochDay);
+        int bit = epochDay - dates.firstDay;
+        return (dates.words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * 查找下一个执行日（含 fromEpochDay 当天）
+     * @param fromEpochDay 起始日期的纪元日
+     * @return 执行日的纪元日，规则已结束或 {@link #MAX_SEARCH_YEARS} 年内没有执行日时返回 {@link #NONE}
+     */
+    public int nextRunDay(int fromEpochDay) {
+        int day = Math.max(fromEpochDay, fromDay);
+        if (day > untilDay) {
+            return NONE;
+        }
+        YearDates dates = yearOf(day);
+        int lastYearToSearch = dates.year + MAX_SEARCH_YEARS;
+        while (true) {
+            int bit = day - dates.firstDay;
+            int wordIndex = bit >>> 6;
+            long word = dates.words[wordIndex] & (-1L << bit);
+            while (word == 0 && ++wordIndex < WORDS_PER_YEAR) {
+                word = dates.words[wordIndex];
+            }
+            if (word != 0) {
+                // 超出 UNTIL 的日期编译时不置位
+                return dates.firstDay + (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            day = dates.firstDay + dates.length;
+            if (day > untilDay || dates.year >= lastYearToSearch) {
+                return NONE;
+            }
+            dates = yearOf(day);
+        }
+    }
+
+    private YearDates yearOf(int epochDay) {
+        YearDates dates = lastYear;
+        if (dates != null && dates.contains(epochDay)) {
+            return dates;
+        }
+        int year = LocalDate.ofEpochDay(epochDay).getYear();
+        dates = years.get(year);
+        if (dates == null) {
+            dates = compileYear(year);
+            YearDates existing = years.putIfAbsent(year, dates);
+            if (existing != null) {
+                dates = existing;
+            }
+        }
+        lastYear = dates;
+        return dates;
+    }
+
+    /**
+     * 编译一年的日期位图
+     */
+    private YearDates compileYear(int year) {
+        int firstDay = (int) LocalDate.of(year, 1, 1).toEpochDay();
+        int length = Year.isLeap(year) ? 366 : 365;
+        long[] words = new long[WORDS_PER_YEAR];
+        for (int i = 0; i < length; i++) {
+            if (matches(firstDay + i)) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return new YearDates(year, firstDay, length, words);
+    }
+
+    private boolean matches(int epochDay) {
+        if (epochDay < fromDay || epochDay > untilDay) {
+            return false;
+        }
+        if (weekdayMask != 0 && (weekdayMask & (1 << dayOfWeekIndex(epochDay))) == 0) {
+            return false;
+        }
+        if (weekInterval > 1 && Math.floorMod(Math.floorDiv(epochDay - anchorMonday, 7), weekInterval) != 0) {
+            return false;
+        }
+        return Arrays.binarySearch(exceptionDays, epochDay) < 0;
+    }
+
+    /**
+     * 星期序号，0=周一 ... 6=周日（1970-01-01 是周四）
+     */
+    private static int dayOfWeekIndex(int epochDay) {
+        return Math.floorMod(epochDay + 3, WeeklySchedule.DAYS_PER_WEEK);
+    }
+
+    public int getWeekInterval() {
+        return weekInterval;
+    }
+
+    /**
+     * 生效起始日期的纪元日，未设置时返回 {@link #NONE}
+     */
+    public int getFromDay() {
+        return fromDay;
+    }
+
+    /**
+     * 生效结束日期的纪元日，未设置时返回 {@link #NONE}
+     */
+    public int getUntilDay() {
+        return untilDay != Integer.MAX_VALUE ? untilDay : NONE;
+    }
+
+    /**
+     * 排除日期的纪元日（升序）
+     */
+    public int[] getExceptionDays() {
+        return exceptionDays.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(KEY_INTERVAL).append('=').append(weekInterval);
+        if (fromDay != NONE) {
+            sb.append(';').append(KEY_FROM).append('=').append(LocalDate.ofEpochDay(fromDay));
+        }
+        if (untilDay != Integer.MAX_VALUE) {
+            sb.append(';').append(KEY_UNTIL).append('=').append(LocalDate.ofEpochDay(untilDay));
+        }
+        if (exceptionDays.length > 0) {
+            sb.append(';').append(KEY_EXDATE).append('=');
+            for (int i = 0; i < exceptionDays.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(LocalDate.ofEpochDay(exceptionDays[i]));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+
+/**
+ * 调度操作接口
+ * 调度策略通过它执行实际操作（播放、状态持久化、闹钟），不直接依赖宿主环境；
+ * 应用中由 TaskScheduleManager 实现（Room、AlarmManager、播放服务），其他宿主可提供自己的实现。
+ * 当前时间通过 {@link SchedulerClock} 读取
+ */
+public interface ScheduleOperations {
+
+    // ==================== 播放 ====================
+
+    /**
+     * 启动任务播放（不检查并发）
+     */
+    void startPlayback(TaskEntity task);
+
+    /**
+     * 停止任务播放
+     */
+    void stopPlayback(TaskEntity task);
+
+    /**
+     * 检查任务是否正在播放
+     */
+    boolean isTaskPlaying(long taskId);
+
+    /**
+     * 检查并发并尝试启动播放，并发已满时进入等待
+     *
+     * @param executionStart 执行开始时间戳
+     * @param executionEnd 执行结束时间戳
+     * @return true 如果成功启动播放，false 如果因并发限制进入等待
+     */
+    boolean tryStartPlaybackWithConcurrencyCheck(TaskEntity task, long executionStart, long executionEnd);
+
+    /**
+     * 处理因并发限制等待超时而跳过的任务
+     */
+    void handleSkipDueToConcurrency(TaskEntity task);
+
+    // ==================== 状态持久化 ====================
+
+    /**
+     * 更新任务执行状态
+     */
+    void updateTaskState(TaskEntity task, TaskExecutionState state);
+
+    /**
+     * 只更新执行结束时间
+     */
+    void updateExecutionEndTime(TaskEntity task, long executionEnd);
+
+    /**
+     * 禁用任务（同时取消其闹钟）
+     */
+    void disableTask(TaskEntity task);
+
+    // ==================== 闹钟 ====================
+
+    /**
+     * 设置开始闹钟
+     */
+    void setStartAlarm(long taskId, long triggerTime);
+
+    /**
+     * 设置结束闹钟
+     */
+    void setEndAlarm(long taskId, long triggerTime);
+
+    /**
+     * 取消开始闹钟
+     */
+    void cancelStartAlarm(long taskId);
+}
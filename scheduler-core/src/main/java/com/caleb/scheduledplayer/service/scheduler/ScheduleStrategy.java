@@ -16,7 +16,7 @@ public interface ScheduleStrategy {
      * @param manager 调度管理器（用于执行实际操作）
      * @return ScheduleResult 调度结果
      */
-    ScheduleResult schedule(TaskEntity task, TaskScheduleManager manager);
+    ScheduleResult schedule(TaskEntity task, ScheduleOperations manager);
 
     /**
      * 处理开始闹钟触发
@@ -24,7 +24,7 @@ public interface ScheduleStrategy {
      * @param task 任务实体
      * @param manager 调度管理器
      */
-    void handleStart(TaskEntity task, TaskScheduleManager manager);
+    void handleStart(TaskEntity task, ScheduleOperations manager);
 
     /**
      * 处理结束闹钟触发
@@ -32,7 +32,7 @@ public interface ScheduleStrategy {
      * @param task 任务实体
      * @param manager 调度管理器
      */
-    void handleStop(TaskEntity task, TaskScheduleManager manager);
+    void handleStop(TaskEntity task, ScheduleOperations manager);
 
     /**
      * 处理设备重启后的恢复
@@ -40,7 +40,7 @@ public interface ScheduleStrategy {
      * @param task 任务实体
      * @param manager 调度管理器
      */
-    void handleReboot(TaskEntity task, TaskScheduleManager manager);
+    void handleReboot(TaskEntity task, ScheduleOperations manager);
 
     /**
      * 处理重试启动（因并发限制等待后的重试）
@@ -48,7 +48,7 @@ public interface ScheduleStrategy {
      * @param task 任务实体
      * @param manager 调度管理器
      */
-    void handleRetryStart(TaskEntity task, TaskScheduleManager manager);
+    void handleRetryStart(TaskEntity task, ScheduleOperations manager);
 
     /**
      * 获取此策略支持的任务类型
@@ -0,0 +1,46 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+/**
+ * 调度时钟
+ * 调度相关代码（策略、时间计算、闹钟调度）统一从这里读取当前时间，
+ * 模拟器可替换为虚拟时钟，在几秒内回放多天的调度过程
+ *
+ * 时间源是进程级的，只能在模拟/测试进程中替换
+ */
+public final class SchedulerClock {
+
+    /**
+     * 时间源
+     */
+    public interface TimeSource {
+        long currentTimeMillis();
+    }
+
+    private static final TimeSource SYSTEM = System::currentTimeMillis;
+
+    private static volatile TimeSource source = SYSTEM;
+
+    private SchedulerClock() {
+    }
+
+    /**
+     * 获取当前时间戳
+     */
+    public static long now() {
+        return source.currentTimeMillis();
+    }
+
+    /**
+     * 替换时间源，传入 null 时恢复系统时钟
+     */
+    public static void setTimeSource(TimeSource timeSource) {
+        source = timeSource != null ? timeSource : SYSTEM;
+    }
+
+    /**
+     * 恢复系统时钟
+     */
+    public static void reset() {
+        source = SYSTEM;
+    }
+}
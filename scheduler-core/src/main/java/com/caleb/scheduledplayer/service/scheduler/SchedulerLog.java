@@ -0,0 +1,96 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+/**
+ * 调度日志
+ * 调度核心不依赖 Android，日志统一写到这里，由宿主通过 {@link #setSink} 接入自己的日志系统
+ * （应用中转发到 AppLogger）；未设置时输出到标准输出/标准错误
+ *
+ * 输出目标是进程级的，应在任何调度代码运行之前设置
+ */
+public final class SchedulerLog {
+
+    /**
+     * 日志输出目标
+     */
+    public interface Sink {
+        void d(String tag, String msg);
+
+        void i(String tag, String msg);
+
+        void w(String tag, String msg);
+
+        void e(String tag, String msg, Throwable tr);
+    }
+
+    private static final Sink CONSOLE = new Sink() {
+        @Override
+        public void d(String tag, String msg) {
+            System.out.println("D/" + tag + ": " + msg);
+        }
+
+        @Override
+        public void i(String tag, String msg) {
+            System.out.println("I/" + tag + ": " + msg);
+        }
+
+        @Override
+        public void w(String tag, String msg) {
+            System.err.println("W/" + tag + ": " + msg);
+        }
+
+        @Override
+        public void e(String tag, String msg, Throwable tr) {
+            System.err.println("E/" + tag + ": " + msg);
+            if (tr != null) {
+                tr.printStackTrace();
+            }
+        }
+    };
+
+    private static volatile Sink sink = CONSOLE;
+    private static volatile boolean muted = false;
+
+    private SchedulerLog() {
+    }
+
+    /**
+     * 设置日志输出目标，传入 null 时恢复控制台输出
+     */
+    public static void setSink(Sink newSink) {
+        sink = newSink != null ? newSink : CONSOLE;
+    }
+
+    /**
+     * 暂停 Debug/Info/Warning 级别日志，错误日志不受影响
+     * 用于基准测试等短时间内产生海量调度日志的场景
+     */
+    public static void setMuted(boolean mute) {
+        muted = mute;
+    }
+
+    public static void d(String tag, String msg) {
+        if (!muted) {
+            sink.d(tag, msg);
+        }
+    }
+
+    public static void i(String tag, String msg) {
+        if (!muted) {
+            sink.i(tag, msg);
+        }
+    }
+
+    public static void w(String tag, String msg) {
+        if (!muted) {
+            sink.w(tag, msg);
+        }
+    }
+
+    public static void e(String tag, String msg) {
+        sink.e(tag, msg, null);
+    }
+
+    public static void e(String tag, String msg, Throwable tr) {
+        sink.e(tag, msg, tr);
+    }
+}
@@ -1,12 +1,14 @@
 package com.caleb.scheduledplayer.service.scheduler;
 
-import com.caleb.scheduledplayer.util.AppLogger;
-
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
 
 /**
  * 任务分类器
  * 根据任务属性识别任务类型
+ *
+ * 解析出的分钟数和任务类型缓存在 TaskEntity 的派生列中（start_minutes/end_minutes/task_type），
+ * 保存任务前调用 {@link #refreshDerivedFields(TaskEntity)} 写入；
+ * 读取时优先使用派生列，未计算时才解析字符串并回填到实体
  */
 public class TaskClassifier {
 
@@ -22,8 +24,23 @@ public class TaskClassifier {
             throw new IllegalArgumentException("Task cannot be null");
         }
 
+        TaskType cached = TaskType.fromValue(task.getTaskType());
+        if (cached != null) {
+            return cached;
+        }
+
+        TaskType type = computeType(task);
+        task.setTaskType(type.getValue());
+        return type;
+    }
+
+    /**
+     * 根据任务属性计算类型（不使用缓存）
+     */
+    private static TaskType computeType(TaskEntity task) {
         boolean isOneTime = task.getRepeatDays() == 0;
-        boolean isEveryday = task.getRepeatDays() == TaskEntity.EVERYDAY;
+        // 有扩展重复规则（隔周、排除日期等）的任务不是每天执行，按普通重复任务处理
+        boolean isEveryday = task.isEveryday();
         boolean isAllDay = task.isAllDayPlay();
         boolean isCrossDay = isCrossDayTask(task);
 
@@ -67,12 +84,12 @@ public class TaskClassifier {
             return false;
         }
 
-        int startMinutes = parseTimeToMinutes(task.getStartTime());
-        int endMinutes = parseTimeToMinutes(task.getEndTime());
+        int startMinutes = getStartMinutes(task);
+        int endMinutes = getEndMinutes(task);
 
         // 如果解析失败，视为非跨天
         if (startMinutes < 0 || endMinutes < 0) {
-            AppLogger.w(TAG, "isCrossDayTask: failed to parse time for task " + task.getId());
+            SchedulerLog.w(TAG, "isCrossDayTask: failed to parse time for task " + task.getId());
             return false;
         }
 
@@ -81,6 +98,57 @@ public class TaskClassifier {
         return endMinutes < startMinutes;
     }
 
+    /**
+     * 获取任务开始时间的分钟数
+     * 优先读取 start_minutes 列，未计算时解析 start_time 并回填
+     * @param task 任务实体
+     * @return 从午夜开始的分钟数，解析失败返回 -1
+     */
+    public static int getStartMinutes(TaskEntity task) {
+        int minutes = task.getStartMinutes();
+        if (minutes == TaskEntity.MINUTES_UNKNOWN) {
+            minutes = toStoredMinutes(parseTimeToMinutes(task.getStartTime()));
+            task.setStartMinutes(minutes);
+        }
+        return minutes >= 0 ? minutes : -1;
+    }
+
+    /**
+     * 获取任务结束时间的分钟数
+     * 优先读取 end_minutes 列，未计算时解析 end_time 并回填
+     * @param task 任务实体
+     * @return 从午夜开始的分钟数，解析失败返回 -1
+     */
+    public static int getEndMinutes(TaskEntity task) {
+        int minutes = task.getEndMinutes();
+        if (minutes == TaskEntity.MINUTES_UNKNOWN) {
+            minutes = toStoredMinutes(parseTimeToMinutes(task.getEndTime()));
+            task.setEndMinutes(minutes);
+        }
+        return minutes >= 0 ? minutes : -1;
+    }
+
+    /**
+     * 重新计算任务的派生字段（分钟数和任务类型）
+     * 保存任务前调用，确保写入数据库的派生列与时间字符串一致
+     * @param task 任务实体
+     */
+    public static void refreshDerivedFields(TaskEntity task) {
+        if (task == null) {
+            return;
+        }
+        task.setStartMinutes(toStoredMinutes(parseTimeToMinutes(task.getStartTime())));
+        task.setEndMinutes(toStoredMinutes(parseTimeToMinutes(task.getEndTime())));
+        task.setTaskType(computeType(task).getValue());
+    }
+
+    /**
+     * 解析结果转换为存储值：解析失败记为 MINUTES_INVALID，避免与"未计算"混淆
+     */
+    private static int toStoredMinutes(int minutes) {
+        return minutes >= 0 ? minutes : TaskEntity.MINUTES_INVALID;
+    }
+
     /**
      * 将时间字符串解析为分钟数
      * @param time 时间字符串，格式 "HH:mm"
@@ -88,7 +156,7 @@ public class TaskClassifier {
      */
     public static int parseTimeToMinutes(String time) {
         if (time == null || time.isEmpty()) {
-            AppLogger.w(TAG, "parseTimeToMinutes: time is null or empty");
+            SchedulerLog.w(TAG, "parseTimeToMinutes: time is null or empty");
             return -1;
         }
 
@@ -100,16 +168,16 @@ public class TaskClassifier {
                 
                 // 验证时间范围
                 if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
-                    AppLogger.w(TAG, "parseTimeToMinutes: invalid time value - " + time);
+                    SchedulerLog.w(TAG, "parseTimeToMinutes: invalid time value - " + time);
                     return -1;
                 }
                 
                 return hours * 60 + minutes;
             } else {
-                AppLogger.w(TAG, "parseTimeToMinutes: invalid format - " + time);
+                SchedulerLog.w(TAG, "parseTimeToMinutes: invalid format - " + time);
             }
         } catch (NumberFormatException e) {
-            AppLogger.w(TAG, "parseTimeToMinutes: failed to parse - " + time + ", error: " + e.getMessage());
+            SchedulerLog.w(TAG, "parseTimeToMinutes: failed to parse - " + time + ", error: " + e.getMessage());
         }
 
         return -1;
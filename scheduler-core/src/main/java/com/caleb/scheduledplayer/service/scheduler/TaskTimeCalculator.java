@@ -0,0 +1,444 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * 任务时间计算器
+ * 统一处理所有时间相关的计算逻辑
+ */
+public class TaskTimeCalculator {
+
+    private static final String TAG = "TaskTimeCalculator";
+
+    private static final long MINUTE_MS = 60 * 1000L;
+    private static final long DAY_MS = WeeklySchedule.MINUTES_PER_DAY * MINUTE_MS;
+
+    /**
+     * 午夜检查时间相对当天零点的偏移（00:00:05）
+     */
+    private static final long MIDNIGHT_CHECK_OFFSET_MS = 5 * 1000L;
+
+    /**
+     * 获取任务开始时间的分钟数（读取派生列），解析失败返回 0
+     */
+    static int getStartMinutes(TaskEntity task) {
+        return Math.max(TaskClassifier.getStartMinutes(task), 0);
+    }
+
+    /**
+     * 获取任务结束时间的分钟数（读取派生列），解析失败返回 0
+     */
+    static int getEndMinutes(TaskEntity task) {
+        return Math.max(TaskClassifier.getEndMinutes(task), 0);
+    }
+
+    /**
+     * 判断任务当前是否应该处于活跃状态
+     * @param task 任务实体
+     * @return TimeCheckResult 包含是否活跃及原因
+     */
+    public static TimeCheckResult shouldBeActiveNow(TaskEntity task) {
+        return shouldBeActiveAt(task, SchedulerClock.now());
+    }
+
+    /**
+     * 判断任务在指定时刻是否应该处于活跃状态
+     * 使用预编译的周位图，一次位测试即可判断，不创建 Calendar
+     * 
+     * @param task 任务实体
+     * @param now 判断时刻的时间戳
+     * @return TimeCheckResult 包含是否活跃及原因
+     */
+    public static TimeCheckResult shouldBeActiveAt(TaskEntity task, long now) {
+        if (task == null) {
+            return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.TASK_NULL);
+        }
+
+        if (!task.isEnabled()) {
+            return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.TASK_DISABLED);
+        }
+
+        TaskType type = TaskClassifier.classify(task);
+        WeeklySchedule schedule = WeeklySchedule.of(task);
+        TimeZone zone = TimeZone.getDefault();
+        long localNow = toLocalMillis(now, zone);
+        long localDayStart = localDayStart(localNow);
+        int currentMinutes = (int) ((localNow - localDayStart) / MINUTE_MS);
+        boolean active = schedule.isActiveAt(minuteOfWeek(localDayStart, currentMinutes));
+
+        // 周位图只按星期判断，有扩展重复规则时再检查日期位图（跨天任务的凌晨部分属于前一天的执行）
+        RecurrenceRule rule = RecurrenceRule.of(task);
+        if (active && rule != null) {
+            int runDay = toEpochDay(localDayStart);
+            if (type.isCrossDay() && currentMinutes < schedule.getStartMinutes()) {
+                runDay--;
+            }
+            active = rule.runsOn(runDay);
+        }
+
+        if (type.isAllDay()) {
+            if (active) {
+                // 全天任务的结束时间是今天午夜（明天 00:00:05）
+                long endTime = toUtcMillis(localDayStart + DAY_MS + MIDNIGHT_CHECK_OFFSET_MS, zone);
+                return TimeCheckResult.active(TimeCheckResult.ActiveReason.ALL_DAY_ACTIVE, endTime);
+            }
+            return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.ALL_DAY_NOT_TODAY);
+        }
+
+        int startMinutes = schedule.getStartMinutes();
+        int endMinutes = schedule.getEndMinutes();
+
+        if (!type.isCrossDay()) {
+            if (active) {
+                long endTime = toUtcMillis(localDayStart + endMinutes * MINUTE_MS, zone);
+                return TimeCheckResult.active(TimeCheckResult.ActiveReason.IN_NORMAL_RANGE, endTime);
+            }
+            boolean inRange = currentMinutes >= startMinutes && currentMinutes < endMinutes;
+            return TimeCheckResult.inactive(inRange
+                    ? TimeCheckResult.ActiveReason.NOT_REPEAT_DAY
+                    : TimeCheckResult.ActiveReason.NOT_IN_RANGE);
+        }
+
+        // 跨天任务
+        boolean evening = currentMinutes >= startMinutes;
+        boolean morning = !evening && currentMinutes < endMinutes;
+        if (!evening && !morning) {
+            // 白天部分：不在跨天任务的时间范围内
+            return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.NOT_IN_RANGE);
+        }
+        if (!active) {
+            // 晚间部分检查"今天"、凌晨部分检查"昨天"是否在重复日中，均已编入位图
+            return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.NOT_REPEAT_DAY);
+        }
+
+        if (evening) {
+            // 结束时间是明天的结束时间
+            long endTime = toUtcMillis(localDayStart + DAY_MS + endMinutes * MINUTE_MS, zone);
+            return TimeCheckResult.active(TimeCheckResult.ActiveReason.IN_CROSS_DAY_EVENING, endTime);
+        }
+
+        // 一次性跨天任务的凌晨部分：只有存在执行状态记录时才恢复，否则保守处理不恢复
+        if (type == TaskType.ONE_TIME_CROSS_DAY) {
+            TaskExecutionState state = task.getExecutionStateEnum();
+            if (state != TaskExecutionState.EXECUTING && state != TaskExecutionState.PAUSED) {
+                return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.ONE_TIME_MORNING_NO_STATE);
+            }
+        }
+
+        long endTime = toUtcMillis(localDayStart + endMinutes * MINUTE_MS, zone);
+        return TimeCheckResult.active(TimeCheckResult.ActiveReason.IN_CROSS_DAY_MORNING, endTime);
+    }
+
+    /**
+     * 计算下一次开始时间
+     * @param task 任务实体
+     * @return 下一次开始的时间戳，-1 表示无下次执行
+     */
+    public static long calculateNextStartTime(TaskEntity task) {
+        return calculateNextStartTime(task, SchedulerClock.now());
+    }
+
+    /**
+     * 计算指定时刻之后的下一次开始时间
+     * 重复任务在周位图的开始位上做下一置位扫描，有扩展重复规则时在日期位图上扫描，均不逐天循环
+     * 
+     * @param task 任务实体
+     * @param now 基准时间戳
+     * @return 下一次开始的时间戳，-1 表示无下次执行
+     */
+    public static long calculateNextStartTime(TaskEntity task, long now) {
+        if (task == null || !task.isEnabled()) {
+            return -1;
+        }
+
+        TaskType type = TaskClassifier.classify(task);
+        WeeklySchedule schedule = WeeklySchedule.of(task);
+        TimeZone zone = TimeZone.getDefault();
+        long localNow = toLocalMillis(now, zone);
+        long localDayStart = localDayStart(localNow);
+        int startMinutes = schedule.getStartMinutes();
+
+        // 一次性任务：只有今天的开始时间未过才有下次执行
+        if (type.isOneTime()) {
+            long startTime = toUtcMillis(localDayStart + startMinutes * MINUTE_MS, zone);
+            return startTime > now ? startTime : -1;
+        }
+
+        // 重复任务：开始时间为整分钟，严格晚于当前分钟的开始位即为下一次
+        int currentMinutes = (int) ((localNow - localDayStart) / MINUTE_MS);
+        // 今天的开始时间被夏令时跳过、顺延到当前时间之后时，墙上分钟数已过但今天的开始仍未到
+        long todayStart = toUtcMillis(localDayStart + startMinutes * MINUTE_MS, zone);
+        boolean todayStartPending = startMinutes > currentMinutes || todayStart > now;
+
+        RecurrenceRule rule = RecurrenceRule.of(task);
+        if (rule != null) {
+            // 今天的开始时间已过则从明天开始查找
+            int today = toEpochDay(localDayStart);
+            int nextDay = rule.nextRunDay(todayStartPending ? today : today + 1);
+            if (nextDay == RecurrenceRule.NONE) {
+                SchedulerLog.w(TAG, "Recurrence rule of task " + task.getId() + " has no remaining execution day");
+                return -1;
+            }
+            long startTime = toUtcMillis(nextDay * DAY_MS + startMinutes * MINUTE_MS, zone);
+            return startTime > now ? startTime : -1;
+        }
+
+        int currentMinuteOfWeek = minuteOfWeek(localDayStart, currentMinutes);
+        if (todayStartPending && startMinutes <= currentMinutes
+                && schedule.runsOnDay(dayOfWeekIndex(toEpochDay(localDayStart)))) {
+            return todayStart;
+        }
+        int minutesAhead = schedule.minutesUntilNextStart(currentMinuteOfWeek);
+        if (minutesAhead < 0) {
+            // 没有找到有效的执行日（理论上不应该发生）
+            SchedulerLog.w(TAG, "No valid execution day found for task " + task.getId());
+            return -1;
+        }
+
+        // 按本地日期推算，保证夏令时切换当天仍落在正确的墙上时间
+        int targetMinutes = currentMinutes + minutesAhead;
+        long targetDayStart = localDayStart + (targetMinutes / WeeklySchedule.MINUTES_PER_DAY) * DAY_MS;
+        long startTime = toUtcMillis(targetDayStart + startMinutes * MINUTE_MS, zone);
+        return startTime > now ? startTime : -1;
+    }
+
+    /**
+     * 计算当前执行周期的结束时间
+     * 假设任务当前正在执行或即将执行
+     * @param task 任务实体
+     * @return 结束时间戳
+     */
+    public static long calculateCurrentEndTime(TaskEntity task) {
+        if (task == null) {
+            return -1;
+        }
+
+        TaskType type = TaskClassifier.classify(task);
+        TimeZone zone = TimeZone.getDefault();
+        long localNow = toLocalMillis(SchedulerClock.now(), zone);
+        long localDayStart = localDayStart(localNow);
+
+        // 全天播放任务
+        if (type.isAllDay()) {
+            return toUtcMillis(localDayStart + DAY_MS + MIDNIGHT_CHECK_OFFSET_MS, zone);
+        }
+
+        int startMinutes = getStartMinutes(task);
+        int endMinutes = getEndMinutes(task);
+        int currentMinutes = (int) ((localNow - localDayStart) / MINUTE_MS);
+
+        if (type.isCrossDay() && currentMinutes >= startMinutes) {
+            // 跨天任务晚间部分，结束时间是明天
+            return toUtcMillis(localDayStart + DAY_MS + endMinutes * MINUTE_MS, zone);
+        }
+        // 跨天任务凌晨部分或非跨天任务，结束时间是今天
+        return toUtcMillis(localDayStart + endMinutes * MINUTE_MS, zone);
+    }
+
+    /**
+     * 根据开始时间计算对应的结束时间
+     * @param task 任务实体
+     * @param startTime 开始时间戳
+     * @return 结束时间戳
+     */
+    public static long calculateEndTimeForStart(TaskEntity task, long startTime) {
+        if (task == null) {
+            return -1;
+        }
+
+        TaskType type = TaskClassifier.classify(task);
+        TimeZone zone = TimeZone.getDefault();
+        long startDay = localDayStart(toLocalMillis(startTime, zone));
+
+        // 全天播放任务
+        if (type.isAllDay()) {
+            return toUtcMillis(startDay + DAY_MS + MIDNIGHT_CHECK_OFFSET_MS, zone);
+        }
+
+        long endLocal = startDay + getEndMinutes(task) * MINUTE_MS;
+
+        // 如果是跨天任务，结束时间加一天
+        if (type.isCrossDay()) {
+            endLocal += DAY_MS;
+        }
+
+        return toUtcMillis(endLocal, zone);
+    }
+
+    /**
+     * 计算全天任务下一个执行日（从明天开始）的开始时间，即执行日的 00:00:05
+     * @param task 任务实体
+     * @param now 基准时间戳
+     * @return 开始时间戳，-1 表示没有下一个执行日
+     */
+    public static long calculateNextAllDayStartTime(TaskEntity task, long now) {
+        if (task == null) {
+            return -1;
+        }
+
+        TimeZone zone = TimeZone.getDefault();
+        int tomorrow = toEpochDay(localDayStart(toLocalMillis(now, zone))) + 1;
+        int nextDay = RecurrenceRule.NONE;
+
+        RecurrenceRule rule = RecurrenceRule.of(task);
+        if (rule != null) {
+            nextDay = rule.nextRunDay(tomorrow);
+        } else {
+            // 每周重复：最多查找 7 天
+            WeeklySchedule schedule = WeeklySchedule.of(task);
+            for (int day = tomorrow; day < tomorrow + WeeklySchedule.DAYS_PER_WEEK; day++) {
+                if (schedule.runsOnDay(dayOfWeekIndex(day))) {
+                    nextDay = day;
+                    break;
+                }
+            }
+        }
+
+        if (nextDay == RecurrenceRule.NONE) {
+            return -1;
+        }
+        return toUtcMillis(nextDay * DAY_MS + MIDNIGHT_CHECK_OFFSET_MS, zone);
+    }
+
+    /**
+     * 判断任务在指定日期是否执行（星期掩码和扩展重复规则）
+     * @param task 任务实体
+     * @param calendar 要检查的日期
+     * @return 是否执行
+     */
+    public static boolean shouldExecuteOnDay(TaskEntity task, Calendar calendar) {
+        RecurrenceRule rule = RecurrenceRule.of(task);
+        if (rule == null) {
+            return shouldExecuteOnDay(task.getRepeatDays(), calendar);
+        }
+        long utcMillis = calendar.getTimeInMillis();
+        return rule.runsOn(toEpochDay(localDayStart(toLocalMillis(utcMillis, calendar.getTimeZone()))));
+    }
+
+    /**
+     * 判断指定日期是否在重复日中
+     * @param repeatDays 重复日位掩码
+     * @param calendar 要检查的日期
+     * @return 是否在重复日中
+     */
+    public static boolean shouldExecuteOnDay(int repeatDays, Calendar calendar) {
+        // 一次性任务（repeatDays=0）总是返回 true
+        if (repeatDays == 0) {
+            return true;
+        }
+
+        int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
+        int dayFlag = getDayFlag(dayOfWeek);
+
+        return (repeatDays & dayFlag) != 0;
+    }
+
+    /**
+     * 将 Calendar.DAY_OF_WEEK 转换为 TaskEntity 的 dayFlag
+     */
+    public static int getDayFlag(int calendarDayOfWeek) {
+        switch (calendarDayOfWeek) {
+            case Calendar.MONDAY:
+                return TaskEntity.MONDAY;
+            case Calendar.TUESDAY:
+                return TaskEntity.TUESDAY;
+            case Calendar.WEDNESDAY:
+                return TaskEntity.WEDNESDAY;
+            case Calendar.THURSDAY:
+                return TaskEntity.THURSDAY;
+            case Calendar.FRIDAY:
+                return TaskEntity.FRIDAY;
+            case Calendar.SATURDAY:
+                return TaskEntity.SATURDAY;
+            case Calendar.SUNDAY:
+                return TaskEntity.SUNDAY;
+            default:
+                return 0;
+        }
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * UTC 时间戳转换为本地墙上时间（以 UTC 纪元表示的本地毫秒数）
+     */
+    private static long toLocalMillis(long utcMillis, TimeZone zone) {
+        return utcMillis + zone.getOffset(utcMillis);
+    }
+
+    /**
+     * 本地墙上时间转换为 UTC 时间戳
+     * 夏令时跳过的时间顺延（与宽松模式的 Calendar 一致），重复出现的时间取较早的一次
+     */
+    private static long toUtcMillis(long localMillis, TimeZone zone) {
+        // 前后半天内的两个偏移量覆盖了所有可能的候选（时区转换不会在半天内发生两次）
+        long guess = localMillis - zone.getRawOffset();
+        int earlyOffset = zone.getOffset(guess - DAY_MS / 2);
+        int lateOffset = zone.getOffset(guess + DAY_MS / 2);
+
+        long earlyCandidate = localMillis - earlyOffset;
+        if (zone.getOffset(earlyCandidate) == earlyOffset) {
+            long lateCandidate = localMillis - lateOffset;
+            if (lateOffset != earlyOffset && zone.getOffset(lateCandidate) == lateOffset) {
+                return Math.min(earlyCandidate, lateCandidate);
+            }
+            return earlyCandidate;
+        }
+        long lateCandidate = localMillis - lateOffset;
+        if (zone.getOffset(lateCandidate) == lateOffset) {
+            return lateCandidate;
+        }
+        // 夏令时跳过的时间：按转换前的偏移量计算，结果顺延到转换之后
+        return earlyCandidate;
+    }
+
+    /**
+     * 本地墙上时间所在日的零点
+     */
+    private static long localDayStart(long localMillis) {
+        return Math.floorDiv(localMillis, DAY_MS) * DAY_MS;
+    }
+
+    /**
+     * 本地零点对应的纪元日
+     */
+    private static int toEpochDay(long localDayStart) {
+        return (int) (localDayStart / DAY_MS);
+    }
+
+    /**
+     * 纪元日的星期序号，0=周一 ... 6=周日
+     */
+    private static int dayOfWeekIndex(int epochDay) {
+        // 1970-01-01 是周四，周一为 0 时序号为 3
+        return Math.floorMod(epochDay + 3, WeeklySchedule.DAYS_PER_WEEK);
+    }
+
+    /**
+     * 计算周内分钟序号（周一 00:00 为 0）
+     */
+    private static int minuteOfWeek(long localDayStart, int minuteOfDay) {
+        return dayOfWeekIndex(toEpochDay(localDayStart)) * WeeklySchedule.MINUTES_PER_DAY + minuteOfDay;
+    }
+
+    /**
+     * 获取午夜检查时间（明天 00:00:05）
+     * 使用 00:00:05 而不是 00:00:00 避免边界问题
+     */
+    private static long getMidnightCheckTime(long now) {
+        TimeZone zone = TimeZone.getDefault();
+        long localDayStart = localDayStart(toLocalMillis(now, zone));
+        return toUtcMillis(localDayStart + DAY_MS + MIDNIGHT_CHECK_OFFSET_MS, zone);
+    }
+
+    /**
+     * 获取今天的午夜检查时间
+     * 如果当前已过午夜，则返回明天的
+     */
+    public static long getNextMidnightCheckTime() {
+        return getMidnightCheckTime(SchedulerClock.now());
+    }
+}
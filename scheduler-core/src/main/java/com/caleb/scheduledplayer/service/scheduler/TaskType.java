@@ -9,60 +9,94 @@ public enum TaskType {
      * 一次性非跨天定时段任务
      * 例如：今天 9:00-12:00 播放一次
      */
-    ONE_TIME_NORMAL("一次性定时段"),
+    ONE_TIME_NORMAL(0, "一次性定时段"),
 
     /**
      * 一次性跨天定时段任务
      * 例如：今晚 22:00 到明天 02:00 播放一次
      */
-    ONE_TIME_CROSS_DAY("一次性跨天"),
+    ONE_TIME_CROSS_DAY(1, "一次性跨天"),
 
     /**
      * 一次性全天播放任务
      * 例如：今天全天播放一次
      */
-    ONE_TIME_ALL_DAY("一次性全天"),
+    ONE_TIME_ALL_DAY(2, "一次性全天"),
 
     /**
      * 重复非跨天定时段任务
      * 例如：每周一三五 9:00-12:00
      */
-    REPEAT_NORMAL("重复定时段"),
+    REPEAT_NORMAL(3, "重复定时段"),
 
     /**
      * 重复跨天定时段任务
      * 例如：每周五六 22:00-02:00
      */
-    REPEAT_CROSS_DAY("重复跨天"),
+    REPEAT_CROSS_DAY(4, "重复跨天"),
 
     /**
      * 重复全天播放任务
      * 例如：每周一到五全天播放
      */
-    REPEAT_ALL_DAY("重复全天"),
+    REPEAT_ALL_DAY(5, "重复全天"),
 
     /**
      * 每天非跨天定时段任务
      * 例如：每天 8:00-18:00
      */
-    EVERYDAY_NORMAL("每天定时段"),
+    EVERYDAY_NORMAL(6, "每天定时段"),
 
     /**
      * 每天跨天定时段任务
      * 例如：每天 22:00-06:00
      */
-    EVERYDAY_CROSS_DAY("每天跨天");
+    EVERYDAY_CROSS_DAY(7, "每天跨天");
 
+    /**
+     * 持久化到 tasks.task_type 的值，已发布后不可修改
+     */
+    private final int value;
     private final String description;
 
-    TaskType(String description) {
+    /**
+     * 按持久化的值索引的类型表（values() 每次调用都会复制数组）
+     */
+    private static final TaskType[] BY_VALUE;
+
+    static {
+        int maxValue = 0;
+        for (TaskType type : values()) {
+            maxValue = Math.max(maxValue, type.value);
+        }
+        BY_VALUE = new TaskType[maxValue + 1];
+        for (TaskType type : values()) {
+            BY_VALUE[type.value] = type;
+        }
+    }
+
+    TaskType(int value, String description) {
+        this.value = value;
         this.description = description;
     }
 
+    public int getValue() {
+        return value;
+    }
+
     public String getDescription() {
         return description;
     }
 
+    /**
+     * 根据持久化的值获取类型
+     * @param value 类型值
+     * @return 对应的类型，未知值返回 null
+     */
+    public static TaskType fromValue(int value) {
+        return value >= 0 && value < BY_VALUE.length ? BY_VALUE[value] : null;
+    }
+
     /**
      * 是否为一次性任务
      */
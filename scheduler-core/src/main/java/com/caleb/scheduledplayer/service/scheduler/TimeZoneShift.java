@@ -0,0 +1,66 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 时区变化影响的时间范围
+ * 任务按本地时间计算触发时间：某个时刻旧时区与新时区的 UTC 偏移不同，该时刻登记的事件就失效了；
+ * 偏移相同的范围内（例如切换到同偏移的时区，或两地只有夏令时规则不同）已登记的事件仍然有效
+ */
+public final class TimeZoneShift {
+
+    /**
+     * 逐段比较偏移的范围，超出部分按最后一段处理（两个时区的规则在此之后一般不再变化）
+     */
+    private static final long HORIZON_MS = 2L * 366 * 24 * 60 * 60 * 1000;
+
+    private TimeZoneShift() {
+    }
+
+    /**
+     * 计算两个时区 UTC 偏移不同的时间范围
+     *
+     * @param from 起始时间戳
+     * @return 按时间排序、互不重叠的 [开始, 结束) 范围；最后一段延续到范围末尾时结束为 Long.MAX_VALUE
+     */
+    public static List<long[]> differingRanges(ZoneId oldZone, ZoneId newZone, long from) {
+        List<long[]> ranges = new ArrayList<>();
+        ZoneRules oldRules = oldZone.getRules();
+        ZoneRules newRules = newZone.getRules();
+        long horizon = from + HORIZON_MS;
+
+        long segmentStart = from;
+        while (segmentStart < horizon) {
+            Instant instant = Instant.ofEpochMilli(segmentStart);
+            long segmentEnd = Math.min(nextTransition(oldRules, instant), nextTransition(newRules, instant));
+            boolean last = segmentEnd >= horizon;
+            if (last) {
+                segmentEnd = Long.MAX_VALUE;
+            }
+
+            if (!oldRules.getOffset(instant).equals(newRules.getOffset(instant))) {
+                long[] previous = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+                if (previous != null && previous[1] == segmentStart) {
+                    previous[1] = segmentEnd;
+                } else {
+                    ranges.add(new long[]{segmentStart, segmentEnd});
+                }
+            }
+            if (last) {
+                break;
+            }
+            segmentStart = segmentEnd;
+        }
+        return ranges;
+    }
+
+    private static long nextTransition(ZoneRules rules, Instant instant) {
+        ZoneOffsetTransition transition = rules.nextTransition(instant);
+        return transition != null ? transition.getInstant().toEpochMilli() : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,175 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务的周时间位图（编译后的调度规则）
+ * 将 repeatDays、开始/结束时间、全天播放编译为一周 7×1440 分钟的位图：
+ * - 活跃位图：该分钟任务应处于播放状态
+ * - 开始位图：该分钟为一次执行的开始时间
+ *
+ * 位序号 = 星期序号 × 1440 + 当天分钟数，星期序号 0=周一 ... 6=周日，与 TaskEntity 星期常量的位序一致。
+ * 跨天任务的凌晨部分落在下一天（周日晚间延续到周一凌晨）。
+ * 一次性任务（repeatDays=0）视为每天有效，与 {@link TaskTimeCalculator#shouldExecuteOnDay} 的语义一致。
+ * 扩展重复规则（隔周、起止日期、排除日期）不在周位图中，由 {@link RecurrenceRule} 的日期位图另行判断。
+ *
+ * 实例不可变，相同规则的任务共享同一个实例
+ */
+public final class WeeklySchedule {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int DAYS_PER_WEEK = 7;
+    public static final int MINUTES_PER_WEEK = MINUTES_PER_DAY * DAYS_PER_WEEK;
+
+    /**
+     * 按规则缓存编译结果，键为 {@link #packKey} 打包后的规则
+     */
+    private static final ConcurrentHashMap<Integer, WeeklySchedule> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存上限，超过后整体清空（每个实例约 2.5KB）
+     */
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    private final int repeatDays;
+    private final int startMinutes;
+    private final int endMinutes;
+    private final boolean allDay;
+    private final boolean crossDay;
+    private final BitSet activeMinutes;
+    private final BitSet startMinuteBits;
+
+    private WeeklySchedule(int repeatDays, int startMinutes, int endMinutes, boolean allDay, boolean crossDay) {
+        this.repeatDays = repeatDays;
+        this.startMinutes = startMinutes;
+        this.endMinutes = endMinutes;
+        this.allDay = allDay;
+        this.crossDay = !allDay && crossDay;
+        this.activeMinutes = new BitSet(MINUTES_PER_WEEK);
+        this.startMinuteBits = new BitSet(MINUTES_PER_WEEK);
+
+        for (int day = 0; day < DAYS_PER_WEEK; day++) {
+            if (!runsOnDay(day)) {
+                continue;
+            }
+            int dayBase = day * MINUTES_PER_DAY;
+            // 开始位统一取开始时间（全天任务也沿用 calculateNextStartTime 的既有语义）
+            startMinuteBits.set(dayBase + startMinutes);
+            if (allDay) {
+                activeMinutes.set(dayBase, dayBase + MINUTES_PER_DAY);
+            } else if (crossDay) {
+                // 晚间部分在当天，凌晨部分在下一天（周日延续到周一）
+                activeMinutes.set(dayBase + startMinutes, dayBase + MINUTES_PER_DAY);
+                int nextDayBase = ((day + 1) % DAYS_PER_WEEK) * MINUTES_PER_DAY;
+                activeMinutes.set(nextDayBase, nextDayBase + endMinutes);
+            } else if (startMinutes < endMinutes) {
+                activeMinutes.set(dayBase + startMinutes, dayBase + endMinutes);
+            }
+        }
+    }
+
+    /**
+     * 获取任务对应的周位图
+     * @param task 任务实体
+     * @return 编译后的周位图（共享实例）
+     */
+    public static WeeklySchedule of(TaskEntity task) {
+        // 跨天判断以分类器为准（时间解析失败时视为非跨天）
+        return of(task.getRepeatDays(),
+                TaskTimeCalculator.getStartMinutes(task),
+                TaskTimeCalculator.getEndMinutes(task),
+                task.isAllDayPlay(),
+                TaskClassifier.isCrossDayTask(task));
+    }
+
+    /**
+     * 获取指定规则的周位图
+     * @param repeatDays 重复日位掩码
+     * @param startMinutes 开始时间（当天分钟数）
+     * @param endMinutes 结束时间（当天分钟数）
+     * @param allDay 是否全天播放
+     * @param crossDay 是否跨天
+     * @return 编译后的周位图（共享实例）
+     */
+    public static WeeklySchedule of(int repeatDays, int startMinutes, int endMinutes,
+            boolean allDay, boolean crossDay) {
+        int key = packKey(repeatDays, startMinutes, endMinutes, allDay, crossDay);
+        WeeklySchedule schedule = CACHE.get(key);
+        if (schedule == null) {
+            if (CACHE.size() >= MAX_CACHE_SIZE) {
+                CACHE.clear();
+            }
+            schedule = new WeeklySchedule(repeatDays, startMinutes, endMinutes, allDay, crossDay);
+            WeeklySchedule existing = CACHE.putIfAbsent(key, schedule);
+            if (existing != null) {
+                schedule = existing;
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * 打包规则：重复日 7 位 + 开始 11 位 + 结束 11 位 + 全天 1 位 + 跨天 1 位
+     */
+    private static int packKey(int repeatDays, int startMinutes, int endMinutes,
+            boolean allDay, boolean crossDay) {
+        return (repeatDays & TaskEntity.EVERYDAY)
+                | (startMinutes & 0x7FF) << 7
+                | (endMinutes & 0x7FF) << 18
+                | (allDay ? 1 : 0) << 29
+                | (crossDay ? 1 : 0) << 30;
+    }
+
+    /**
+     * 指定星期是否为执行日
+     * @param dayIndex 星期序号，0=周一 ... 6=周日
+     */
+    public boolean runsOnDay(int dayIndex) {
+        return repeatDays == 0 || (repeatDays & (1 << dayIndex)) != 0;
+    }
+
+    /**
+     * 指定分钟是否处于活跃时段
+     * @param minuteOfWeek 周内分钟序号
+     */
+    public boolean isActiveAt(int minuteOfWeek) {
+        return activeMinutes.get(minuteOfWeek);
+    }
+
+    /**
+     * 查找下一个开始分钟（严格晚于 fromMinuteOfWeek，跨周回绕）
+     * @param fromMinuteOfWeek 当前周内分钟序号
+     * @return 距当前的分钟数（1 ~ MINUTES_PER_WEEK），-1 表示没有开始时间
+     */
+    public int minutesUntilNextStart(int fromMinuteOfWeek) {
+        int next = startMinuteBits.nextSetBit(fromMinuteOfWeek + 1);
+        if (next >= 0 && next < MINUTES_PER_WEEK) {
+            return next - fromMinuteOfWeek;
+        }
+        // 回绕到下周
+        next = startMinuteBits.nextSetBit(0);
+        if (next < 0 || next > fromMinuteOfWeek) {
+            return -1;
+        }
+        return next + MINUTES_PER_WEEK - fromMinuteOfWeek;
+    }
+
+    public int getStartMinutes() {
+        return startMinutes;
+    }
+
+    public int getEndMinutes() {
+        return endMinutes;
+    }
+
+    public boolean isAllDay() {
+        return allDay;
+    }
+
+    public boolean isCrossDay() {
+        return crossDay;
+    }
+}
@@ -1,11 +1,11 @@
 package com.caleb.scheduledplayer.service.scheduler.strategy;
 
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
-import com.caleb.scheduledplayer.service.player.AudioPlaybackService;
 import com.caleb.scheduledplayer.service.scheduler.BaseScheduleStrategy;
+import com.caleb.scheduledplayer.service.scheduler.ScheduleOperations;
 import com.caleb.scheduledplayer.service.scheduler.ScheduleResult;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerClock;
 import com.caleb.scheduledplayer.service.scheduler.TaskExecutionState;
-import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
 import com.caleb.scheduledplayer.service.scheduler.TaskTimeCalculator;
 import com.caleb.scheduledplayer.service.scheduler.TaskType;
 import com.caleb.scheduledplayer.service.scheduler.TimeCheckResult;
@@ -22,14 +22,14 @@ public class OneTimeAllDayStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public ScheduleResult schedule(TaskEntity task, TaskScheduleManager manager) {
+    public ScheduleResult schedule(TaskEntity task, ScheduleOperations manager) {
         TimeCheckResult checkResult = TaskTimeCalculator.shouldBeActiveNow(task);
 
         if (checkResult.isActive()) {
             long endTime = checkResult.getEffectiveEndTime(); // 午夜时间
             
             // 检查任务是否已经在播放，避免重复启动导致从头播放
-            if (AudioPlaybackService.isTaskCurrentlyPlaying(task.getId())) {
+            if (manager.isTaskPlaying(task.getId())) {
                 logSchedule(task, "All-day task already playing, skipping start, just updating end alarm");
                 manager.setEndAlarm(task.getId(), endTime);
                 return ScheduleResult.immediate(endTime);
@@ -38,7 +38,7 @@ public class OneTimeAllDayStrategy extends BaseScheduleStrategy {
             // 今天需要执行，立即开始全天播放
             logSchedule(task, "All-day task should be active today, starting immediately");
             
-            long now = System.currentTimeMillis();
+            long now = SchedulerClock.now();
             
             startPlaybackAndUpdateState(task, manager, now, endTime);
             
@@ -69,7 +69,7 @@ public class OneTimeAllDayStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public void handleStart(TaskEntity task, TaskScheduleManager manager) {
+    public void handleStart(TaskEntity task, ScheduleOperations manager) {
         // 全天播放任务通常不会触发开始闹钟（除非是午夜检查）
         // 午夜检查时，如果是一次性任务，应该停止而不是开始
         
@@ -91,7 +91,7 @@ public class OneTimeAllDayStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public void handleStop(TaskEntity task, TaskScheduleManager manager) {
+    public void handleStop(TaskEntity task, ScheduleOperations manager) {
         logSchedule(task, "Stop alarm triggered for all-day task");
         
         stopPlaybackAndUpdateState(task, manager);
@@ -101,10 +101,10 @@ public class OneTimeAllDayStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    protected void handleRebootInActiveRange(TaskEntity task, TaskScheduleManager manager,
+    protected void handleRebootInActiveRange(TaskEntity task, ScheduleOperations manager,
             TimeCheckResult checkResult) {
         // 检查任务是否已经在播放
-        if (AudioPlaybackService.isTaskCurrentlyPlaying(task.getId())) {
+        if (manager.isTaskPlaying(task.getId())) {
             logSchedule(task, "All-day task already playing, skipping start");
             manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
             return;
@@ -120,7 +120,7 @@ public class OneTimeAllDayStrategy extends BaseScheduleStrategy {
                 // 今天应该全天播放，恢复
                 logSchedule(task, "Resuming all-day playback after reboot");
                 startPlaybackAndUpdateState(task, manager,
-                        System.currentTimeMillis(), checkResult.getEffectiveEndTime());
+                        SchedulerClock.now(), checkResult.getEffectiveEndTime());
                 manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
                 break;
 
@@ -1,11 +1,11 @@
 package com.caleb.scheduledplayer.service.scheduler.strategy;
 
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
-import com.caleb.scheduledplayer.service.player.AudioPlaybackService;
 import com.caleb.scheduledplayer.service.scheduler.BaseScheduleStrategy;
+import com.caleb.scheduledplayer.service.scheduler.ScheduleOperations;
 import com.caleb.scheduledplayer.service.scheduler.ScheduleResult;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerClock;
 import com.caleb.scheduledplayer.service.scheduler.TaskExecutionState;
-import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
 import com.caleb.scheduledplayer.service.scheduler.TaskTimeCalculator;
 import com.caleb.scheduledplayer.service.scheduler.TaskType;
 import com.caleb.scheduledplayer.service.scheduler.TimeCheckResult;
@@ -22,14 +22,14 @@ public class OneTimeCrossDayStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public ScheduleResult schedule(TaskEntity task, TaskScheduleManager manager) {
+    public ScheduleResult schedule(TaskEntity task, ScheduleOperations manager) {
         TimeCheckResult checkResult = TaskTimeCalculator.shouldBeActiveNow(task);
 
         if (checkResult.isActive()) {
             long endTime = checkResult.getEffectiveEndTime();
             
             // 检查任务是否已经在播放，避免重复启动导致从头播放
-            if (AudioPlaybackService.isTaskCurrentlyPlaying(task.getId())) {
+            if (manager.isTaskPlaying(task.getId())) {
                 logSchedule(task, "Cross-day task already playing, skipping start, just updating end alarm");
                 manager.setEndAlarm(task.getId(), endTime);
                 return ScheduleResult.immediate(endTime);
@@ -39,7 +39,7 @@ public class OneTimeCrossDayStrategy extends BaseScheduleStrategy {
             logSchedule(task, "Currently in time range (" + checkResult.getReason() 
                     + "), starting immediately");
             
-            long now = System.currentTimeMillis();
+            long now = SchedulerClock.now();
             
             startPlaybackAndUpdateState(task, manager, now, endTime);
             manager.setEndAlarm(task.getId(), endTime);
@@ -85,7 +85,7 @@ public class OneTimeCrossDayStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public void handleStart(TaskEntity task, TaskScheduleManager manager) {
+    public void handleStart(TaskEntity task, ScheduleOperations manager) {
         if (!validateTaskForStart(task, manager)) {
             return;
         }
@@ -98,7 +98,7 @@ public class OneTimeCrossDayStrategy extends BaseScheduleStrategy {
             return;
         }
 
-        long now = System.currentTimeMillis();
+        long now = SchedulerClock.now();
         long endTime = checkResult.getEffectiveEndTime();
 
         logSchedule(task, "Start alarm triggered (cross-day), starting playback until " 
@@ -110,7 +110,7 @@ public class OneTimeCrossDayStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public void handleStop(TaskEntity task, TaskScheduleManager manager) {
+    public void handleStop(TaskEntity task, ScheduleOperations manager) {
         logSchedule(task, "Stop alarm triggered (cross-day)");
         
         stopPlaybackAndUpdateState(task, manager);
@@ -120,10 +120,10 @@ public class OneTimeCrossDayStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    protected void handleRebootInActiveRange(TaskEntity task, TaskScheduleManager manager,
+    protected void handleRebootInActiveRange(TaskEntity task, ScheduleOperations manager,
             TimeCheckResult checkResult) {
         // 检查任务是否已经在播放
-        if (AudioPlaybackService.isTaskCurrentlyPlaying(task.getId())) {
+        if (manager.isTaskPlaying(task.getId())) {
             logSchedule(task, "Cross-day task already playing, skipping start");
             manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
             return;
@@ -141,13 +141,13 @@ public class OneTimeCrossDayStrategy extends BaseScheduleStrategy {
                     // 晚间部分，开始执行
                     logSchedule(task, "Starting cross-day playback after reboot (evening part)");
                     startPlaybackAndUpdateState(task, manager,
-                            System.currentTimeMillis(), checkResult.getEffectiveEndTime());
+                            SchedulerClock.now(), checkResult.getEffectiveEndTime());
                     manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
                 } else if (currentState == TaskExecutionState.EXECUTING || currentState == TaskExecutionState.PAUSED) {
                     // 凌晨部分，之前在执行中，恢复播放
                     logSchedule(task, "Resuming cross-day playback after reboot (morning part)");
                     startPlaybackAndUpdateState(task, manager,
-                            System.currentTimeMillis(), checkResult.getEffectiveEndTime());
+                            SchedulerClock.now(), checkResult.getEffectiveEndTime());
                     manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
                 } else {
                     // 凌晨部分但之前只是调度状态，说明昨晚未执行
@@ -167,7 +167,7 @@ public class OneTimeCrossDayStrategy extends BaseScheduleStrategy {
                     // 晚间部分，可以开始
                     logSchedule(task, "IDLE state in evening part, starting playback");
                     startPlaybackAndUpdateState(task, manager,
-                            System.currentTimeMillis(), checkResult.getEffectiveEndTime());
+                            SchedulerClock.now(), checkResult.getEffectiveEndTime());
                     manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
                 } else {
                     // 凌晨部分，IDLE 状态不启动
@@ -178,7 +178,7 @@ public class OneTimeCrossDayStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public void handleReboot(TaskEntity task, TaskScheduleManager manager) {
+    public void handleReboot(TaskEntity task, ScheduleOperations manager) {
         if (!validateTaskForStart(task, manager)) {
             return;
         }
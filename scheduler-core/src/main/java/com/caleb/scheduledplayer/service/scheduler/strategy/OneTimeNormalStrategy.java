@@ -1,10 +1,10 @@
 package com.caleb.scheduledplayer.service.scheduler.strategy;
 
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
-import com.caleb.scheduledplayer.service.player.AudioPlaybackService;
 import com.caleb.scheduledplayer.service.scheduler.BaseScheduleStrategy;
+import com.caleb.scheduledplayer.service.scheduler.ScheduleOperations;
 import com.caleb.scheduledplayer.service.scheduler.ScheduleResult;
-import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerClock;
 import com.caleb.scheduledplayer.service.scheduler.TaskTimeCalculator;
 import com.caleb.scheduledplayer.service.scheduler.TaskType;
 import com.caleb.scheduledplayer.service.scheduler.TimeCheckResult;
@@ -21,14 +21,14 @@ public class OneTimeNormalStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public ScheduleResult schedule(TaskEntity task, TaskScheduleManager manager) {
+    public ScheduleResult schedule(TaskEntity task, ScheduleOperations manager) {
         TimeCheckResult checkResult = TaskTimeCalculator.shouldBeActiveNow(task);
 
         if (checkResult.isActive()) {
             long endTime = checkResult.getEffectiveEndTime();
             
             // 检查任务是否已经在播放，避免重复启动导致从头播放
-            if (AudioPlaybackService.isTaskCurrentlyPlaying(task.getId())) {
+            if (manager.isTaskPlaying(task.getId())) {
                 logSchedule(task, "Task already playing, skipping start, just updating end alarm");
                 manager.setEndAlarm(task.getId(), endTime);
                 return ScheduleResult.immediate(endTime);
@@ -37,7 +37,7 @@ public class OneTimeNormalStrategy extends BaseScheduleStrategy {
             // 当前在时间范围内，立即开始播放
             logSchedule(task, "Currently in time range, starting immediately");
             
-            long now = System.currentTimeMillis();
+            long now = SchedulerClock.now();
             
             startPlaybackAndUpdateState(task, manager, now, endTime);
             manager.setEndAlarm(task.getId(), endTime);
@@ -77,7 +77,7 @@ public class OneTimeNormalStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public void handleStart(TaskEntity task, TaskScheduleManager manager) {
+    public void handleStart(TaskEntity task, ScheduleOperations manager) {
         if (!validateTaskForStart(task, manager)) {
             return;
         }
@@ -91,7 +91,7 @@ public class OneTimeNormalStrategy extends BaseScheduleStrategy {
             return;
         }
 
-        long now = System.currentTimeMillis();
+        long now = SchedulerClock.now();
         long endTime = checkResult.getEffectiveEndTime();
 
         logSchedule(task, "Start alarm triggered, starting playback");
@@ -102,7 +102,7 @@ public class OneTimeNormalStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public void handleStop(TaskEntity task, TaskScheduleManager manager) {
+    public void handleStop(TaskEntity task, ScheduleOperations manager) {
         logSchedule(task, "Stop alarm triggered");
         
         stopPlaybackAndUpdateState(task, manager);
@@ -112,10 +112,10 @@ public class OneTimeNormalStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    protected void handleRebootInActiveRange(TaskEntity task, TaskScheduleManager manager,
+    protected void handleRebootInActiveRange(TaskEntity task, ScheduleOperations manager,
             TimeCheckResult checkResult) {
         // 检查任务是否已经在播放
-        if (AudioPlaybackService.isTaskCurrentlyPlaying(task.getId())) {
+        if (manager.isTaskPlaying(task.getId())) {
             logSchedule(task, "Task already playing, skipping start");
             manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
             return;
@@ -130,7 +130,7 @@ public class OneTimeNormalStrategy extends BaseScheduleStrategy {
                 // 之前已调度或在执行，现在开始执行
                 logSchedule(task, "Starting playback after reboot");
                 startPlaybackAndUpdateState(task, manager,
-                        System.currentTimeMillis(), checkResult.getEffectiveEndTime());
+                        SchedulerClock.now(), checkResult.getEffectiveEndTime());
                 manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
                 break;
 
@@ -144,7 +144,7 @@ public class OneTimeNormalStrategy extends BaseScheduleStrategy {
                 // IDLE 状态，可能是新任务，开始执行
                 logSchedule(task, "IDLE state, starting playback");
                 startPlaybackAndUpdateState(task, manager,
-                        System.currentTimeMillis(), checkResult.getEffectiveEndTime());
+                        SchedulerClock.now(), checkResult.getEffectiveEndTime());
                 manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
                 break;
         }
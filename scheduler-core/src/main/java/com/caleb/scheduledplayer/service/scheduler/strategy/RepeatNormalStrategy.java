@@ -1,11 +1,11 @@
 package com.caleb.scheduledplayer.service.scheduler.strategy;
 
 import com.caleb.scheduledplayer.data.entity.TaskEntity;
-import com.caleb.scheduledplayer.service.player.AudioPlaybackService;
 import com.caleb.scheduledplayer.service.scheduler.BaseScheduleStrategy;
+import com.caleb.scheduledplayer.service.scheduler.ScheduleOperations;
 import com.caleb.scheduledplayer.service.scheduler.ScheduleResult;
+import com.caleb.scheduledplayer.service.scheduler.SchedulerClock;
 import com.caleb.scheduledplayer.service.scheduler.TaskExecutionState;
-import com.caleb.scheduledplayer.service.scheduler.TaskScheduleManager;
 import com.caleb.scheduledplayer.service.scheduler.TaskTimeCalculator;
 import com.caleb.scheduledplayer.service.scheduler.TaskType;
 import com.caleb.scheduledplayer.service.scheduler.TimeCheckResult;
@@ -23,14 +23,14 @@ public class RepeatNormalStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public ScheduleResult schedule(TaskEntity task, TaskScheduleManager manager) {
+    public ScheduleResult schedule(TaskEntity task, ScheduleOperations manager) {
         TimeCheckResult checkResult = TaskTimeCalculator.shouldBeActiveNow(task);
 
         if (checkResult.isActive()) {
             long endTime = checkResult.getEffectiveEndTime();
             
             // 检查任务是否已经在播放，避免重复启动导致从头播放
-            if (AudioPlaybackService.isTaskCurrentlyPlaying(task.getId())) {
+            if (manager.isTaskPlaying(task.getId())) {
                 logSchedule(task, "Task already playing, skipping start, just updating alarms");
                 manager.setEndAlarm(task.getId(), endTime);
                 scheduleNextStartAlarm(task, manager);
@@ -40,7 +40,7 @@ public class RepeatNormalStrategy extends BaseScheduleStrategy {
             // 当前在时间范围内且今天是重复日，立即开始播放
             logSchedule(task, "Currently in time range, starting immediately");
             
-            long now = System.currentTimeMillis();
+            long now = SchedulerClock.now();
             
             startPlaybackAndUpdateState(task, manager, now, endTime);
             manager.setEndAlarm(task.getId(), endTime);
@@ -58,7 +58,7 @@ public class RepeatNormalStrategy extends BaseScheduleStrategy {
     /**
      * 调度下一次开始闹钟
      */
-    private void scheduleNextStartAlarm(TaskEntity task, TaskScheduleManager manager) {
+    private void scheduleNextStartAlarm(TaskEntity task, ScheduleOperations manager) {
         long nextStartTime = TaskTimeCalculator.calculateNextStartTime(task);
         if (nextStartTime > 0) {
             logSchedule(task, "Scheduling next start at " + new java.util.Date(nextStartTime));
@@ -69,7 +69,7 @@ public class RepeatNormalStrategy extends BaseScheduleStrategy {
     /**
      * 调度下一次执行（当前不在时间范围内时）
      */
-    private ScheduleResult doScheduleNextExecution(TaskEntity task, TaskScheduleManager manager) {
+    private ScheduleResult doScheduleNextExecution(TaskEntity task, ScheduleOperations manager) {
         long startTime = TaskTimeCalculator.calculateNextStartTime(task);
         if (startTime < 0) {
             logWarning(task, "No valid next start time found");
@@ -89,7 +89,7 @@ public class RepeatNormalStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public void handleStart(TaskEntity task, TaskScheduleManager manager) {
+    public void handleStart(TaskEntity task, ScheduleOperations manager) {
         if (!validateTaskForStart(task, manager)) {
             return;
         }
@@ -103,7 +103,7 @@ public class RepeatNormalStrategy extends BaseScheduleStrategy {
             return;
         }
 
-        long now = System.currentTimeMillis();
+        long now = SchedulerClock.now();
         long endTime = checkResult.getEffectiveEndTime();
 
         logSchedule(task, "Start alarm triggered, starting playback");
@@ -117,7 +117,7 @@ public class RepeatNormalStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    public void handleStop(TaskEntity task, TaskScheduleManager manager) {
+    public void handleStop(TaskEntity task, ScheduleOperations manager) {
         logSchedule(task, "Stop alarm triggered");
         
         // 重复任务：停止播放，直接设置为 IDLE 并调度下一次
@@ -128,11 +128,11 @@ public class RepeatNormalStrategy extends BaseScheduleStrategy {
     }
 
     @Override
-    protected void handleRebootInActiveRange(TaskEntity task, TaskScheduleManager manager,
+    protected void handleRebootInActiveRange(TaskEntity task, ScheduleOperations manager,
             TimeCheckResult checkResult) {
         // 这个方法只有在状态不是 EXECUTING/PAUSED 时才会被调用
         // 检查任务是否已经在播放（即使状态不对）
-        if (AudioPlaybackService.isTaskCurrentlyPlaying(task.getId())) {
+        if (manager.isTaskPlaying(task.getId())) {
             logSchedule(task, "Task already playing, skipping start");
             manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
             scheduleNextStartAlarm(task, manager);
@@ -142,7 +142,7 @@ public class RepeatNormalStrategy extends BaseScheduleStrategy {
         logSchedule(task, "In active range after reboot, starting playback");
         // 开始新的执行
         startPlaybackAndUpdateState(task, manager,
-                System.currentTimeMillis(), checkResult.getEffectiveEndTime());
+                SchedulerClock.now(), checkResult.getEffectiveEndTime());
         
         manager.setEndAlarm(task.getId(), checkResult.getEffectiveEndTime());
         
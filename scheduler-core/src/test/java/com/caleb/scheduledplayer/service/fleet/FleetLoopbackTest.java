@@ -0,0 +1,334 @@
+package com.caleb.scheduledplayer.service.fleet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.caleb.scheduledplayer.service.scheduler.SchedulerClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 协同协议测试：控制端和多个节点通过进程内网络通信
+ * 覆盖时钟偏差收敛与同时执行、丢包重发、重复命令去重、忽略非控制端的消息和迟加入节点的补播
+ */
+public class FleetLoopbackTest {
+
+    private static final String CONTROLLER = "controller";
+
+    /**
+     * 等待异步条件成立的最长时间
+     */
+    private static final long WAIT_MILLIS = 5_000;
+
+    /**
+     * 单个端点的单程延迟
+     */
+    private static final long LATENCY_MILLIS = 10;
+
+    /**
+     * 偏差估计允许的误差
+     */
+    private static final long OFFSET_TOLERANCE_MILLIS = 15;
+
+    /**
+     * 各节点执行时刻（换算到控制端时钟）允许的差距
+     */
+    private static final long START_SPREAD_TOLERANCE_MILLIS = 50;
+
+    private LoopbackFleetNetwork network;
+    private FleetController controller;
+    private final List<FleetNode> nodes = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        network = new LoopbackFleetNetwork(42);
+        network.setLatency(CONTROLLER, LATENCY_MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        for (FleetNode node : nodes) {
+            node.shutdown();
+        }
+        if (controller != null) {
+            controller.shutdown();
+        }
+        network.shutdown();
+    }
+
+    @Test
+    public void skewedNodesConvergeAndStartTogether() throws InterruptedException {
+        startController();
+        long[] skews = {5_000, -3_000, 0};
+        RecordingPlayer[] players = new RecordingPlayer[skews.length];
+        FleetNode[] fleetNodes = new FleetNode[skews.length];
+        for (int i = 0; i < skews.length; i++) {
+            players[i] = new RecordingPlayer(skews[i]);
+            fleetNodes[i] = startNode("node-" + i, players[i]);
+        }
+        awaitNodes(skews.length);
+
+        // 偏差为控制端时钟减去本地时钟
+        for (int i = 0; i < skews.length; i++) {
+            FleetNode node = fleetNodes[i];
+            long expected = -skews[i];
+            await("offset of node-" + i,
+                    () -> Math.abs(node.getClockOffsetMillis() - expected) <= OFFSET_TOLERANCE_MILLIS);
+        }
+
+        controller.start(Arrays.asList(1L, 2L));
+        for (RecordingPlayer player : players) {
+            await("start on every node", () -> player.startCount() == 1);
+        }
+
+        long earliest = Long.MAX_VALUE;
+        long latest = Long.MIN_VALUE;
+        for (RecordingPlayer player : players) {
+            Event event = player.events().get(0);
+            assertEquals(Arrays.asList(1L, 2L), event.taskIds);
+            earliest = Math.min(earliest, event.controllerTime);
+            latest = Math.max(latest, event.controllerTime);
+        }
+        assertTrue("start spread " + (latest - earliest) + "ms",
+                latest - earliest <= START_SPREAD_TOLERANCE_MILLIS);
+    }
+
+    @Test
+    public void lostCommandsAreResentUntilAcknowledged() throws InterruptedException {
+        startController();
+        List<RecordingPlayer> players = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RecordingPlayer player = new RecordingPlayer(0);
+            players.add(player);
+            startNode("node-" + i, player);
+        }
+        awaitNodes(players.size());
+
+        // 每条命令和确认都有 30% 的概率丢失，不重发时 30 次投递全部成功的概率约为 2e-5
+        network.setLossRate(0.3);
+        int commandCount = 10;
+        for (long taskId = 1; taskId <= commandCount; taskId++) {
+            controller.start(Collections.singletonList(taskId));
+            Thread.sleep(30);
+        }
+
+        for (RecordingPlayer player : players) {
+            await("all commands on every node", () -> player.startCount() == commandCount);
+        }
+        await("all commands acknowledged", () -> controller.getPendingCount() == 0);
+
+        // 确认丢失时命令会被重发，每个任务仍只执行一次
+        for (RecordingPlayer player : players) {
+            List<Long> started = player.startedTaskIds();
+            Collections.sort(started);
+            assertEquals(sequence(commandCount), started);
+        }
+    }
+
+    @Test
+    public void repeatedCommandIsExecutedOnce() throws InterruptedException {
+        // 用原始端点充当控制端，直接发送相同序号的命令
+        FleetTransport rawController = network.endpoint(CONTROLLER);
+        AtomicInteger acks = new AtomicInteger();
+        rawController.setReceiver((from, message) -> {
+            if (message.getType() == FleetMessage.Type.ACK) {
+                acks.incrementAndGet();
+            }
+        });
+        RecordingPlayer player = new RecordingPlayer(0);
+        startNode("node-0", player);
+
+        List<FleetMessage.Op> ops = Collections.singletonList(
+                new FleetMessage.Op(FleetMessage.Kind.START, 7, 0));
+        byte[] command = FleetMessage.command(1, 1, System.currentTimeMillis(), ops).encode();
+        for (int i = 0; i < 3; i++) {
+            rawController.send("node-0", command);
+        }
+
+        // 每次收到都要确认（前一次的确认可能丢失），但只执行一次
+        await("every copy acknowledged", () -> acks.get() == 3);
+        await("command executed", () -> player.startCount() == 1);
+        Thread.sleep(100);
+        assertEquals(1, player.startCount());
+
+        // 控制端重启后序号重新开始，同一序号的新命令照常执行
+        rawController.send("node-0",
+                FleetMessage.command(2, 1, System.currentTimeMillis(), ops).encode());
+        await("command after controller restart", () -> player.startCount() == 2);
+    }
+
+    @Test
+    public void messagesFromOtherEndpointsAreIgnored() throws InterruptedException {
+        FleetTransport rawController = network.endpoint(CONTROLLER);
+        FleetTransport intruder = network.endpoint("intruder");
+        AtomicInteger intruderAcks = new AtomicInteger();
+        intruder.setReceiver((from, message) -> intruderAcks.incrementAndGet());
+        RecordingPlayer player = new RecordingPlayer(0);
+        startNode("node-0", player);
+
+        List<FleetMessage.Op> ops = Collections.singletonList(
+                new FleetMessage.Op(FleetMessage.Kind.START, 7, 0));
+        intruder.send("node-0", FleetMessage.command(1, 1, System.currentTimeMillis(), ops).encode());
+        Thread.sleep(100);
+        assertEquals(0, player.startCount());
+        assertEquals(0, intruderAcks.get());
+
+        // 同样的命令来自控制端时照常执行
+        rawController.send("node-0", FleetMessage.command(1, 1, System.currentTimeMillis(), ops).encode());
+        await("command from controller", () -> player.startCount() == 1);
+    }
+
+    @Test
+    public void lateNodeCatchesUpOnActiveTasks() throws InterruptedException {
+        startController();
+        RecordingPlayer early = new RecordingPlayer(0);
+        startNode("early", early);
+        awaitNodes(1);
+
+        controller.start(Arrays.asList(1L, 2L, 3L));
+        controller.stop(Collections.singletonList(2L));
+        await("commands on early node", () -> early.startCount() == 1 && early.stopCount() == 1);
+
+        RecordingPlayer late = new RecordingPlayer(2_000);
+        startNode("late", late);
+        awaitNodes(2);
+
+        // 迟加入的节点只补播仍在播放的任务
+        await("catch-up on late node", () -> late.startCount() == 1);
+        await("catch-up acknowledged", () -> controller.getPendingCount() == 0);
+        assertEquals(Arrays.asList(1L, 3L), late.startedTaskIds());
+        assertEquals(0, late.stopCount());
+    }
+
+    private void startController() {
+        controller = new FleetController(network.endpoint(CONTROLLER), System::currentTimeMillis,
+                FleetController.DEFAULT_LEAD_MILLIS, null);
+        controller.start();
+    }
+
+    private FleetNode startNode(String address, RecordingPlayer player) {
+        network.setLatency(address, LATENCY_MILLIS);
+        FleetNode node = new FleetNode(network.endpoint(address), CONTROLLER, player.clock, player);
+        nodes.add(node);
+        node.start();
+        return node;
+    }
+
+    private void awaitNodes(int count) throws InterruptedException {
+        await(count + " node(s) online", () -> controller.getNodeCount() == count);
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<Long> sequence(int count) {
+        List<Long> values = new ArrayList<>(count);
+        for (long value = 1; value <= count; value++) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    /**
+     * 播放端收到的一次调用
+     */
+    private static final class Event {
+        final FleetMessage.Kind kind;
+        final List<Long> taskIds;
+        /**
+         * 调用时刻换算到控制端时钟（即真实时间）
+         */
+        final long controllerTime;
+
+        Event(FleetMessage.Kind kind, List<Long> taskIds, long controllerTime) {
+            this.kind = kind;
+            this.taskIds = taskIds;
+            this.controllerTime = controllerTime;
+        }
+    }
+
+    /**
+     * 记录调用的播放端，自带比真实时间快 skew 毫秒的本地时钟
+     */
+    private static final class RecordingPlayer implements FleetPlayer {
+        final SchedulerClock.TimeSource clock;
+        private final List<Event> events = new ArrayList<>();
+
+        RecordingPlayer(long skewMillis) {
+            this.clock = () -> System.currentTimeMillis() + skewMillis;
+        }
+
+        @Override
+        public void start(List<Long> taskIds) {
+            record(FleetMessage.Kind.START, taskIds);
+        }
+
+        @Override
+        public void stop(List<Long> taskIds) {
+            record(FleetMessage.Kind.STOP, taskIds);
+        }
+
+        @Override
+        public void pause(long taskId) {
+            record(FleetMessage.Kind.PAUSE, Collections.singletonList(taskId));
+        }
+
+        @Override
+        public void prewarm(long taskId, long scheduledStartTime) {
+            record(FleetMessage.Kind.PREWARM, Collections.singletonList(taskId));
+        }
+
+        private synchronized void record(FleetMessage.Kind kind, List<Long> taskIds) {
+            events.add(new Event(kind, new ArrayList<>(taskIds), System.currentTimeMillis()));
+        }
+
+        synchronized List<Event> events() {
+            return new ArrayList<>(events);
+        }
+
+        synchronized int startCount() {
+            return count(FleetMessage.Kind.START);
+        }
+
+        synchronized int stopCount() {
+            return count(FleetMessage.Kind.STOP);
+        }
+
+        synchronized List<Long> startedTaskIds() {
+            List<Long> taskIds = new ArrayList<>();
+            for (Event event : events) {
+                if (event.kind == FleetMessage.Kind.START) {
+                    taskIds.addAll(event.taskIds);
+                }
+            }
+            return taskIds;
+        }
+
+        private int count(FleetMessage.Kind kind) {
+            int count = 0;
+            for (Event event : events) {
+                if (event.kind == kind) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+/**
+ * 扩展重复规则测试：隔周基准、排除日期、起止日期和跨年查找
+ */
+public class RecurrenceRuleTest {
+
+    @Test
+    public void intervalCountsFromWeekOfFromDate() {
+        // FROM 是周三，第一周从所在周的周一（2026-03-02）算起
+        RecurrenceRule rule = RecurrenceRule.of("INTERVAL=2;FROM=2026-03-04",
+                TaskEntity.MONDAY | TaskEntity.WEDNESDAY);
+
+        assertFalse(rule.runsOn(day("2026-03-02")));
+        assertTrue(rule.runsOn(day("2026-03-04")));
+        assertFalse(rule.runsOn(day("2026-03-09")));
+        assertFalse(rule.runsOn(day("2026-03-11")));
+        assertTrue(rule.runsOn(day("2026-03-16")));
+        assertTrue(rule.runsOn(day("2026-03-18")));
+
+        assertEquals(day("2026-03-04"), rule.nextRunDay(day("2026-02-20")));
+        assertEquals(day("2026-03-16"), rule.nextRunDay(day("2026-03-05")));
+    }
+
+    @Test
+    public void intervalWithoutFromDateAnchorsOnFirstEpochMonday() {
+        RecurrenceRule rule = RecurrenceRule.of("INTERVAL=2", TaskEntity.MONDAY);
+
+        // 1970-01-05 所在周为第一周
+        assertTrue(rule.runsOn(day("1970-01-05")));
+        assertFalse(rule.runsOn(day("1970-01-12")));
+        int monday = day("2026-03-02");
+        boolean runs = (monday - day("1970-01-05")) / 7 % 2 == 0;
+        assertEquals(runs, rule.runsOn(monday));
+        assertEquals(!runs, rule.runsOn(monday + 7));
+        assertEquals(runs, rule.runsOn(monday + 14));
+    }
+
+    @Test
+    public void exceptionDatesAreSkipped() {
+        RecurrenceRule rule = RecurrenceRule.of("EXDATE=2026-05-02, 2026-05-01", 0);
+
+        assertTrue(rule.runsOn(day("2026-04-30")));
+        assertFalse(rule.runsOn(day("2026-05-01")));
+        assertFalse(rule.runsOn(day("2026-05-02")));
+        assertEquals(day("2026-05-03"), rule.nextRunDay(day("2026-05-01")));
+    }
+
+    @Test
+    public void fromAndUntilBoundTheRule() {
+        RecurrenceRule rule = RecurrenceRule.of("FROM=2026-03-01;UNTIL=2026-03-10", 0);
+
+        assertFalse(rule.runsOn(day("2026-02-28")));
+        assertTrue(rule.runsOn(day("2026-03-01")));
+        assertTrue(rule.runsOn(day("2026-03-10")));
+        assertFalse(rule.runsOn(day("2026-03-11")));
+        assertEquals(day("2026-03-01"), rule.nextRunDay(day("2026-01-01")));
+        assertEquals(RecurrenceRule.NONE, rule.nextRunDay(day("2026-03-11")));
+    }
+
+    @Test
+    public void nextRunDayCrossesYearBoundary() {
+        RecurrenceRule exceptions = RecurrenceRule.of("EXDATE=2026-12-31,2027-01-01", 0);
+        assertEquals(day("2027-01-02"), exceptions.nextRunDay(day("2026-12-31")));
+
+        // 2026-12-29 是周二，下一个周一在 2027 年
+        RecurrenceRule mondays = RecurrenceRule.of("FROM=2026-01-01", TaskEntity.MONDAY);
+        assertEquals(day("2027-01-04"), mondays.nextRunDay(day("2026-12-29")));
+
+        // 闰年最后一天是当年的第 366 位
+        RecurrenceRule everyday = RecurrenceRule.of("FROM=2028-01-01", 0);
+        assertEquals(day("2028-12-31"), everyday.nextRunDay(day("2028-12-31")));
+        assertTrue(everyday.runsOn(day("2028-12-31")));
+        assertEquals(day("2029-01-01"), everyday.nextRunDay(day("2028-12-31") + 1));
+    }
+
+    @Test
+    public void intervalSpansYearBoundary() {
+        // 2026-12-28 周一为第一周，隔周的下一个周一是 2027-01-11
+        RecurrenceRule rule = RecurrenceRule.of("INTERVAL=2;FROM=2026-12-28", TaskEntity.MONDAY);
+
+        assertTrue(rule.runsOn(day("2026-12-28")));
+        assertFalse(rule.runsOn(day("2027-01-04")));
+        assertEquals(day("2027-01-11"), rule.nextRunDay(day("2026-12-29")));
+    }
+
+    @Test
+    public void invalidRulesAreRejected() {
+        assertNull(RecurrenceRule.of("INTERVAL=0", 0));
+        assertNull(RecurrenceRule.of("INTERVAL=x", 0));
+        assertNull(RecurrenceRule.of("FROM=2026-13-01", 0));
+        assertNull(RecurrenceRule.of("EXDATE=2026-05-01,05-02", 0));
+        assertNull(RecurrenceRule.of("COUNT=3", 0));
+        assertNull(RecurrenceRule.of("INTERVAL", 0));
+    }
+
+    @Test
+    public void rulesAreSharedAndFormatted() {
+        String text = "INTERVAL=2;FROM=2026-01-05;UNTIL=2026-12-31;EXDATE=2026-05-01,2026-10-01";
+        RecurrenceRule rule = RecurrenceRule.of(text, TaskEntity.MONDAY);
+
+        assertNotNull(rule);
+        assertSame(rule, RecurrenceRule.of(text, TaskEntity.MONDAY));
+        assertEquals(text, rule.toString());
+        assertEquals(day("2026-01-05"), rule.getFromDay());
+        assertEquals(day("2026-12-31"), rule.getUntilDay());
+        assertEquals(2, rule.getExceptionDays().length);
+        assertEquals(RecurrenceRule.NONE, RecurrenceRule.of("INTERVAL=3", 0).getUntilDay());
+    }
+
+    @Test
+    public void taskWithoutRepeatDaysIgnoresRule() {
+        TaskEntity task = new TaskEntity();
+        task.setRepeatDays(0);
+        task.setRecurrenceRule("INTERVAL=2");
+        assertNull(RecurrenceRule.of(task));
+
+        task.setRepeatDays(TaskEntity.FRIDAY);
+        assertEquals(2, RecurrenceRule.of(task).getWeekInterval());
+    }
+
+    private static int day(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+}
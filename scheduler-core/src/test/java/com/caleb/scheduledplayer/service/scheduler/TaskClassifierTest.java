@@ -0,0 +1,106 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+
+import org.junit.Test;
+
+/**
+ * 任务分类和时间解析测试
+ */
+public class TaskClassifierTest {
+
+    @Test
+    public void classifiesEveryTaskType() {
+        int weekdays = TaskEntity.MONDAY | TaskEntity.WEDNESDAY;
+
+        assertEquals(TaskType.ONE_TIME_NORMAL, TaskClassifier.classify(task(0, "09:00", "10:00", false)));
+        assertEquals(TaskType.ONE_TIME_CROSS_DAY, TaskClassifier.classify(task(0, "22:00", "02:00", false)));
+        assertEquals(TaskType.ONE_TIME_ALL_DAY, TaskClassifier.classify(task(0, "22:00", "02:00", true)));
+        assertEquals(TaskType.REPEAT_NORMAL, TaskClassifier.classify(task(weekdays, "09:00", "10:00", false)));
+        assertEquals(TaskType.REPEAT_CROSS_DAY, TaskClassifier.classify(task(weekdays, "22:00", "02:00", false)));
+        assertEquals(TaskType.REPEAT_ALL_DAY, TaskClassifier.classify(task(weekdays, "09:00", "10:00", true)));
+        assertEquals(TaskType.EVERYDAY_NORMAL, TaskClassifier.classify(task(TaskEntity.EVERYDAY, "09:00", "10:00", false)));
+        assertEquals(TaskType.EVERYDAY_CROSS_DAY, TaskClassifier.classify(task(TaskEntity.EVERYDAY, "22:00", "02:00", false)));
+        // 每天全天与重复全天统一处理
+        assertEquals(TaskType.REPEAT_ALL_DAY, TaskClassifier.classify(task(TaskEntity.EVERYDAY, "00:00", "00:00", true)));
+    }
+
+    @Test
+    public void everydayTaskWithRecurrenceRuleIsPlainRepeat() {
+        TaskEntity normal = task(TaskEntity.EVERYDAY, "09:00", "10:00", false);
+        normal.setRecurrenceRule("INTERVAL=2");
+        TaskEntity crossDay = task(TaskEntity.EVERYDAY, "22:00", "02:00", false);
+        crossDay.setRecurrenceRule("EXDATE=2026-05-01");
+
+        assertEquals(TaskType.REPEAT_NORMAL, TaskClassifier.classify(normal));
+        assertEquals(TaskType.REPEAT_CROSS_DAY, TaskClassifier.classify(crossDay));
+    }
+
+    @Test
+    public void crossDayRequiresEndBeforeStart() {
+        assertTrue(TaskClassifier.isCrossDayTask(task(TaskEntity.EVERYDAY, "23:59", "00:00", false)));
+        assertFalse(TaskClassifier.isCrossDayTask(task(TaskEntity.EVERYDAY, "08:00", "08:00", false)));
+        assertFalse(TaskClassifier.isCrossDayTask(task(TaskEntity.EVERYDAY, "00:00", "23:59", false)));
+        // 全天播放不存在跨天
+        assertFalse(TaskClassifier.isCrossDayTask(task(TaskEntity.EVERYDAY, "22:00", "02:00", true)));
+        // 时间无法解析时视为非跨天
+        assertFalse(TaskClassifier.isCrossDayTask(task(TaskEntity.EVERYDAY, "22:00", "bad", false)));
+    }
+
+    @Test
+    public void parsesTimeStrings() {
+        assertEquals(0, TaskClassifier.parseTimeToMinutes("00:00"));
+        assertEquals(23 * 60 + 59, TaskClassifier.parseTimeToMinutes("23:59"));
+        assertEquals(7 * 60 + 5, TaskClassifier.parseTimeToMinutes(" 7:05"));
+
+        assertEquals(-1, TaskClassifier.parseTimeToMinutes(null));
+        assertEquals(-1, TaskClassifier.parseTimeToMinutes(""));
+        assertEquals(-1, TaskClassifier.parseTimeToMinutes("24:00"));
+        assertEquals(-1, TaskClassifier.parseTimeToMinutes("12:60"));
+        assertEquals(-1, TaskClassifier.parseTimeToMinutes("12"));
+        assertEquals(-1, TaskClassifier.parseTimeToMinutes("ab:cd"));
+    }
+
+    @Test
+    public void formatsMinutes() {
+        assertEquals("00:00", TaskClassifier.minutesToTimeString(0));
+        assertEquals("07:05", TaskClassifier.minutesToTimeString(7 * 60 + 5));
+        // 超过一天按当天时刻显示
+        assertEquals("01:01", TaskClassifier.minutesToTimeString(WeeklySchedule.MINUTES_PER_DAY + 61));
+    }
+
+    @Test
+    public void derivedFieldsAreStoredAndReused() {
+        TaskEntity task = task(TaskEntity.MONDAY, "08:30", "bad", false);
+        TaskClassifier.refreshDerivedFields(task);
+
+        assertEquals(8 * 60 + 30, task.getStartMinutes());
+        assertEquals(TaskEntity.MINUTES_INVALID, task.getEndMinutes());
+        assertEquals(-1, TaskClassifier.getEndMinutes(task));
+        assertEquals(TaskType.REPEAT_NORMAL.getValue(), task.getTaskType());
+
+        // 分类优先使用已存储的类型
+        task.setTaskType(TaskType.EVERYDAY_CROSS_DAY.getValue());
+        assertEquals(TaskType.EVERYDAY_CROSS_DAY, TaskClassifier.classify(task));
+
+        // 修改源字段后重新计算
+        task.setEndTime("07:00");
+        assertEquals(TaskType.REPEAT_CROSS_DAY, TaskClassifier.classify(task));
+        assertEquals(7 * 60, TaskClassifier.getEndMinutes(task));
+    }
+
+    private static TaskEntity task(int repeatDays, String start, String end, boolean allDay) {
+        TaskEntity task = new TaskEntity();
+        task.setName("test");
+        task.setEnabled(true);
+        task.setRepeatDays(repeatDays);
+        task.setStartTime(start);
+        task.setEndTime(end);
+        task.setAllDayPlay(allDay);
+        return task;
+    }
+}
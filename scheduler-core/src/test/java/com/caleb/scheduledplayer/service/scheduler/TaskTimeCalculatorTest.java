@@ -0,0 +1,180 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * 任务时间计算测试：活跃判断、下次开始时间和结束时间
+ * 固定使用 Asia/Shanghai 时区，2026-03-02 是周一
+ */
+public class TaskTimeCalculatorTest {
+
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalZone);
+    }
+
+    @Test
+    public void normalTaskIsActiveInsideRangeOnRepeatDay() {
+        TaskEntity task = task(TaskEntity.MONDAY, "09:00", "10:00", false);
+
+        TimeCheckResult inside = TaskTimeCalculator.shouldBeActiveAt(task, at(2, 9, 30));
+        assertTrue(inside.isActive());
+        assertEquals(TimeCheckResult.ActiveReason.IN_NORMAL_RANGE, inside.getReason());
+        assertEquals(at(2, 10, 0), inside.getEffectiveEndTime());
+
+        assertReason(TimeCheckResult.ActiveReason.NOT_IN_RANGE, task, at(2, 10, 0));
+        assertReason(TimeCheckResult.ActiveReason.NOT_IN_RANGE, task, at(2, 8, 59));
+        assertReason(TimeCheckResult.ActiveReason.NOT_REPEAT_DAY, task, at(3, 9, 30));
+    }
+
+    @Test
+    public void crossDayMorningBelongsToPreviousDay() {
+        TaskEntity task = task(TaskEntity.FRIDAY, "22:00", "02:00", false);
+
+        // 周五晚间部分在周六 02:00 结束
+        TimeCheckResult evening = TaskTimeCalculator.shouldBeActiveAt(task, at(6, 23, 0));
+        assertTrue(evening.isActive());
+        assertEquals(TimeCheckResult.ActiveReason.IN_CROSS_DAY_EVENING, evening.getReason());
+        assertEquals(at(7, 2, 0), evening.getEffectiveEndTime());
+
+        TimeCheckResult morning = TaskTimeCalculator.shouldBeActiveAt(task, at(7, 1, 0));
+        assertTrue(morning.isActive());
+        assertEquals(TimeCheckResult.ActiveReason.IN_CROSS_DAY_MORNING, morning.getReason());
+        assertEquals(at(7, 2, 0), morning.getEffectiveEndTime());
+
+        // 周五凌晨属于周四的执行，周四不在重复日中
+        assertReason(TimeCheckResult.ActiveReason.NOT_REPEAT_DAY, task, at(6, 1, 0));
+        assertReason(TimeCheckResult.ActiveReason.NOT_IN_RANGE, task, at(6, 12, 0));
+    }
+
+    @Test
+    public void oneTimeCrossDayMorningNeedsExecutionState() {
+        TaskEntity task = task(0, "22:00", "02:00", false);
+
+        assertReason(TimeCheckResult.ActiveReason.ONE_TIME_MORNING_NO_STATE, task, at(3, 1, 0));
+
+        task.setExecutionStateEnum(TaskExecutionState.EXECUTING);
+        TimeCheckResult resumed = TaskTimeCalculator.shouldBeActiveAt(task, at(3, 1, 0));
+        assertTrue(resumed.isActive());
+        assertEquals(TimeCheckResult.ActiveReason.IN_CROSS_DAY_MORNING, resumed.getReason());
+    }
+
+    @Test
+    public void allDayTaskEndsAfterMidnight() {
+        TaskEntity task = task(TaskEntity.MONDAY, "00:00", "00:00", true);
+
+        TimeCheckResult result = TaskTimeCalculator.shouldBeActiveAt(task, at(2, 12, 0));
+        assertTrue(result.isActive());
+        assertEquals(TimeCheckResult.ActiveReason.ALL_DAY_ACTIVE, result.getReason());
+        assertEquals(at(3, 0, 0) + 5000L, result.getEffectiveEndTime());
+
+        assertReason(TimeCheckResult.ActiveReason.ALL_DAY_NOT_TODAY, task, at(3, 12, 0));
+        assertEquals(at(9, 0, 0) + 5000L, TaskTimeCalculator.calculateNextAllDayStartTime(task, at(2, 12, 0)));
+    }
+
+    @Test
+    public void disabledTaskHasNoNextStart() {
+        TaskEntity task = task(TaskEntity.EVERYDAY, "09:00", "10:00", false);
+        task.setEnabled(false);
+
+        assertReason(TimeCheckResult.ActiveReason.TASK_DISABLED, task, at(2, 9, 30));
+        assertEquals(-1, TaskTimeCalculator.calculateNextStartTime(task, at(2, 8, 0)));
+    }
+
+    @Test
+    public void nextStartFollowsRepeatDays() {
+        TaskEntity task = task(TaskEntity.MONDAY | TaskEntity.WEDNESDAY, "09:00", "10:00", false);
+
+        assertEquals(at(2, 9, 0), TaskTimeCalculator.calculateNextStartTime(task, at(2, 8, 0)));
+        // 当前分钟已是开始时间则找下一次
+        assertEquals(at(4, 9, 0), TaskTimeCalculator.calculateNextStartTime(task, at(2, 9, 0)));
+        assertEquals(at(9, 9, 0), TaskTimeCalculator.calculateNextStartTime(task, at(4, 10, 0)));
+    }
+
+    @Test
+    public void oneTimeTaskOnlyStartsToday() {
+        TaskEntity task = task(0, "09:00", "10:00", false);
+
+        assertEquals(at(2, 9, 0), TaskTimeCalculator.calculateNextStartTime(task, at(2, 8, 0)));
+        assertEquals(-1, TaskTimeCalculator.calculateNextStartTime(task, at(2, 9, 30)));
+    }
+
+    @Test
+    public void recurrenceRuleLimitsActiveDaysAndNextStart() {
+        TaskEntity excluded = task(TaskEntity.EVERYDAY, "09:00", "10:00", false);
+        excluded.setRecurrenceRule("EXDATE=2026-03-03");
+
+        assertReason(TimeCheckResult.ActiveReason.NOT_REPEAT_DAY, excluded, at(3, 9, 30));
+        assertEquals(at(4, 9, 0), TaskTimeCalculator.calculateNextStartTime(excluded, at(2, 10, 0)));
+
+        TaskEntity biweekly = task(TaskEntity.MONDAY, "09:00", "10:00", false);
+        biweekly.setRecurrenceRule("INTERVAL=2;FROM=2026-03-02");
+
+        assertEquals(at(2, 9, 0), TaskTimeCalculator.calculateNextStartTime(biweekly, at(1, 12, 0)));
+        assertEquals(at(16, 9, 0), TaskTimeCalculator.calculateNextStartTime(biweekly, at(2, 10, 0)));
+        assertFalse(TaskTimeCalculator.shouldBeActiveAt(biweekly, at(9, 9, 30)).isActive());
+
+        // 跨天任务凌晨部分按前一天判断规则
+        TaskEntity crossDay = task(TaskEntity.EVERYDAY, "22:00", "02:00", false);
+        crossDay.setRecurrenceRule("EXDATE=2026-03-02");
+        assertReason(TimeCheckResult.ActiveReason.NOT_REPEAT_DAY, crossDay, at(3, 1, 0));
+        assertTrue(TaskTimeCalculator.shouldBeActiveAt(crossDay, at(4, 1, 0)).isActive());
+    }
+
+    @Test
+    public void endTimeForStartAddsDayForCrossDay() {
+        TaskEntity normal = task(TaskEntity.FRIDAY, "09:00", "10:00", false);
+        TaskEntity crossDay = task(TaskEntity.FRIDAY, "22:00", "02:00", false);
+        TaskEntity allDay = task(TaskEntity.FRIDAY, "00:00", "00:00", true);
+
+        assertEquals(at(6, 10, 0), TaskTimeCalculator.calculateEndTimeForStart(normal, at(6, 9, 0)));
+        assertEquals(at(7, 2, 0), TaskTimeCalculator.calculateEndTimeForStart(crossDay, at(6, 22, 0)));
+        assertEquals(at(7, 0, 0) + 5000L, TaskTimeCalculator.calculateEndTimeForStart(allDay, at(6, 0, 0)));
+    }
+
+    private static void assertReason(TimeCheckResult.ActiveReason expected, TaskEntity task, long now) {
+        TimeCheckResult result = TaskTimeCalculator.shouldBeActiveAt(task, now);
+        assertFalse(result.isActive());
+        assertEquals(expected, result.getReason());
+    }
+
+    /**
+     * 2026 年 3 月指定日期的本地时间
+     */
+    private static long at(int dayOfMonth, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2026, Calendar.MARCH, dayOfMonth, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    private static TaskEntity task(int repeatDays, String start, String end, boolean allDay) {
+        TaskEntity task = new TaskEntity();
+        task.setName("test");
+        task.setEnabled(true);
+        task.setRepeatDays(repeatDays);
+        task.setStartTime(start);
+        task.setEndTime(end);
+        task.setAllDayPlay(allDay);
+        return task;
+    }
+}
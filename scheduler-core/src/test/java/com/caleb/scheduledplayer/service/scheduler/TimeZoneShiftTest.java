@@ -0,0 +1,74 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * 时区变化影响范围测试
+ */
+public class TimeZoneShiftTest {
+
+    private static final long FROM = Instant.parse("2026-01-01T00:00:00Z").toEpochMilli();
+
+    @Test
+    public void sameOffsetZonesDoNotDiffer() {
+        assertTrue(ranges("Asia/Shanghai", "Asia/Shanghai").isEmpty());
+        assertTrue(ranges("Asia/Shanghai", "Asia/Singapore").isEmpty());
+        // 规则相同的夏令时时区
+        assertTrue(ranges("America/New_York", "America/Toronto").isEmpty());
+    }
+
+    @Test
+    public void fixedOffsetDifferenceCoversEverything() {
+        List<long[]> ranges = ranges("Asia/Shanghai", "Asia/Tokyo");
+
+        assertEquals(1, ranges.size());
+        assertArrayEquals(new long[]{FROM, Long.MAX_VALUE}, ranges.get(0));
+    }
+
+    @Test
+    public void daylightSavingOnlyDifferenceCoversSummerTime() {
+        // 纽约冬令时与波哥大同为 UTC-5，只有夏令时期间不同
+        List<long[]> ranges = ranges("America/New_York", "America/Bogota");
+
+        assertEquals(2, ranges.size());
+        assertArrayEquals(new long[]{at("2026-03-08T07:00:00Z"), at("2026-11-01T06:00:00Z")}, ranges.get(0));
+        assertArrayEquals(new long[]{at("2027-03-14T07:00:00Z"), at("2027-11-07T06:00:00Z")}, ranges.get(1));
+    }
+
+    @Test
+    public void startingInsideDifferenceBeginsAtFrom() {
+        long summer = at("2026-07-01T00:00:00Z");
+        List<long[]> ranges = TimeZoneShift.differingRanges(
+                ZoneId.of("America/New_York"), ZoneId.of("America/Bogota"), summer);
+
+        assertArrayEquals(new long[]{summer, at("2026-11-01T06:00:00Z")}, ranges.get(0));
+    }
+
+    @Test
+    public void alwaysDifferentOffsetsMergeIntoOneRange() {
+        // 伦敦与纽约的夏令时切换日期不同，偏移差在切换之间变化，但始终不为零，合并为一个范围
+        List<long[]> ranges = ranges("Europe/London", "America/New_York");
+
+        assertEquals(1, ranges.size());
+        assertArrayEquals(new long[]{FROM, Long.MAX_VALUE}, ranges.get(0));
+
+        // 规则相同的欧洲时区
+        assertTrue(ranges("Europe/London", "Europe/Lisbon").isEmpty());
+    }
+
+    private static List<long[]> ranges(String oldZone, String newZone) {
+        return TimeZoneShift.differingRanges(ZoneId.of(oldZone), ZoneId.of(newZone), FROM);
+    }
+
+    private static long at(String instant) {
+        return Instant.parse(instant).toEpochMilli();
+    }
+}
@@ -0,0 +1,313 @@
+package com.caleb.scheduledplayer.service.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.caleb.scheduledplayer.data.entity.TaskEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * 周位图实现与原 Calendar 实现的对比测试
+ * 在连续多天的每一分钟比较 shouldBeActiveNow 与 calculateNextStartTime 的结果，覆盖所有任务类型
+ */
+public class WeeklyScheduleTest {
+
+    private static final long MINUTE_MS = 60 * 1000L;
+
+    private TimeZone originalZone;
+    private long now;
+
+    @Before
+    public void setUp() {
+        originalZone = TimeZone.getDefault();
+        SchedulerClock.setTimeSource(() -> now);
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalZone);
+        SchedulerClock.reset();
+    }
+
+    @Test
+    public void matchesCalendarImplementationForAllTaskTypes() {
+        List<TaskEntity> tasks = allTypeTasks();
+        Set<TaskType> covered = EnumSet.noneOf(TaskType.class);
+        for (TaskEntity task : tasks) {
+            covered.add(TaskClassifier.classify(task));
+        }
+        assertEquals(EnumSet.allOf(TaskType.class), covered);
+
+        // 2026-03-02 是周一
+        compareOverDays("Asia/Shanghai", 2026, Calendar.MARCH, 2, 9, tasks);
+    }
+
+    @Test
+    public void matchesCalendarImplementationAcrossDstChange() {
+        // 2026-03-08 美国夏令时开始，2026-11-01 结束
+        compareOverDays("America/New_York", 2026, Calendar.MARCH, 5, 6, allTypeTasks());
+        compareOverDays("America/New_York", 2026, Calendar.OCTOBER, 29, 6, allTypeTasks());
+    }
+
+    @Test
+    public void crossDaySundayTaskContinuesIntoMonday() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        TaskEntity task = task(TaskEntity.SUNDAY, "23:00", "01:30", false);
+
+        // 周一 00:30 属于周日的执行
+        now = localTime(2026, Calendar.MARCH, 9, 0, 30);
+        TimeCheckResult monday = TaskTimeCalculator.shouldBeActiveNow(task);
+        assertTrue(monday.isActive());
+        assertEquals(TimeCheckResult.ActiveReason.IN_CROSS_DAY_MORNING, monday.getReason());
+        assertEquals(localTime(2026, Calendar.MARCH, 9, 1, 30), monday.getEffectiveEndTime());
+
+        // 周一 01:30 之后、周日 23:00 之前都不活跃，下一次开始是下周日
+        now = localTime(2026, Calendar.MARCH, 9, 1, 30);
+        assertFalse(TaskTimeCalculator.shouldBeActiveNow(task).isActive());
+        assertEquals(localTime(2026, Calendar.MARCH, 15, 23, 0), TaskTimeCalculator.calculateNextStartTime(task));
+
+        // 周六凌晨不活跃（前一天周五不是执行日）
+        now = localTime(2026, Calendar.MARCH, 14, 0, 30);
+        assertEquals(TimeCheckResult.ActiveReason.NOT_REPEAT_DAY,
+                TaskTimeCalculator.shouldBeActiveNow(task).getReason());
+    }
+
+    @Test
+    public void oneTimeTasks() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        TaskEntity normal = task(0, "09:00", "12:00", false);
+        TaskEntity crossDay = task(0, "22:00", "02:00", false);
+
+        now = localTime(2026, Calendar.MARCH, 4, 8, 59);
+        assertEquals(localTime(2026, Calendar.MARCH, 4, 9, 0), TaskTimeCalculator.calculateNextStartTime(normal));
+        now = localTime(2026, Calendar.MARCH, 4, 9, 0);
+        assertEquals(-1, TaskTimeCalculator.calculateNextStartTime(normal));
+        assertTrue(TaskTimeCalculator.shouldBeActiveNow(normal).isActive());
+
+        // 一次性跨天任务的凌晨部分：没有执行状态时不恢复，执行中时恢复
+        now = localTime(2026, Calendar.MARCH, 5, 1, 0);
+        assertEquals(TimeCheckResult.ActiveReason.ONE_TIME_MORNING_NO_STATE,
+                TaskTimeCalculator.shouldBeActiveNow(crossDay).getReason());
+        crossDay.setExecutionStateEnum(TaskExecutionState.EXECUTING);
+        TimeCheckResult resumed = TaskTimeCalculator.shouldBeActiveNow(crossDay);
+        assertTrue(resumed.isActive());
+        assertEquals(localTime(2026, Calendar.MARCH, 5, 2, 0), resumed.getEffectiveEndTime());
+    }
+
+    // ==================== 对比 ====================
+
+    private void compareOverDays(String zoneId, int year, int month, int day, int days, List<TaskEntity> tasks) {
+        TimeZone.setDefault(TimeZone.getTimeZone(zoneId));
+        long from = localTime(year, month, day, 0, 0);
+        long to = from + days * 24 * 60 * MINUTE_MS;
+        for (long time = from; time < to; time += MINUTE_MS) {
+            // 整分钟和分钟中间各比较一次
+            compareAt(time, tasks);
+            compareAt(time + 30 * 1000L, tasks);
+        }
+    }
+
+    private void compareAt(long time, List<TaskEntity> tasks) {
+        now = time;
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        for (TaskEntity task : tasks) {
+            String label = TaskClassifier.getTaskDescription(task) + " state=" + task.getExecutionState()
+                    + " at " + calendar.getTime();
+            TimeCheckResult expected = CalendarReference.shouldBeActiveNow(task, calendar);
+            TimeCheckResult actual = TaskTimeCalculator.shouldBeActiveNow(task);
+            assertEquals(label, expected.isActive(), actual.isActive());
+            assertEquals(label, expected.getReason(), actual.getReason());
+            assertEquals(label, expected.getEffectiveEndTime(), actual.getEffectiveEndTime());
+            long expectedNext = CalendarReference.calculateNextStartTime(task, calendar);
+            long actualNext = TaskTimeCalculator.calculateNextStartTime(task);
+            if (expectedNext > 0 && wallMinutes(expectedNext) != TaskClassifier.getStartMinutes(task)) {
+                // 原实现在夏令时切换附近偏离了开始时间（Calendar.add 跨过切换时保留了绝对时长，提前或推后一小时）；
+                // 新实现落在设定的墙上时间，只有该时间被跳过时才顺延到切换之后
+                long savings = calendar.getTimeZone().getDSTSavings();
+                int startMinutes = TaskClassifier.getStartMinutes(task);
+                int actualMinutes = wallMinutes(actualNext);
+                assertTrue(label, actualMinutes == startMinutes || actualMinutes == startMinutes + savings / MINUTE_MS);
+                assertTrue(label, Math.abs(actualNext - expectedNext) <= savings);
+            } else {
+                assertEquals(label, expectedNext, actualNext);
+            }
+        }
+    }
+
+    private static int wallMinutes(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        return calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+    }
+
+    private static List<TaskEntity> allTypeTasks() {
+        List<TaskEntity> tasks = new ArrayList<>();
+        tasks.add(task(0, "09:00", "12:00", false));
+        tasks.add(task(0, "22:00", "02:00", false));
+        TaskEntity executingCrossDay = task(0, "22:00", "02:00", false);
+        executingCrossDay.setExecutionStateEnum(TaskExecutionState.EXECUTING);
+        tasks.add(executingCrossDay);
+        tasks.add(task(0, "00:00", "00:00", true));
+        tasks.add(task(TaskEntity.MONDAY | TaskEntity.WEDNESDAY | TaskEntity.FRIDAY, "08:30", "17:45", false));
+        tasks.add(task(TaskEntity.SUNDAY, "23:00", "01:30", false));
+        tasks.add(task(TaskEntity.FRIDAY | TaskEntity.SATURDAY, "22:00", "02:00", false));
+        tasks.add(task(TaskEntity.SATURDAY | TaskEntity.SUNDAY, "07:00", "07:00", true));
+        tasks.add(task(TaskEntity.EVERYDAY, "06:00", "07:00", false));
+        tasks.add(task(TaskEntity.EVERYDAY, "20:00", "04:00", false));
+        // 夏令时切换时段（美国 02:00-03:00）内的开始时间
+        tasks.add(task(TaskEntity.EVERYDAY, "02:30", "05:00", false));
+        return tasks;
+    }
+
+    private static TaskEntity task(int repeatDays, String start, String end, boolean allDay) {
+        TaskEntity task = new TaskEntity();
+        task.setName("task");
+        task.setEnabled(true);
+        task.setRepeatDays(repeatDays);
+        task.setStartTime(start);
+        task.setEndTime(end);
+        task.setAllDayPlay(allDay);
+        return task;
+    }
+
+    private static long localTime(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * 原 Calendar 实现（周位图之前的版本），当前时间由参数传入
+     */
+    private static final class CalendarReference {
+
+        static TimeCheckResult shouldBeActiveNow(TaskEntity task, Calendar now) {
+            if (!task.isEnabled()) {
+                return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.TASK_DISABLED);
+            }
+            switch (TaskClassifier.classify(task)) {
+                case ONE_TIME_ALL_DAY:
+                case REPEAT_ALL_DAY:
+                    if (TaskTimeCalculator.shouldExecuteOnDay(task.getRepeatDays(), now)) {
+                        return TimeCheckResult.active(TimeCheckResult.ActiveReason.ALL_DAY_ACTIVE,
+                                midnightCheckTime(now));
+                    }
+                    return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.ALL_DAY_NOT_TODAY);
+                case ONE_TIME_CROSS_DAY:
+                case REPEAT_CROSS_DAY:
+                case EVERYDAY_CROSS_DAY:
+                    return checkCrossDay(task, now);
+                default:
+                    return checkNormal(task, now);
+            }
+        }
+
+        private static TimeCheckResult checkNormal(TaskEntity task, Calendar now) {
+            int current = now.get(Calendar.HOUR_OF_DAY) * 60 + now.get(Calendar.MINUTE);
+            int start = minutes(task.getStartTime());
+            int end = minutes(task.getEndTime());
+            if (current >= start && current < end) {
+                if (TaskTimeCalculator.shouldExecuteOnDay(task.getRepeatDays(), now)) {
+                    return TimeCheckResult.active(TimeCheckResult.ActiveReason.IN_NORMAL_RANGE,
+                            timeOfDay(now, 0, end));
+                }
+                return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.NOT_REPEAT_DAY);
+            }
+            return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.NOT_IN_RANGE);
+        }
+
+        private static TimeCheckResult checkCrossDay(TaskEntity task, Calendar now) {
+            int current = now.get(Calendar.HOUR_OF_DAY) * 60 + now.get(Calendar.MINUTE);
+            int start = minutes(task.getStartTime());
+            int end = minutes(task.getEndTime());
+            if (current >= start) {
+                if (TaskTimeCalculator.shouldExecuteOnDay(task.getRepeatDays(), now)) {
+                    return TimeCheckResult.active(TimeCheckResult.ActiveReason.IN_CROSS_DAY_EVENING,
+                            timeOfDay(now, 1, end));
+                }
+                return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.NOT_REPEAT_DAY);
+            }
+            if (current < end) {
+                if (TaskClassifier.classify(task) == TaskType.ONE_TIME_CROSS_DAY) {
+                    TaskExecutionState state = task.getExecutionStateEnum();
+                    if (state == TaskExecutionState.EXECUTING || state == TaskExecutionState.PAUSED) {
+                        return TimeCheckResult.active(TimeCheckResult.ActiveReason.IN_CROSS_DAY_MORNING,
+                                timeOfDay(now, 0, end));
+                    }
+                    return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.ONE_TIME_MORNING_NO_STATE);
+                }
+                Calendar yesterday = (Calendar) now.clone();
+                yesterday.add(Calendar.DAY_OF_YEAR, -1);
+                if (TaskTimeCalculator.shouldExecuteOnDay(task.getRepeatDays(), yesterday)) {
+                    return TimeCheckResult.active(TimeCheckResult.ActiveReason.IN_CROSS_DAY_MORNING,
+                            timeOfDay(now, 0, end));
+                }
+                return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.NOT_REPEAT_DAY);
+            }
+            return TimeCheckResult.inactive(TimeCheckResult.ActiveReason.NOT_IN_RANGE);
+        }
+
+        static long calculateNextStartTime(TaskEntity task, Calendar now) {
+            if (!task.isEnabled()) {
+                return -1;
+            }
+            Calendar start = (Calendar) now.clone();
+            int startMinutes = minutes(task.getStartTime());
+            start.set(Calendar.HOUR_OF_DAY, startMinutes / 60);
+            start.set(Calendar.MINUTE, startMinutes % 60);
+            start.set(Calendar.SECOND, 0);
+            start.set(Calendar.MILLISECOND, 0);
+
+            if (TaskClassifier.classify(task).isOneTime()) {
+                return start.getTimeInMillis() > now.getTimeInMillis() ? start.getTimeInMillis() : -1;
+            }
+            if (start.getTimeInMillis() <= now.getTimeInMillis()) {
+                start.add(Calendar.DAY_OF_YEAR, 1);
+            }
+            for (int i = 0; i < 7; i++) {
+                if (TaskTimeCalculator.shouldExecuteOnDay(task.getRepeatDays(), start)) {
+                    return start.getTimeInMillis();
+                }
+                start.add(Calendar.DAY_OF_YEAR, 1);
+            }
+            return -1;
+        }
+
+        private static int minutes(String time) {
+            return Math.max(TaskClassifier.parseTimeToMinutes(time), 0);
+        }
+
+        private static long timeOfDay(Calendar now, int dayOffset, int minutes) {
+            Calendar time = (Calendar) now.clone();
+            time.add(Calendar.DAY_OF_YEAR, dayOffset);
+            time.set(Calendar.HOUR_OF_DAY, minutes / 60);
+            time.set(Calendar.MINUTE, minutes % 60);
+            time.set(Calendar.SECOND, 0);
+            time.set(Calendar.MILLISECOND, 0);
+            return time.getTimeInMillis();
+        }
+
+        private static long midnightCheckTime(Calendar now) {
+            Calendar midnight = (Calendar) now.clone();
+            midnight.add(Calendar.DAY_OF_YEAR, 1);
+            midnight.set(Calendar.HOUR_OF_DAY, 0);
+            midnight.set(Calendar.MINUTE, 0);
+            midnight.set(Calendar.SECOND, 5);
+            midnight.set(Calendar.MILLISECOND, 0);
+            return midnight.getTimeInMillis();
+        }
+    }
+}